@@ -1,5 +1,6 @@
 package com.the_qa_company.qendpoint.controller;
 
+import com.the_qa_company.qendpoint.store.EndpointStore;
 import com.the_qa_company.qendpoint.store.EndpointStoreUtils;
 import com.the_qa_company.qendpoint.store.exception.EndpointStoreInputException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -50,15 +51,17 @@ public class EndpointController {
 			@RequestHeader(value = "QueryConfig", defaultValue = "") String queryConfig,
 			@RequestHeader(value = "timeout", defaultValue = "-1") int timeout,
 			@RequestHeader(value = "Content-Type", defaultValue = "text/plain") String content,
+			@RequestHeader(value = "Cache-Control", defaultValue = "") String cacheControl,
 
 			@RequestBody(required = false) String body, HttpServletResponse response) throws IOException {
 		try {
+			String config = withCacheControl(queryConfig, cacheControl);
 			if (query != null) {
 				sparql.execute(query, timeout, acceptHeader, acceptLanguageHeader, response::setContentType,
-						response.getOutputStream(), queryConfig);
+						response.getOutputStream(), config);
 			} else if (body != null && content.equals("application/sparql-query")) {
 				sparql.execute(body, timeout, acceptHeader, acceptLanguageHeader, response::setContentType,
-						response.getOutputStream(), queryConfig);
+						response.getOutputStream(), config);
 			} else if (updateQuery != null) {
 				sparql.executeUpdate(updateQuery, timeout, response.getOutputStream());
 			} else if (body != null) {
@@ -71,6 +74,25 @@ public class EndpointController {
 		}
 	}
 
+	/**
+	 * add the no cache config to the query config if the cache control header
+	 * asks to bypass the caches
+	 *
+	 * @param queryConfig  query config
+	 * @param cacheControl cache control header
+	 * @return query config
+	 */
+	private static String withCacheControl(String queryConfig, String cacheControl) {
+		String cc = cacheControl.toLowerCase();
+		if (!cc.contains("no-cache") && !cc.contains("no-store")) {
+			return queryConfig;
+		}
+		if (queryConfig.isEmpty()) {
+			return EndpointStore.QUERY_CONFIG_NO_CACHE;
+		}
+		return queryConfig + ";" + EndpointStore.QUERY_CONFIG_NO_CACHE;
+	}
+
 	@RequestMapping(value = "/update")
 	public void sparqlUpdate(@RequestParam(value = "query") final String query,
 			@RequestParam(value = "format", defaultValue = "json") final String format,
@@ -29,8 +29,10 @@ import com.the_qa_company.qendpoint.core.triples.TripleString;
 import com.the_qa_company.qendpoint.core.util.StopWatch;
 import com.the_qa_company.qendpoint.core.util.io.CloseSuppressPath;
 import com.the_qa_company.qendpoint.core.util.io.IOUtil;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebInputException;
@@ -247,6 +249,9 @@ public class Sparql {
 	@Value("${qendpoint.client}")
 	boolean client;
 
+	@Autowired(required = false)
+	MeterRegistry meterRegistry;
+
 	EndpointStore endpoint;
 	CompiledSail compiledSail;
 	SparqlRepository sparqlRepository;
@@ -447,6 +452,10 @@ public class Sparql {
 
 			if (source instanceof EndpointStore) {
 				endpoint = (EndpointStore) source;
+				if (meterRegistry != null) {
+					// export the store metrics with the actuator
+					endpoint.setMeterRegistry(meterRegistry);
+				}
 			} else {
 				assert !compiledSail.getOptions().getStorageMode().equals(SailCompilerSchema.ENDPOINTSTORE_STORAGE);
 			}
@@ -0,0 +1,203 @@
+package com.the_qa_company.qendpoint.benchmark;
+
+import com.the_qa_company.qendpoint.core.triples.TripleString;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Generator of a dataset with the shape of the Berlin SPARQL Benchmark
+ * (products, producers, features, vendors, offers, reviews and persons) to run
+ * BSBM-like queries, the dataset is generated from a seed and a number of
+ * products.
+ *
+ * @author Antoine Willerval
+ */
+public class BSBMDataset {
+	public static final String RDF = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+	public static final String RDFS = "http://www.w3.org/2000/01/rdf-schema#";
+	public static final String XSD = "http://www.w3.org/2001/XMLSchema#";
+	public static final String DC = "http://purl.org/dc/elements/1.1/";
+	public static final String FOAF = "http://xmlns.com/foaf/0.1/";
+	public static final String REV = "http://purl.org/stuff/rev#";
+	public static final String BSBM = "http://www4.wiwiss.fu-berlin.de/bizer/bsbm/v01/vocabulary/";
+	public static final String INST = "http://www4.wiwiss.fu-berlin.de/bizer/bsbm/v01/instances/";
+
+	/**
+	 * prefixes of the queries
+	 */
+	public static final String PREFIXES = """
+			PREFIX rdf: <%s>
+			PREFIX rdfs: <%s>
+			PREFIX xsd: <%s>
+			PREFIX dc: <%s>
+			PREFIX foaf: <%s>
+			PREFIX rev: <%s>
+			PREFIX bsbm: <%s>
+			PREFIX inst: <%s>
+			""".formatted(RDF, RDFS, XSD, DC, FOAF, REV, BSBM, INST);
+
+	private static final String[] COUNTRIES = { "US", "GB", "DE", "FR", "JP", "CN", "RU", "ES", "AT", "KR" };
+	private static final LocalDate START_DATE = LocalDate.of(2008, 1, 1);
+
+	private final long products;
+	private final long seed;
+	private final int productTypes;
+	private final int productFeatures;
+	private final long producers;
+	private final long vendors;
+	private final long persons;
+
+	/**
+	 * create a dataset description
+	 *
+	 * @param products number of products
+	 * @param seed     generation seed
+	 */
+	public BSBMDataset(long products, long seed) {
+		if (products <= 0) {
+			throw new IllegalArgumentException("products should be positive!");
+		}
+		this.products = products;
+		this.seed = seed;
+		this.productTypes = (int) Math.max(4, Math.min(100, products / 100));
+		this.productFeatures = (int) Math.max(16, Math.min(1000, products / 10));
+		this.producers = Math.max(1, products / 50);
+		this.vendors = Math.max(1, products / 20);
+		this.persons = Math.max(1, products / 10);
+	}
+
+	private static String iri(String type, long id) {
+		return INST + type + id;
+	}
+
+	private static String str(String value) {
+		return "\"" + value + "\"";
+	}
+
+	private static String typed(Object value, String type) {
+		return "\"" + value + "\"^^<" + XSD + type + ">";
+	}
+
+	private static String country(Random rnd) {
+		return "http://downlode.org/rdf/iso-3166/countries#" + COUNTRIES[rnd.nextInt(COUNTRIES.length)];
+	}
+
+	private static String date(Random rnd) {
+		return typed(START_DATE.plusDays(rnd.nextInt(365 * 2)), "date");
+	}
+
+	/**
+	 * @return the number of products
+	 */
+	public long getProducts() {
+		return products;
+	}
+
+	/**
+	 * @return the number of product types
+	 */
+	public int getProductTypes() {
+		return productTypes;
+	}
+
+	/**
+	 * @return the number of product features
+	 */
+	public int getProductFeatures() {
+		return productFeatures;
+	}
+
+	/**
+	 * generate the triples of the dataset
+	 *
+	 * @param sink triple consumer
+	 */
+	public void generate(Consumer<TripleString> sink) {
+		Random rnd = new Random(seed);
+		for (int i = 1; i <= productTypes; i++) {
+			String type = iri("ProductType", i);
+			sink.accept(new TripleString(type, RDF + "type", BSBM + "ProductType"));
+			sink.accept(new TripleString(type, RDFS + "label", str("product type " + i)));
+		}
+		for (int i = 1; i <= productFeatures; i++) {
+			String feature = iri("ProductFeature", i);
+			sink.accept(new TripleString(feature, RDF + "type", BSBM + "ProductFeature"));
+			sink.accept(new TripleString(feature, RDFS + "label", str("product feature " + i)));
+		}
+		for (long i = 1; i <= producers; i++) {
+			String producer = iri("Producer", i);
+			sink.accept(new TripleString(producer, RDF + "type", BSBM + "Producer"));
+			sink.accept(new TripleString(producer, RDFS + "label", str("producer " + i)));
+			sink.accept(new TripleString(producer, BSBM + "country", country(rnd)));
+		}
+		for (long i = 1; i <= vendors; i++) {
+			String vendor = iri("Vendor", i);
+			sink.accept(new TripleString(vendor, RDF + "type", BSBM + "Vendor"));
+			sink.accept(new TripleString(vendor, RDFS + "label", str("vendor " + i)));
+			sink.accept(new TripleString(vendor, BSBM + "country", country(rnd)));
+		}
+		for (long i = 1; i <= persons; i++) {
+			String person = iri("Reviewer", i);
+			sink.accept(new TripleString(person, RDF + "type", FOAF + "Person"));
+			sink.accept(new TripleString(person, FOAF + "name", str("reviewer " + i)));
+			sink.accept(new TripleString(person, BSBM + "country", country(rnd)));
+		}
+
+		long offer = 0;
+		long review = 0;
+		for (long i = 1; i <= products; i++) {
+			String product = iri("Product", i);
+			sink.accept(new TripleString(product, RDF + "type", BSBM + "Product"));
+			sink.accept(new TripleString(product, RDF + "type", iri("ProductType", 1 + rnd.nextInt(productTypes))));
+			sink.accept(new TripleString(product, RDFS + "label", str("product " + i)));
+			sink.accept(new TripleString(product, BSBM + "producer", iri("Producer", 1 + (i % producers))));
+			int features = 3 + rnd.nextInt(5);
+			for (int j = 0; j < features; j++) {
+				sink.accept(new TripleString(product, BSBM + "productFeature",
+						iri("ProductFeature", 1 + rnd.nextInt(productFeatures))));
+			}
+			sink.accept(
+					new TripleString(product, BSBM + "productPropertyNumeric1", typed(rnd.nextInt(2000), "integer")));
+			sink.accept(
+					new TripleString(product, BSBM + "productPropertyNumeric2", typed(rnd.nextInt(2000), "integer")));
+			sink.accept(new TripleString(product, BSBM + "productPropertyTextual1", str("text " + rnd.nextInt(1000))));
+
+			int offers = 1 + rnd.nextInt(4);
+			for (int j = 0; j < offers; j++) {
+				String o = iri("Offer", ++offer);
+				sink.accept(new TripleString(o, RDF + "type", BSBM + "Offer"));
+				sink.accept(new TripleString(o, BSBM + "product", product));
+				sink.accept(new TripleString(o, BSBM + "vendor", iri("Vendor", 1 + rnd.nextInt((int) vendors))));
+				sink.accept(new TripleString(o, BSBM + "price", typed(rnd.nextInt(10000) / 100.0, "double")));
+				sink.accept(new TripleString(o, BSBM + "deliveryDays", typed(1 + rnd.nextInt(7), "integer")));
+				sink.accept(new TripleString(o, BSBM + "validTo", date(rnd)));
+			}
+
+			int reviews = rnd.nextInt(4);
+			for (int j = 0; j < reviews; j++) {
+				String r = iri("Review", ++review);
+				sink.accept(new TripleString(r, RDF + "type", REV + "Review"));
+				sink.accept(new TripleString(r, BSBM + "reviewFor", product));
+				sink.accept(new TripleString(r, REV + "reviewer", iri("Reviewer", 1 + rnd.nextInt((int) persons))));
+				sink.accept(new TripleString(r, BSBM + "rating1", typed(1 + rnd.nextInt(10), "integer")));
+				sink.accept(new TripleString(r, DC + "date", date(rnd)));
+				sink.accept(new TripleString(r, DC + "title", str("review " + review)));
+			}
+		}
+	}
+
+	/**
+	 * @return the triples of the dataset
+	 */
+	public Iterator<TripleString> createTripleStringStream() {
+		// the dataset is small enough to be buffered
+		List<TripleString> triples = new ArrayList<>();
+		generate(triples::add);
+		return triples.iterator();
+	}
+}
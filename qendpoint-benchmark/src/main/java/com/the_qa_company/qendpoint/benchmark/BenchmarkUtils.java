@@ -0,0 +1,103 @@
+package com.the_qa_company.qendpoint.benchmark;
+
+import com.the_qa_company.qendpoint.core.exceptions.ParserException;
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.hdt.HDTManager;
+import com.the_qa_company.qendpoint.core.listener.ProgressListener;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
+import com.the_qa_company.qendpoint.core.util.LargeFakeDataSetStreamSupplier;
+import com.the_qa_company.qendpoint.core.util.io.IOUtil;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Utilities to create the datasets used by the benchmarks
+ *
+ * @author Antoine Willerval
+ */
+public class BenchmarkUtils {
+	/**
+	 * seed of the generated datasets, the same seed is used to compare the runs
+	 */
+	public static final long SEED = 0x4445_4D4F;
+
+	private BenchmarkUtils() {
+	}
+
+	/**
+	 * create a work directory for a benchmark
+	 *
+	 * @param name benchmark name
+	 * @return directory
+	 * @throws IOException create exception
+	 */
+	public static Path createWorkDir(String name) throws IOException {
+		return Files.createTempDirectory("qep-bench-" + name);
+	}
+
+	/**
+	 * delete a work directory
+	 *
+	 * @param dir directory, can be null
+	 * @throws IOException delete exception
+	 */
+	public static void deleteWorkDir(Path dir) throws IOException {
+		if (dir != null && Files.exists(dir)) {
+			IOUtil.deleteDirRecurse(dir);
+		}
+	}
+
+	/**
+	 * @param triples number of triples
+	 * @return supplier of a synthetic dataset
+	 */
+	public static LargeFakeDataSetStreamSupplier createSupplier(long triples) {
+		// split the elements to have shared IRIs between the triples
+		return LargeFakeDataSetStreamSupplier.createSupplierWithMaxTriples(triples, SEED)
+				.withMaxElementSplit((int) Math.max(16, triples / 8)).withMaxLiteralSize(10);
+	}
+
+	/**
+	 * @param dictionaryType dictionary type
+	 * @return spec to generate a dataset
+	 */
+	public static HDTOptions createSpec(String dictionaryType) {
+		return HDTOptions.of(HDTOptionsKeys.DICTIONARY_TYPE_KEY, dictionaryType);
+	}
+
+	/**
+	 * generate a synthetic HDT and map it with its co-index
+	 *
+	 * @param dir            work directory
+	 * @param triples        number of triples
+	 * @param dictionaryType dictionary type
+	 * @return mapped HDT
+	 * @throws IOException     generation exception
+	 * @throws ParserException generation exception
+	 */
+	public static HDT createMappedHDT(Path dir, long triples, String dictionaryType)
+			throws IOException, ParserException {
+		return createMappedHDT(dir, triples, dictionaryType, HDTOptions.of());
+	}
+
+	/**
+	 * generate a synthetic HDT and map it with its co-index
+	 *
+	 * @param dir            work directory
+	 * @param triples        number of triples
+	 * @param dictionaryType dictionary type
+	 * @param mapSpec        options to map the HDT
+	 * @return mapped HDT
+	 * @throws IOException     generation exception
+	 * @throws ParserException generation exception
+	 */
+	public static HDT createMappedHDT(Path dir, long triples, String dictionaryType, HDTOptions mapSpec)
+			throws IOException, ParserException {
+		Path hdtPath = dir.resolve("dataset.hdt");
+		createSupplier(triples).createAndSaveFakeHDT(createSpec(dictionaryType), hdtPath);
+		return HDTManager.mapIndexedHDT(hdtPath, mapSpec, ProgressListener.ignore());
+	}
+}
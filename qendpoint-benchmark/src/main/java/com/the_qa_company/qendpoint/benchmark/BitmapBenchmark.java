@@ -0,0 +1,128 @@
+package com.the_qa_company.qendpoint.benchmark;
+
+import com.the_qa_company.qendpoint.core.compact.bitmap.Bitmap375Big;
+import com.the_qa_company.qendpoint.utils.BitArrayDisk;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the rank/select operations of the bitmap of the triples
+ * ({@link Bitmap375Big}) and of the delete bitmaps of the store
+ * ({@link BitArrayDisk})
+ *
+ * @author Antoine Willerval
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BitmapBenchmark {
+	private static final int SAMPLES = 1 << 12;
+
+	@Param({ "100000000" })
+	public long size;
+	/**
+	 * one bit every density bits in average
+	 */
+	@Param({ "2", "64" })
+	public int density;
+
+	private Path workDir;
+	private Bitmap375Big bitmap;
+	private BitArrayDisk bitArrayDisk;
+	private long[] positions;
+	private long[] ranks;
+	private int index;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		workDir = BenchmarkUtils.createWorkDir("bitmap");
+		bitmap = Bitmap375Big.memory(size);
+		bitArrayDisk = new BitArrayDisk(size, workDir.resolve("bitarray.bm").toFile());
+		Random rnd = new Random(BenchmarkUtils.SEED);
+		for (long i = 0; i < size; i++) {
+			if (rnd.nextInt(density) == 0) {
+				bitmap.set(i, true);
+				bitArrayDisk.set(i, true);
+			}
+		}
+		bitmap.updateIndex();
+
+		long ones = bitmap.countOnes();
+		positions = new long[SAMPLES];
+		ranks = new long[SAMPLES];
+		for (int i = 0; i < SAMPLES; i++) {
+			positions[i] = (long) (rnd.nextDouble() * size);
+			ranks[i] = 1 + (long) (rnd.nextDouble() * ones);
+		}
+		// build the rank/select directories before the measurements
+		bitArrayDisk.rank1(size - 1);
+		bitArrayDisk.select1(1);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		try {
+			if (bitmap != null) {
+				bitmap.close();
+			}
+			if (bitArrayDisk != null) {
+				bitArrayDisk.close();
+			}
+		} finally {
+			BenchmarkUtils.deleteWorkDir(workDir);
+		}
+	}
+
+	private int nextIndex() {
+		return index = (index + 1) & (SAMPLES - 1);
+	}
+
+	@Benchmark
+	public long bitmap375Rank1() {
+		return bitmap.rank1(positions[nextIndex()]);
+	}
+
+	@Benchmark
+	public long bitmap375Select1() {
+		return bitmap.select1(ranks[nextIndex()]);
+	}
+
+	@Benchmark
+	public boolean bitmap375Access() {
+		return bitmap.access(positions[nextIndex()]);
+	}
+
+	@Benchmark
+	public long bitArrayDiskRank1() {
+		return bitArrayDisk.rank1(positions[nextIndex()]);
+	}
+
+	@Benchmark
+	public long bitArrayDiskSelect1() {
+		return bitArrayDisk.select1(ranks[nextIndex()]);
+	}
+
+	@Benchmark
+	public boolean bitArrayDiskAccess() {
+		return bitArrayDisk.access(positions[nextIndex()]);
+	}
+}
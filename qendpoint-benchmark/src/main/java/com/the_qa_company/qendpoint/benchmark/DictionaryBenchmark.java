@@ -0,0 +1,141 @@
+package com.the_qa_company.qendpoint.benchmark;
+
+import com.the_qa_company.qendpoint.core.dictionary.Dictionary;
+import com.the_qa_company.qendpoint.core.enums.TripleComponentRole;
+import com.the_qa_company.qendpoint.core.exceptions.ParserException;
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the locate (string to id) and extract (id to string) operations
+ * of the mapped dictionaries. The concurrent benchmarks are run by
+ * {@value #THREADS} threads, with the dictionary cache their average time
+ * should stay close to the time of the single thread benchmarks if the cache
+ * hits aren't contended.
+ *
+ * @author Antoine Willerval
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DictionaryBenchmark {
+	private static final int SAMPLES = 1 << 12;
+	static final int THREADS = 8;
+
+	@Param({ "200000" })
+	public long triples;
+	@Param({ HDTOptionsKeys.DICTIONARY_TYPE_VALUE_FOUR_SECTION,
+			HDTOptionsKeys.DICTIONARY_TYPE_VALUE_MULTI_OBJECTS_LANG })
+	public String dictionaryType;
+	@Param({ "SUBJECT", "PREDICATE", "OBJECT" })
+	public TripleComponentRole role;
+	@Param({ "0", "67108864" })
+	public long cacheSize;
+
+	private Path workDir;
+	private HDT hdt;
+	private Dictionary dictionary;
+	private long[] ids;
+	private String[] strings;
+	private int index;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException, ParserException {
+		workDir = BenchmarkUtils.createWorkDir("dictionary");
+		hdt = BenchmarkUtils.createMappedHDT(workDir, triples, dictionaryType,
+				HDTOptions.of(HDTOptionsKeys.DICTIONARY_CACHE_SIZE_KEY, cacheSize));
+		dictionary = hdt.getDictionary();
+
+		// ids of the role, without the shared section for the objects
+		long min = role == TripleComponentRole.OBJECT ? dictionary.getNshared() + 1 : 1;
+		long max = switch (role) {
+		case SUBJECT -> dictionary.getNsubjects();
+		case PREDICATE -> dictionary.getNpredicates();
+		case OBJECT -> dictionary.getNobjects();
+		};
+		Random rnd = new Random(BenchmarkUtils.SEED);
+		ids = new long[SAMPLES];
+		strings = new String[SAMPLES];
+		for (int i = 0; i < SAMPLES; i++) {
+			ids[i] = min + (long) (rnd.nextDouble() * (max - min + 1));
+			strings[i] = dictionary.idToString(ids[i], role).toString();
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		try {
+			if (hdt != null) {
+				hdt.close();
+			}
+		} finally {
+			BenchmarkUtils.deleteWorkDir(workDir);
+		}
+	}
+
+	private int nextIndex() {
+		return index = (index + 1) & (SAMPLES - 1);
+	}
+
+	/**
+	 * sample index of a thread
+	 */
+	@State(Scope.Thread)
+	public static class ThreadIndex {
+		private int index;
+
+		int next() {
+			return index = (index + 1) & (SAMPLES - 1);
+		}
+	}
+
+	@Benchmark
+	public long locate() {
+		return dictionary.stringToId(strings[nextIndex()], role);
+	}
+
+	@Benchmark
+	public CharSequence extract() {
+		// force the decoding of the string
+		CharSequence seq = dictionary.idToString(ids[nextIndex()], role);
+		seq.length();
+		return seq;
+	}
+
+	@Benchmark
+	@Threads(THREADS)
+	public long locateConcurrent(ThreadIndex threadIndex) {
+		return dictionary.stringToId(strings[threadIndex.next()], role);
+	}
+
+	@Benchmark
+	@Threads(THREADS)
+	public CharSequence extractConcurrent(ThreadIndex threadIndex) {
+		CharSequence seq = dictionary.idToString(ids[threadIndex.next()], role);
+		seq.length();
+		return seq;
+	}
+}
@@ -0,0 +1,71 @@
+package com.the_qa_company.qendpoint.benchmark;
+
+import com.the_qa_company.qendpoint.core.exceptions.ParserException;
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.hdt.HDTManager;
+import com.the_qa_company.qendpoint.core.listener.ProgressListener;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the disk generation of an HDT with
+ * {@link HDTManager#generateHDTDisk(java.util.Iterator, String, HDTOptions, ProgressListener)}
+ *
+ * @author Antoine Willerval
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DiskImportBenchmark {
+	@Param({ "1000000" })
+	public long triples;
+	@Param({ "1", "4" })
+	public int workers;
+	@Param({ "none", "lz4" })
+	public String tempCompression;
+
+	private Path workDir;
+
+	@Setup(Level.Iteration)
+	public void setup() throws IOException {
+		workDir = BenchmarkUtils.createWorkDir("import");
+	}
+
+	@TearDown(Level.Iteration)
+	public void tearDown() throws IOException {
+		BenchmarkUtils.deleteWorkDir(workDir);
+	}
+
+	@Benchmark
+	public long generateHDTDisk() throws IOException, ParserException {
+		HDTOptions spec = BenchmarkUtils.createSpec(HDTOptionsKeys.DICTIONARY_TYPE_VALUE_MULTI_OBJECTS_LANG);
+		spec.set(HDTOptionsKeys.LOADER_DISK_LOCATION_KEY, workDir.resolve("gen"));
+		spec.set(HDTOptionsKeys.LOADER_DISK_FUTURE_HDT_LOCATION_KEY, workDir.resolve("future.hdt"));
+		spec.set(HDTOptionsKeys.LOADER_DISK_COMPRESSION_WORKER_KEY, workers);
+		spec.set(HDTOptionsKeys.LOADER_DISK_TEMP_COMPRESSION_KEY, tempCompression);
+		try (HDT hdt = HDTManager.generateHDTDisk(BenchmarkUtils.createSupplier(triples).createTripleStringStream(),
+				"http://w", spec, ProgressListener.ignore())) {
+			return hdt.getTriples().getNumberOfElements();
+		}
+	}
+}
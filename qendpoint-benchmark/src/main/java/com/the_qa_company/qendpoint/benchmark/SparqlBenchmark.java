@@ -0,0 +1,223 @@
+package com.the_qa_company.qendpoint.benchmark;
+
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.hdt.HDTManager;
+import com.the_qa_company.qendpoint.core.listener.ProgressListener;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.store.EndpointFiles;
+import com.the_qa_company.qendpoint.store.EndpointStore;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.TupleQuery;
+import org.eclipse.rdf4j.query.TupleQueryResult;
+import org.eclipse.rdf4j.repository.sail.SailRepository;
+import org.eclipse.rdf4j.repository.sail.SailRepositoryConnection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of BSBM-like SPARQL queries against an {@link EndpointStore} loaded
+ * with a {@link BSBMDataset}
+ *
+ * @author Antoine Willerval
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SparqlBenchmark {
+	/**
+	 * BSBM explore queries, adapted to the generated dataset
+	 */
+	public enum Query {
+		/**
+		 * products of a type with two features and a numeric property filter
+		 */
+		Q1("""
+				SELECT DISTINCT ?product ?label WHERE {
+				    ?product rdfs:label ?label .
+				    ?product a inst:ProductType1 .
+				    ?product bsbm:productFeature inst:ProductFeature1 .
+				    ?product bsbm:productFeature inst:ProductFeature2 .
+				    ?product bsbm:productPropertyNumeric1 ?value1 .
+				    FILTER (?value1 > 100)
+				}
+				ORDER BY ?label
+				LIMIT 10
+				"""),
+		/**
+		 * details of a product
+		 */
+		Q2("""
+				SELECT ?label ?producer ?feature ?propertyTextual1 ?propertyNumeric1 WHERE {
+				    inst:Product42 rdfs:label ?label .
+				    inst:Product42 bsbm:producer ?p .
+				    ?p rdfs:label ?producer .
+				    inst:Product42 bsbm:productFeature ?f .
+				    ?f rdfs:label ?feature .
+				    inst:Product42 bsbm:productPropertyTextual1 ?propertyTextual1 .
+				    inst:Product42 bsbm:productPropertyNumeric1 ?propertyNumeric1 .
+				}
+				"""),
+		/**
+		 * products of a type with a feature but without another feature
+		 */
+		Q3("""
+				SELECT ?product ?label WHERE {
+				    ?product rdfs:label ?label .
+				    ?product a inst:ProductType2 .
+				    ?product bsbm:productFeature inst:ProductFeature3 .
+				    ?product bsbm:productPropertyNumeric1 ?p1 .
+				    FILTER (?p1 > 500)
+				    ?product bsbm:productPropertyNumeric2 ?p2 .
+				    FILTER (?p2 < 1500)
+				    OPTIONAL {
+				        ?product bsbm:productFeature inst:ProductFeature4 .
+				        ?product rdfs:label ?testVar
+				    }
+				    FILTER (!bound(?testVar))
+				}
+				ORDER BY ?label
+				LIMIT 10
+				"""),
+		/**
+		 * products similar to a product
+		 */
+		Q5("""
+				SELECT DISTINCT ?product ?productLabel WHERE {
+				    ?product rdfs:label ?productLabel .
+				    FILTER (inst:Product42 != ?product)
+				    inst:Product42 bsbm:productFeature ?prodFeature .
+				    ?product bsbm:productFeature ?prodFeature .
+				    inst:Product42 bsbm:productPropertyNumeric1 ?origProperty1 .
+				    ?product bsbm:productPropertyNumeric1 ?simProperty1 .
+				    FILTER (?simProperty1 < (?origProperty1 + 120) && ?simProperty1 > (?origProperty1 - 120))
+				}
+				ORDER BY ?productLabel
+				LIMIT 5
+				"""),
+		/**
+		 * recent reviews of a product
+		 */
+		Q8("""
+				SELECT ?title ?reviewer ?name ?rating ?date WHERE {
+				    ?review bsbm:reviewFor inst:Product42 .
+				    ?review dc:title ?title .
+				    ?review rev:reviewer ?reviewer .
+				    ?reviewer foaf:name ?name .
+				    ?review dc:date ?date .
+				    OPTIONAL { ?review bsbm:rating1 ?rating . }
+				}
+				ORDER BY DESC(?date)
+				LIMIT 20
+				"""),
+		/**
+		 * cheapest fast offers of a product from a country
+		 */
+		Q10("""
+				SELECT DISTINCT ?offer ?price WHERE {
+				    ?offer bsbm:product inst:Product42 .
+				    ?offer bsbm:vendor ?vendor .
+				    ?vendor bsbm:country <http://downlode.org/rdf/iso-3166/countries#US> .
+				    ?offer bsbm:deliveryDays ?deliveryDays .
+				    FILTER (?deliveryDays <= 3)
+				    ?offer bsbm:price ?price .
+				}
+				ORDER BY xsd:double(str(?price))
+				LIMIT 10
+				"""),
+		/**
+		 * number of offers by vendor country, full scan of the offers
+		 */
+		AGG("""
+				SELECT ?country (COUNT(?offer) AS ?count) WHERE {
+				    ?offer a bsbm:Offer .
+				    ?offer bsbm:vendor ?vendor .
+				    ?vendor bsbm:country ?country .
+				}
+				GROUP BY ?country
+				""");
+
+		private final String query;
+
+		Query(String query) {
+			this.query = BSBMDataset.PREFIXES + query;
+		}
+
+		/**
+		 * @return the SPARQL query
+		 */
+		public String getQuery() {
+			return query;
+		}
+	}
+
+	@Param({ "10000" })
+	public long products;
+	@Param({ "Q1", "Q2", "Q3", "Q5", "Q8", "Q10", "AGG" })
+	public Query query;
+
+	private Path workDir;
+	private SailRepository repository;
+	private SailRepositoryConnection connection;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		workDir = BenchmarkUtils.createWorkDir("sparql");
+		EndpointFiles files = new EndpointFiles(workDir);
+		Path hdtPath = files.getHDTIndexPath();
+		Files.createDirectories(hdtPath.getParent());
+		HDTOptions spec = HDTOptions.of();
+		try (HDT hdt = HDTManager.generateHDT(new BSBMDataset(products, BenchmarkUtils.SEED).createTripleStringStream(),
+				BSBMDataset.INST, spec, ProgressListener.ignore())) {
+			hdt.saveToHDT(hdtPath, ProgressListener.ignore());
+		}
+		repository = new SailRepository(new EndpointStore(files, spec));
+		repository.init();
+		connection = repository.getConnection();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		try {
+			if (connection != null) {
+				connection.close();
+			}
+			if (repository != null) {
+				repository.shutDown();
+			}
+		} finally {
+			BenchmarkUtils.deleteWorkDir(workDir);
+		}
+	}
+
+	@Benchmark
+	public long query(Blackhole blackhole) {
+		TupleQuery tupleQuery = connection.prepareTupleQuery(query.getQuery());
+		long count = 0;
+		try (TupleQueryResult result = tupleQuery.evaluate()) {
+			for (BindingSet bindings : result) {
+				blackhole.consume(bindings);
+				count++;
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,105 @@
+package com.the_qa_company.qendpoint.benchmark;
+
+import com.the_qa_company.qendpoint.core.exceptions.ParserException;
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
+import com.the_qa_company.qendpoint.core.triples.IteratorTripleID;
+import com.the_qa_company.qendpoint.core.triples.TripleID;
+import com.the_qa_company.qendpoint.core.triples.Triples;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the triple pattern searches over the bitmap triples and their
+ * co-index, the patterns are created from existing triples
+ *
+ * @author Antoine Willerval
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TriplesBenchmark {
+	private static final int SAMPLES = 1 << 10;
+
+	@Param({ "200000" })
+	public long triples;
+	@Param({ "SPO", "SP?", "S??", "S?O", "?PO", "?P?", "??O", "???" })
+	public String pattern;
+	/**
+	 * maximum number of results read for each search, 0 to read all the results
+	 */
+	@Param({ "100" })
+	public int limit;
+
+	private Path workDir;
+	private HDT hdt;
+	private Triples hdtTriples;
+	private TripleID[] patterns;
+	private int index;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException, ParserException {
+		workDir = BenchmarkUtils.createWorkDir("triples");
+		hdt = BenchmarkUtils.createMappedHDT(workDir, triples, HDTOptionsKeys.DICTIONARY_TYPE_VALUE_MULTI_OBJECTS_LANG);
+		hdtTriples = hdt.getTriples();
+
+		if (pattern.length() != 3) {
+			throw new IllegalArgumentException("bad pattern: " + pattern);
+		}
+		boolean s = pattern.charAt(0) != '?';
+		boolean p = pattern.charAt(1) != '?';
+		boolean o = pattern.charAt(2) != '?';
+
+		Random rnd = new Random(BenchmarkUtils.SEED);
+		long count = hdtTriples.getNumberOfElements();
+		patterns = new TripleID[SAMPLES];
+		for (int i = 0; i < SAMPLES; i++) {
+			TripleID triple = hdtTriples.findTriple((long) (rnd.nextDouble() * count));
+			patterns[i] = new TripleID(s ? triple.getSubject() : 0, p ? triple.getPredicate() : 0,
+					o ? triple.getObject() : 0);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		try {
+			if (hdt != null) {
+				hdt.close();
+			}
+		} finally {
+			BenchmarkUtils.deleteWorkDir(workDir);
+		}
+	}
+
+	@Benchmark
+	public long search(Blackhole blackhole) {
+		index = (index + 1) & (SAMPLES - 1);
+		IteratorTripleID it = hdtTriples.search(patterns[index]);
+		long count = 0;
+		while (it.hasNext() && (limit == 0 || count < limit)) {
+			blackhole.consume(it.next());
+			count++;
+		}
+		return count;
+	}
+}
@@ -65,6 +65,12 @@ public class AddSnapshotBitmap extends ModifiableBitmapWrapper {
 		 *         for empty value
 		 */
 		RoaringBitmap roaringBitmap();
+
+		/**
+		 * @return a copy of the positions set after the creation of this
+		 *         snapshot
+		 */
+		RoaringBitmap copyAddedPositions();
 	}
 
 	private class DeltaBitmap implements SimpleBitmap, AddSnapshotDeltaBitmap {
@@ -98,6 +104,20 @@ public class AddSnapshotBitmap extends ModifiableBitmapWrapper {
 			return snapshot;
 		}
 
+		@Override
+		public RoaringBitmap copyAddedPositions() {
+			RoaringBitmap copy = new RoaringBitmap();
+			synchronized (mutex) {
+				assert !closed;
+				// the positions set after a snapshot are stored in the next
+				// snapshot
+				for (DeltaBitmap bm = this; bm != null; bm = bm.next) {
+					copy.getHandle().or(bm.snapshot.getHandle());
+				}
+			}
+			return copy;
+		}
+
 		@Override
 		public boolean access(long position) {
 			if (// we check if the main bm contains the bit
@@ -34,6 +34,7 @@ import com.the_qa_company.qendpoint.core.dictionary.impl.WriteMultipleSectionDic
 import com.the_qa_company.qendpoint.core.dictionary.impl.kcat.FourSectionDictionaryKCat;
 import com.the_qa_company.qendpoint.core.dictionary.impl.kcat.MultipleSectionDictionaryKCat;
 import com.the_qa_company.qendpoint.core.dictionary.impl.kcat.MultipleSectionLangDictionaryKCat;
+import com.the_qa_company.qendpoint.core.enums.CompressionType;
 import com.the_qa_company.qendpoint.core.exceptions.IllegalFormatException;
 import com.the_qa_company.qendpoint.core.hdt.HDTVocabulary;
 import com.the_qa_company.qendpoint.core.hdt.impl.diskimport.MultiSectionLangSectionCompressor;
@@ -177,19 +178,27 @@ public class DictionaryFactory {
 	public static SectionCompressor createSectionCompressor(HDTOptions spec, CloseSuppressPath baseFileName,
 			AsyncIteratorFetcher<TripleString> source, MultiThreadListener listener, int bufferSize, long chunkSize,
 			int k, boolean debugSleepKwayDict) {
+		return createSectionCompressor(spec, baseFileName, source, listener, bufferSize, CompressionType.NONE,
+				chunkSize, k, debugSleepKwayDict);
+	}
+
+	public static SectionCompressor createSectionCompressor(HDTOptions spec, CloseSuppressPath baseFileName,
+			AsyncIteratorFetcher<TripleString> source, MultiThreadListener listener, int bufferSize,
+			CompressionType compression, long chunkSize, int k, boolean debugSleepKwayDict) {
 		String name = spec.get(HDTOptionsKeys.DICTIONARY_TYPE_KEY, "");
 
 		switch (name) {
 		case "":
 		case HDTOptionsKeys.DICTIONARY_TYPE_VALUE_FOUR_SECTION:
 		case HDTOptionsKeys.DICTIONARY_TYPE_VALUE_FOUR_SECTION_BIG:
-			return new SectionCompressor(baseFileName, source, listener, bufferSize, chunkSize, k, debugSleepKwayDict);
-		case HDTOptionsKeys.DICTIONARY_TYPE_VALUE_MULTI_OBJECTS:
-			return new MultiSectionSectionCompressor(baseFileName, source, listener, bufferSize, chunkSize, k,
+			return new SectionCompressor(baseFileName, source, listener, bufferSize, compression, chunkSize, k,
 					debugSleepKwayDict);
+		case HDTOptionsKeys.DICTIONARY_TYPE_VALUE_MULTI_OBJECTS:
+			return new MultiSectionSectionCompressor(baseFileName, source, listener, bufferSize, compression, chunkSize,
+					k, debugSleepKwayDict);
 		case HDTOptionsKeys.DICTIONARY_TYPE_VALUE_MULTI_OBJECTS_LANG:
-			return new MultiSectionLangSectionCompressor(baseFileName, source, listener, bufferSize, chunkSize, k,
-					debugSleepKwayDict);
+			return new MultiSectionLangSectionCompressor(baseFileName, source, listener, bufferSize, compression,
+					chunkSize, k, debugSleepKwayDict);
 		default:
 			throw new IllegalFormatException("Implementation of section compressor not found for " + name);
 		}
@@ -202,16 +211,27 @@ public class DictionaryFactory {
 	 * @return Dictionary
 	 */
 	public static DictionaryPrivate createDictionary(ControlInfo ci) {
+		return createDictionary(ci, new HDTSpecification());
+	}
+
+	/**
+	 * Creates a dictionary
+	 *
+	 * @param ci   specs to read dictionary
+	 * @param spec options of the dictionary, used for the mapped sections
+	 * @return Dictionary
+	 */
+	public static DictionaryPrivate createDictionary(ControlInfo ci, HDTOptions spec) {
 		String name = ci.getFormat();
 		switch (name) {
 		case HDTVocabulary.DICTIONARY_TYPE_FOUR_SECTION:
-			return new FourSectionDictionary(new HDTSpecification());
+			return new FourSectionDictionary(spec);
 		case HDTVocabulary.DICTIONARY_TYPE_FOUR_PSFC_SECTION:
-			return new PSFCFourSectionDictionary(new HDTSpecification());
+			return new PSFCFourSectionDictionary(spec);
 		case HDTVocabulary.DICTIONARY_TYPE_MULT_SECTION:
-			return new MultipleSectionDictionary(new HDTSpecification());
+			return new MultipleSectionDictionary(spec);
 		case HDTVocabulary.DICTIONARY_TYPE_MULT_SECTION_LANG:
-			return new MultipleSectionDictionaryLang(new HDTSpecification());
+			return new MultipleSectionDictionaryLang(spec);
 		default:
 			throw new IllegalFormatException("Implementation of dictionary not found for " + name);
 		}
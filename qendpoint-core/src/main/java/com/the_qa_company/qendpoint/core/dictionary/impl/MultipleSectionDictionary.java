@@ -181,7 +181,7 @@ public class MultipleSectionDictionary extends MultipleBaseDictionary {
 		input.printIndex("sections");
 		for (ByteString type : types) {
 			input.printIndex("sections/" + type);
-			this.objects.put(type, DictionarySectionFactory.loadFrom(input, f, listener));
+			this.objects.put(type, DictionarySectionFactory.loadFrom(input, f, listener, spec));
 		}
 
 	}
@@ -214,9 +214,9 @@ public class MultipleSectionDictionary extends MultipleBaseDictionary {
 		}
 
 		IntermediateListener iListener = new IntermediateListener(listener);
-		shared = DictionarySectionFactory.loadFrom(in, f, iListener);
-		subjects = DictionarySectionFactory.loadFrom(in, f, iListener);
-		predicates = DictionarySectionFactory.loadFrom(in, f, iListener);
+		shared = DictionarySectionFactory.loadFrom(in, f, iListener, spec);
+		subjects = DictionarySectionFactory.loadFrom(in, f, iListener, spec);
+		predicates = DictionarySectionFactory.loadFrom(in, f, iListener, spec);
 
 		mapLiteralsMap(in, f, listener);
 
@@ -165,7 +165,7 @@ public class MultipleSectionDictionaryBig extends MultipleBaseDictionary {
 		input.printIndex("sections");
 		for (ByteString type : types) {
 			input.printIndex("sections/" + type);
-			this.objects.put(type, DictionarySectionFactory.loadFrom(input, f, listener));
+			this.objects.put(type, DictionarySectionFactory.loadFrom(input, f, listener, spec));
 		}
 
 	}
@@ -199,11 +199,11 @@ public class MultipleSectionDictionaryBig extends MultipleBaseDictionary {
 
 		IntermediateListener iListener = new IntermediateListener(listener);
 		in.printIndex("shared");
-		shared = DictionarySectionFactory.loadFrom(in, f, iListener);
+		shared = DictionarySectionFactory.loadFrom(in, f, iListener, spec);
 		in.printIndex("subjects");
-		subjects = DictionarySectionFactory.loadFrom(in, f, iListener);
+		subjects = DictionarySectionFactory.loadFrom(in, f, iListener, spec);
 		in.printIndex("predicates");
-		predicates = DictionarySectionFactory.loadFrom(in, f, iListener);
+		predicates = DictionarySectionFactory.loadFrom(in, f, iListener, spec);
 
 		mapLiteralsMap(in, f, listener);
 
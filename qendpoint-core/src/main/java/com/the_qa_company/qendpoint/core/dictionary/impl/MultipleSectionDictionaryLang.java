@@ -91,10 +91,10 @@ public class MultipleSectionDictionaryLang extends MultipleLangBaseDictionary {
 		}
 
 		IntermediateListener iListener = new IntermediateListener(listener);
-		shared = DictionarySectionFactory.loadFrom(in, f, iListener);
-		subjects = DictionarySectionFactory.loadFrom(in, f, iListener);
-		predicates = DictionarySectionFactory.loadFrom(in, f, iListener);
-		nonTyped = DictionarySectionFactory.loadFrom(in, f, iListener);
+		shared = DictionarySectionFactory.loadFrom(in, f, iListener, spec);
+		subjects = DictionarySectionFactory.loadFrom(in, f, iListener, spec);
+		predicates = DictionarySectionFactory.loadFrom(in, f, iListener, spec);
+		nonTyped = DictionarySectionFactory.loadFrom(in, f, iListener, spec);
 
 		mapLiteralsMaps(in, f, listener);
 	}
@@ -254,7 +254,8 @@ public class MultipleSectionDictionaryLang extends MultipleLangBaseDictionary {
 			default -> throw new IOException(format("Find bad literal section type %x", type));
 			};
 			ByteString uriKey = new CompactString(IOUtil.readSizedBuffer(input, listener));
-			DictionarySectionPrivate old = location.put(uriKey, DictionarySectionFactory.loadFrom(input, f, listener));
+			DictionarySectionPrivate old = location.put(uriKey,
+					DictionarySectionFactory.loadFrom(input, f, listener, spec));
 
 			if (old != null) {
 				old.close(); // wtf?
@@ -28,12 +28,15 @@ import com.the_qa_company.qendpoint.core.util.Profiler;
 import com.the_qa_company.qendpoint.core.util.io.CloseSuppressPath;
 import com.the_qa_company.qendpoint.core.util.io.Closer;
 import com.the_qa_company.qendpoint.core.util.io.IOUtil;
+import com.the_qa_company.qendpoint.core.util.io.RateLimitedOutputStream;
 import com.the_qa_company.qendpoint.core.util.listener.IntermediateListener;
 import com.the_qa_company.qendpoint.core.util.listener.ListenerUtil;
 
+import java.io.BufferedOutputStream;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
@@ -120,11 +123,14 @@ public class KCatImpl implements Closeable {
 	final CloseSuppressPath diffLocation;
 	private final CloseSuppressPath location;
 	private final Path futureLocation;
+	private final Path mappingLocation;
+	private final boolean[] mappingIndexes;
 	private final boolean futureMap;
 	private final boolean clearLocation;
 	private final MultiThreadListener listener;
 	private final String dictionaryType;
 	private final int bufferSize;
+	private final long writeRateLimit;
 	private final HDTOptions hdtFormat;
 	private final TripleComponentOrder order;
 	private final long rawSize;
@@ -160,6 +166,7 @@ public class KCatImpl implements Closeable {
 		} else {
 			bufferSize = (int) bufferSizeLong;
 		}
+		writeRateLimit = hdtFormat.getInt(HDTOptionsKeys.HDTCAT_WRITE_RATE_LIMIT, 0);
 
 		profiler = Profiler.createOrLoadSubSection("doHDTCatk", hdtFormat, true);
 
@@ -282,6 +289,27 @@ public class KCatImpl implements Closeable {
 				futureMap = true;
 			}
 
+			String hdtcatMappingLocationOpt = hdtFormat.get(HDTOptionsKeys.HDTCAT_MAPPING_LOCATION);
+			if (hdtcatMappingLocationOpt == null || hdtcatMappingLocationOpt.isEmpty()) {
+				mappingLocation = null;
+			} else {
+				mappingLocation = Path.of(hdtcatMappingLocationOpt);
+			}
+
+			mappingIndexes = new boolean[hdts.length];
+			String hdtcatMappingIndexesOpt = hdtFormat.get(HDTOptionsKeys.HDTCAT_MAPPING_INDEXES);
+			if (hdtcatMappingIndexesOpt == null || hdtcatMappingIndexesOpt.isEmpty()) {
+				Arrays.fill(mappingIndexes, true);
+			} else {
+				for (String index : hdtcatMappingIndexesOpt.split(",")) {
+					int hdtIndex = Integer.parseInt(index.trim());
+					if (hdtIndex < 0 || hdtIndex >= hdts.length) {
+						throw new IllegalArgumentException("Bad mapping HDT index: " + hdtIndex);
+					}
+					mappingIndexes[hdtIndex] = true;
+				}
+			}
+
 			location.closeWithDeleteRecurse();
 		} catch (Throwable t) {
 			try {
@@ -323,6 +351,15 @@ public class KCatImpl implements Closeable {
 			// create the dictionary
 			try (DictionaryPrivate dictionary = merger.buildDictionary()) {
 				profiler.popSection();
+				if (mappingLocation != null) {
+					profiler.pushSection("mapping");
+					for (int i = 0; i < hdts.length; i++) {
+						if (mappingIndexes[i]) {
+							KCatMapping.write(merger, dictionary, i, mappingLocation);
+						}
+					}
+					profiler.popSection();
+				}
 				assert deleteBitmaps != null || merger.assertReadCorrectly();
 				listener.unregisterAllThreads();
 				profiler.pushSection("triples");
@@ -354,7 +391,14 @@ public class KCatImpl implements Closeable {
 					il.setRange(80, 90);
 					il.setPrefix("Save HDT: ");
 					il.notifyProgress(0, "save to " + futureLocationStr);
-					writeHDT.saveToHDT(futureLocationStr, il);
+					if (writeRateLimit > 0) {
+						try (OutputStream out = new BufferedOutputStream(
+								new RateLimitedOutputStream(Files.newOutputStream(futureLocation), writeRateLimit))) {
+							writeHDT.saveToHDT(out, il);
+						}
+					} else {
+						writeHDT.saveToHDT(futureLocationStr, il);
+					}
 					profiler.popSection();
 				}
 			}
@@ -0,0 +1,156 @@
+package com.the_qa_company.qendpoint.core.dictionary.impl.kcat;
+
+import com.the_qa_company.qendpoint.core.compact.sequence.SequenceLog64BigDisk;
+import com.the_qa_company.qendpoint.core.dictionary.Dictionary;
+import com.the_qa_company.qendpoint.core.enums.TripleComponentRole;
+import com.the_qa_company.qendpoint.core.util.BitUtil;
+import com.the_qa_company.qendpoint.core.util.io.Closer;
+import com.the_qa_company.qendpoint.core.util.io.IOUtil;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Mapping from the IDs of an HDT used in a {@link KCatImpl} to the IDs of the
+ * generated HDT, written in the
+ * {@link com.the_qa_company.qendpoint.core.options.HDTOptionsKeys#HDTCAT_MAPPING_LOCATION}
+ * directory. The IDs removed by the cat are mapped to 0.
+ *
+ * @author Antoine Willerval
+ */
+public class KCatMapping implements Closeable {
+	private static final TripleComponentRole[] ROLES = TripleComponentRole.values();
+
+	private static Path headerPath(Path location, int hdtIndex) {
+		return location.resolve("mapping_" + hdtIndex);
+	}
+
+	private static Path mapPath(Path location, int hdtIndex, TripleComponentRole role) {
+		return location.resolve("mapping_" + hdtIndex + "_" + role.getTitle());
+	}
+
+	/**
+	 * test if the mapping of an HDT exists
+	 *
+	 * @param location mapping location
+	 * @param hdtIndex hdt index in the cat
+	 * @return true if the mapping exists
+	 */
+	public static boolean exists(Path location, int hdtIndex) {
+		return Files.exists(headerPath(location, hdtIndex));
+	}
+
+	/**
+	 * write the mapping of an HDT of a merger
+	 *
+	 * @param merger        merger, with the dictionary built
+	 * @param catDictionary dictionary built by the merger
+	 * @param hdtIndex      hdt index in the cat
+	 * @param location      mapping location
+	 * @throws IOException write exception
+	 */
+	static void write(KCatMerger merger, Dictionary catDictionary, int hdtIndex, Path location) throws IOException {
+		Files.createDirectories(location);
+		Dictionary dictionary = merger.hdts[hdtIndex].getDictionary();
+		long[] counts = { dictionary.getNsubjects(), dictionary.getNpredicates(), dictionary.getNobjects() };
+		// the mapped ids are bounded by the size of the cat dictionary
+		long[] catCounts = { catDictionary.getNsubjects(), catDictionary.getNpredicates(),
+				catDictionary.getNobjects() };
+		LongUnaryOperator[] mappers = {
+				id -> merger.subjectsMaps[hdtIndex].get(id) == 0 ? 0 : merger.extractSubject(hdtIndex, id),
+				id -> merger.extractPredicate(hdtIndex, id),
+				id -> merger.objectsMaps[hdtIndex].get(id) == 0 ? 0 : merger.extractObject(hdtIndex, id) };
+		int[] numbits = new int[ROLES.length];
+
+		for (int i = 0; i < ROLES.length; i++) {
+			LongUnaryOperator mapper = mappers[i];
+			numbits[i] = Math.max(1, BitUtil.log2(catCounts[i]));
+
+			try (SequenceLog64BigDisk seq = new SequenceLog64BigDisk(mapPath(location, hdtIndex, ROLES[i]), numbits[i],
+					counts[i] + 1, true)) {
+				for (long id = 1; id <= counts[i]; id++) {
+					seq.set(id, mapper.applyAsLong(id));
+				}
+			}
+		}
+
+		// the header is written after the maps, a mapping without header is
+		// considered incomplete
+		try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(headerPath(location, hdtIndex)))) {
+			for (int i = 0; i < ROLES.length; i++) {
+				IOUtil.writeLong(os, numbits[i]);
+				IOUtil.writeLong(os, counts[i]);
+			}
+		}
+	}
+
+	/**
+	 * delete the mapping of an HDT
+	 *
+	 * @param location mapping location
+	 * @param hdtIndex hdt index in the cat
+	 * @throws IOException delete exception
+	 */
+	public static void delete(Path location, int hdtIndex) throws IOException {
+		// delete the header first to invalidate the mapping
+		Files.deleteIfExists(headerPath(location, hdtIndex));
+		for (TripleComponentRole role : ROLES) {
+			Files.deleteIfExists(mapPath(location, hdtIndex, role));
+		}
+	}
+
+	private final SequenceLog64BigDisk[] maps = new SequenceLog64BigDisk[ROLES.length];
+	private final long[] counts = new long[ROLES.length];
+
+	/**
+	 * open the mapping of an HDT
+	 *
+	 * @param location mapping location
+	 * @param hdtIndex hdt index in the cat
+	 * @throws IOException read exception
+	 */
+	public KCatMapping(Path location, int hdtIndex) throws IOException {
+		try (InputStream is = new BufferedInputStream(Files.newInputStream(headerPath(location, hdtIndex)))) {
+			for (int i = 0; i < ROLES.length; i++) {
+				int numbits = (int) IOUtil.readLong(is);
+				counts[i] = IOUtil.readLong(is);
+				maps[i] = new SequenceLog64BigDisk(mapPath(location, hdtIndex, ROLES[i]), numbits, counts[i] + 1, true,
+						false);
+			}
+		} catch (Throwable t) {
+			try {
+				Closer.closeAll((Object[]) maps);
+			} catch (Throwable t2) {
+				t.addSuppressed(t2);
+			}
+			throw t;
+		}
+	}
+
+	/**
+	 * map an ID of the HDT
+	 *
+	 * @param id   id in the HDT
+	 * @param role role of the id
+	 * @return id in the cat HDT, 0 if the id was removed
+	 */
+	public long map(long id, TripleComponentRole role) {
+		int index = role.ordinal();
+		if (id < 1 || id > counts[index]) {
+			return 0;
+		}
+		return maps[index].get(id);
+	}
+
+	@Override
+	public void close() throws IOException {
+		Closer.closeAll((Object[]) maps);
+	}
+}
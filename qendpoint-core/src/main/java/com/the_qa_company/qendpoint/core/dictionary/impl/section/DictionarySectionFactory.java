@@ -25,6 +25,7 @@ import java.io.InputStream;
 
 import com.the_qa_company.qendpoint.core.dictionary.DictionarySectionPrivate;
 import com.the_qa_company.qendpoint.core.listener.ProgressListener;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
 import com.the_qa_company.qendpoint.core.options.HDTSpecification;
 import com.the_qa_company.qendpoint.core.util.io.CountInputStream;
 
@@ -69,6 +70,11 @@ public class DictionarySectionFactory {
 
 	public static DictionarySectionPrivate loadFrom(CountInputStream input, File f, ProgressListener listener)
 			throws IOException {
+		return loadFrom(input, f, listener, HDTOptions.empty());
+	}
+
+	public static DictionarySectionPrivate loadFrom(CountInputStream input, File f, ProgressListener listener,
+			HDTOptions spec) throws IOException {
 		input.mark(64);
 		int dictType = input.read();
 		input.reset();
@@ -78,7 +84,7 @@ public class DictionarySectionFactory {
 		switch (dictType) {
 		case PFCDictionarySection.TYPE_INDEX:
 			// First try load using the standard PFC
-			return new PFCDictionarySectionMap(input, f);
+			return new PFCDictionarySectionMap(input, f, spec);
 		default:
 			throw new IOException("DictionarySection implementation not available for id " + dictType);
 		}
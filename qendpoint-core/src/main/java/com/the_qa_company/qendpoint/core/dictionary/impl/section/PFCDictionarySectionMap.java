@@ -25,6 +25,9 @@ import com.the_qa_company.qendpoint.core.exceptions.CRCException;
 import com.the_qa_company.qendpoint.core.exceptions.IllegalFormatException;
 import com.the_qa_company.qendpoint.core.exceptions.NotImplementedException;
 import com.the_qa_company.qendpoint.core.listener.ProgressListener;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
+import com.the_qa_company.qendpoint.core.util.concurrent.ConcurrentCache;
 import com.the_qa_company.qendpoint.core.util.io.BigMappedByteBuffer;
 import com.the_qa_company.qendpoint.core.compact.integer.VByte;
 import com.the_qa_company.qendpoint.core.compact.sequence.Sequence;
@@ -51,8 +54,10 @@ import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileChannel.MapMode;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.function.Function;
 
 /**
  * @author mario.arias
@@ -62,6 +67,9 @@ public class PFCDictionarySectionMap implements DictionarySectionPrivate, Closea
 	private static final Logger log = LoggerFactory.getLogger(PFCDictionarySectionMap.class);
 
 	static final int BLOCKS_PER_BYTEBUFFER = 50000;
+	private static final int HEAD_CHUNK_SIZE = 64;
+	private static final ThreadLocal<BlockDecoder> DECODER = ThreadLocal.withInitial(BlockDecoder::new);
+	private static final ThreadLocal<LocateKey> LOCATE_KEY = ThreadLocal.withInitial(LocateKey::new);
 	protected FileChannel ch;
 	protected BigMappedByteBuffer[] buffers; // Encoded sequence
 	long[] posFirst; // Global byte position of the start of each buffer
@@ -73,10 +81,44 @@ public class PFCDictionarySectionMap implements DictionarySectionPrivate, Closea
 	private final File f;
 	private final long startOffset;
 	private final long endOffset;
+	private final ConcurrentCache<ByteString, Long> locateCache;
+	private final ConcurrentCache<Long, CompactString> extractCache;
+	private final Function<Long, CompactString> extractFunction = this::extractString;
+	private final boolean cacheStats;
+	private final int blockHeadsSampling;
+	private byte[][] blockHeads;
 
-	@SuppressWarnings("resource")
 	public PFCDictionarySectionMap(CountInputStream input, File f) throws IOException {
+		this(input, f, HDTOptions.empty());
+	}
+
+	/**
+	 * map a section, the locate/extract results are stored in caches shared by
+	 * the threads, see {@link HDTOptionsKeys#DICTIONARY_CACHE_SIZE_KEY}
+	 *
+	 * @param input input stream
+	 * @param f     mapped file
+	 * @param spec  options
+	 * @throws IOException read exception
+	 */
+	@SuppressWarnings("resource")
+	public PFCDictionarySectionMap(CountInputStream input, File f, HDTOptions spec) throws IOException {
 		this.f = f;
+		long cacheSize = spec.getInt(HDTOptionsKeys.DICTIONARY_CACHE_SIZE_KEY,
+				HDTOptionsKeys.DICTIONARY_CACHE_SIZE_DEFAULT);
+		if (cacheSize > 0) {
+			boolean admission = !HDTOptionsKeys.DICTIONARY_CACHE_ADMISSION_VALUE_LRU
+					.equals(spec.get(HDTOptionsKeys.DICTIONARY_CACHE_ADMISSION_KEY));
+			cacheStats = spec.getBoolean(HDTOptionsKeys.DICTIONARY_CACHE_STATS_KEY, false);
+			// half of the budget for each cache, ~80 bytes for the map entry
+			// and the objects headers
+			locateCache = new ConcurrentCache<>(cacheSize / 2, (key, id) -> key.length() + 80L, admission, cacheStats);
+			extractCache = new ConcurrentCache<>(cacheSize / 2, (id, str) -> str.length() + 80L, admission, cacheStats);
+		} else {
+			locateCache = null;
+			extractCache = null;
+			cacheStats = false;
+		}
 		startOffset = input.getTotalBytes();
 
 		CRCInputStream crcin = new CRCInputStream(input, new CRC8());
@@ -107,6 +149,8 @@ public class PFCDictionarySectionMap implements DictionarySectionPrivate, Closea
 
 		endOffset = input.getTotalBytes();
 
+		blockHeadsSampling = (int) spec.getInt(HDTOptionsKeys.DICTIONARY_PFC_BLOCK_HEADS_SAMPLING_KEY, 0);
+
 		// Read packed data
 		ch = FileChannel.open(Paths.get(f.toString()));
 		long block = 0;
@@ -131,9 +175,56 @@ public class PFCDictionarySectionMap implements DictionarySectionPrivate, Closea
 			block += BLOCKS_PER_BYTEBUFFER;
 			buffer++;
 		}
+
+		if (blockHeadsSampling > 0 && numBlocks > 1) {
+			// keep the first string of some blocks in memory to start the
+			// binary search without reading the mapped file
+			BlockDecoder decoder = DECODER.get();
+			blockHeads = new byte[(int) ((numBlocks - 2) / blockHeadsSampling + 1)][];
+			for (int i = 0; i < blockHeads.length; i++) {
+				decoder.read(this, (long) i * blockHeadsSampling);
+				decoder.next();
+				blockHeads[i] = Arrays.copyOf(decoder.string, decoder.length);
+			}
+		}
 	}
 
-	private long locateBlock(ByteString str) {
+	/**
+	 * compare a string with the first string of a block
+	 *
+	 * @param str     string
+	 * @param len     string length
+	 * @param block   block
+	 * @param decoder decoder of the thread
+	 * @return comparison result, same as
+	 *         {@link ByteStringUtil#strcmp(CharSequence, BigMappedByteBuffer, long)}
+	 */
+	private int compareBlockHead(byte[] str, int len, long block, BlockDecoder decoder) {
+		int bufferIndex = (int) (block / BLOCKS_PER_BYTEBUFFER);
+		BigMappedByteBuffer buffer = buffers[bufferIndex];
+		long start = blocks.get(block);
+		long offset = start - posFirst[bufferIndex];
+		// the head is null terminated, we don't need to read more than the
+		// string and the next byte
+		long max = Math.min(len + 1L, blocks.get(block + 1) - start);
+		byte[] head = decoder.head;
+		for (int i = 0; i < max; i += HEAD_CHUNK_SIZE) {
+			int n = (int) Math.min(HEAD_CHUNK_SIZE, max - i);
+			buffer.get(offset + i, head, 0, n);
+			int cmpLen = Math.min(n, len - i);
+			int mismatch = Arrays.mismatch(str, i, i + cmpLen, head, 0, cmpLen);
+			if (mismatch >= 0) {
+				return (str[i + mismatch] & 0xFF) - (head[mismatch] & 0xFF);
+			}
+			if (cmpLen < n) {
+				// end of the string, same string if the head ends here
+				return head[cmpLen] == 0 ? 0 : -1;
+			}
+		}
+		throw new IllegalArgumentException("Buffer is not Null-Terminated");
+	}
+
+	private long locateBlock(byte[] str, int len, BlockDecoder decoder) {
 		if (blocks.getNumberOfElements() == 0) {
 			return -1;
 		}
@@ -142,6 +233,30 @@ public class PFCDictionarySectionMap implements DictionarySectionPrivate, Closea
 		long high = blocks.getNumberOfElements() - 1;
 		long max = high;
 
+		if (blockHeads != null) {
+			// search the sampled heads first to reduce the range
+			int sampleLow = 0;
+			int sampleHigh = blockHeads.length - 1;
+			while (sampleLow <= sampleHigh) {
+				int mid = (sampleLow + sampleHigh) >>> 1;
+				int cmp = Arrays.compareUnsigned(str, 0, len, blockHeads[mid], 0, blockHeads[mid].length);
+				if (cmp < 0) {
+					sampleHigh = mid - 1;
+				} else if (cmp > 0) {
+					sampleLow = mid + 1;
+				} else {
+					return (long) mid * blockHeadsSampling; // key found
+				}
+			}
+			// the block is between the samples sampleHigh and sampleLow
+			if (sampleHigh >= 0) {
+				low = (long) sampleHigh * blockHeadsSampling + 1;
+			}
+			if (sampleLow < blockHeads.length) {
+				high = (long) sampleLow * blockHeadsSampling - 1;
+			}
+		}
+
 		while (low <= high) {
 			long mid = low + (high - low) / 2;
 
@@ -149,9 +264,7 @@ public class PFCDictionarySectionMap implements DictionarySectionPrivate, Closea
 			if (mid == max) {
 				cmp = -1;
 			} else {
-				BigMappedByteBuffer buffer = buffers[(int) (mid / BLOCKS_PER_BYTEBUFFER)];
-				cmp = ByteStringUtil.strcmp(str, buffer,
-						blocks.get(mid) - posFirst[(int) (mid / BLOCKS_PER_BYTEBUFFER)]);
+				cmp = compareBlockHead(str, len, mid, decoder);
 			}
 			if (cmp < 0) {
 				high = mid - 1;
@@ -170,12 +283,27 @@ public class PFCDictionarySectionMap implements DictionarySectionPrivate, Closea
 	 */
 	@Override
 	public long locate(CharSequence str) {
-		ByteString bstr = ByteString.of(str);
 		if (buffers == null || blocks == null) {
 			return 0;
 		}
+		ByteString bstr = ByteString.of(str);
+		if (locateCache == null) {
+			return locate(bstr);
+		}
+		Long id = locateCache.get(bstr instanceof CompactString ? bstr : LOCATE_KEY.get().of(bstr));
+		if (id == null) {
+			id = locate(bstr);
+			// the cache key has to be immutable
+			locateCache.put(bstr instanceof CompactString ? bstr : new CompactString(bstr), id);
+		}
+		return id;
+	}
 
-		long blocknum = locateBlock(bstr);
+	private long locate(ByteString bstr) {
+		BlockDecoder decoder = DECODER.get();
+		byte[] str = bstr.getBuffer();
+		int len = bstr.length();
+		long blocknum = locateBlock(str, len, decoder);
 		if (blocknum >= 0) {
 			// Located exactly
 			return (blocknum * blocksize) + 1;
@@ -184,7 +312,7 @@ public class PFCDictionarySectionMap implements DictionarySectionPrivate, Closea
 			blocknum = -blocknum - 2;
 
 			if (blocknum >= 0) {
-				long idblock = locateInBlock(blocknum, bstr);
+				long idblock = locateInBlock(blocknum, str, len, decoder);
 
 				if (idblock != 0) {
 					return (blocknum * blocksize) + idblock + 1;
@@ -195,59 +323,42 @@ public class PFCDictionarySectionMap implements DictionarySectionPrivate, Closea
 		return 0;
 	}
 
-	protected long locateInBlock(long block, ByteString str) {
-		if (block >= blocks.getNumberOfElements()) {
+	private long locateInBlock(long block, byte[] str, int len, BlockDecoder decoder) {
+		if (block >= blocks.getNumberOfElements() - 1) {
 			return 0;
 		}
 
-		ReplazableString tempString = new ReplazableString();
-
-		long idInBlock = 0;
-		int cshared = 0;
+		decoder.read(this, block);
 
-//		dumpBlock(block);
+		// Read the first string in the block
+		if (decoder.next() < 0) {
+			return 0;
+		}
 
-		BigMappedByteBuffer buffer = buffers[(int) (block / BLOCKS_PER_BYTEBUFFER)].duplicate();
-		buffer.position(blocks.get(block) - posFirst[(int) (block / BLOCKS_PER_BYTEBUFFER)]);
+		long idInBlock = 1;
+		int cshared = 0;
 
-		try {
-			if (!buffer.hasRemaining()) {
+		int delta;
+		while (idInBlock < blocksize && (delta = decoder.next()) >= 0) {
+			if (delta >= cshared) {
+				// Current delta value means that this string
+				// has a larger long common prefix than the previous one
+				int end = Math.min(decoder.length, len);
+				int mismatch = Arrays.mismatch(decoder.string, cshared, end, str, cshared, end);
+				cshared = mismatch < 0 ? end : cshared + mismatch;
+
+				if (cshared == len && decoder.length == len) {
+					return idInBlock;
+				}
+			} else {
+				// We have less common characters than before,
+				// this string is bigger that what we are looking for.
+				// i.e. Not found.
 				return 0;
 			}
-
-			// Read the first string in the block
-			tempString.replace(buffer, 0);
-
 			idInBlock++;
-
-			while ((idInBlock < blocksize) && buffer.hasRemaining()) {
-				// Decode prefix
-				long delta = VByte.decode(buffer);
-
-				// Copy suffix
-				tempString.replace(buffer, (int) delta);
-
-				if (delta >= cshared) {
-					// Current delta value means that this string
-					// has a larger long common prefix than the previous one
-					cshared += ByteStringUtil.longestCommonPrefix(tempString, str, cshared);
-
-					if ((cshared == str.length()) && (tempString.length() == str.length())) {
-						return idInBlock;
-					}
-				} else {
-					// We have less common characters than before,
-					// this string is bigger that what we are looking for.
-					// i.e. Not found.
-					return 0;
-				}
-				idInBlock++;
-			}
-			return 0;
-		} catch (IOException e) {
-			log.error("Unexpected exception.", e);
-			return 0;
 		}
+		return 0;
 	}
 
 	/*
@@ -264,24 +375,42 @@ public class PFCDictionarySectionMap implements DictionarySectionPrivate, Closea
 			return null;
 		}
 
-		long block = (id - 1) / blocksize;
-		BigMappedByteBuffer buffer = buffers[(int) (block / BLOCKS_PER_BYTEBUFFER)].duplicate();
-		buffer.position(blocks.get(block) - posFirst[(int) (block / BLOCKS_PER_BYTEBUFFER)]);
-
-		try {
-			ReplazableString tempString = new ReplazableString();
-			tempString.replace(buffer, 0);
+		CompactString str;
+		if (extractCache == null) {
+			str = extractString(id);
+		} else {
+			str = extractCache.computeIfAbsent(id, extractFunction);
+		}
+		return str == null ? null : str.getDelayed();
+	}
 
-			long stringid = (id - 1) % blocksize;
-			for (long i = 0; i < stringid; i++) {
-				long delta = VByte.decode(buffer);
-				tempString.replace(buffer, (int) delta);
+	private CompactString extractString(long id) {
+		long block = (id - 1) / blocksize;
+		BlockDecoder decoder = DECODER.get();
+		decoder.read(this, block);
+
+		long stringid = (id - 1) % blocksize;
+		for (long i = 0; i <= stringid; i++) {
+			if (decoder.next() < 0) {
+				log.error("Unexpected end of block {} while reading the string {}", block, id);
+				return null;
 			}
-			return new CompactString(tempString).getDelayed();
-		} catch (IOException e) {
-			log.error("Unexpected exception.", e);
-			return null;
 		}
+		return new CompactString(Arrays.copyOf(decoder.string, decoder.length));
+	}
+
+	/**
+	 * @return the cache of the locate results, null if the cache is disabled
+	 */
+	public ConcurrentCache<ByteString, Long> getLocateCache() {
+		return locateCache;
+	}
+
+	/**
+	 * @return the cache of the extract results, null if the cache is disabled
+	 */
+	public ConcurrentCache<Long, CompactString> getExtractCache() {
+		return extractCache;
 	}
 
 	/*
@@ -351,6 +480,13 @@ public class PFCDictionarySectionMap implements DictionarySectionPrivate, Closea
 
 	@Override
 	public void close() throws IOException {
+		if (locateCache != null) {
+			if (cacheStats) {
+				log.info("close section {}, locate cache: {}, extract cache: {}", f, locateCache, extractCache);
+			}
+			locateCache.clear();
+			extractCache.clear();
+		}
 		blocks.close();
 		if (buffers != null) {
 			for (BigMappedByteBuffer buffer : buffers) {
@@ -385,4 +521,105 @@ public class PFCDictionarySectionMap implements DictionarySectionPrivate, Closea
 	public void load(InputStream input, ProgressListener listener) throws IOException {
 		throw new NotImplementedException();
 	}
+
+	/**
+	 * reusable key to search a string in the locate cache without copying it,
+	 * equal to the {@link CompactString} keys of the cache with the same bytes,
+	 * one key is used per thread
+	 */
+	private static final class LocateKey {
+		private byte[] buffer;
+		private int length;
+		private int hash;
+
+		LocateKey of(ByteString str) {
+			buffer = str.getBuffer();
+			length = str.length();
+			// same hash as CompactString
+			int h = (int) 2166136261L;
+			int i = length;
+			while (i-- != 0) {
+				h = (h * 16777619) ^ buffer[i];
+			}
+			hash = h;
+			return this;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof CompactString other
+					&& Arrays.equals(buffer, 0, length, other.getBuffer(), 0, other.length());
+		}
+	}
+
+	/**
+	 * reusable buffers to decode a block of a section, the whole block is read
+	 * with one copy from the mapped file, one decoder is used per thread
+	 */
+	private static final class BlockDecoder {
+		private final byte[] head = new byte[HEAD_CHUNK_SIZE];
+		private byte[] block = new byte[1024];
+		private byte[] string = new byte[256];
+		private int blockLength;
+		private int position;
+		private int length;
+
+		/**
+		 * read a block of a section
+		 *
+		 * @param section section
+		 * @param blockId block id
+		 */
+		void read(PFCDictionarySectionMap section, long blockId) {
+			int bufferIndex = (int) (blockId / BLOCKS_PER_BYTEBUFFER);
+			long start = section.blocks.get(blockId);
+			blockLength = (int) (section.blocks.get(blockId + 1) - start);
+			if (block.length < blockLength) {
+				block = new byte[Math.max(blockLength, block.length * 2)];
+			}
+			section.buffers[bufferIndex].get(start - section.posFirst[bufferIndex], block, 0, blockLength);
+			position = 0;
+			length = 0;
+		}
+
+		/**
+		 * decode the next string of the block in {@link #string}
+		 *
+		 * @return the number of bytes shared with the previous string, -1 if
+		 *         the end of the block was reached
+		 */
+		int next() {
+			if (position >= blockLength) {
+				return -1;
+			}
+			int delta = 0;
+			if (position != 0) {
+				// VByte encoded prefix size
+				int shift = 0;
+				byte b;
+				while (((b = block[position++]) & 0x80) == 0) {
+					delta |= (b & 127) << shift;
+					shift += 7;
+				}
+				delta |= (b & 127) << shift;
+			}
+			int end = position;
+			while (end < blockLength && block[end] != 0) {
+				end++;
+			}
+			int suffix = end - position;
+			if (string.length < delta + suffix) {
+				string = Arrays.copyOf(string, Math.max(delta + suffix, string.length * 2));
+			}
+			System.arraycopy(block, position, string, delta, suffix);
+			length = delta + suffix;
+			position = end + 1;
+			return delta;
+		}
+	}
 }
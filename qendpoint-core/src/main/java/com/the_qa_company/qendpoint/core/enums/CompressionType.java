@@ -19,6 +19,14 @@ public enum CompressionType {
 	 * bzip compression (.xz)
 	 */
 	XZ("xz"),
+	/**
+	 * zstandard compression (.zst .zstd)
+	 */
+	ZSTD("zst", "zstd"),
+	/**
+	 * lz4 frame compression (.lz4)
+	 */
+	LZ4("lz4"),
 	/**
 	 * no compression
 	 */
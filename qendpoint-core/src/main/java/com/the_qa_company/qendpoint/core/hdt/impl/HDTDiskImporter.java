@@ -3,6 +3,7 @@ package com.the_qa_company.qendpoint.core.hdt.impl;
 import com.the_qa_company.qendpoint.core.dictionary.DictionaryFactory;
 import com.the_qa_company.qendpoint.core.dictionary.DictionaryPrivate;
 import com.the_qa_company.qendpoint.core.dictionary.impl.CompressFourSectionDictionary;
+import com.the_qa_company.qendpoint.core.enums.CompressionType;
 import com.the_qa_company.qendpoint.core.enums.TripleComponentOrder;
 import com.the_qa_company.qendpoint.core.exceptions.ParserException;
 import com.the_qa_company.qendpoint.core.hdt.HDT;
@@ -69,6 +70,7 @@ public class HDTDiskImporter implements Closeable {
 	private final int ways;
 	private final int workers;
 	private final int bufferSize;
+	private final CompressionType tempCompression;
 	private final boolean mapHDT;
 	private final boolean debugHDTBuilding;
 	private final Profiler profiler;
@@ -126,6 +128,13 @@ public class HDTDiskImporter implements Closeable {
 		} else {
 			bufferSize = (int) bufferSizeLong;
 		}
+		String tempCompressionName = hdtFormat.get(HDTOptionsKeys.LOADER_DISK_TEMP_COMPRESSION_KEY,
+				HDTOptionsKeys.LOADER_DISK_TEMP_COMPRESSION_VALUE_NONE);
+		try {
+			tempCompression = CompressionType.valueOf(tempCompressionName.toUpperCase());
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Unknown temp compression: " + tempCompressionName, e);
+		}
 		// location of the working directory, will be deleted after generation
 		String baseNameOpt = hdtFormat.get(HDTOptionsKeys.LOADER_DISK_LOCATION_KEY);
 		// location of the future HDT file, do not set to create the HDT in
@@ -186,10 +195,9 @@ public class HDTDiskImporter implements Closeable {
 		profiler.pushSection("section compression");
 		CompressionResult compressionResult;
 		try {
-			compressionResult = DictionaryFactory
-					.createSectionCompressor(hdtFormat, basePath.resolve("sectionCompression"), source, listener,
-							bufferSize, chunkSize, 1 << ways, hdtFormat.getBoolean("debug.disk.slow.stream2"))
-					.compress(workers, compressMode);
+			compressionResult = DictionaryFactory.createSectionCompressor(hdtFormat,
+					basePath.resolve("sectionCompression"), source, listener, bufferSize, tempCompression, chunkSize,
+					1 << ways, hdtFormat.getBoolean("debug.disk.slow.stream2")).compress(workers, compressMode);
 		} catch (KWayMerger.KWayMergerException | InterruptedException e) {
 			throw new ParserException(e);
 		}
@@ -239,7 +247,7 @@ public class HDTDiskImporter implements Closeable {
 		try {
 			MapCompressTripleMerger tripleMapper = new MapCompressTripleMerger(basePath.resolve("tripleMapper"),
 					new AsyncIteratorFetcher<>(new TripleGenerator(mapper.getTripleCount())), mapper, listener, order,
-					bufferSize, chunkSize, 1 << ways);
+					bufferSize, tempCompression, chunkSize, 1 << ways);
 			tripleCompressionResult = tripleMapper.merge(workers, compressMode);
 		} catch (KWayMerger.KWayMergerException | InterruptedException e) {
 			throw new ParserException(e);
@@ -83,6 +83,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Map;
 import java.util.zip.GZIPInputStream;
@@ -230,7 +231,7 @@ public class HDTImpl extends HDTBase<HeaderPrivate, DictionaryPrivate, TriplesPr
 			ci.load(input);
 			input.reset();
 			iListener.setRange(5, 60);
-			dictionary = DictionaryFactory.createDictionary(ci);
+			dictionary = DictionaryFactory.createDictionary(ci, spec);
 			dictionary.mapFromFile(input, f, iListener);
 
 			// Load Triples
@@ -419,6 +420,10 @@ public class HDTImpl extends HDTBase<HeaderPrivate, DictionaryPrivate, TriplesPr
 		} finally {
 			IOUtil.closeQuietly(in);
 		}
+
+		if (triples instanceof BitmapTriples bt) {
+			bt.loadOrCreateOtherIndexes(hdtFileName == null ? null : Path.of(hdtFileName), spec, dictionary, listener);
+		}
 	}
 
 	@Override
@@ -694,7 +699,7 @@ public class HDTImpl extends HDTBase<HeaderPrivate, DictionaryPrivate, TriplesPr
 				fis.mark(1024);
 				ci2.load(fis);
 				fis.reset();
-				DictionaryPrivate dictionary = DictionaryFactory.createDictionary(ci2);
+				DictionaryPrivate dictionary = DictionaryFactory.createDictionary(ci2, spec);
 				dictionary.mapFromFile(fis, new File(location + "dictionary"), null);
 				this.dictionary = dictionary;
 			}
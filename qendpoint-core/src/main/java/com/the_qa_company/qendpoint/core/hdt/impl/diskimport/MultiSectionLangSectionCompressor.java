@@ -1,5 +1,6 @@
 package com.the_qa_company.qendpoint.core.hdt.impl.diskimport;
 
+import com.the_qa_company.qendpoint.core.enums.CompressionType;
 import com.the_qa_company.qendpoint.core.iterator.utils.AsyncIteratorFetcher;
 import com.the_qa_company.qendpoint.core.listener.MultiThreadListener;
 import com.the_qa_company.qendpoint.core.triples.TripleString;
@@ -10,8 +11,9 @@ import com.the_qa_company.qendpoint.core.util.string.CompactString;
 
 public class MultiSectionLangSectionCompressor extends SectionCompressor {
 	public MultiSectionLangSectionCompressor(CloseSuppressPath baseFileName, AsyncIteratorFetcher<TripleString> source,
-			MultiThreadListener listener, int bufferSize, long chunkSize, int k, boolean debugSleepKwayDict) {
-		super(baseFileName, source, listener, bufferSize, chunkSize, k, debugSleepKwayDict);
+			MultiThreadListener listener, int bufferSize, CompressionType compression, long chunkSize, int k,
+			boolean debugSleepKwayDict) {
+		super(baseFileName, source, listener, bufferSize, compression, chunkSize, k, debugSleepKwayDict);
 	}
 
 	@Override
@@ -1,5 +1,6 @@
 package com.the_qa_company.qendpoint.core.hdt.impl.diskimport;
 
+import com.the_qa_company.qendpoint.core.enums.CompressionType;
 import com.the_qa_company.qendpoint.core.listener.MultiThreadListener;
 import com.the_qa_company.qendpoint.core.triples.TripleString;
 import com.the_qa_company.qendpoint.core.util.LiteralsUtils;
@@ -13,8 +14,9 @@ import com.the_qa_company.qendpoint.core.util.string.CompactString;
  */
 public class MultiSectionSectionCompressor extends SectionCompressor {
 	public MultiSectionSectionCompressor(CloseSuppressPath baseFileName, AsyncIteratorFetcher<TripleString> source,
-			MultiThreadListener listener, int bufferSize, long chunkSize, int k, boolean debugSleepKwayDict) {
-		super(baseFileName, source, listener, bufferSize, chunkSize, k, debugSleepKwayDict);
+			MultiThreadListener listener, int bufferSize, CompressionType compression, long chunkSize, int k,
+			boolean debugSleepKwayDict) {
+		super(baseFileName, source, listener, bufferSize, compression, chunkSize, k, debugSleepKwayDict);
 	}
 
 	@Override
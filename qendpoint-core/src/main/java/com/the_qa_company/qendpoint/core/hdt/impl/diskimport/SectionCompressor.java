@@ -1,5 +1,6 @@
 package com.the_qa_company.qendpoint.core.hdt.impl.diskimport;
 
+import com.the_qa_company.qendpoint.core.enums.CompressionType;
 import com.the_qa_company.qendpoint.core.listener.MultiThreadListener;
 import com.the_qa_company.qendpoint.core.triples.IndexedNode;
 import com.the_qa_company.qendpoint.core.triples.TripleString;
@@ -47,16 +48,19 @@ public class SectionCompressor implements KWayMerger.KWayMergerImpl<TripleString
 	private final AtomicLong triples = new AtomicLong();
 	private final AtomicLong ntRawSize = new AtomicLong();
 	private final int bufferSize;
+	private final CompressionType compression;
 	private final long chunkSize;
 	private final int k;
 	private final boolean debugSleepKwayDict;
 
 	public SectionCompressor(CloseSuppressPath baseFileName, AsyncIteratorFetcher<TripleString> source,
-			MultiThreadListener listener, int bufferSize, long chunkSize, int k, boolean debugSleepKwayDict) {
+			MultiThreadListener listener, int bufferSize, CompressionType compression, long chunkSize, int k,
+			boolean debugSleepKwayDict) {
 		this.source = source;
 		this.listener = listener;
 		this.baseFileName = baseFileName;
 		this.bufferSize = bufferSize;
+		this.compression = compression;
 		this.chunkSize = chunkSize;
 		this.k = k;
 		this.debugSleepKwayDict = debugSleepKwayDict;
@@ -335,7 +339,7 @@ public class SectionCompressor implements KWayMerger.KWayMergerImpl<TripleString
 		 * @throws IOException can't open the stream
 		 */
 		public OutputStream openWSubject() throws IOException {
-			return s.openOutputStream(bufferSize);
+			return s.openOutputStream(bufferSize, compression);
 		}
 
 		/**
@@ -343,7 +347,7 @@ public class SectionCompressor implements KWayMerger.KWayMergerImpl<TripleString
 		 * @throws IOException can't open the stream
 		 */
 		public OutputStream openWPredicate() throws IOException {
-			return p.openOutputStream(bufferSize);
+			return p.openOutputStream(bufferSize, compression);
 		}
 
 		/**
@@ -351,7 +355,7 @@ public class SectionCompressor implements KWayMerger.KWayMergerImpl<TripleString
 		 * @throws IOException can't open the stream
 		 */
 		public OutputStream openWObject() throws IOException {
-			return o.openOutputStream(bufferSize);
+			return o.openOutputStream(bufferSize, compression);
 		}
 
 		/**
@@ -359,7 +363,7 @@ public class SectionCompressor implements KWayMerger.KWayMergerImpl<TripleString
 		 * @throws IOException can't open the stream
 		 */
 		public InputStream openRSubject() throws IOException {
-			return s.openInputStream(bufferSize);
+			return s.openInputStream(bufferSize, compression);
 		}
 
 		/**
@@ -367,7 +371,7 @@ public class SectionCompressor implements KWayMerger.KWayMergerImpl<TripleString
 		 * @throws IOException can't open the stream
 		 */
 		public InputStream openRPredicate() throws IOException {
-			return p.openInputStream(bufferSize);
+			return p.openInputStream(bufferSize, compression);
 		}
 
 		/**
@@ -375,7 +379,7 @@ public class SectionCompressor implements KWayMerger.KWayMergerImpl<TripleString
 		 * @throws IOException can't open the stream
 		 */
 		public InputStream openRObject() throws IOException {
-			return o.openInputStream(bufferSize);
+			return o.openInputStream(bufferSize, compression);
 		}
 
 		/**
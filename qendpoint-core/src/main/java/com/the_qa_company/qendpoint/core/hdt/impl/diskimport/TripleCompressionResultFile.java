@@ -1,5 +1,6 @@
 package com.the_qa_company.qendpoint.core.hdt.impl.diskimport;
 
+import com.the_qa_company.qendpoint.core.enums.CompressionType;
 import com.the_qa_company.qendpoint.core.enums.TripleComponentOrder;
 import com.the_qa_company.qendpoint.core.triples.TempTriples;
 import com.the_qa_company.qendpoint.core.util.io.compress.CompressTripleReader;
@@ -21,9 +22,9 @@ public class TripleCompressionResultFile implements TripleCompressionResult {
 	private final CloseSuppressPath triples;
 
 	public TripleCompressionResultFile(long tripleCount, CloseSuppressPath triples, TripleComponentOrder order,
-			int bufferSize) throws IOException {
+			int bufferSize, CompressionType compression) throws IOException {
 		this.tripleCount = tripleCount;
-		this.reader = new CompressTripleReader(triples.openInputStream(bufferSize));
+		this.reader = new CompressTripleReader(triples.openInputStream(bufferSize, compression));
 		this.order = order;
 		this.triples = triples;
 	}
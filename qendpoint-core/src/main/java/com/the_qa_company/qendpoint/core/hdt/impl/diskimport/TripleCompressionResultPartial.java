@@ -1,5 +1,6 @@
 package com.the_qa_company.qendpoint.core.hdt.impl.diskimport;
 
+import com.the_qa_company.qendpoint.core.enums.CompressionType;
 import com.the_qa_company.qendpoint.core.enums.TripleComponentOrder;
 import com.the_qa_company.qendpoint.core.triples.TempTriples;
 import com.the_qa_company.qendpoint.core.triples.TripleID;
@@ -26,28 +27,29 @@ public class TripleCompressionResultPartial implements TripleCompressionResult {
 	private final TripleComponentOrder order;
 
 	public TripleCompressionResultPartial(List<CloseSuppressPath> files, long tripleCount, TripleComponentOrder order,
-			int bufferSize) throws IOException {
+			int bufferSize, CompressionType compression) throws IOException {
 		this.files = new ArrayList<>(files.size());
 		this.tripleCount = tripleCount;
 		this.order = order;
-		this.triples = new OneReadTempTriples(createBTree(files, 0, files.size(), bufferSize).asIterator(), order,
-				tripleCount);
+		this.triples = new OneReadTempTriples(createBTree(files, 0, files.size(), bufferSize, compression).asIterator(),
+				order, tripleCount);
 	}
 
 	private ExceptionIterator<TripleID, IOException> createBTree(List<CloseSuppressPath> files, int start, int end,
-			int bufferSize) throws IOException {
+			int bufferSize, CompressionType compression) throws IOException {
 		int size = end - start;
 		if (size <= 0) {
 			return ExceptionIterator.empty();
 		}
 		if (size == 1) {
-			CompressTripleReader r = new CompressTripleReader(files.get(start).openInputStream(bufferSize));
+			CompressTripleReader r = new CompressTripleReader(
+					files.get(start).openInputStream(bufferSize, compression));
 			this.files.add(r);
 			return r;
 		}
 		int mid = (start + end) / 2;
-		ExceptionIterator<TripleID, IOException> left = createBTree(files, start, mid, bufferSize);
-		ExceptionIterator<TripleID, IOException> right = createBTree(files, mid, end, bufferSize);
+		ExceptionIterator<TripleID, IOException> left = createBTree(files, start, mid, bufferSize, compression);
+		ExceptionIterator<TripleID, IOException> right = createBTree(files, mid, end, bufferSize, compression);
 		return new CompressTripleMergeIterator(left, right, order);
 	}
 
@@ -0,0 +1,48 @@
+package com.the_qa_company.qendpoint.core.hdt.impl.diskindex;
+
+import com.the_qa_company.qendpoint.core.enums.TripleComponentOrder;
+import com.the_qa_company.qendpoint.core.iterator.utils.FetcherIterator;
+import com.the_qa_company.qendpoint.core.triples.IteratorTripleID;
+import com.the_qa_company.qendpoint.core.triples.TripleID;
+import com.the_qa_company.qendpoint.core.triples.impl.TripleOrderConvert;
+import com.the_qa_company.qendpoint.core.util.io.compress.Pair;
+
+/**
+ * Reader to convert the triples of an iterator into pairs describing a triple
+ * in another order, the {@link Pair} is used as a (x, y, position) triple with
+ * {@link Pair#object} as x, {@link Pair#predicate} as y and
+ * {@link Pair#predicatePosition} as the position of the triple in the iterator
+ * triples. With x and y fixed, the order of the positions is the order of the
+ * third component, so sorting the pairs sorts the triples in the other order.
+ *
+ * @author Antoine Willerval
+ */
+public class PermutationAdjReader extends FetcherIterator<Pair> {
+	private final IteratorTripleID iterator;
+	private final TripleComponentOrder order;
+	private final TripleID triple = new TripleID();
+
+	/**
+	 * @param iterator iterator of the triples, the triples should be returned
+	 *                 in the order of their positions
+	 * @param order    order of the pairs
+	 */
+	public PermutationAdjReader(IteratorTripleID iterator, TripleComponentOrder order) {
+		this.iterator = iterator;
+		this.order = order;
+	}
+
+	@Override
+	protected Pair getNext() {
+		if (!iterator.hasNext()) {
+			return null;
+		}
+
+		triple.assign(iterator.next());
+		TripleOrderConvert.swapComponentOrder(triple, TripleComponentOrder.SPO, order);
+
+		Pair pair = new Pair();
+		pair.setAll(iterator.getLastTriplePosition(), triple.getSubject(), triple.getPredicate());
+		return pair;
+	}
+}
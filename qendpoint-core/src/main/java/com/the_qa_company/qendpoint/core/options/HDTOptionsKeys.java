@@ -104,6 +104,31 @@ public class HDTOptionsKeys {
 	 */
 	@Key(type = Key.Type.BOOLEAN, desc = "specify that the method doesn't have to copy the triple strings between 2 calls to the iterator")
 	public static final String LOADER_DISK_NO_COPY_ITERATOR_KEY = "loader.disk.noCopyIterator";
+	/**
+	 * Key for the compression of the sorted chunk files written by the
+	 * {@link HDTManager} generateHDTDisk methods, the name of a
+	 * {@link com.the_qa_company.qendpoint.core.enums.CompressionType}, default
+	 * {@link #LOADER_DISK_TEMP_COMPRESSION_VALUE_NONE}
+	 */
+	@Key(type = Key.Type.ENUM, desc = "Compression of the chunk files of the disk generation")
+	public static final String LOADER_DISK_TEMP_COMPRESSION_KEY = "loader.disk.tempCompression";
+	/**
+	 * Value for {@link #LOADER_DISK_TEMP_COMPRESSION_KEY}, no compression
+	 */
+	@Value(key = LOADER_DISK_TEMP_COMPRESSION_KEY, desc = "no compression, default config")
+	public static final String LOADER_DISK_TEMP_COMPRESSION_VALUE_NONE = "none";
+	/**
+	 * Value for {@link #LOADER_DISK_TEMP_COMPRESSION_KEY}, zstandard
+	 * compression
+	 */
+	@Value(key = LOADER_DISK_TEMP_COMPRESSION_KEY, desc = "zstandard compression")
+	public static final String LOADER_DISK_TEMP_COMPRESSION_VALUE_ZSTD = "zstd";
+	/**
+	 * Value for {@link #LOADER_DISK_TEMP_COMPRESSION_KEY}, lz4 frame
+	 * compression, faster than zstd with a lower ratio
+	 */
+	@Value(key = LOADER_DISK_TEMP_COMPRESSION_KEY, desc = "lz4 frame compression")
+	public static final String LOADER_DISK_TEMP_COMPRESSION_VALUE_LZ4 = "lz4";
 
 	/**
 	 * Key for the loading mode of a RDF file for the
@@ -260,6 +285,13 @@ public class HDTOptionsKeys {
 	 */
 	@Key(type = Key.Type.BOOLEAN, desc = "Use the canonical NT file parser, removing checks")
 	public static final String NT_SIMPLE_PARSER_KEY = "parser.ntSimpleParser";
+	/**
+	 * Key for setting the number of workers parsing the chunks of a file with
+	 * the {@link #NT_SIMPLE_PARSER_KEY} parser, 1 for a single threaded parser,
+	 * 0 for the number of processors, default 1. Number value
+	 */
+	@Key(type = Key.Type.NUMBER, desc = "Number of workers of the canonical NT file parser")
+	public static final String NT_SIMPLE_PARSER_WORKERS_KEY = "parser.ntSimpleParser.workers";
 	/**
 	 * Key for setting the maximum amount of file loaded with the directory
 	 * parser, 1 for no async parsing, 0 for the number of processors, default
@@ -351,6 +383,52 @@ public class HDTOptionsKeys {
 	@Key(type = Key.Type.ENUM, desc = "Ignore MSDL RDFTYPE INDEX")
 	public static final String DICTIONARY_MSDL_NO_RDFTYPE_INDEX = "dictionary.msdl.nordftypeindex";
 
+	/**
+	 * Key for the maximum size in bytes of the locate/extract cache shared by
+	 * the threads for each mapped dictionary section, 0 to disable the cache,
+	 * default {@link #DICTIONARY_CACHE_SIZE_DEFAULT} (disabled)
+	 */
+	@Key(type = Key.Type.NUMBER, desc = "Maximum size in bytes of the shared cache of each mapped dictionary section, 0 to disable")
+	public static final String DICTIONARY_CACHE_SIZE_KEY = "dictionary.cache.size";
+	/**
+	 * default value for {@link #DICTIONARY_CACHE_SIZE_KEY}
+	 */
+	public static final long DICTIONARY_CACHE_SIZE_DEFAULT = 0;
+
+	/**
+	 * Key for the admission policy of the dictionary section caches, default
+	 * {@link #DICTIONARY_CACHE_ADMISSION_VALUE_TINYLFU}
+	 */
+	@Key(type = Key.Type.ENUM, desc = "Admission policy of the dictionary section caches")
+	public static final String DICTIONARY_CACHE_ADMISSION_KEY = "dictionary.cache.admission";
+	/**
+	 * value for {@link #DICTIONARY_CACHE_ADMISSION_KEY}. Frequency based
+	 * admission, a new entry only replaces a less requested entry
+	 */
+	@Value(key = DICTIONARY_CACHE_ADMISSION_KEY, desc = "Frequency based admission, default value")
+	public static final String DICTIONARY_CACHE_ADMISSION_VALUE_TINYLFU = "tinylfu";
+	/**
+	 * value for {@link #DICTIONARY_CACHE_ADMISSION_KEY}. Always admit the new
+	 * entries, LRU eviction
+	 */
+	@Value(key = DICTIONARY_CACHE_ADMISSION_KEY, desc = "Always admit the new entries, LRU eviction")
+	public static final String DICTIONARY_CACHE_ADMISSION_VALUE_LRU = "lru";
+
+	/**
+	 * Key to record the hit/miss counters of the dictionary section caches, the
+	 * counters are logged when the section is closed, default false
+	 */
+	@Key(type = Key.Type.BOOLEAN, desc = "Record the hit/miss counters of the dictionary section caches")
+	public static final String DICTIONARY_CACHE_STATS_KEY = "dictionary.cache.stats";
+
+	/**
+	 * Key to keep the first string of one block every N blocks in memory for
+	 * the mapped PFC sections, the sampled heads are used to reduce the range
+	 * of the binary search in the mapped file, 0 to disable, default 0
+	 */
+	@Key(type = Key.Type.NUMBER, desc = "Keep the first string of one block every N blocks in memory for the mapped PFC sections, 0 to disable")
+	public static final String DICTIONARY_PFC_BLOCK_HEADS_SAMPLING_KEY = "dictionary.pfc.blockHeadsSampling";
+
 	/**
 	 * Location of the HDTCat temp files
 	 */
@@ -372,6 +450,27 @@ public class HDTOptionsKeys {
 	 */
 	@Key(type = Key.Type.BOOLEAN, desc = "Delete the HDTCat temp files directory after HDTCat, default to true")
 	public static final String HDTCAT_DELETE_LOCATION = "hdtcat.deleteLocation";
+	/**
+	 * Location to write the mappings from the IDs of the HDTs to the IDs of the
+	 * HDTCat hdt, see
+	 * {@link com.the_qa_company.qendpoint.core.dictionary.impl.kcat.KCatMapping},
+	 * not written by default
+	 */
+	@Key(type = Key.Type.PATH, desc = "Location to write the mappings from the IDs of the HDTs to the IDs of the HDTCat hdt")
+	public static final String HDTCAT_MAPPING_LOCATION = "hdtcat.mappingLocation";
+	/**
+	 * Comma separated list of the indexes of the HDTs to write the mapping of
+	 * in the {@link #HDTCAT_MAPPING_LOCATION} (example: {@code 0}), by default
+	 * the mappings of all the HDTs are written
+	 */
+	@Key(type = Key.Type.STRING, desc = "Comma separated list of the indexes of the HDTs to write the mapping of, default all")
+	public static final String HDTCAT_MAPPING_INDEXES = "hdtcat.mappingIndexes";
+	/**
+	 * Maximum number of bytes written per second by the HDTCat writer of the
+	 * final HDT, 0 for no limit, default 0
+	 */
+	@Key(type = Key.Type.NUMBER, desc = "Maximum number of bytes written per second by the HDTCat writer")
+	public static final String HDTCAT_WRITE_RATE_LIMIT = "hdtcat.writeRateLimit";
 
 	/**
 	 * Use disk implementation to generate the hdt sub-index, default false
@@ -491,6 +590,15 @@ public class HDTOptionsKeys {
 			+ BITMAPTRIPLES_INDEX_METHOD_VALUE_DISK + " index method")
 	public static final String BITMAPTRIPLES_DISK_KWAY_KEY = "bitmaptriples.indexmethod.disk.kway";
 
+	/**
+	 * Key for the other triple orders to index with the HDT, comma separated
+	 * list of {@link TripleComponentOrder} names (example:
+	 * {@code PSO,POS,OSP}), the permutations are stored next to the .index
+	 * file, by default no other order is indexed
+	 */
+	@Key(type = Key.Type.STRING, desc = "Comma separated list of the other triple orders to index, example: PSO,POS,OSP")
+	public static final String BITMAPTRIPLES_INDEX_OTHERS = "bitmaptriples.index.others";
+
 	@Key(type = Key.Type.BOOLEAN, desc = "Dump binary offsets, default false")
 	public static final String DUMP_BINARY_OFFSETS = "bump.binary.offsets";
 
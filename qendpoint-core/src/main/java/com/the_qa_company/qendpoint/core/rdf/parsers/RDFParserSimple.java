@@ -20,6 +20,8 @@ package com.the_qa_company.qendpoint.core.rdf.parsers;
 
 import com.the_qa_company.qendpoint.core.enums.RDFNotation;
 import com.the_qa_company.qendpoint.core.exceptions.ParserException;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
 import com.the_qa_company.qendpoint.core.quads.QuadString;
 import com.the_qa_company.qendpoint.core.rdf.RDFParserCallback;
 import com.the_qa_company.qendpoint.core.triples.TripleString;
@@ -31,12 +33,52 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
+ * Canonical N-Triples/N-Quads parser, one triple per line. With more than one
+ * worker, the input is split into chunks on line boundaries and the chunks are
+ * parsed by a pool of workers, the triples are sent to the callback in the
+ * input order by the calling thread.
+ *
  * @author mario.arias
  */
 public class RDFParserSimple implements RDFParserCallback {
 	private static final Logger log = LoggerFactory.getLogger(RDFParserSimple.class);
+	/**
+	 * size of a chunk sent to a worker
+	 */
+	static final int CHUNK_SIZE = 1 << 22;
+	private static final int LINE_IGNORED = 0;
+	private static final int LINE_READ = 1;
+	private static final int LINE_INVALID = 2;
+
+	final int workers;
+
+	public RDFParserSimple(HDTOptions spec) {
+		long workersValue = spec.getInt(HDTOptionsKeys.NT_SIMPLE_PARSER_WORKERS_KEY, 1);
+		if (workersValue == 0) {
+			// use processor count for 0 to be full parallel
+			workers = Runtime.getRuntime().availableProcessors();
+		} else if (workersValue < 0 || workersValue >= Integer.MAX_VALUE - 5) {
+			throw new IllegalArgumentException(
+					"Invalid value for " + HDTOptionsKeys.NT_SIMPLE_PARSER_WORKERS_KEY + ": " + workersValue);
+		} else {
+			workers = (int) workersValue;
+		}
+	}
+
+	public RDFParserSimple() {
+		this(HDTOptions.EMPTY);
+	}
 
 	/*
 	 * (non-Javadoc)
@@ -47,6 +89,20 @@ public class RDFParserSimple implements RDFParserCallback {
 	@Override
 	public void doParse(String fileName, String baseUri, RDFNotation notation, boolean keepBNode, RDFCallback callback)
 			throws ParserException {
+		if (workers > 1) {
+			InputStream input;
+			try {
+				input = IOUtil.getFileInputStream(fileName);
+			} catch (IOException e) {
+				throw new ParserException(e);
+			}
+			try (input) {
+				doParseParallel(input, notation, callback);
+			} catch (IOException e) {
+				throw new ParserException(e);
+			}
+			return;
+		}
 		BufferedReader reader;
 		try {
 			reader = IOUtil.getFileReader(fileName);
@@ -64,6 +120,14 @@ public class RDFParserSimple implements RDFParserCallback {
 	@Override
 	public void doParse(InputStream input, String baseUri, RDFNotation notation, boolean keepBNode,
 			RDFCallback callback) throws ParserException {
+		if (workers > 1) {
+			try (input) {
+				doParseParallel(input, notation, callback);
+			} catch (IOException e) {
+				throw new ParserException(e);
+			}
+			return;
+		}
 		try (BufferedReader reader = new BufferedReader(new InputStreamReader(input))) {
 			doParse(reader, baseUri, notation, keepBNode, callback);
 		} catch (IOException e) {
@@ -71,6 +135,44 @@ public class RDFParserSimple implements RDFParserCallback {
 		}
 	}
 
+	/**
+	 * read a line into a triple
+	 *
+	 * @param line     the line
+	 * @param triple   the triple to fill
+	 * @param readQuad read the graph of the line
+	 * @return {@link #LINE_READ}, {@link #LINE_INVALID} or
+	 *         {@link #LINE_IGNORED} for empty lines and comments
+	 * @throws ParserException if the line can't be read
+	 */
+	private static int readLine(String line, TripleString triple, boolean readQuad) throws ParserException {
+		// trim, find start
+		int start = 0;
+		while (start < line.length()) {
+			char c = line.charAt(start);
+			if (c != ' ' && c != '\t') {
+				break;
+			}
+			start++;
+		}
+		// trim, find end
+		int end = line.length() - 1;
+		while (end >= 0) {
+			char c = line.charAt(end);
+			if (c != ' ' && c != '\t') {
+				break;
+			}
+			end--;
+		}
+		// check that we have at least one element and this line isn't a
+		// comment
+		if (start + 1 < end && line.charAt(start) != '#') {
+			triple.read(line, start, end, readQuad);
+			return triple.hasEmpty() ? LINE_INVALID : LINE_READ;
+		}
+		return LINE_IGNORED;
+	}
+
 	private void doParse(BufferedReader reader, String baseUri, RDFNotation notation, boolean keepBNode,
 			RDFCallback callback) throws ParserException {
 		boolean readQuad = notation == RDFNotation.NQUAD;
@@ -84,34 +186,11 @@ public class RDFParserSimple implements RDFParserCallback {
 				triple = new TripleString();
 			}
 			while ((line = reader.readLine()) != null) {
-				// trim, find start
-				int start = 0;
-				while (start < line.length()) {
-					char c = line.charAt(start);
-					if (c != ' ' && c != '\t') {
-						break;
-					}
-					start++;
-				}
-				// trim, find end
-				int end = line.length() - 1;
-				while (end >= 0) {
-					char c = line.charAt(end);
-					if (c != ' ' && c != '\t') {
-						break;
-					}
-					end--;
-				}
-				// check that we have at least one element and this line isn't a
-				// comment
-				if (start + 1 < end && line.charAt(start) != '#') {
-					triple.read(line, start, end, readQuad);
-					if (!triple.hasEmpty()) {
-						// System.out.println(triple);
-						callback.processTriple(triple, 0);
-					} else {
-						log.warn("Could not parse triple at line " + numLine + ", ignored and not processed.\n" + line);
-					}
+				int read = readLine(line, triple, readQuad);
+				if (read == LINE_READ) {
+					callback.processTriple(triple, 0);
+				} else if (read == LINE_INVALID) {
+					log.warn("Could not parse triple at line " + numLine + ", ignored and not processed.\n" + line);
 				}
 				numLine++;
 			}
@@ -120,4 +199,123 @@ public class RDFParserSimple implements RDFParserCallback {
 			throw new ParserException(e);
 		}
 	}
+
+	private void doParseParallel(InputStream input, RDFNotation notation, RDFCallback callback) throws ParserException {
+		boolean readQuad = notation == RDFNotation.NQUAD;
+		ExecutorService executorService = Executors.newFixedThreadPool(workers);
+		// the chunks being parsed, in the input order, 2 per worker to
+		// read the next chunks while the previous ones are sent
+		ArrayDeque<Future<ParsedChunk>> chunks = new ArrayDeque<>();
+		long[] numLine = { 1 };
+		try {
+			byte[] buffer = new byte[CHUNK_SIZE];
+			int size = 0;
+			while (true) {
+				int read = input.readNBytes(buffer, size, buffer.length - size);
+				size += read;
+				boolean eof = size < buffer.length;
+
+				// cut the chunk after the last line end, a '\r' at the end of
+				// the buffer can be followed by a '\n' in the next read
+				int cut = size;
+				if (!eof) {
+					while (cut > 0 && buffer[cut - 1] != '\n' && (buffer[cut - 1] != '\r' || cut == size)) {
+						cut--;
+					}
+					if (cut == 0) {
+						// line bigger than the buffer
+						buffer = Arrays.copyOf(buffer, buffer.length * 2);
+						continue;
+					}
+				}
+
+				if (cut > 0) {
+					byte[] chunk = Arrays.copyOf(buffer, cut);
+					chunks.add(executorService.submit(() -> parseChunk(chunk, readQuad)));
+					System.arraycopy(buffer, cut, buffer, 0, size - cut);
+					size -= cut;
+				}
+
+				while (chunks.size() >= workers * 2 || (eof && !chunks.isEmpty())) {
+					chunks.poll().get().send(callback, numLine);
+				}
+				if (eof) {
+					break;
+				}
+			}
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof ParserException pe) {
+				throw pe;
+			}
+			throw new ParserException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ParserException(e);
+		} catch (IOException e) {
+			throw new ParserException(e);
+		} finally {
+			// close the service
+			executorService.shutdownNow();
+		}
+	}
+
+	private static ParsedChunk parseChunk(byte[] chunk, boolean readQuad) throws ParserException {
+		String text = new String(chunk, StandardCharsets.UTF_8);
+		ParsedChunk parsed = new ParsedChunk();
+		int lineStart = 0;
+		while (lineStart < text.length()) {
+			// a line is ended by '\n', '\r' or "\r\n" like with
+			// BufferedReader#readLine()
+			int lineEnd = lineStart;
+			while (lineEnd < text.length() && text.charAt(lineEnd) != '\n' && text.charAt(lineEnd) != '\r') {
+				lineEnd++;
+			}
+			int next;
+			if (lineEnd == text.length()) {
+				next = lineEnd;
+			} else if (text.charAt(lineEnd) == '\r' && lineEnd + 1 < text.length()
+					&& text.charAt(lineEnd + 1) == '\n') {
+				next = lineEnd + 2;
+			} else {
+				next = lineEnd + 1;
+			}
+			String line = text.substring(lineStart, lineEnd);
+			TripleString triple = readQuad ? new QuadString() : new TripleString();
+			int read = readLine(line, triple, readQuad);
+			if (read == LINE_READ) {
+				parsed.triples.add(triple);
+			} else if (read == LINE_INVALID) {
+				parsed.addInvalid(line);
+			}
+			parsed.lines++;
+			lineStart = next;
+		}
+		return parsed;
+	}
+
+	/**
+	 * result of the parsing of a chunk
+	 */
+	private static class ParsedChunk {
+		private final List<TripleString> triples = new ArrayList<>();
+		private final List<String> invalidLines = new ArrayList<>();
+		private final List<Long> invalidLineNumbers = new ArrayList<>();
+		private long lines;
+
+		void addInvalid(String line) {
+			invalidLines.add(line);
+			invalidLineNumbers.add(lines);
+		}
+
+		void send(RDFCallback callback, long[] numLine) {
+			for (int i = 0; i < invalidLines.size(); i++) {
+				log.warn("Could not parse triple at line " + (numLine[0] + invalidLineNumbers.get(i))
+						+ ", ignored and not processed.\n" + invalidLines.get(i));
+			}
+			for (TripleString triple : triples) {
+				callback.processTriple(triple, 0);
+			}
+			numLine[0] += lines;
+		}
+	}
 }
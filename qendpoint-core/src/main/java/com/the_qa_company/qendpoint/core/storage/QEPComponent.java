@@ -230,6 +230,10 @@ public class QEPComponent implements Cloneable {
 				int originDataset = e.getKey();
 				long originId = e.getValue().id();
 
+				if (core.getMappingById(Uid.of(originDataset, dataset)) == null) {
+					continue; // the origin dataset was replaced by a merge
+				}
+
 				NodeConverter converter = core.getConverter(originDataset, dataset, TripleComponentRole.PREDICATE);
 				long mapValue = converter.mapValue(originId);
 				predicateIds.put(dataset, new PredicateElement(mapValue, d2));
@@ -240,7 +244,14 @@ public class QEPComponent implements Cloneable {
 
 			// search by string
 
-			long pid = d2.dataset().getDictionary().stringToId(getString(), TripleComponentRole.PREDICATE);
+			CharSequence seq = getString();
+			if (!d2.mayContain(seq, TripleComponentRole.PREDICATE)) {
+				// rejected by the dataset filter, no need to locate it
+				predicateIds.put(dataset, new PredicateElement(0, d2));
+				return 0;
+			}
+
+			long pid = d2.dataset().getDictionary().stringToId(seq, TripleComponentRole.PREDICATE);
 
 			// put our find in the map
 			if (pid <= 0) {
@@ -279,6 +290,10 @@ public class QEPComponent implements Cloneable {
 				int originDataset = e.getKey();
 				long originId = e.getValue().id();
 
+				if (core.getMappingById(Uid.of(originDataset, dataset)) == null) {
+					continue; // the origin dataset was replaced by a merge
+				}
+
 				NodeConverter converter = core.getConverter(originDataset, dataset,
 						e.getValue().role.asTripleComponentRole());
 				long mapValue = converter.mapValue(originId);
@@ -308,6 +323,12 @@ public class QEPComponent implements Cloneable {
 			// can't find it, we need to use the string
 			CharSequence seq = getString();
 
+			if (!d2.mayContain(seq, role)) {
+				// rejected by the dataset filter, not a subject or an object
+				sharedIds.put(dataset, new SharedElement(0, DictionarySectionRole.SHARED, d2, "filtered"));
+				return 0;
+			}
+
 			long id = d2.dataset().getDictionary().stringToId(seq, role);
 
 			if (id <= 0) {
@@ -2,6 +2,8 @@ package com.the_qa_company.qendpoint.core.storage;
 
 import com.the_qa_company.qendpoint.core.compact.bitmap.Bitmap64Big;
 import com.the_qa_company.qendpoint.core.compact.bitmap.ModifiableBitmap;
+import com.the_qa_company.qendpoint.core.dictionary.Dictionary;
+import com.the_qa_company.qendpoint.core.dictionary.impl.kcat.KCatMapping;
 import com.the_qa_company.qendpoint.core.enums.DictionarySectionRole;
 import com.the_qa_company.qendpoint.core.enums.TripleComponentRole;
 import com.the_qa_company.qendpoint.core.exceptions.NotFoundException;
@@ -17,19 +19,26 @@ import com.the_qa_company.qendpoint.core.listener.ProgressListener;
 import com.the_qa_company.qendpoint.core.options.HDTOptions;
 import com.the_qa_company.qendpoint.core.storage.converter.NodeConverter;
 import com.the_qa_company.qendpoint.core.storage.iterator.CatQueryCloseable;
+import com.the_qa_company.qendpoint.core.storage.iterator.ParallelQueryCloseable;
 import com.the_qa_company.qendpoint.core.storage.iterator.QueryCloseableIterator;
 import com.the_qa_company.qendpoint.core.storage.merge.QEPCoreMergeThread;
 import com.the_qa_company.qendpoint.core.storage.search.QEPComponentTriple;
+import com.the_qa_company.qendpoint.core.triples.IteratorTripleID;
+import com.the_qa_company.qendpoint.core.triples.TripleID;
 import com.the_qa_company.qendpoint.core.triples.TripleString;
+import com.the_qa_company.qendpoint.core.triples.Triples;
 import com.the_qa_company.qendpoint.core.util.ContainerException;
 import com.the_qa_company.qendpoint.core.util.io.Closer;
 import com.the_qa_company.qendpoint.core.util.io.IOUtil;
 import com.the_qa_company.qendpoint.core.util.nsd.NamespaceData;
 import com.the_qa_company.qendpoint.core.util.string.ByteString;
 import org.apache.commons.io.file.PathUtils;
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
@@ -38,6 +47,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -45,11 +55,19 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
+import static com.the_qa_company.qendpoint.core.enums.TripleComponentRole.OBJECT;
+import static com.the_qa_company.qendpoint.core.enums.TripleComponentRole.PREDICATE;
+import static com.the_qa_company.qendpoint.core.enums.TripleComponentRole.SUBJECT;
 import static com.the_qa_company.qendpoint.core.options.HDTOptionsKeys.BITMAPTRIPLES_INDEX_METHOD_KEY;
 import static com.the_qa_company.qendpoint.core.options.HDTOptionsKeys.BITMAPTRIPLES_INDEX_METHOD_VALUE_DISK;
 import static com.the_qa_company.qendpoint.core.options.HDTOptionsKeys.BITMAPTRIPLES_SEQUENCE_DISK;
@@ -104,6 +122,11 @@ public class QEPCore implements AutoCloseable {
 	 * suffix of the datasets in the {@link #FILE_DATASET_STORE} directory
 	 */
 	public static final String FILE_DATASET_SUFFIX = ".hdt";
+	/**
+	 * suffix of the marker of a dataset replaced by a merge, the marked
+	 * datasets are deleted when the core is loaded
+	 */
+	public static final String FILE_DATASET_REMOVED_SUFFIX = ".removed";
 	/**
 	 * directory where the datasets are
 	 */
@@ -121,6 +144,9 @@ public class QEPCore implements AutoCloseable {
 	private final Object datasetLock = new Object() {};
 	private final ReentrantLock insertLock = new ReentrantLock();
 	private final Object bindLock = new Object() {};
+	private final Object updateLock = new Object() {};
+	private final Set<QEPDataset> removedDatasets = new HashSet<>();
+	final AtomicInteger openContexts = new AtomicInteger();
 	private final Object idBuilderLock = new Object() {};
 	private final ConcurrentMap<Integer, QEPDataset> datasetByUid = new ConcurrentHashMap<>();
 	private final ConcurrentMap<Uid, QEPMap> map = new ConcurrentHashMap<>();
@@ -134,6 +160,13 @@ public class QEPCore implements AutoCloseable {
 	private long maxId;
 	private final QEPCoreMergeThread mergeThread;
 	private final NamespaceData namespaceData;
+	private final int searchParallelism;
+	private final boolean searchOrdered;
+	private final int filterBitsPerElement;
+	private final boolean filterPairs;
+	private final Semaphore searchPermits;
+	private final boolean mergeAuto;
+	private ExecutorService searchExecutor;
 
 	QEPCore() {
 		options = HDTOptions.of();
@@ -142,6 +175,12 @@ public class QEPCore implements AutoCloseable {
 		location = Path.of("tests");
 		mergeThread = new QEPCoreMergeThread(this, options);
 		namespaceData = new NamespaceData(getNamespaceDataLocation());
+		searchParallelism = 1;
+		searchOrdered = true;
+		filterBitsPerElement = 0;
+		filterPairs = false;
+		searchPermits = null;
+		mergeAuto = false;
 	}
 
 	/**
@@ -245,13 +284,35 @@ public class QEPCore implements AutoCloseable {
 
 		memoryDataset = this.options.getBoolean(OPTION_IN_MEMORY_DATASET, false);
 		noCoIndex = this.options.getBoolean(OPTION_NO_CO_INDEX, false);
+		long parallelism = this.options.getInt(QEPCoreOptions.QEPC_SEARCH_PARALLELISM, 1);
+		if (parallelism == 0) {
+			// use processor count for 0 to be full parallel
+			searchParallelism = Runtime.getRuntime().availableProcessors();
+		} else if (parallelism < 0 || parallelism > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException(
+					"Invalid value for " + QEPCoreOptions.QEPC_SEARCH_PARALLELISM + ": " + parallelism);
+		} else {
+			searchParallelism = (int) parallelism;
+		}
+		searchOrdered = this.options.getBoolean(QEPCoreOptions.QEPC_SEARCH_ORDERED, true);
+		long filterBits = this.options.getInt(QEPCoreOptions.QEPC_FILTER_BITS_PER_ELEMENT, 10);
+		if (filterBits < 0 || filterBits > 64) {
+			throw new IllegalArgumentException("Invalid value for " + QEPCoreOptions.QEPC_FILTER_BITS_PER_ELEMENT + ": "
+					+ filterBits + ", it should be between 0 and 64");
+		}
+		filterBitsPerElement = (int) filterBits;
+		filterPairs = this.options.getBoolean(QEPCoreOptions.QEPC_FILTER_PAIRS, false);
+		searchPermits = new Semaphore(searchParallelism);
+		mergeAuto = this.options.getBoolean(QEPCoreOptions.QEPC_MERGE_AUTO, false);
 
 		mergeThread = new QEPCoreMergeThread(this, options);
 
 		namespaceData = new NamespaceData(getNamespaceDataLocation());
 
 		try {
-			// load the dataset, sync the maps and load the namespaces
+			// recover an interrupted merge, load the dataset, sync the maps and
+			// load the namespaces
+			mergeThread.recoverMerge();
 			reloadDataset();
 			syncDatasetMaps();
 			namespaceData.load();
@@ -299,7 +360,7 @@ public class QEPCore implements AutoCloseable {
 				}
 			}
 
-			Path deleteBitmapPath = path.resolveSibling(path.getFileName() + ".delete.bm");
+			Path deleteBitmapPath = getDeleteBitmapPath(path);
 
 			if (Files.exists(deleteBitmapPath)) {
 				bitmap = Bitmap64Big.map(deleteBitmapPath, dataset.getTriples().getNumberOfElements());
@@ -308,7 +369,7 @@ public class QEPCore implements AutoCloseable {
 			}
 
 			for (TripleComponentRole role : TripleComponentRole.values()) {
-				Path deltaBitmapPath = path.resolveSibling(path.getFileName() + ".delta-" + role.getTitle() + ".bm");
+				Path deltaBitmapPath = getDeltaBitmapPath(path, role);
 				long size = dataset.getDictionary().getNSection(role, role == TripleComponentRole.SUBJECT);
 
 				if (Files.exists(deltaBitmapPath)) {
@@ -318,13 +379,88 @@ public class QEPCore implements AutoCloseable {
 				}
 			}
 
-			return new QEPDataset(this, id, path, dataset, bitmap, deltaBitmaps);
+			QEPDatasetFilter filter;
+			if (filterBitsPerElement != 0) {
+				filter = QEPDatasetFilter.loadOrBuild(dataset, QEPDatasetFilter.getFilterPath(path),
+						filterBitsPerElement, filterPairs);
+			} else {
+				filter = null;
+			}
+
+			return new QEPDataset(this, id, path, dataset, bitmap, deltaBitmaps, filter);
 		} catch (Throwable t) {
 			Closer.closeAll(t, dataset, bitmap, deltaBitmaps);
 			throw new AssertionError();
 		}
 	}
 
+	/**
+	 * build and write the filter of a new dataset, the filter is then read when
+	 * the dataset is opened instead of being built from its dictionary
+	 *
+	 * @param dataset     dataset
+	 * @param datasetPath dataset path
+	 * @throws IOException write exception
+	 */
+	public void writeDatasetFilter(HDT dataset, Path datasetPath) throws IOException {
+		if (filterBitsPerElement != 0) {
+			QEPDatasetFilter.build(dataset, filterBitsPerElement, filterPairs)
+					.write(QEPDatasetFilter.getFilterPath(datasetPath));
+		}
+	}
+
+	/**
+	 * get the file of a dataset in the {@link #FILE_DATASET_STORE} directory
+	 *
+	 * @param id dataset id
+	 * @return path
+	 */
+	public Path getDatasetFile(String id) {
+		return getDatasetPath().resolve(FILE_DATASET_PREFIX + id + FILE_DATASET_SUFFIX);
+	}
+
+	private static Path getDeleteBitmapPath(Path datasetPath) {
+		return datasetPath.resolveSibling(datasetPath.getFileName() + ".delete.bm");
+	}
+
+	private static Path getDeltaBitmapPath(Path datasetPath, TripleComponentRole role) {
+		return datasetPath.resolveSibling(datasetPath.getFileName() + ".delta-" + role.getTitle() + ".bm");
+	}
+
+	private static Path getRemovedMarkerPath(Path datasetPath) {
+		return datasetPath.resolveSibling(datasetPath.getFileName() + FILE_DATASET_REMOVED_SUFFIX);
+	}
+
+	/**
+	 * delete the files of a dataset, its bitmaps, filter and removed marker
+	 *
+	 * @param datasetPath dataset path
+	 * @throws IOException delete exception
+	 */
+	public static void deleteDatasetFiles(Path datasetPath) throws IOException {
+		Files.deleteIfExists(datasetPath);
+		Files.deleteIfExists(getDeleteBitmapPath(datasetPath));
+		for (TripleComponentRole role : TripleComponentRole.values()) {
+			Files.deleteIfExists(getDeltaBitmapPath(datasetPath, role));
+		}
+		Files.deleteIfExists(QEPDatasetFilter.getFilterPath(datasetPath));
+		// delete the marker last to retry the delete after a failure
+		Files.deleteIfExists(getRemovedMarkerPath(datasetPath));
+	}
+
+	/**
+	 * unmark the datasets marked as removed, used to roll back an interrupted
+	 * merge
+	 *
+	 * @param ids dataset ids
+	 * @throws IOException delete exception
+	 */
+	public void restoreRemovedDatasets(Collection<String> ids) throws IOException {
+		for (String id : ids) {
+			Files.deleteIfExists(getRemovedMarkerPath(getDatasetFile(id)));
+		}
+	}
+
 	/**
 	 * Reload the dataset with the disk
 	 *
@@ -359,6 +495,16 @@ public class QEPCore implements AutoCloseable {
 									path);
 							return;
 						}
+						if (Files.exists(getRemovedMarkerPath(path))) {
+							// replaced by a merge, but still used when the core
+							// was closed
+							try {
+								deleteDatasetFiles(path);
+							} catch (IOException e) {
+								logger.warn("Can't delete the removed dataset {}", path, e);
+							}
+							return;
+						}
 						// load the dataset
 						try {
 							if (indexId.length() < 15) {
@@ -527,6 +673,219 @@ public class QEPCore implements AutoCloseable {
 		}
 	}
 
+	/**
+	 * replace datasets of the core with a dataset containing their triples, the
+	 * triples deleted from the replaced datasets after the creation of their
+	 * contexts are deleted from the new dataset. The replaced datasets are
+	 * closed and deleted after the close of their last context.
+	 *
+	 * @param contexts contexts of the replaced datasets, used to create the new
+	 *                 dataset
+	 * @param id       id of the new dataset, its file should be at
+	 *                 {@link #getDatasetFile(String)}
+	 * @return the new dataset
+	 * @throws IOException      can't open the new dataset
+	 * @throws QEPCoreException a dataset was already removed from the core
+	 * @see #replaceDatasets(Collection, String, Path)
+	 */
+	public QEPDataset replaceDatasets(Collection<? extends QEPDatasetContext> contexts, String id) throws IOException {
+		return replaceDatasets(contexts, id, null);
+	}
+
+	/**
+	 * replace datasets of the core with a dataset containing their triples, the
+	 * triples deleted from the replaced datasets after the creation of their
+	 * contexts are deleted from the new dataset. The replaced datasets are
+	 * closed and deleted after the close of their last context.
+	 * <p>
+	 * The deletes are converted to the new dataset before the lock of the
+	 * updates, only the deletes done during this conversion are converted with
+	 * the lock.
+	 *
+	 * @param contexts        contexts of the replaced datasets, used to create
+	 *                        the new dataset
+	 * @param id              id of the new dataset, its file should be at
+	 *                        {@link #getDatasetFile(String)}
+	 * @param mappingLocation location of the
+	 *                        {@link com.the_qa_company.qendpoint.core.options.HDTOptionsKeys#HDTCAT_MAPPING_LOCATION}
+	 *                        mappings written by the cat of the contexts, in
+	 *                        the contexts order, null to convert the ids with
+	 *                        the dictionaries
+	 * @return the new dataset
+	 * @throws IOException      can't open the new dataset
+	 * @throws QEPCoreException a dataset was already removed from the core
+	 */
+	public QEPDataset replaceDatasets(Collection<? extends QEPDatasetContext> contexts, String id, Path mappingLocation)
+			throws IOException {
+		QEPDataset ds = openDataset(id, getDatasetFile(id));
+		List<DeleteMapper> mappers = new ArrayList<>();
+		try {
+			int hdtIndex = 0;
+			for (QEPDatasetContext ctx : contexts) {
+				KCatMapping mapping = mappingLocation == null ? null : new KCatMapping(mappingLocation, hdtIndex);
+				mappers.add(new DeleteMapper(ctx, ds, mapping));
+				hdtIndex++;
+			}
+
+			// the deletes done while the new dataset was built, without
+			// locking the updates
+			for (DeleteMapper mapper : mappers) {
+				mapper.applyDeletes();
+			}
+
+			synchronized (updateLock) {
+				synchronized (bindLock) {
+					Set<Integer> replaced = new HashSet<>();
+					for (DeleteMapper mapper : mappers) {
+						QEPDataset old = mapper.ctx.dataset();
+						if (getDatasetById(old.id()) != old) {
+							throw new QEPCoreException("the dataset " + old.id() + " isn't in the core");
+						}
+						replaced.add(old.uid());
+						// the deletes done since the previous pass
+						mapper.applyDeletes();
+					}
+
+					for (QEPDataset d2 : createDatasetSnapshot()) {
+						if (!replaced.contains(d2.uid())) {
+							bindDataset(ds, d2);
+						}
+					}
+
+					for (QEPDatasetContext ctx : contexts) {
+						Files.createFile(getRemovedMarkerPath(ctx.dataset().path()));
+					}
+
+					synchronized (datasetLock) {
+						for (QEPDatasetContext ctx : contexts) {
+							QEPDataset old = ctx.dataset();
+							dataset.remove(old.id());
+							removedDatasets.add(old);
+						}
+						dataset.put(ds.id(), ds);
+						datasetByUid.put(ds.uid(), ds);
+
+						// release the core usage of the datasets
+						for (QEPDatasetContext ctx : contexts) {
+							ctx.dataset().release();
+						}
+					}
+				}
+			}
+		} catch (Throwable t) {
+			if (getDatasetById(id) != ds) {
+				Closer.closeAll(t, ds, mappers);
+			}
+			throw t;
+		}
+		Closer.closeAll(mappers);
+		return ds;
+	}
+
+	/**
+	 * delete from the new dataset of a merge the triples deleted from a merged
+	 * dataset after the creation of its merge context
+	 */
+	private static class DeleteMapper implements Closeable {
+		private final QEPDatasetContext ctx;
+		private final QEPDataset ds;
+		private final KCatMapping mapping;
+		private final Roaring64Bitmap applied = new Roaring64Bitmap();
+
+		DeleteMapper(QEPDatasetContext ctx, QEPDataset ds, KCatMapping mapping) {
+			this.ctx = ctx;
+			this.ds = ds;
+			this.mapping = mapping;
+		}
+
+		/**
+		 * delete the triples deleted since the previous call
+		 */
+		void applyDeletes() {
+			Roaring64Bitmap deleted = ctx.copyDeletedSinceCreation().getHandle();
+			deleted.andNot(applied);
+			if (deleted.isEmpty()) {
+				return;
+			}
+			applied.or(deleted);
+
+			Triples oldTriples = ctx.dataset().dataset().getTriples();
+			Triples newTriples = ds.dataset().getTriples();
+			// the positions are sorted, the subjects are read in order
+			long lastSubject = 0;
+			long lastMappedSubject = 0;
+			LongIterator it = deleted.getLongIterator();
+			while (it.hasNext()) {
+				TripleID triple = oldTriples.findTriple(it.next());
+				if (triple.getSubject() != lastSubject) {
+					lastSubject = triple.getSubject();
+					lastMappedSubject = map(triple.getSubject(), SUBJECT);
+				}
+				long s = lastMappedSubject;
+				long p = map(triple.getPredicate(), PREDICATE);
+				long o = map(triple.getObject(), OBJECT);
+				if (s <= 0 || p <= 0 || o <= 0) {
+					continue;
+				}
+				IteratorTripleID search = newTriples.search(new TripleID(s, p, o));
+				if (search.hasNext()) {
+					search.next();
+					ds.deleteTriple(search.getLastTriplePosition());
+				}
+			}
+		}
+
+		private long map(long id, TripleComponentRole role) {
+			if (mapping != null) {
+				return mapping.map(id, role);
+			}
+			Dictionary oldDict = ctx.dataset().dataset().getDictionary();
+			return ds.dataset().getDictionary().stringToId(oldDict.idToString(id, role), role);
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (mapping != null) {
+				mapping.close();
+			}
+		}
+	}
+
+	/**
+	 * close and delete a dataset removed from the core after the release of its
+	 * last user
+	 *
+	 * @param ds dataset
+	 */
+	void releaseDataset(QEPDataset ds) {
+		synchronized (bindLock) {
+			if (!removedDatasets.remove(ds)) {
+				return; // closed with the core
+			}
+			datasetByUid.remove(ds.uid());
+			Iterator<QEPMap> it = map.values().iterator();
+			while (it.hasNext()) {
+				QEPMap m = it.next();
+				if (m.uid.uid1() != ds.uid() && m.uid.uid2() != ds.uid()) {
+					continue;
+				}
+				it.remove();
+				try {
+					m.close();
+					PathUtils.deleteDirectory(m.path);
+				} catch (IOException e) {
+					logger.warn("Can't delete the map {}", m.path, e);
+				}
+			}
+		}
+		try {
+			ds.close();
+			deleteDatasetFiles(ds.path());
+		} catch (IOException e) {
+			logger.warn("Can't delete the removed dataset {}, it will be deleted with the next load", ds.path(), e);
+		}
+	}
+
 	private List<QEPDataset> createDatasetSnapshot() {
 		synchronized (datasetLock) {
 			return dataset.values().stream().toList();
@@ -663,9 +1022,27 @@ public class QEPCore implements AutoCloseable {
 	 * @throws QEPCoreException search exception
 	 */
 	public QueryCloseableIterator search(QEPCoreContext context, QEPComponentTriple triple) throws QEPCoreException {
-		List<QueryCloseableIterator> iterators = new ArrayList<>();
+		return search(context, triple, searchOrdered, ParallelQueryCloseable.DEFAULT_BATCH_SIZE);
+	}
+
+	private QueryCloseableIterator search(QEPCoreContext context, QEPComponentTriple triple, boolean ordered,
+			int batchSize) throws QEPCoreException {
 		QEPComponentTriple clone = triple.freeze();
-		for (QEPDatasetContext dsctx : context.getContexts()) {
+		Collection<QEPDatasetContext> contexts = context.getContexts();
+
+		if (searchParallelism > 1 && contexts.size() > 1) {
+			// probe the datasets in parallel
+			List<Supplier<QueryCloseableIterator>> searches = new ArrayList<>(contexts.size());
+			for (QEPDatasetContext dsctx : contexts) {
+				// each search is using its own component copies
+				QEPComponentTriple pattern = clone.deepClone();
+				searches.add(() -> dsctx.dataset().search(dsctx, pattern));
+			}
+			return ParallelQueryCloseable.of(searches, getSearchExecutor(), searchPermits, ordered, batchSize);
+		}
+
+		List<QueryCloseableIterator> iterators = new ArrayList<>();
+		for (QEPDatasetContext dsctx : contexts) {
 			iterators.add(dsctx.dataset().search(dsctx, clone));
 		}
 
@@ -673,6 +1050,28 @@ public class QEPCore implements AutoCloseable {
 		return CatQueryCloseable.of(iterators);
 	}
 
+	/**
+	 * @return the executor of the parallel searches, using virtual threads if
+	 *         they are available
+	 */
+	private synchronized ExecutorService getSearchExecutor() {
+		if (searchExecutor == null) {
+			try {
+				searchExecutor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+						.invoke(null);
+			} catch (ReflectiveOperationException e) {
+				// no virtual threads, the number of threads is bounded by the
+				// permits
+				searchExecutor = Executors.newCachedThreadPool(r -> {
+					Thread thread = new Thread(r, "QEPCoreSearch");
+					thread.setDaemon(true);
+					return thread;
+				});
+			}
+		}
+		return searchExecutor;
+	}
+
 	/**
 	 * search any triple into the core
 	 *
@@ -680,8 +1079,8 @@ public class QEPCore implements AutoCloseable {
 	 * @throws QEPCoreException search exception
 	 */
 	public boolean containsAny() throws QEPCoreException {
-		try (QueryCloseableIterator it = search()) {
-			return it.hasNext();
+		try (QEPCoreContext ctx = createSearchContext()) {
+			return containsAny(ctx);
 		}
 	}
 
@@ -696,8 +1095,8 @@ public class QEPCore implements AutoCloseable {
 	 */
 	public boolean containsAny(CharSequence subject, CharSequence predicate, CharSequence object)
 			throws QEPCoreException {
-		try (QueryCloseableIterator it = search(subject, predicate, object)) {
-			return it.hasNext();
+		try (QEPCoreContext ctx = createSearchContext()) {
+			return containsAny(ctx, subject, predicate, object);
 		}
 	}
 
@@ -712,8 +1111,8 @@ public class QEPCore implements AutoCloseable {
 	 */
 	public boolean containsAny(QEPComponent subject, QEPComponent predicate, QEPComponent object)
 			throws QEPCoreException {
-		try (QueryCloseableIterator it = search(subject, predicate, object)) {
-			return it.hasNext();
+		try (QEPCoreContext ctx = createSearchContext()) {
+			return containsAny(ctx, subject, predicate, object);
 		}
 	}
 
@@ -725,8 +1124,8 @@ public class QEPCore implements AutoCloseable {
 	 * @throws QEPCoreException search exception
 	 */
 	public boolean containsAny(TripleString triple) throws QEPCoreException {
-		try (QueryCloseableIterator it = search(triple)) {
-			return it.hasNext();
+		try (QEPCoreContext ctx = createSearchContext()) {
+			return containsAny(ctx, triple);
 		}
 	}
 
@@ -738,8 +1137,8 @@ public class QEPCore implements AutoCloseable {
 	 * @throws QEPCoreException search exception
 	 */
 	public boolean containsAny(QEPComponentTriple triple) throws QEPCoreException {
-		try (QueryCloseableIterator it = search(triple)) {
-			return it.hasNext();
+		try (QEPCoreContext ctx = createSearchContext()) {
+			return containsAny(ctx, triple);
 		}
 	}
 
@@ -751,9 +1150,7 @@ public class QEPCore implements AutoCloseable {
 	 * @throws QEPCoreException search exception
 	 */
 	public boolean containsAny(QEPCoreContext context) throws QEPCoreException {
-		try (QueryCloseableIterator it = search(context)) {
-			return it.hasNext();
-		}
+		return containsAny(context, "", "", "");
 	}
 
 	/**
@@ -768,9 +1165,8 @@ public class QEPCore implements AutoCloseable {
 	 */
 	public boolean containsAny(QEPCoreContext context, CharSequence subject, CharSequence predicate,
 			CharSequence object) throws QEPCoreException {
-		try (QueryCloseableIterator it = search(context, subject, predicate, object)) {
-			return it.hasNext();
-		}
+		return containsAny(context, createComponentByString(subject), createComponentByString(predicate),
+				createComponentByString(object));
 	}
 
 	/**
@@ -785,9 +1181,7 @@ public class QEPCore implements AutoCloseable {
 	 */
 	public boolean containsAny(QEPCoreContext context, QEPComponent subject, QEPComponent predicate,
 			QEPComponent object) throws QEPCoreException {
-		try (QueryCloseableIterator it = search(context, subject, predicate, object)) {
-			return it.hasNext();
-		}
+		return containsAny(context, QEPComponentTriple.of(subject, predicate, object));
 	}
 
 	/**
@@ -799,9 +1193,9 @@ public class QEPCore implements AutoCloseable {
 	 * @throws QEPCoreException search exception
 	 */
 	public boolean containsAny(QEPCoreContext context, TripleString triple) throws QEPCoreException {
-		try (QueryCloseableIterator it = search(context, triple)) {
-			return it.hasNext();
-		}
+		return containsAny(context, triple.getSubject().isEmpty() ? null : triple.getSubject(),
+				triple.getPredicate().isEmpty() ? null : triple.getPredicate(),
+				triple.getObject().isEmpty() ? null : triple.getObject());
 	}
 
 	/**
@@ -813,7 +1207,9 @@ public class QEPCore implements AutoCloseable {
 	 * @throws QEPCoreException search exception
 	 */
 	public boolean containsAny(QEPCoreContext context, QEPComponentTriple triple) throws QEPCoreException {
-		try (QueryCloseableIterator it = search(context, triple)) {
+		// unordered search with a single element, stop at the first dataset
+		// answering
+		try (QueryCloseableIterator it = search(context, triple, false, 1)) {
 			return it.hasNext();
 		}
 	}
@@ -931,19 +1327,35 @@ public class QEPCore implements AutoCloseable {
 	 */
 	public long removeTriple(QEPCoreContext context, QEPComponentTriple triple) throws QEPCoreException {
 		QEPComponentTriple clone = triple.freeze();
-		long[] deleted = new long[] { 0 };
-
-		dataset.values().forEach(ds -> {
-			QEPDatasetContext dctx = context.getContextForDataset(ds.uid());
-			Iterator<QEPComponentTriple> it = ds.search(dctx, clone);
-			while (it.hasNext()) {
-				it.next();
-				it.remove();
-				deleted[0]++;
+		long deleted = 0;
+
+		// sync with the merges to avoid losing deletes
+		synchronized (updateLock) {
+			for (QEPDataset ds : createDatasetSnapshot()) {
+				QEPDatasetContext dctx = context.getContextForDataset(ds.uid());
+				if (dctx == null) {
+					// dataset created by a merge after the context
+					try (QEPDatasetContext nctx = ds.createContext()) {
+						deleted += removeTriple(ds, nctx, clone);
+					}
+				} else {
+					deleted += removeTriple(ds, dctx, clone);
+				}
 			}
-		});
+		}
+
+		return deleted;
+	}
 
-		return deleted[0];
+	private long removeTriple(QEPDataset ds, QEPDatasetContext ctx, QEPComponentTriple triple) {
+		long deleted = 0;
+		Iterator<QEPComponentTriple> it = ds.search(ctx, triple);
+		while (it.hasNext()) {
+			it.next();
+			it.remove();
+			deleted++;
+		}
+		return deleted;
 	}
 
 	/**
@@ -965,7 +1377,9 @@ public class QEPCore implements AutoCloseable {
 	 *         context will be done using a non-mutable version of the core.
 	 */
 	public QEPCoreContext createSearchContext() {
-		return new QEPCoreContext(this, createDatasetSnapshot());
+		synchronized (datasetLock) {
+			return new QEPCoreContext(this, createDatasetSnapshot());
+		}
 	}
 
 	/**
@@ -1097,7 +1511,7 @@ public class QEPCore implements AutoCloseable {
 			Path datasetPath;
 			while (true) {
 				id = createNewDatasetId();
-				datasetPath = getDatasetPath().resolve(FILE_DATASET_PREFIX + id + FILE_DATASET_SUFFIX);
+				datasetPath = getDatasetFile(id);
 
 				// we wait until we don't overwrite a dataset, bad config or
 				// update
@@ -1120,6 +1534,7 @@ public class QEPCore implements AutoCloseable {
 			ProgressListener combinedListener = this.listener.combine(listener);
 			try (HDT dataset = HDTManager.generateHDT(triples, baseURI, genOpt, combinedListener)) {
 				dataset.saveToHDT(datasetPath, combinedListener);
+				writeDatasetFilter(dataset, datasetPath);
 			} catch (Throwable t) {
 				try {
 					// delete the dataset file if it was already used
@@ -1161,6 +1576,9 @@ public class QEPCore implements AutoCloseable {
 			}
 			throw otherLoadedException;
 		}
+		if (mergeAuto) {
+			mergeThread.askMerge();
+		}
 	}
 
 	/**
@@ -1218,7 +1636,7 @@ public class QEPCore implements AutoCloseable {
 				Path datasetPath;
 				while (true) {
 					id = createNewDatasetId();
-					datasetPath = getDatasetPath().resolve(FILE_DATASET_PREFIX + id + FILE_DATASET_SUFFIX);
+					datasetPath = getDatasetFile(id);
 
 					// we wait until we don't overwrite a dataset, bad config or
 					// update
@@ -1233,6 +1651,7 @@ public class QEPCore implements AutoCloseable {
 
 				ProgressListener combinedListener = this.listener.combine(listener);
 				hdt.saveToHDT(datasetPath, combinedListener);
+				writeDatasetFilter(hdt, datasetPath);
 				hdt.close();
 				hdt = null;
 
@@ -1276,6 +1695,9 @@ public class QEPCore implements AutoCloseable {
 			}
 			throw otherLoadedException;
 		}
+		if (mergeAuto) {
+			mergeThread.askMerge();
+		}
 	}
 
 	/**
@@ -1345,15 +1767,22 @@ public class QEPCore implements AutoCloseable {
 
 	@Override
 	public void close() throws QEPCoreException {
-		synchronized (datasetLock) {
-			synchronized (bindLock) {
+		synchronized (this) {
+			if (searchExecutor != null) {
+				searchExecutor.shutdown();
+			}
+		}
+		// same lock order as the inserts and the merges
+		synchronized (bindLock) {
+			synchronized (datasetLock) {
 				mergeThread.interrupt();
 				try {
-					Closer.closeAll(dataset, map);
+					Closer.closeAll(dataset, removedDatasets, map);
 				} catch (IOException e) {
 					throw new QEPCoreException(e);
 				} finally {
 					dataset.clear();
+					removedDatasets.clear();
 					datasetByUid.clear();
 					map.clear();
 				}
@@ -1382,4 +1811,19 @@ public class QEPCore implements AutoCloseable {
 	public QEPDataset getDatasetByUid(int uid) {
 		return datasetByUid.get(uid);
 	}
+
+	/**
+	 * @return the number of open search contexts, including the contexts of the
+	 *         running searches
+	 */
+	public int getOpenContextCount() {
+		return openContexts.get();
+	}
+
+	/**
+	 * @return the merge thread of the core
+	 */
+	public QEPCoreMergeThread getMergeThread() {
+		return mergeThread;
+	}
 }
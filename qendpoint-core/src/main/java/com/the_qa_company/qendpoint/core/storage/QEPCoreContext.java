@@ -18,10 +18,12 @@ import java.util.stream.Collectors;
 public class QEPCoreContext implements AutoCloseableGeneric<QEPCoreException> {
 	private final Map<Integer, QEPDatasetContext> contexts;
 	private final QEPCore core;
+	private boolean closed;
 
 	QEPCoreContext(QEPCore core, List<QEPDataset> contexts) {
 		this.core = core;
 		this.contexts = contexts.stream().collect(Collectors.toMap(QEPDataset::uid, QEPDataset::createContext));
+		core.openContexts.incrementAndGet();
 	}
 
 	/**
@@ -50,6 +52,11 @@ public class QEPCoreContext implements AutoCloseableGeneric<QEPCoreException> {
 
 	@Override
 	public void close() throws QEPCoreException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		core.openContexts.decrementAndGet();
 		AutoCloseableGeneric.closeAll(contexts.values());
 	}
 }
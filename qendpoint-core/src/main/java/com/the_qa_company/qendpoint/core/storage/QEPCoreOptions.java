@@ -2,6 +2,7 @@ package com.the_qa_company.qendpoint.core.storage;
 
 import com.the_qa_company.qendpoint.core.options.HDTOptions;
 import com.the_qa_company.qendpoint.core.options.Key;
+import com.the_qa_company.qendpoint.core.options.Value;
 import com.the_qa_company.qendpoint.core.storage.merge.QEPCoreMergeThread;
 
 /**
@@ -15,7 +16,7 @@ import com.the_qa_company.qendpoint.core.storage.merge.QEPCoreMergeThread;
 public class QEPCoreOptions {
 	/**
 	 * Key for the threshold before merging a cluster for the
-	 * {@link QEPCoreMergeThread}.
+	 * {@link QEPCoreMergeThread}, the fan-in of the merge policies, default 10.
 	 */
 	@Key(type = Key.Type.NUMBER, desc = "QEPCore merge threshold")
 	public static final String QEPC_MERGE_THRESHOLD = "qepcore.merge.threshold";
@@ -37,4 +38,93 @@ public class QEPCoreOptions {
 	 */
 	@Key(type = Key.Type.NUMBER, desc = "QEPCore merge epsilon between each dataset")
 	public static final String QEPC_MERGE_PROGRESS = "qepcore.merge.progress";
+	/**
+	 * Key to ask a merge to the {@link QEPCoreMergeThread} after each insert,
+	 * default false.
+	 */
+	@Key(type = Key.Type.BOOLEAN, desc = "QEPCore ask a merge after each insert")
+	public static final String QEPC_MERGE_AUTO = "qepcore.merge.auto";
+	/**
+	 * Key for the policy selecting the datasets merged by the
+	 * {@link QEPCoreMergeThread}, default
+	 * {@link #QEPC_MERGE_POLICY_SIZE_TIERED}.
+	 */
+	@Key(type = Key.Type.ENUM, desc = "QEPCore merge policy")
+	public static final String QEPC_MERGE_POLICY = "qepcore.merge.policy";
+	/**
+	 * Value for {@link #QEPC_MERGE_POLICY}, merge the smallest tier of datasets
+	 * with similar {@link #QEPC_MERGE_NUMFUNC} values
+	 */
+	@Value(key = QEPC_MERGE_POLICY, desc = "merge the smallest tier of datasets with similar sizes, default config")
+	public static final String QEPC_MERGE_POLICY_SIZE_TIERED = "size_tiered";
+	/**
+	 * Value for {@link #QEPC_MERGE_POLICY}, merge the datasets of a full level
+	 * with the biggest dataset of the next level, the level capacities are
+	 * growing by the fan-in from {@link #QEPC_MERGE_LEVEL_BASE}
+	 */
+	@Value(key = QEPC_MERGE_POLICY, desc = "merge a full level into the next level")
+	public static final String QEPC_MERGE_POLICY_LEVELED = "leveled";
+	/**
+	 * Value for {@link #QEPC_MERGE_POLICY}, merge the datasets written in the
+	 * same time window of {@link #QEPC_MERGE_WINDOW}
+	 */
+	@Value(key = QEPC_MERGE_POLICY, desc = "merge the datasets written in the same time window")
+	public static final String QEPC_MERGE_POLICY_TIME_WINDOWED = "time_windowed";
+	/**
+	 * Key for the number of triples of the first level of the
+	 * {@link #QEPC_MERGE_POLICY_LEVELED} policy, default 100000.
+	 */
+	@Key(type = Key.Type.NUMBER, desc = "QEPCore number of triples of the first merge level")
+	public static final String QEPC_MERGE_LEVEL_BASE = "qepcore.merge.leveled.base";
+	/**
+	 * Key for the time window in milliseconds of the
+	 * {@link #QEPC_MERGE_POLICY_TIME_WINDOWED} policy, default 1 hour.
+	 */
+	@Key(type = Key.Type.NUMBER, desc = "QEPCore merge time window in milliseconds")
+	public static final String QEPC_MERGE_WINDOW = "qepcore.merge.window";
+	/**
+	 * Key for the maximum number of bytes written per second by the merged
+	 * dataset writer of the {@link QEPCoreMergeThread}, 0 for no limit, default
+	 * 0.
+	 */
+	@Key(type = Key.Type.NUMBER, desc = "QEPCore merge write rate limit in bytes per second")
+	public static final String QEPC_MERGE_WRITE_RATE = "qepcore.merge.writeRate";
+	/**
+	 * Key for the number of open search contexts above which the
+	 * {@link QEPCoreMergeThread} pauses its merge, 0 to never pause, default 0.
+	 */
+	@Key(type = Key.Type.NUMBER, desc = "QEPCore number of open searches pausing the merge")
+	public static final String QEPC_MERGE_LOAD_THRESHOLD = "qepcore.merge.loadThreshold";
+	/**
+	 * Key for the maximum time in milliseconds a merge can be paused by the
+	 * searches, default 60000.
+	 */
+	@Key(type = Key.Type.NUMBER, desc = "QEPCore maximum pause time of a merge in milliseconds")
+	public static final String QEPC_MERGE_MAX_BACKOFF = "qepcore.merge.maxBackoff";
+	/**
+	 * Key for the number of datasets searched in parallel by the
+	 * {@link QEPCore} searches, 1 for a serial search, 0 for the number of
+	 * processors, default 1.
+	 */
+	@Key(type = Key.Type.NUMBER, desc = "QEPCore number of datasets searched in parallel")
+	public static final String QEPC_SEARCH_PARALLELISM = "qepcore.search.parallelism";
+	/**
+	 * Key to return the results of a parallel search in the order of the
+	 * datasets, otherwise the results of the first answering datasets are
+	 * returned first, default true.
+	 */
+	@Key(type = Key.Type.BOOLEAN, desc = "QEPCore keep the dataset order with the parallel search")
+	public static final String QEPC_SEARCH_ORDERED = "qepcore.search.ordered";
+	/**
+	 * Key for the number of bits per element of the {@link QEPDatasetFilter} of
+	 * each dataset, 0 to disable the filters, default 10.
+	 */
+	@Key(type = Key.Type.NUMBER, desc = "QEPCore bits per element of the dataset filters, 0 to disable them")
+	public static final String QEPC_FILTER_BITS_PER_ELEMENT = "qepcore.filter.bitsPerElement";
+	/**
+	 * Key to add the subject-predicate and predicate-object pairs in the
+	 * {@link QEPDatasetFilter} of each dataset, default false.
+	 */
+	@Key(type = Key.Type.BOOLEAN, desc = "QEPCore add the SP/PO pairs to the dataset filters")
+	public static final String QEPC_FILTER_PAIRS = "qepcore.filter.pairs";
 }
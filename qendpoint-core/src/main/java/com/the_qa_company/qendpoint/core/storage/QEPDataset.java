@@ -3,6 +3,7 @@ package com.the_qa_company.qendpoint.core.storage;
 import com.the_qa_company.qendpoint.core.compact.bitmap.AddSnapshotBitmap;
 import com.the_qa_company.qendpoint.core.compact.bitmap.Bitmap;
 import com.the_qa_company.qendpoint.core.compact.bitmap.ModifiableBitmap;
+import com.the_qa_company.qendpoint.core.compact.bitmap.RoaringBitmap;
 import com.the_qa_company.qendpoint.core.enums.DictionarySectionRole;
 import com.the_qa_company.qendpoint.core.enums.TripleComponentRole;
 import com.the_qa_company.qendpoint.core.hdt.HDT;
@@ -10,6 +11,7 @@ import com.the_qa_company.qendpoint.core.storage.iterator.QueryCloseableIterator
 import com.the_qa_company.qendpoint.core.storage.search.QEPComponentTriple;
 import com.the_qa_company.qendpoint.core.storage.search.QEPDatasetIterator;
 import com.the_qa_company.qendpoint.core.triples.IteratorTripleID;
+import com.the_qa_company.qendpoint.core.triples.TripleID;
 import com.the_qa_company.qendpoint.core.util.io.Closer;
 
 import java.io.Closeable;
@@ -59,7 +61,12 @@ public class QEPDataset implements Closeable {
 	private final HDT dataset;
 	private final AddSnapshotBitmap deleteBitmap;
 	private final ModifiableBitmap[] deltaBitmaps;
+	private final QEPDatasetFilter filter;
 	private final int uid;
+	/**
+	 * users of the dataset, the core and the open contexts
+	 */
+	private final AtomicInteger users = new AtomicInteger(1);
 
 	/**
 	 * @param core         core
@@ -71,12 +78,27 @@ public class QEPDataset implements Closeable {
 	 */
 	public QEPDataset(QEPCore core, String id, Path path, HDT dataset, ModifiableBitmap deleteBitmap,
 			ModifiableBitmap[] deltaBitmaps) {
+		this(core, id, path, dataset, deleteBitmap, deltaBitmaps, null);
+	}
+
+	/**
+	 * @param core         core
+	 * @param id           string id of the dataset
+	 * @param path         path of the dataset
+	 * @param dataset      loaded dataset
+	 * @param deleteBitmap delete bitmap
+	 * @param deltaBitmaps delta bitmaps for the dataset
+	 * @param filter       membership filter of the dataset, null for no filter
+	 */
+	public QEPDataset(QEPCore core, String id, Path path, HDT dataset, ModifiableBitmap deleteBitmap,
+			ModifiableBitmap[] deltaBitmaps, QEPDatasetFilter filter) {
 		this.core = core;
 		this.id = id;
 		this.path = path;
 		this.dataset = dataset;
 		this.deleteBitmap = AddSnapshotBitmap.of(deleteBitmap);
 		this.deltaBitmaps = deltaBitmaps;
+		this.filter = filter;
 		this.uid = DATASET_UID_FETCHER.incrementAndGet();
 	}
 
@@ -105,8 +127,44 @@ public class QEPDataset implements Closeable {
 		return uid;
 	}
 
+	/**
+	 * @return the membership filter of the dataset, null if the dataset doesn't
+	 *         have a filter
+	 */
+	public QEPDatasetFilter filter() {
+		return filter;
+	}
+
+	/**
+	 * test with the dataset filter if a string can be in the dataset with a
+	 * role, the subjects and the objects are sharing the same filter
+	 *
+	 * @param seq  string
+	 * @param role role
+	 * @return false if the string isn't in the dataset, true if it might be
+	 */
+	public boolean mayContain(CharSequence seq, TripleComponentRole role) {
+		if (filter == null) {
+			return true;
+		}
+		if (role == TripleComponentRole.PREDICATE) {
+			return filter.mayContainPredicate(seq);
+		}
+		return filter.mayContainNode(seq);
+	}
+
 	public ComponentFind find(CharSequence seq) {
-		long pid = Math.max(0, dataset.getDictionary().stringToId(seq, TripleComponentRole.PREDICATE));
+		long pid;
+		if (mayContain(seq, TripleComponentRole.PREDICATE)) {
+			pid = Math.max(0, dataset.getDictionary().stringToId(seq, TripleComponentRole.PREDICATE));
+		} else {
+			pid = 0;
+		}
+
+		if (!mayContain(seq, TripleComponentRole.SUBJECT)) {
+			// not a subject or an object of this dataset
+			return new ComponentFind(this, null, 0, pid);
+		}
 
 		long sid = dataset.getDictionary().stringToId(seq, TripleComponentRole.SUBJECT);
 		if (sid > 0) {
@@ -143,8 +201,17 @@ public class QEPDataset implements Closeable {
 	 * @return a new context where no elements from this dataset will be deleted
 	 */
 	public QEPDatasetContext createContext() {
-		final AddSnapshotBitmap.AddSnapshotDeltaBitmap bm = deleteBitmap.createSnapshot();
+		acquire();
+		final AddSnapshotBitmap.AddSnapshotDeltaBitmap bm;
+		try {
+			bm = deleteBitmap.createSnapshot();
+		} catch (Throwable t) {
+			release();
+			throw t;
+		}
 		return new QEPDatasetContext() {
+			private boolean closed;
+
 			@Override
 			public boolean isTripleDeleted(long tripleID) {
 				if (tripleID < 0 || tripleID > dataset.getTriples().getNumberOfElements()) {
@@ -158,6 +225,11 @@ public class QEPDataset implements Closeable {
 				return bm;
 			}
 
+			@Override
+			public RoaringBitmap copyDeletedSinceCreation() {
+				return bm.copyAddedPositions();
+			}
+
 			@Override
 			public QEPDataset dataset() {
 				return QEPDataset.this;
@@ -165,11 +237,40 @@ public class QEPDataset implements Closeable {
 
 			@Override
 			public void close() {
-				bm.close();
+				if (closed) {
+					return;
+				}
+				closed = true;
+				try {
+					bm.close();
+				} finally {
+					release();
+				}
 			}
 		};
 	}
 
+	/**
+	 * add a user to the dataset
+	 *
+	 * @throws QEPCoreException the dataset was released by all its users
+	 */
+	void acquire() {
+		if (users.getAndUpdate(c -> c == 0 ? 0 : c + 1) == 0) {
+			throw new QEPCoreException("the dataset " + id + " was removed from the core");
+		}
+	}
+
+	/**
+	 * remove a user from the dataset, the core is notified after the release of
+	 * the last user
+	 */
+	void release() {
+		if (users.decrementAndGet() == 0) {
+			core.releaseDataset(this);
+		}
+	}
+
 	/**
 	 * test if a triple is deleted
 	 *
@@ -346,7 +447,17 @@ public class QEPDataset implements Closeable {
 		QEPComponentTriple clone = pattern.freeze();
 		// search over the dataset
 		clone.setDatasetId(uid);
-		IteratorTripleID it = dataset.getTriples().search(clone.tripleID(this));
+		TripleID tid = clone.tripleID(this);
+		if (filter != null && filter.hasPairs() && !tid.isNoMatch()) {
+			long s = tid.getSubject();
+			long p = tid.getPredicate();
+			long o = tid.getObject();
+			if ((s != 0 && p != 0 && !filter.mayContainSubjectPredicate(s, p))
+					|| (p != 0 && o != 0 && !filter.mayContainPredicateObject(p, o))) {
+				return QueryCloseableIterator.empty();
+			}
+		}
+		IteratorTripleID it = dataset.getTriples().search(tid);
 		return new QEPDatasetIterator(context, it, clone);
 	}
 
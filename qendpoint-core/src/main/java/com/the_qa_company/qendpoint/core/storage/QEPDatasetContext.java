@@ -1,6 +1,7 @@
 package com.the_qa_company.qendpoint.core.storage;
 
 import com.the_qa_company.qendpoint.core.compact.bitmap.Bitmap;
+import com.the_qa_company.qendpoint.core.compact.bitmap.RoaringBitmap;
 import com.the_qa_company.qendpoint.core.storage.iterator.AutoCloseableGeneric;
 
 /**
@@ -21,6 +22,12 @@ public interface QEPDatasetContext extends AutoCloseableGeneric<QEPCoreException
 	 */
 	Bitmap deleteBitmap();
 
+	/**
+	 * @return a copy of the ids of the triples deleted after the context
+	 *         creation
+	 */
+	RoaringBitmap copyDeletedSinceCreation();
+
 	/**
 	 * test if a triple is deleted
 	 *
@@ -0,0 +1,340 @@
+package com.the_qa_company.qendpoint.core.storage;
+
+import com.the_qa_company.qendpoint.core.dictionary.Dictionary;
+import com.the_qa_company.qendpoint.core.enums.TripleComponentRole;
+import com.the_qa_company.qendpoint.core.exceptions.CRCException;
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.triples.IteratorTripleID;
+import com.the_qa_company.qendpoint.core.triples.TripleID;
+import com.the_qa_company.qendpoint.core.util.crc.CRC32;
+import com.the_qa_company.qendpoint.core.util.crc.CRCInputStream;
+import com.the_qa_company.qendpoint.core.util.crc.CRCOutputStream;
+import com.the_qa_company.qendpoint.core.util.io.IOUtil;
+import com.the_qa_company.qendpoint.core.util.string.ByteString;
+import com.the_qa_company.qendpoint.core.util.string.ByteStringUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Bloom filter over the dictionary strings of a {@link QEPDataset} and
+ * optionally over its subject-predicate and predicate-object pairs, used to
+ * skip the dictionary locate and the triple search of the datasets that can't
+ * match a pattern. The filter can return false positives, but never false
+ * negatives. The filter file contains a signature of the dataset (number of
+ * triples and section sizes), a filter of another dataset isn't loaded.
+ *
+ * @author Antoine Willerval
+ */
+public class QEPDatasetFilter {
+	private static final Logger logger = LoggerFactory.getLogger(QEPDatasetFilter.class);
+	private static final byte[] MAGIC = "$QDF".getBytes(ByteStringUtil.STRING_ENCODING);
+	private static final byte VERSION = 1;
+	private static final byte FLAG_PAIRS = 1;
+	private static final int SIGNATURE_SIZE = 5;
+
+	private static final long SEED_NODE = 0x9E3779B97F4A7C15L;
+	private static final long SEED_PREDICATE = 0xC2B2AE3D27D4EB4FL;
+	private static final long SEED_SP = 0x165667B19E3779F9L;
+	private static final long SEED_PO = 0x27D4EB2F165667C5L;
+
+	/**
+	 * get the filter path of a dataset
+	 *
+	 * @param datasetPath dataset path
+	 * @return filter path
+	 */
+	public static Path getFilterPath(Path datasetPath) {
+		return datasetPath.resolveSibling(datasetPath.getFileName() + ".filter");
+	}
+
+	/**
+	 * read the filter of a dataset or build and write it if it doesn't exist,
+	 * if it was built with another config or for another dataset
+	 *
+	 * @param dataset        dataset
+	 * @param path           filter path
+	 * @param bitsPerElement number of bits per element in the filter
+	 * @param pairs          add the subject-predicate and predicate-object
+	 *                       pairs to the filter
+	 * @return filter
+	 * @throws IOException read/write exception
+	 */
+	public static QEPDatasetFilter loadOrBuild(HDT dataset, Path path, int bitsPerElement, boolean pairs)
+			throws IOException {
+		if (Files.exists(path)) {
+			try {
+				QEPDatasetFilter filter = read(path);
+				if (filter.bitsPerElement == bitsPerElement && filter.pairs == pairs
+						&& Arrays.equals(filter.signature, signature(dataset))) {
+					return filter;
+				}
+				logger.debug("Dataset filter {} built with another config or dataset, rebuilding it", path);
+			} catch (IOException e) {
+				// corrupted filter, we rebuild it
+				logger.warn("Can't read dataset filter {}, rebuilding it", path, e);
+			}
+		}
+		QEPDatasetFilter filter = build(dataset, bitsPerElement, pairs);
+		filter.write(path);
+		return filter;
+	}
+
+	/**
+	 * build the filter of a dataset
+	 *
+	 * @param dataset        dataset
+	 * @param bitsPerElement number of bits per element in the filter
+	 * @param pairs          add the subject-predicate and predicate-object
+	 *                       pairs to the filter
+	 * @return filter
+	 */
+	public static QEPDatasetFilter build(HDT dataset, int bitsPerElement, boolean pairs) {
+		if (bitsPerElement <= 0) {
+			throw new IllegalArgumentException("bitsPerElement should be positive!");
+		}
+		Dictionary dictionary = dataset.getDictionary();
+		long nshared = dictionary.getNshared();
+		long nsubjects = dictionary.getNsubjects();
+		long npredicates = dictionary.getNpredicates();
+		long nobjects = dictionary.getNobjects();
+		long numTriples = dataset.getTriples().getNumberOfElements();
+
+		long elements = nsubjects + nobjects - nshared + npredicates;
+		if (pairs) {
+			elements += numTriples * 2;
+		}
+
+		QEPDatasetFilter filter = new QEPDatasetFilter(bitsPerElement, pairs, signature(dataset), elements);
+
+		for (long id = 1; id <= nsubjects; id++) {
+			filter.add(hashString(dictionary.idToString(id, TripleComponentRole.SUBJECT), SEED_NODE));
+		}
+		for (long id = nshared + 1; id <= nobjects; id++) {
+			filter.add(hashString(dictionary.idToString(id, TripleComponentRole.OBJECT), SEED_NODE));
+		}
+		for (long id = 1; id <= npredicates; id++) {
+			filter.add(hashString(dictionary.idToString(id, TripleComponentRole.PREDICATE), SEED_PREDICATE));
+		}
+
+		if (pairs) {
+			IteratorTripleID it = dataset.getTriples().searchAll();
+			while (it.hasNext()) {
+				TripleID triple = it.next();
+				filter.add(hashPair(triple.getSubject(), triple.getPredicate(), SEED_SP));
+				filter.add(hashPair(triple.getPredicate(), triple.getObject(), SEED_PO));
+			}
+		}
+
+		return filter;
+	}
+
+	/**
+	 * read a filter
+	 *
+	 * @param path filter path
+	 * @return filter
+	 * @throws IOException read exception
+	 */
+	public static QEPDatasetFilter read(Path path) throws IOException {
+		try (CRCInputStream is = new CRCInputStream(new BufferedInputStream(Files.newInputStream(path)), new CRC32())) {
+			byte[] magic = is.readNBytes(MAGIC.length);
+			if (!Arrays.equals(magic, MAGIC)) {
+				throw new IOException("Can't read magic number of dataset filter " + path + "!");
+			}
+			int version = is.read();
+			if (version != VERSION) {
+				throw new IOException("Unknown dataset filter version: " + version);
+			}
+			int flags = is.read();
+			int bitsPerElement = (int) IOUtil.readLong(is);
+			int numHashes = (int) IOUtil.readLong(is);
+			long[] signature = new long[SIGNATURE_SIZE];
+			for (int i = 0; i < signature.length; i++) {
+				signature[i] = IOUtil.readLong(is);
+			}
+			long[] words = new long[Math.toIntExact(IOUtil.readLong(is))];
+			for (int i = 0; i < words.length; i++) {
+				words[i] = IOUtil.readLong(is);
+			}
+			if (!is.readCRCAndCheck()) {
+				throw new CRCException("CRC Error while reading dataset filter " + path);
+			}
+			return new QEPDatasetFilter(bitsPerElement, (flags & FLAG_PAIRS) != 0, signature, numHashes, words);
+		}
+	}
+
+	/**
+	 * signature of a dataset to check that a filter was built for it
+	 *
+	 * @param dataset dataset
+	 * @return number of triples and section sizes
+	 */
+	private static long[] signature(HDT dataset) {
+		Dictionary dictionary = dataset.getDictionary();
+		return new long[] { dataset.getTriples().getNumberOfElements(), dictionary.getNshared(),
+				dictionary.getNsubjects(), dictionary.getNpredicates(), dictionary.getNobjects() };
+	}
+
+	private static long mix(long h) {
+		// murmur3 finalizer
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	private static long hashString(CharSequence seq, long seed) {
+		// hash the bytes to have the same hash for all the CharSequence
+		// implementations
+		ByteString bs = ByteString.of(seq);
+		byte[] buffer = bs.getBuffer();
+		int length = bs.length();
+		long h = seed ^ length;
+		for (int i = 0; i < length; i++) {
+			h = (h ^ (buffer[i] & 0xFF)) * 0x100000001B3L;
+		}
+		return mix(h);
+	}
+
+	private static long hashPair(long id1, long id2, long seed) {
+		return mix(mix(id1 ^ seed) + id2);
+	}
+
+	private final int bitsPerElement;
+	private final boolean pairs;
+	private final long[] signature;
+	private final int numHashes;
+	private final long[] words;
+	private final long numBits;
+
+	private QEPDatasetFilter(int bitsPerElement, boolean pairs, long[] signature, long elements) {
+		this(bitsPerElement, pairs, signature,
+				(int) Math.max(1, Math.min(16, Math.round(bitsPerElement * Math.log(2)))),
+				new long[Math.toIntExact(Math.max(1, (Math.max(1, elements) * bitsPerElement + 63) / 64))]);
+	}
+
+	private QEPDatasetFilter(int bitsPerElement, boolean pairs, long[] signature, int numHashes, long[] words) {
+		this.bitsPerElement = bitsPerElement;
+		this.pairs = pairs;
+		this.signature = signature;
+		this.numHashes = numHashes;
+		this.words = words;
+		this.numBits = (long) words.length * 64;
+	}
+
+	/**
+	 * write the filter
+	 *
+	 * @param path filter path
+	 * @throws IOException write exception
+	 */
+	public void write(Path path) throws IOException {
+		Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+		try (CRCOutputStream os = new CRCOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)),
+				new CRC32())) {
+			os.write(MAGIC);
+			os.write(VERSION);
+			os.write(pairs ? FLAG_PAIRS : 0);
+			IOUtil.writeLong(os, bitsPerElement);
+			IOUtil.writeLong(os, numHashes);
+			for (long value : signature) {
+				IOUtil.writeLong(os, value);
+			}
+			IOUtil.writeLong(os, words.length);
+			for (long word : words) {
+				IOUtil.writeLong(os, word);
+			}
+			os.writeCRC();
+		}
+		// move the complete file to avoid reading a partial filter
+		Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private void add(long hash) {
+		long h2 = mix(hash ^ SEED_NODE) | 1;
+		for (int i = 0; i < numHashes; i++) {
+			long bit = Long.remainderUnsigned(hash + i * h2, numBits);
+			words[(int) (bit >>> 6)] |= 1L << bit;
+		}
+	}
+
+	private boolean contains(long hash) {
+		long h2 = mix(hash ^ SEED_NODE) | 1;
+		for (int i = 0; i < numHashes; i++) {
+			long bit = Long.remainderUnsigned(hash + i * h2, numBits);
+			if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * test if a subject or an object can be in the dataset
+	 *
+	 * @param node node string
+	 * @return false if the node isn't in the dataset, true if it might be
+	 */
+	public boolean mayContainNode(CharSequence node) {
+		return contains(hashString(node, SEED_NODE));
+	}
+
+	/**
+	 * test if a predicate can be in the dataset
+	 *
+	 * @param predicate predicate string
+	 * @return false if the predicate isn't in the dataset, true if it might be
+	 */
+	public boolean mayContainPredicate(CharSequence predicate) {
+		return contains(hashString(predicate, SEED_PREDICATE));
+	}
+
+	/**
+	 * test if a subject-predicate pair can be in the dataset, always true if
+	 * the filter wasn't built with the pairs
+	 *
+	 * @param subject   subject id in the dataset
+	 * @param predicate predicate id in the dataset
+	 * @return false if the pair isn't in the dataset, true if it might be
+	 */
+	public boolean mayContainSubjectPredicate(long subject, long predicate) {
+		return !pairs || contains(hashPair(subject, predicate, SEED_SP));
+	}
+
+	/**
+	 * test if a predicate-object pair can be in the dataset, always true if the
+	 * filter wasn't built with the pairs
+	 *
+	 * @param predicate predicate id in the dataset
+	 * @param object    object id in the dataset
+	 * @return false if the pair isn't in the dataset, true if it might be
+	 */
+	public boolean mayContainPredicateObject(long predicate, long object) {
+		return !pairs || contains(hashPair(predicate, object, SEED_PO));
+	}
+
+	/**
+	 * @return if the filter contains the subject-predicate and predicate-object
+	 *         pairs
+	 */
+	public boolean hasPairs() {
+		return pairs;
+	}
+
+	/**
+	 * @return the size of the filter in bytes
+	 */
+	public long sizeInBytes() {
+		return (long) words.length * Long.BYTES;
+	}
+}
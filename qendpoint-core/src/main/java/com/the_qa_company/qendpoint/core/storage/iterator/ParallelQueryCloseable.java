@@ -0,0 +1,237 @@
+package com.the_qa_company.qendpoint.core.storage.iterator;
+
+import com.the_qa_company.qendpoint.core.storage.QEPCoreException;
+import com.the_qa_company.qendpoint.core.storage.search.QEPComponentTriple;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Version of {@link CatQueryCloseable} probing the iterators in parallel. Each
+ * search is created by a worker reading the first elements of the iterator, the
+ * remaining elements are read by the consumer thread. The results are returned
+ * in the order of the searches or in the order of the worker completions.
+ *
+ * @author Antoine Willerval
+ */
+public class ParallelQueryCloseable extends FetcherCloseableIterator<QEPComponentTriple, QEPCoreException>
+		implements QueryCloseableIterator {
+	/**
+	 * default number of elements read by a worker
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 1024;
+
+	/**
+	 * create iterator
+	 *
+	 * @param searches  the searches to run
+	 * @param executor  the executor to run the searches
+	 * @param permits   permits to bound the number of running searches
+	 * @param ordered   return the results in the order of the searches
+	 * @param batchSize number of elements read by a worker
+	 * @return iterator
+	 */
+	public static QueryCloseableIterator of(List<Supplier<QueryCloseableIterator>> searches, Executor executor,
+			Semaphore permits, boolean ordered, int batchSize) {
+		// handle easy cases
+		if (searches.isEmpty()) {
+			return QueryCloseableIterator.empty();
+		}
+		if (searches.size() == 1) {
+			return searches.get(0).get();
+		}
+		return new ParallelQueryCloseable(searches, executor, permits, ordered, batchSize);
+	}
+
+	private final List<Probe> probes;
+	private final BlockingQueue<Probe> completed;
+	private final boolean ordered;
+	private int index;
+	private Probe current;
+	private int batchIndex;
+
+	private ParallelQueryCloseable(List<Supplier<QueryCloseableIterator>> searches, Executor executor,
+			Semaphore permits, boolean ordered, int batchSize) {
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("batchSize should be positive!");
+		}
+		this.ordered = ordered;
+		this.probes = new ArrayList<>(searches.size());
+		this.completed = new LinkedBlockingQueue<>();
+		for (Supplier<QueryCloseableIterator> search : searches) {
+			probes.add(new Probe(search, permits, batchSize));
+		}
+		for (Probe probe : probes) {
+			try {
+				executor.execute(probe);
+			} catch (RejectedExecutionException e) {
+				// the executor was closed, search in this thread
+				probe.run();
+			}
+		}
+	}
+
+	private Probe nextProbe() {
+		if (index == probes.size()) {
+			return null;
+		}
+		index++;
+		Probe probe;
+		if (ordered) {
+			probe = probes.get(index - 1);
+		} else {
+			try {
+				probe = completed.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new QEPCoreException("Interrupted search", e);
+			}
+		}
+		probe.await();
+		return probe;
+	}
+
+	@Override
+	protected QEPComponentTriple getNext() {
+		while (true) {
+			if (current == null) {
+				current = nextProbe();
+				batchIndex = 0;
+				if (current == null) {
+					return null;
+				}
+			}
+			if (batchIndex < current.batch.size()) {
+				return current.batch.get(batchIndex++);
+			}
+			// the batch is read, continue with the iterator
+			if (!current.exhausted && current.iterator.hasNext()) {
+				return current.iterator.next();
+			}
+			current = null;
+		}
+	}
+
+	@Override
+	public void close() throws QEPCoreException {
+		AutoCloseableGeneric.closeAll(probes);
+	}
+
+	@Override
+	public long estimateCardinality() {
+		long cardinality = 0;
+		for (Probe probe : probes) {
+			probe.await();
+			cardinality += probe.iterator.estimateCardinality();
+		}
+		return cardinality;
+	}
+
+	private class Probe implements Runnable, AutoCloseableGeneric<QEPCoreException> {
+		private final Supplier<QueryCloseableIterator> search;
+		private final Semaphore permits;
+		private final int batchSize;
+		private final CountDownLatch done = new CountDownLatch(1);
+		private final List<QEPComponentTriple> batch = new ArrayList<>();
+		private QueryCloseableIterator iterator;
+		private boolean exhausted;
+		private Throwable error;
+		private boolean started;
+		private boolean finished;
+		private volatile boolean closed;
+
+		Probe(Supplier<QueryCloseableIterator> search, Semaphore permits, int batchSize) {
+			this.search = search;
+			this.permits = permits;
+			this.batchSize = batchSize;
+		}
+
+		@Override
+		public void run() {
+			try {
+				if (closed) {
+					return;
+				}
+				permits.acquireUninterruptibly();
+				try {
+					synchronized (this) {
+						// the probe can be closed while waiting for a permit
+						if (closed) {
+							return;
+						}
+						started = true;
+					}
+					QueryCloseableIterator it = search.get();
+					iterator = it;
+					while (!closed && batch.size() < batchSize && it.hasNext()) {
+						// the iterators can reuse the triple
+						batch.add(it.next().deepClone());
+					}
+					exhausted = batch.size() < batchSize;
+				} finally {
+					permits.release();
+				}
+			} catch (Throwable t) {
+				error = t;
+			} finally {
+				boolean closeIterator;
+				synchronized (this) {
+					finished = true;
+					closeIterator = closed;
+				}
+				if (closeIterator && iterator != null) {
+					// the probe was closed while the worker was using the
+					// iterator
+					try {
+						iterator.close();
+					} catch (Throwable t) {
+						if (error == null) {
+							error = t;
+						}
+					}
+				}
+				done.countDown();
+				completed.add(this);
+			}
+		}
+
+		void await() {
+			try {
+				done.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new QEPCoreException("Interrupted search", e);
+			}
+			if (error != null) {
+				if (error instanceof QEPCoreException qce) {
+					throw qce;
+				}
+				throw new QEPCoreException(error);
+			}
+		}
+
+		@Override
+		public void close() throws QEPCoreException {
+			QueryCloseableIterator it;
+			synchronized (this) {
+				closed = true;
+				if (started && !finished) {
+					// the worker will close the iterator
+					return;
+				}
+				it = iterator;
+				iterator = null;
+			}
+			if (it != null) {
+				it.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package com.the_qa_company.qendpoint.core.storage.merge;
+
+import com.the_qa_company.qendpoint.core.storage.QEPCoreOptions;
+import com.the_qa_company.qendpoint.core.storage.QEPDatasetContext;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static java.lang.String.format;
+
+/**
+ * Leveled merge policy, the level 0 contains the datasets with at most base
+ * triples and each level can contain fan-in times more triples than the
+ * previous one. When a level contains fan-in datasets, they are merged with the
+ * biggest dataset of the next level, the core keeps a few datasets per level.
+ *
+ * @author Antoine Willerval
+ */
+public class LeveledMergePolicy implements MergePolicy {
+	private final int fanIn;
+	private final long base;
+
+	/**
+	 * @param fanIn number of datasets required to merge a level
+	 * @param base  maximum number of triples of the level 0 datasets
+	 */
+	public LeveledMergePolicy(int fanIn, long base) {
+		if (base <= 0) {
+			throw new IllegalArgumentException(
+					format("Can't have a %s smaller than or equals to 0", QEPCoreOptions.QEPC_MERGE_LEVEL_BASE));
+		}
+		this.fanIn = fanIn;
+		this.base = base;
+	}
+
+	private static long triples(QEPDatasetContext ctx) {
+		return ctx.dataset().dataset().getTriples().getNumberOfElements();
+	}
+
+	/**
+	 * get the level of a dataset
+	 *
+	 * @param triples number of triples of the dataset
+	 * @return level
+	 */
+	public int getLevel(long triples) {
+		int level = 0;
+		long capacity = base;
+		while (triples > capacity && capacity <= Long.MAX_VALUE / fanIn) {
+			capacity *= fanIn;
+			level++;
+		}
+		return level;
+	}
+
+	@Override
+	public List<QEPDatasetContext> select(Collection<QEPDatasetContext> contexts) {
+		TreeMap<Integer, List<QEPDatasetContext>> levels = new TreeMap<>();
+		for (QEPDatasetContext ctx : contexts) {
+			levels.computeIfAbsent(getLevel(triples(ctx)), l -> new ArrayList<>()).add(ctx);
+		}
+
+		for (Map.Entry<Integer, List<QEPDatasetContext>> e : levels.entrySet()) {
+			if (e.getValue().size() < fanIn) {
+				continue;
+			}
+			List<QEPDatasetContext> merge = new ArrayList<>(e.getValue());
+			// merge the level into the next level
+			List<QEPDatasetContext> next = levels.get(e.getKey() + 1);
+			if (next != null) {
+				merge.add(next.stream().max(Comparator.comparingLong(LeveledMergePolicy::triples)).orElseThrow());
+			}
+			return merge;
+		}
+		return List.of();
+	}
+}
@@ -54,7 +54,7 @@ public enum MergeFindFunc {
 		if (opt == null || opt.isEmpty()) {
 			return getDefaultFunc();
 		}
-		MergeFindFunc val = MAP.get(opt.toLowerCase());
+		MergeFindFunc val = MAP.get(opt.toUpperCase());
 		if (val == null) {
 			logger.warn("Can't find {} with the name '{}'", MergeFindFunc.class, opt);
 			return getDefaultFunc();
@@ -0,0 +1,50 @@
+package com.the_qa_company.qendpoint.core.storage.merge;
+
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.storage.QEPCoreOptions;
+import com.the_qa_company.qendpoint.core.storage.QEPDatasetContext;
+
+import java.util.Collection;
+import java.util.List;
+
+import static java.lang.String.format;
+
+/**
+ * Policy selecting the datasets merged by the {@link QEPCoreMergeThread}
+ *
+ * @author Antoine Willerval
+ */
+public interface MergePolicy {
+	/**
+	 * read the merge policy of the {@link QEPCoreOptions#QEPC_MERGE_POLICY}
+	 * option
+	 *
+	 * @param options options
+	 * @param fanIn   number of datasets required to merge a group
+	 * @return policy
+	 * @throws IllegalArgumentException bad option value
+	 */
+	static MergePolicy readOptions(HDTOptions options, int fanIn) {
+		String policy = options.get(QEPCoreOptions.QEPC_MERGE_POLICY, QEPCoreOptions.QEPC_MERGE_POLICY_SIZE_TIERED);
+		return switch (policy) {
+		case QEPCoreOptions.QEPC_MERGE_POLICY_SIZE_TIERED ->
+			new SizeTieredMergePolicy(fanIn, options.getDouble(QEPCoreOptions.QEPC_MERGE_EPSILON, 4),
+					MergeFindFunc.readOption(options.get(QEPCoreOptions.QEPC_MERGE_NUMFUNC)));
+		case QEPCoreOptions.QEPC_MERGE_POLICY_LEVELED ->
+			new LeveledMergePolicy(fanIn, options.getInt(QEPCoreOptions.QEPC_MERGE_LEVEL_BASE, 100_000));
+		case QEPCoreOptions.QEPC_MERGE_POLICY_TIME_WINDOWED -> new TimeWindowedMergePolicy(fanIn,
+				options.getInt(QEPCoreOptions.QEPC_MERGE_WINDOW, 3_600_000), System::currentTimeMillis);
+		default -> throw new IllegalArgumentException(
+				format("Unknown %s value: %s", QEPCoreOptions.QEPC_MERGE_POLICY, policy));
+		};
+	}
+
+	/**
+	 * select the datasets to merge
+	 *
+	 * @param contexts contexts of the datasets of the core
+	 * @return the contexts of the datasets to merge, less than 2 contexts if no
+	 *         merge is required
+	 */
+	List<QEPDatasetContext> select(Collection<QEPDatasetContext> contexts);
+}
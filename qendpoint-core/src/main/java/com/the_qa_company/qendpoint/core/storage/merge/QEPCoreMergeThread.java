@@ -12,58 +12,86 @@ import com.the_qa_company.qendpoint.core.storage.QEPCore;
 import com.the_qa_company.qendpoint.core.storage.QEPCoreContext;
 import com.the_qa_company.qendpoint.core.storage.QEPCoreException;
 import com.the_qa_company.qendpoint.core.storage.QEPCoreOptions;
-import com.the_qa_company.qendpoint.core.storage.QEPDataset;
 import com.the_qa_company.qendpoint.core.storage.QEPDatasetContext;
-import com.the_qa_company.qendpoint.core.storage.QEPMap;
 import org.apache.commons.io.file.PathUtils;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.stream.Collectors;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static java.lang.String.format;
 
+/**
+ * Thread merging the datasets of a {@link QEPCore}, the merged datasets are
+ * selected by the {@link MergePolicy} of the
+ * {@link QEPCoreOptions#QEPC_MERGE_POLICY} option. The thread has a low
+ * priority, its writes can be limited with
+ * {@link QEPCoreOptions#QEPC_MERGE_WRITE_RATE} and a merge is paused while the
+ * core has more than {@link QEPCoreOptions#QEPC_MERGE_LOAD_THRESHOLD} open
+ * searches.
+ *
+ * @author Antoine Willerval
+ */
 public class QEPCoreMergeThread extends Thread {
 	private static final String STEP_HDC = "hdc";
-	private static final String STEP_MAP_BUILDING = "map_building";
 	private static final String OPT_DSIDS = "ds";
 	private static final String OPT_DSIDS_SEPARATOR = ":";
+	private static final String OPT_NEW_DSID = "nds";
+	/**
+	 * time between 2 load checks of a paused merge
+	 */
+	private static final long BACKOFF_STEP_MS = 10;
 	private final QEPCore core;
 	private boolean runMerge;
 	private boolean completed;
 	private final AtomicReference<Throwable> exception = new AtomicReference<>();
 	private final Object callMergeEventObj = new Object() {};
 	private final Object endMergeEventObj = new Object() {};
+	private final ReentrantLock mergeLock = new ReentrantLock();
 
-	private final int clusterSize;
-	private final double epsilon;
-	private final MergeFindFunc mergeFindFunc;
+	private final MergePolicy policy;
 	private final boolean progressMerge;
+	private final long writeRate;
+	private final int loadThreshold;
+	private final long maxBackoff;
 
 	public QEPCoreMergeThread(QEPCore core, HDTOptions options) {
 		super("QEPCoreMerge #" + core.getLocation().toString().hashCode());
 		this.core = core;
 
-		clusterSize = options.getInt32(QEPCoreOptions.QEPC_MERGE_THRESHOLD, 10);
-		mergeFindFunc = MergeFindFunc.readOption(options.get(QEPCoreOptions.QEPC_MERGE_NUMFUNC));
-		epsilon = options.getDouble(QEPCoreOptions.QEPC_MERGE_EPSILON, 4);
+		int fanIn = options.getInt32(QEPCoreOptions.QEPC_MERGE_THRESHOLD, 10);
 		progressMerge = options.getBoolean(QEPCoreOptions.QEPC_MERGE_PROGRESS, true);
+		writeRate = options.getInt(QEPCoreOptions.QEPC_MERGE_WRITE_RATE, 0);
+		loadThreshold = options.getInt32(QEPCoreOptions.QEPC_MERGE_LOAD_THRESHOLD, 0);
+		maxBackoff = options.getInt(QEPCoreOptions.QEPC_MERGE_MAX_BACKOFF, 60_000);
 
-		if (clusterSize < 2) {
+		if (fanIn < 2) {
 			throw new IllegalArgumentException(
 					format("Can't have a %s smaller than 2", QEPCoreOptions.QEPC_MERGE_THRESHOLD));
 		}
-		if (epsilon <= 0) {
+		if (writeRate < 0) {
 			throw new IllegalArgumentException(
-					format("Can't have a %s smaller than or equals to 0", QEPCoreOptions.QEPC_MERGE_EPSILON));
+					format("Can't have a %s smaller than 0", QEPCoreOptions.QEPC_MERGE_WRITE_RATE));
 		}
+		policy = MergePolicy.readOptions(options, fanIn);
+
+		// the merge shouldn't slow down the searches
+		setPriority(Thread.MIN_PRIORITY);
+	}
+
+	/**
+	 * @return the merge policy of the thread
+	 */
+	public MergePolicy getPolicy() {
+		return policy;
 	}
 
 	/**
@@ -84,7 +112,7 @@ public class QEPCoreMergeThread extends Thread {
 		ControlInfo ci = new ControlInformation();
 		try {
 			ci.load(getMergeFile());
-		} catch (FileNotFoundException e) {
+		} catch (FileNotFoundException | NoSuchFileException e) {
 			return null;
 		}
 		if (ci.getType() != ControlInfo.Type.QEPCORE_MERGE) {
@@ -104,6 +132,35 @@ public class QEPCoreMergeThread extends Thread {
 		ci.save(getMergeFile());
 	}
 
+	/**
+	 * roll back a merge interrupted by the close of the core, the new dataset
+	 * is deleted and the merged datasets are restored, should be called before
+	 * the load of the datasets
+	 *
+	 * @throws QEPCoreException can't roll back the merge
+	 */
+	public void recoverMerge() throws QEPCoreException {
+		try {
+			ControlInfo ci = loadMergeFile();
+			if (ci != null) {
+				String newId = ci.get(OPT_NEW_DSID);
+				if (newId != null && !newId.isEmpty()) {
+					QEPCore.deleteDatasetFiles(core.getDatasetFile(newId));
+				}
+				String ids = ci.get(OPT_DSIDS);
+				if (ids != null && !ids.isEmpty()) {
+					core.restoreRemovedDatasets(List.of(ids.split(OPT_DSIDS_SEPARATOR)));
+				}
+				Files.delete(getMergeFile());
+			}
+			if (Files.exists(getMergeLocation())) {
+				PathUtils.deleteDirectory(getMergeLocation());
+			}
+		} catch (IOException e) {
+			throw new QEPCoreException("Can't recover the previous merge", e);
+		}
+	}
+
 	private void checkException() {
 		Throwable throwable = exception.getAndSet(null);
 		if (throwable != null) {
@@ -144,36 +201,142 @@ public class QEPCoreMergeThread extends Thread {
 		}
 	}
 
-	private record WeightContext(QEPDatasetContext ctx, long value) {}
+	/**
+	 * listener pausing the merge while the core has too many open searches, the
+	 * merge is paused at most maxBackoff milliseconds
+	 */
+	private class BackoffListener implements ProgressListener {
+		private final ProgressListener listener;
+		private final int ownContexts;
+		private long backoff;
+
+		BackoffListener(ProgressListener listener, int ownContexts) {
+			this.listener = listener;
+			this.ownContexts = ownContexts;
+		}
 
-	public Collection<WeightContext> findCluster(Collection<QEPDatasetContext> dss) {
-		List<WeightContext> ctx = dss.stream().map(c -> new WeightContext(c, mergeFindFunc.mapValue(c)))
-				.sorted(Comparator.comparingLong(WeightContext::value)).toList();
+		private synchronized void waitLowLoad() {
+			while (backoff < maxBackoff && core.getOpenContextCount() - ownContexts > loadThreshold) {
+				try {
+					Thread.sleep(BACKOFF_STEP_MS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				backoff += BACKOFF_STEP_MS;
+			}
+		}
 
-		if (ctx.size() <= 1) {
-			return ctx; // trivial case
+		@Override
+		public void notifyProgress(float level, String message) {
+			if (loadThreshold > 0) {
+				waitLowLoad();
+			}
+			listener.notifyProgress(level, message);
 		}
+	}
+
+	/**
+	 * merge the datasets selected by the merge policy
+	 *
+	 * @return if datasets were merged
+	 * @throws IOException merge exception
+	 */
+	public boolean mergeCluster() throws IOException {
+		mergeLock.lock();
+		try {
+			ProgressListener coreListener = progressMerge ? core.getListener() : ProgressListener.ignore();
+			// the merge context isn't a search
+			ProgressListener listener = new BackoffListener(coreListener, 1);
+			try (QEPCoreContext context = core.createSearchContext()) {
+				listener.notifyProgress(0, "searching merge cluster...");
+				Collection<QEPDatasetContext> dss = context.getContexts();
+
+				// find cluster
+				List<QEPDatasetContext> cluster = policy.select(dss);
+
+				if (cluster.size() < 2) {
+					listener.notifyProgress(100, "no datasets to merge");
+					return false;
+				}
+
+				String newDatasetId = core.createNewDatasetId();
+				Path datasetPath = core.getDatasetFile(newDatasetId);
+				List<String> ids = cluster.stream().map(ctx -> ctx.dataset().id()).toList();
 
-		List<WeightContext> currentCluster = new ArrayList<>();
-		List<List<WeightContext>> clusters = new ArrayList<>();
-		WeightContext lastDs = ctx.get(0);
-		currentCluster.add(lastDs);
+				// write cluster file
+				saveMergeFile(STEP_HDC,
+						HDTOptions.of(OPT_DSIDS, String.join(OPT_DSIDS_SEPARATOR, ids), OPT_NEW_DSID, newDatasetId));
+
+				try {
+					List<HDT> ds = new ArrayList<>();
+					List<Bitmap> dsDelete = new ArrayList<>();
+					for (QEPDatasetContext ctx : cluster) {
+						ds.add(ctx.dataset().dataset());
+						dsDelete.add(ctx.deleteBitmap());
+					}
 
-		for (int i = 1; i < ctx.size(); i++) {
-			WeightContext ds = ctx.get(i);
+					Path workDir = getMergeLocation().resolve("diffcat");
+					Files.createDirectories(workDir);
+					// the ids of the datasets in the merged dataset, to convert
+					// the deletes done during the merge
+					Path mappingDir = getMergeLocation().resolve("mapping");
+
+					// HCD
+
+					HDTOptions options = core.getOptions().pushTop();
+					options.setOptions(
+							// write the merged dataset in the store
+							HDTOptionsKeys.HDTCAT_FUTURE_LOCATION, datasetPath.toAbsolutePath(),
+							// set the work dir
+							HDTOptionsKeys.HDTCAT_LOCATION, workDir,
+							// limit the write rate
+							HDTOptionsKeys.HDTCAT_WRITE_RATE_LIMIT, writeRate,
+							// write the id mappings
+							HDTOptionsKeys.HDTCAT_MAPPING_LOCATION, mappingDir.toAbsolutePath());
+
+					listener.notifyProgress(10, "starting datasets merge process");
+					try (HDT diffCat = HDTManager.diffBitCatHDTObject(ds, dsDelete, options,
+							listener.sub(10, 80, "diffcat: "), false)) {
+						diffCat.saveToHDT(datasetPath, listener.sub(80, 90, "saving diffcat: "));
+						core.writeDatasetFilter(diffCat, datasetPath);
+					}
+					// keep the time of the merged datasets for the time windows
+					FileTime time = null;
+					for (QEPDatasetContext ctx : cluster) {
+						FileTime dsTime = Files.getLastModifiedTime(ctx.dataset().path());
+						if (time == null || dsTime.compareTo(time) > 0) {
+							time = dsTime;
+						}
+					}
+					Files.setLastModifiedTime(datasetPath, time);
+
+					// replace the cluster datasets
+					listener.notifyProgress(90, "installing the merged dataset " + newDatasetId);
+					core.replaceDatasets(cluster, newDatasetId, mappingDir);
+				} catch (Throwable t) {
+					if (core.getDatasetById(newDatasetId) == null) {
+						// not installed, roll back the merge
+						try {
+							recoverMerge();
+						} catch (Throwable t2) {
+							t.addSuppressed(t2);
+						}
+					}
+					throw t;
+				}
 
-			if (ds.value <= lastDs.value + epsilon) {
-				currentCluster.add(ds);
-			} else {
-				clusters.add(currentCluster);
-				currentCluster = new ArrayList<>();
-				currentCluster.add(ds);
+				// delete temp merge file
+				Files.deleteIfExists(getMergeFile());
+				if (Files.exists(getMergeLocation())) {
+					PathUtils.deleteDirectory(getMergeLocation());
+				}
+				listener.notifyProgress(100, "merged " + cluster.size() + " datasets into " + newDatasetId);
+				return true;
 			}
-			lastDs = ds;
+		} finally {
+			mergeLock.unlock();
 		}
-		clusters.add(currentCluster);
-
-		return clusters.stream().max(Comparator.comparingLong(List::size)).orElseThrow();
 	}
 
 	@Override
@@ -193,69 +356,14 @@ public class QEPCoreMergeThread extends Thread {
 				}
 				runMerge = false;
 			}
-			ProgressListener listener = progressMerge ? core.getListener() : ProgressListener.ignore();
 			// we can start the merge process
-			try (QEPCoreContext context = core.createSearchContext()) {
-				listener.notifyProgress(0, "searching merge cluster...");
-				Collection<QEPDatasetContext> dss = context.getContexts();
-
-				// find cluster
-				Collection<WeightContext> cluster = findCluster(dss);
-
-				if (cluster.size() < clusterSize) {
-					listener.notifyProgress(100, "merge cluster too small " + cluster.size() + "/" + clusterSize);
-					continue; // the cluster isn't big enough
-				}
-
-				// write cluster file
-				saveMergeFile(STEP_HDC, HDTOptions.of(OPT_DSIDS, cluster.stream().map(w -> w.ctx.dataset().id())
-						.collect(Collectors.joining(OPT_DSIDS_SEPARATOR))));
-
-				List<HDT> ds = new ArrayList<>();
-				List<Bitmap> dsDelete = new ArrayList<>();
-				for (WeightContext wc : cluster) {
-					QEPDatasetContext ctx = wc.ctx;
-					ds.add(ctx.dataset().dataset());
-					dsDelete.add(ctx.deleteBitmap());
-				}
-
-				Path workDir = getMergeLocation().resolve("diffcat");
-				Path output = workDir.resolve("output.hdt");
-				Files.createDirectories(workDir);
-
-				// HCD
-
-				HDTOptions options = core.getOptions().pushTop();
-				options.setOptions(
-						// set the right future location
-						HDTOptionsKeys.HDTCAT_FUTURE_LOCATION, output,
-						// set the work dir
-						HDTOptionsKeys.HDTCAT_LOCATION, workDir);
-
-				listener.notifyProgress(10, "starting datasets merge process");
-				try (HDT diffCat = HDTManager.diffBitCatHDTObject(ds, dsDelete, options,
-						listener.sub(10, 70, "diffcat: "), false)) {
-					diffCat.saveToHDT(output, listener.sub(70, 75, "saving diffcat: "));
-
-					// start linking
-					String newDatasetId = core.createNewDatasetId();
-					QEPDataset nds = new QEPDataset(core, newDatasetId, null, diffCat, null, null);
-
-					// pause updates
-
-					// write merge location file
-
+			try {
+				// merge the tiers until no tier is big enough
+				while (mergeCluster()) {
+					if (isInterrupted()) {
+						break mainLoop;
+					}
 				}
-				// copy merge file to dataset
-				// remove pointer to the cluster dataset
-
-				// remove merge file location
-
-				// allow updates
-
-				// delete temp merge file
-				Files.deleteIfExists(getMergeFile());
-				runMerge = false;
 			} catch (Throwable e) {
 				exception.accumulateAndGet(e, (a, b) -> {
 					if (b == null) {
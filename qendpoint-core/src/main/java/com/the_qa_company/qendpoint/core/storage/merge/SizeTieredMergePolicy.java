@@ -0,0 +1,94 @@
+package com.the_qa_company.qendpoint.core.storage.merge;
+
+import com.the_qa_company.qendpoint.core.storage.QEPCoreOptions;
+import com.the_qa_company.qendpoint.core.storage.QEPDatasetContext;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import static java.lang.String.format;
+
+/**
+ * Size-tiered merge policy, the datasets are grouped in tiers by their
+ * {@link MergeFindFunc} value and the smallest tier with at least fan-in
+ * datasets is merged into one dataset of the next tiers, the small recent
+ * datasets are merged often and the large datasets rarely.
+ *
+ * @author Antoine Willerval
+ */
+public class SizeTieredMergePolicy implements MergePolicy {
+	private final int fanIn;
+	private final double epsilon;
+	private final MergeFindFunc mergeFindFunc;
+
+	/**
+	 * @param fanIn         number of datasets required to merge a tier
+	 * @param epsilon       maximum value difference between 2 datasets of a
+	 *                      tier
+	 * @param mergeFindFunc function to get the value of a dataset
+	 */
+	public SizeTieredMergePolicy(int fanIn, double epsilon, MergeFindFunc mergeFindFunc) {
+		if (epsilon <= 0) {
+			throw new IllegalArgumentException(
+					format("Can't have a %s smaller than or equals to 0", QEPCoreOptions.QEPC_MERGE_EPSILON));
+		}
+		this.fanIn = fanIn;
+		this.epsilon = epsilon;
+		this.mergeFindFunc = mergeFindFunc;
+	}
+
+	private record WeightContext(QEPDatasetContext ctx, long value) {}
+
+	/**
+	 * find the tier to merge
+	 *
+	 * @param dss datasets
+	 * @return the smallest tier with at least fan-in datasets, or the biggest
+	 *         tier if no tier can be merged
+	 */
+	public List<QEPDatasetContext> findCluster(Collection<QEPDatasetContext> dss) {
+		List<WeightContext> ctx = dss.stream().map(c -> new WeightContext(c, mergeFindFunc.mapValue(c)))
+				.sorted(Comparator.comparingLong(WeightContext::value)).toList();
+
+		if (ctx.size() <= 1) {
+			// trivial case
+			return ctx.stream().map(WeightContext::ctx).toList();
+		}
+
+		List<WeightContext> currentCluster = new ArrayList<>();
+		List<List<WeightContext>> clusters = new ArrayList<>();
+		WeightContext lastDs = ctx.get(0);
+		currentCluster.add(lastDs);
+
+		for (int i = 1; i < ctx.size(); i++) {
+			WeightContext ds = ctx.get(i);
+
+			if (ds.value <= lastDs.value + epsilon) {
+				currentCluster.add(ds);
+			} else {
+				clusters.add(currentCluster);
+				currentCluster = new ArrayList<>();
+				currentCluster.add(ds);
+			}
+			lastDs = ds;
+		}
+		clusters.add(currentCluster);
+
+		// merge the smallest tier big enough, the biggest tier is returned if
+		// no tier can be merged
+		return clusters.stream().filter(c -> c.size() >= fanIn).findFirst()
+				.orElseGet(() -> clusters.stream().max(Comparator.comparingLong(List::size)).orElseThrow()).stream()
+				.map(WeightContext::ctx).toList();
+	}
+
+	@Override
+	public List<QEPDatasetContext> select(Collection<QEPDatasetContext> contexts) {
+		List<QEPDatasetContext> cluster = findCluster(contexts);
+		if (cluster.size() < fanIn) {
+			return List.of(); // the cluster isn't big enough
+		}
+		return cluster;
+	}
+}
@@ -0,0 +1,75 @@
+package com.the_qa_company.qendpoint.core.storage.merge;
+
+import com.the_qa_company.qendpoint.core.storage.QEPCoreOptions;
+import com.the_qa_company.qendpoint.core.storage.QEPDatasetContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.LongSupplier;
+
+import static java.lang.String.format;
+
+/**
+ * Time-windowed merge policy, the datasets are grouped by the time window of
+ * their last modification. The datasets of a past window are merged together,
+ * the datasets of the current window are merged when the window contains fan-in
+ * datasets. The merged datasets keep the time of the last merged dataset, so a
+ * window ends with one dataset.
+ *
+ * @author Antoine Willerval
+ */
+public class TimeWindowedMergePolicy implements MergePolicy {
+	private final int fanIn;
+	private final long window;
+	private final LongSupplier clock;
+
+	/**
+	 * @param fanIn  number of datasets required to merge the current window
+	 * @param window size of a window in milliseconds
+	 * @param clock  current time in milliseconds
+	 */
+	public TimeWindowedMergePolicy(int fanIn, long window, LongSupplier clock) {
+		if (window <= 0) {
+			throw new IllegalArgumentException(
+					format("Can't have a %s smaller than or equals to 0", QEPCoreOptions.QEPC_MERGE_WINDOW));
+		}
+		this.fanIn = fanIn;
+		this.window = window;
+		this.clock = clock;
+	}
+
+	private long getWindow(QEPDatasetContext ctx, long current) {
+		Path path = ctx.dataset().path();
+		if (path == null) {
+			return current;
+		}
+		try {
+			return Files.getLastModifiedTime(path).toMillis() / window;
+		} catch (IOException e) {
+			return current;
+		}
+	}
+
+	@Override
+	public List<QEPDatasetContext> select(Collection<QEPDatasetContext> contexts) {
+		long current = clock.getAsLong() / window;
+		TreeMap<Long, List<QEPDatasetContext>> windows = new TreeMap<>();
+		for (QEPDatasetContext ctx : contexts) {
+			windows.computeIfAbsent(getWindow(ctx, current), w -> new ArrayList<>()).add(ctx);
+		}
+
+		for (Map.Entry<Long, List<QEPDatasetContext>> e : windows.entrySet()) {
+			int size = e.getValue().size();
+			if (e.getKey() < current ? size >= 2 : size >= fanIn) {
+				return e.getValue();
+			}
+		}
+		return List.of();
+	}
+}
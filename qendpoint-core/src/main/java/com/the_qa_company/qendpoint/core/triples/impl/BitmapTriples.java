@@ -73,7 +73,10 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * @author mario.arias
@@ -91,6 +94,13 @@ public class BitmapTriples implements TriplesPrivate {
 	// Index for Y
 	public PredicateIndex predicateIndex;
 
+	// Other orders of the triples, used when the main order can't answer a
+	// pattern with a range read
+	private final Map<TripleComponentOrder, BitmapTriples> otherIndexes = new EnumMap<>(TripleComponentOrder.class);
+	// Positions of the triples in the main triples if these triples are a
+	// permutation, null otherwise
+	Sequence mainPositions;
+
 	boolean diskSequence;
 	boolean diskSubIndex;
 	CreateOnUsePath diskSequenceLocation;
@@ -300,6 +310,18 @@ public class BitmapTriples implements TriplesPrivate {
 		TripleOrderConvert.swapComponentOrder(reorderedPat, TripleComponentOrder.SPO, order);
 		String patternString = reorderedPat.getPatternString();
 
+		if (!otherIndexes.isEmpty() && !isPrefixPattern(patternString)) {
+			// the main order can't answer with a range read, search for a
+			// permutation to avoid the sequential search or the object index
+			for (BitmapTriples other : otherIndexes.values()) {
+				TripleID otherPat = new TripleID(pattern);
+				TripleOrderConvert.swapComponentOrder(otherPat, TripleComponentOrder.SPO, other.order);
+				if (isPrefixPattern(otherPat.getPatternString())) {
+					return new BitmapTriplesIteratorPermutation(other, pattern);
+				}
+			}
+		}
+
 		if (patternString.equals("?P?")) {
 			if (this.predicateIndex != null) {
 				return new BitmapTriplesIteratorYFOQ(this, pattern);
@@ -333,6 +355,103 @@ public class BitmapTriples implements TriplesPrivate {
 
 	}
 
+	/**
+	 * test if a pattern can be answered with a range read in the order of the
+	 * pattern, i.e. if all the bound components are before the unbound
+	 * components
+	 *
+	 * @param patternString pattern string, see
+	 *                      {@link TripleID#getPatternString()}
+	 * @return true if the pattern is a prefix pattern
+	 */
+	static boolean isPrefixPattern(String patternString) {
+		boolean unbound = false;
+		for (int i = 0; i < patternString.length(); i++) {
+			if (patternString.charAt(i) == '?') {
+				unbound = true;
+			} else if (unbound) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * find the position of a triple in these triples
+	 *
+	 * @param triple triple (SPO order)
+	 * @return position, -1 if the triple isn't in the triples
+	 * @see IteratorTripleID#getLastTriplePosition()
+	 */
+	public long findTriplePosition(TripleID triple) {
+		TripleID reordered = new TripleID(triple);
+		TripleOrderConvert.swapComponentOrder(reordered, TripleComponentOrder.SPO, order);
+
+		long x = reordered.getSubject();
+		if (x <= 0 || x > adjY.countListsX()) {
+			return -1;
+		}
+		long posY = adjY.find(x - 1, reordered.getPredicate());
+		if (posY == -1) {
+			return -1;
+		}
+		return adjZ.find(posY, reordered.getObject());
+	}
+
+	/**
+	 * load or create the other orders of these triples, the orders are read
+	 * from the {@link HDTOptionsKeys#BITMAPTRIPLES_INDEX_OTHERS} key.
+	 *
+	 * @param fileLocation location of the HDT file, the permutations are stored
+	 *                     next to it
+	 * @param spec         spec
+	 * @param dictionary   dictionary of the HDT
+	 * @param listener     listener
+	 * @throws IOException io exception while creating or reading a permutation
+	 */
+	public void loadOrCreateOtherIndexes(Path fileLocation, HDTOptions spec, Dictionary dictionary,
+			ProgressListener listener) throws IOException {
+		Set<TripleComponentOrder> orders = BitmapTriplesIndexFile.readOrders(spec);
+		orders.remove(order);
+
+		if (orders.isEmpty() || getNumberOfElements() == 0) {
+			return;
+		}
+
+		if (fileLocation == null) {
+			log.warn("Can't create the other orders {} without HDT file location", orders);
+			return;
+		}
+
+		for (TripleComponentOrder other : orders) {
+			if (otherIndexes.containsKey(other)) {
+				continue;
+			}
+			Path path = BitmapTriplesIndexFile.getIndexPath(fileLocation, other);
+
+			if (Files.exists(path)) {
+				try {
+					otherIndexes.put(other, BitmapTriplesIndexFile.map(path, this, other));
+					continue;
+				} catch (IOException | IllegalFormatException e) {
+					log.warn("Error reading {} permutation {}, generating a new one.", other, path, e);
+				}
+			}
+
+			StopWatch st = new StopWatch();
+			BitmapTriplesIndexFile.generateIndex(this, path, other, spec, dictionary, listener);
+			otherIndexes.put(other, BitmapTriplesIndexFile.map(path, this, other));
+			log.info("{} permutation generated and saved in {}", other, st.stopAndShow());
+		}
+	}
+
+	/**
+	 * @return the other orders of these triples
+	 */
+	public Map<TripleComponentOrder, BitmapTriples> getOtherIndexes() {
+		return otherIndexes;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see hdt.triples.Triples#searchAll()
@@ -1210,8 +1329,11 @@ public class BitmapTriples implements TriplesPrivate {
 	public void close() throws IOException {
 		isClosed = true;
 		try {
-			Closer.closeAll(seqY, seqZ, indexZ, predicateCount, predicateIndex, bitmapIndexZ, diskSequenceLocation);
+			Closer.closeAll(seqY, seqZ, indexZ, predicateCount, predicateIndex, bitmapIndexZ, diskSequenceLocation,
+					otherIndexes.values(), mainPositions);
 		} finally {
+			otherIndexes.clear();
+			mainPositions = null;
 			diskSequenceLocation = null;
 			seqY = null;
 			seqZ = null;
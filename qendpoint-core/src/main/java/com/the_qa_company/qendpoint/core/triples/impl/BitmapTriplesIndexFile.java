@@ -0,0 +1,341 @@
+package com.the_qa_company.qendpoint.core.triples.impl;
+
+import com.the_qa_company.qendpoint.core.compact.bitmap.Bitmap375Big;
+import com.the_qa_company.qendpoint.core.compact.sequence.DynamicSequence;
+import com.the_qa_company.qendpoint.core.compact.sequence.SequenceFactory;
+import com.the_qa_company.qendpoint.core.dictionary.Dictionary;
+import com.the_qa_company.qendpoint.core.enums.TripleComponentOrder;
+import com.the_qa_company.qendpoint.core.enums.TripleComponentRole;
+import com.the_qa_company.qendpoint.core.exceptions.IllegalFormatException;
+import com.the_qa_company.qendpoint.core.hdt.HDTVocabulary;
+import com.the_qa_company.qendpoint.core.hdt.impl.diskindex.DiskIndexSort;
+import com.the_qa_company.qendpoint.core.hdt.impl.diskindex.PermutationAdjReader;
+import com.the_qa_company.qendpoint.core.iterator.utils.AsyncIteratorFetcher;
+import com.the_qa_company.qendpoint.core.iterator.utils.ExceptionIterator;
+import com.the_qa_company.qendpoint.core.listener.MultiThreadListener;
+import com.the_qa_company.qendpoint.core.listener.ProgressListener;
+import com.the_qa_company.qendpoint.core.options.ControlInfo;
+import com.the_qa_company.qendpoint.core.options.ControlInformation;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
+import com.the_qa_company.qendpoint.core.triples.TripleID;
+import com.the_qa_company.qendpoint.core.util.BitUtil;
+import com.the_qa_company.qendpoint.core.util.StopWatch;
+import com.the_qa_company.qendpoint.core.util.concurrent.KWayMerger;
+import com.the_qa_company.qendpoint.core.util.io.CloseSuppressPath;
+import com.the_qa_company.qendpoint.core.util.io.Closer;
+import com.the_qa_company.qendpoint.core.util.io.CountInputStream;
+import com.the_qa_company.qendpoint.core.util.io.IOUtil;
+import com.the_qa_company.qendpoint.core.util.io.compress.Pair;
+import com.the_qa_company.qendpoint.core.util.listener.ListenerUtil;
+import org.apache.commons.io.file.PathUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Utility class to create and map the other orders (permutations) of a
+ * {@link BitmapTriples}, each permutation is stored in its own file next to the
+ * HDT index.
+ *
+ * @author Antoine Willerval
+ */
+public class BitmapTriplesIndexFile {
+	private static final Logger log = LoggerFactory.getLogger(BitmapTriplesIndexFile.class);
+
+	private BitmapTriplesIndexFile() {
+	}
+
+	/**
+	 * get the path of the permutation file of an HDT
+	 *
+	 * @param hdt   hdt file
+	 * @param order order of the permutation
+	 * @return path
+	 */
+	public static Path getIndexPath(Path hdt, TripleComponentOrder order) {
+		return hdt.resolveSibling(hdt.getFileName() + "." + order.name().toLowerCase(Locale.ROOT) + ".idx");
+	}
+
+	/**
+	 * read the orders described by the
+	 * {@link HDTOptionsKeys#BITMAPTRIPLES_INDEX_OTHERS} key
+	 *
+	 * @param spec spec
+	 * @return orders, empty set if no order is asked
+	 * @throws IllegalArgumentException if an order can't be parsed
+	 */
+	public static Set<TripleComponentOrder> readOrders(HDTOptions spec) {
+		Set<TripleComponentOrder> orders = EnumSet.noneOf(TripleComponentOrder.class);
+		if (spec == null) {
+			return orders;
+		}
+		String others = spec.get(HDTOptionsKeys.BITMAPTRIPLES_INDEX_OTHERS, "");
+		for (String name : others.split(",")) {
+			String trim = name.trim().toUpperCase(Locale.ROOT);
+			if (trim.isEmpty()) {
+				continue;
+			}
+			TripleComponentOrder order = TripleComponentOrder.valueOf(trim);
+			if (order == TripleComponentOrder.Unknown) {
+				throw new IllegalArgumentException("Can't index the Unknown order");
+			}
+			orders.add(order);
+		}
+		return orders;
+	}
+
+	private static long maxId(Dictionary dictionary, TripleComponentRole role) {
+		return switch (role) {
+		case SUBJECT -> dictionary.getNsubjects();
+		case PREDICATE -> dictionary.getNpredicates();
+		case OBJECT -> dictionary.getNobjects();
+		};
+	}
+
+	/**
+	 * generate a permutation of a bitmap triples and write it into a file
+	 *
+	 * @param triples     bitmap triples
+	 * @param destination permutation file
+	 * @param order       order of the permutation
+	 * @param spec        spec to configure the disk sort
+	 * @param dictionary  dictionary of the triples
+	 * @param plistener   listener
+	 * @throws IOException write or sort exception
+	 */
+	public static void generateIndex(BitmapTriples triples, Path destination, TripleComponentOrder order,
+			HDTOptions spec, Dictionary dictionary, ProgressListener plistener) throws IOException {
+		MultiThreadListener listener = ListenerUtil.multiThreadListener(plistener);
+		StopWatch global = new StopWatch();
+
+		Path diskLocation;
+		boolean deleteLocation;
+		if (triples.isUsingDiskSequence()) {
+			diskLocation = triples.getDiskSequenceLocation().createOrGetPath();
+			deleteLocation = false;
+		} else {
+			diskLocation = Files.createTempDirectory("bitmapTriplesPermutation");
+			deleteLocation = true;
+		}
+		int workers = (int) spec.getInt(HDTOptionsKeys.BITMAPTRIPLES_DISK_WORKER_KEY,
+				Runtime.getRuntime()::availableProcessors);
+		if (workers <= 0) {
+			throw new IllegalArgumentException("Number of workers should be positive!");
+		}
+		long chunkSize = spec.getInt(HDTOptionsKeys.BITMAPTRIPLES_DISK_CHUNK_SIZE_KEY,
+				() -> BitmapTriples.getMaxChunkSizeDiskIndex(workers));
+		if (chunkSize < 0) {
+			throw new IllegalArgumentException("Negative chunk size!");
+		}
+		long maxFileOpened = spec.getInt(HDTOptionsKeys.BITMAPTRIPLES_DISK_MAX_FILE_OPEN_KEY, 1024);
+		if (maxFileOpened < 0 || maxFileOpened > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("maxFileOpened should be positive!");
+		}
+		long kwayLong = spec.getInt(HDTOptionsKeys.BITMAPTRIPLES_DISK_KWAY_KEY,
+				() -> Math.max(1, BitUtil.log2(maxFileOpened / workers)));
+		if (kwayLong <= 0 || kwayLong > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("kway can't be negative!");
+		}
+		int k = 1 << ((int) kwayLong);
+		long bufferSize = spec.getInt(HDTOptionsKeys.BITMAPTRIPLES_DISK_BUFFER_SIZE_KEY, CloseSuppressPath.BUFFER_SIZE);
+		if (bufferSize > Integer.MAX_VALUE - 5L || bufferSize <= 0) {
+			throw new IllegalArgumentException("Buffer size can't be negative or bigger than the size of an array!");
+		}
+
+		String name = order.name().toLowerCase(Locale.ROOT);
+		long numTriples = triples.getNumberOfElements();
+
+		// the pairs are (x, y, position) triples, see PermutationAdjReader
+		DiskIndexSort sort = new DiskIndexSort(CloseSuppressPath.of(diskLocation).resolve("chunks" + name),
+				new AsyncIteratorFetcher<>(new PermutationAdjReader(triples.searchAll(), order)), listener,
+				(int) bufferSize, chunkSize, k, Comparator.<Pair>comparingLong(p -> p.object)
+						.thenComparingLong(p -> p.predicate).thenComparingLong(p -> p.predicatePosition));
+
+		DynamicSequence seqY = null;
+		DynamicSequence seqZ = null;
+		DynamicSequence seqPositions = null;
+		Bitmap375Big bitY = null;
+		Bitmap375Big bitZ = null;
+		Path tempDestination = destination.resolveSibling(destination.getFileName() + ".tmp");
+		try {
+			seqY = triples.createSequence64(diskLocation, name + "SeqY",
+					BitUtil.log2(maxId(dictionary, order.getPredicateMapping())), numTriples);
+			seqZ = triples.createSequence64(diskLocation, name + "SeqZ",
+					BitUtil.log2(maxId(dictionary, order.getObjectMapping())), numTriples);
+			seqPositions = triples.createSequence64(diskLocation, name + "SeqPositions", BitUtil.log2(numTriples),
+					numTriples);
+			bitY = triples.createBitmap375(diskLocation, name + "BitY", numTriples);
+			bitZ = triples.createBitmap375(diskLocation, name + "BitZ", numTriples);
+
+			ExceptionIterator<Pair, IOException> sortedPairs = sort.sort(workers);
+			log.info("{} pairs sorted in {}", order, global.stopAndShow());
+			global.reset();
+			long indexY = 0;
+			long indexZ = 0;
+			try {
+				long lastX = 0;
+				long lastY = 0;
+				TripleID triple = new TripleID();
+				long block = numTriples < 10 ? 1 : numTriples / 10;
+				while (sortedPairs.hasNext()) {
+					Pair pair = sortedPairs.next();
+					long x = pair.object;
+					long y = pair.predicate;
+					long position = pair.predicatePosition;
+					// read the last component with the position in the main
+					// triples
+					triple.assign(triples.findTriple(position));
+					TripleOrderConvert.swapComponentOrder(triple, triples.getOrder(), order);
+					long z = triple.getObject();
+
+					if (indexZ == 0) {
+						if (x != 1) {
+							throw new IllegalFormatException("Upper level must start at 1 for the order " + order);
+						}
+						seqY.set(indexY++, y);
+					} else if (x != lastX) {
+						if (x != lastX + 1) {
+							throw new IllegalFormatException(
+									"Upper level must be increasing and correlative for the order " + order);
+						}
+						// X changed
+						bitY.append(true);
+						seqY.set(indexY++, y);
+						bitZ.append(true);
+					} else if (y != lastY) {
+						// Y changed
+						bitY.append(false);
+						seqY.set(indexY++, y);
+						bitZ.append(true);
+					} else {
+						// Z changed
+						bitZ.append(false);
+					}
+					seqPositions.set(indexZ, position);
+					seqZ.set(indexZ++, z);
+
+					lastX = x;
+					lastY = y;
+
+					if (indexZ % block == 0) {
+						listener.notifyProgress(indexZ / (block / 10f),
+								"writing " + name + " permutation " + indexZ + "/" + numTriples);
+					}
+				}
+			} finally {
+				IOUtil.closeObject(sortedPairs);
+			}
+			if (indexZ != numTriples) {
+				throw new IllegalFormatException(
+						"The permutation " + order + " doesn't contain all the triples " + indexZ + "!=" + numTriples);
+			}
+			if (indexZ > 0) {
+				bitY.append(true);
+				bitZ.append(true);
+			}
+			seqY.resize(indexY);
+
+			BitmapTriples permutation = new BitmapTriples(HDTOptions.empty(), seqY, seqZ, bitY, bitZ, order);
+			try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempDestination))) {
+				ControlInformation ci = new ControlInformation();
+				ci.setType(ControlInfo.Type.INDEX);
+				ci.setFormat(HDTVocabulary.INDEX_TYPE_PERMUTATION);
+				ci.setInt("numTriples", numTriples);
+				ci.setInt("order", order.ordinal());
+				ci.setInt("mainOrder", triples.getOrder().ordinal());
+				ci.setInt("positions", 1);
+				ci.save(out);
+				ci.clear();
+				permutation.save(out, ci, listener);
+				// positions of the permutation triples in the main triples
+				seqPositions.save(out, listener);
+			}
+			// move the file once it is complete to avoid reading a partial
+			// permutation after a crash
+			Files.move(tempDestination, destination, StandardCopyOption.REPLACE_EXISTING);
+			log.info("{} permutation written in {}", order, global.stopAndShow());
+		} catch (KWayMerger.KWayMergerException | InterruptedException e) {
+			if (e.getCause() != null) {
+				IOUtil.throwIOOrRuntime(e.getCause());
+			}
+			throw new RuntimeException("Can't sort pairs", e);
+		} finally {
+			try {
+				Closer.closeAll(seqY, seqZ, seqPositions, bitY, bitZ);
+			} finally {
+				try {
+					Files.deleteIfExists(tempDestination);
+				} finally {
+					if (deleteLocation) {
+						PathUtils.deleteDirectory(diskLocation);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * map a permutation file
+	 *
+	 * @param file    the permutation file
+	 * @param triples the triples of the permutation
+	 * @param order   the expected order of the permutation
+	 * @return permutation
+	 * @throws IOException            read exception
+	 * @throws IllegalFormatException if the permutation isn't associated to
+	 *                                these triples
+	 */
+	public static BitmapTriples map(Path file, BitmapTriples triples, TripleComponentOrder order) throws IOException {
+		try (CountInputStream in = new CountInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			ControlInformation ci = new ControlInformation();
+			ci.load(in);
+
+			if (ci.getType() != ControlInfo.Type.INDEX
+					|| !HDTVocabulary.INDEX_TYPE_PERMUTATION.equals(ci.getFormat())) {
+				throw new IllegalFormatException("Trying to read a permutation, but the data isn't a permutation");
+			}
+			if (ci.getInt("numTriples") != triples.getNumberOfElements()) {
+				throw new IllegalFormatException("This permutation is not associated to the HDT file");
+			}
+			if (ci.getInt("order") != order.ordinal()) {
+				throw new IllegalFormatException("The order of the permutation isn't " + order);
+			}
+			if (ci.getInt("mainOrder") != triples.getOrder().ordinal()) {
+				throw new IllegalFormatException("The order of the triples is not the same of the permutation");
+			}
+			if (ci.getInt("positions") != 1) {
+				throw new IllegalFormatException("The permutation doesn't contain the positions of the triples");
+			}
+
+			BitmapTriples permutation = new BitmapTriples();
+			try {
+				permutation.mapFromFile(in, file.toFile(), null);
+				permutation.mainPositions = SequenceFactory.createStream(in, file.toFile());
+			} catch (Throwable t) {
+				try {
+					permutation.close();
+				} catch (Throwable t2) {
+					t.addSuppressed(t2);
+				}
+				throw t;
+			}
+			if (permutation.getOrder() != order) {
+				IOUtil.closeQuietly(permutation);
+				throw new IllegalFormatException("The order of the permutation isn't " + order);
+			}
+			return permutation;
+		}
+	}
+}
@@ -265,6 +265,57 @@ public class BitmapTriplesIterator implements SuppliableIteratorTripleID {
 		nextZ = adjZ.last(posY) + 1;
 	}
 
+	/**
+	 * move the cursor to the next triple with its first unbound component (in
+	 * the order of the triples) greater or equal to an id, the triples are
+	 * sorted by this component, the cursor isn't moved backward
+	 *
+	 * @param id id to seek
+	 */
+	public void seek(long id) {
+		int level = patX == 0 ? 0 : patY == 0 ? 1 : patZ == 0 ? 2 : -1;
+		if (level == -1 || posZ >= maxZ || componentAt(level, posZ) >= id) {
+			return;
+		}
+		// exponential search of the upper bound, the target is usually close
+		long low = posZ + 1;
+		long step = 1;
+		while (low + step < maxZ && componentAt(level, low + step) < id) {
+			low += step + 1;
+			step <<= 1;
+		}
+		long high = Math.min(low + step, maxZ);
+		while (low < high) {
+			long mid = (low + high) >>> 1;
+			if (componentAt(level, mid) < id) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		if (low >= maxZ) {
+			posZ = maxZ;
+			return;
+		}
+		posZ = low;
+		posY = adjZ.findListIndex(posZ);
+
+		z = adjZ.get(posZ);
+		y = adjY.get(posY);
+		x = adjY.findListIndex(posY) + 1;
+
+		nextY = adjY.last(x - 1) + 1;
+		nextZ = adjZ.last(posY) + 1;
+	}
+
+	private long componentAt(int level, long position) {
+		return switch (level) {
+		case 0 -> adjY.findListIndex(adjZ.findListIndex(position)) + 1;
+		case 1 -> adjY.get(adjZ.findListIndex(position));
+		default -> adjZ.get(position);
+		};
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see hdt.iterator.IteratorTripleID#getOrder()
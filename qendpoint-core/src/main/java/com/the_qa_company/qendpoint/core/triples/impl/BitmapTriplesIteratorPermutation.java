@@ -0,0 +1,105 @@
+package com.the_qa_company.qendpoint.core.triples.impl;
+
+import com.the_qa_company.qendpoint.core.compact.sequence.Sequence;
+import com.the_qa_company.qendpoint.core.enums.ResultEstimationType;
+import com.the_qa_company.qendpoint.core.enums.TripleComponentOrder;
+import com.the_qa_company.qendpoint.core.iterator.SuppliableIteratorTripleID;
+import com.the_qa_company.qendpoint.core.iterator.TriplePositionSupplier;
+import com.the_qa_company.qendpoint.core.triples.TripleID;
+
+import java.util.Objects;
+
+/**
+ * Iterator over a permutation of a {@link BitmapTriples}, the positions are
+ * returned in the main triples to be used with the delete bitmaps, they are
+ * read from the positions stored next to the permutation.
+ *
+ * @author Antoine Willerval
+ */
+public class BitmapTriplesIteratorPermutation implements SuppliableIteratorTripleID {
+	private final Sequence mainPositions;
+	private final BitmapTriplesIterator iterator;
+
+	/**
+	 * @param permutation permutation of the main triples, mapped with
+	 *                    {@link BitmapTriplesIndexFile#map}
+	 * @param pattern     pattern to search, the pattern should be a prefix
+	 *                    pattern in the permutation order
+	 */
+	public BitmapTriplesIteratorPermutation(BitmapTriples permutation, TripleID pattern) {
+		this.mainPositions = Objects.requireNonNull(permutation.mainPositions, "permutation without positions");
+		this.iterator = new BitmapTriplesIterator(permutation, pattern);
+	}
+
+	@Override
+	public boolean hasPrevious() {
+		return iterator.hasPrevious();
+	}
+
+	@Override
+	public TripleID previous() {
+		return iterator.previous();
+	}
+
+	@Override
+	public void goToStart() {
+		iterator.goToStart();
+	}
+
+	@Override
+	public boolean canGoTo() {
+		return iterator.canGoTo();
+	}
+
+	@Override
+	public void goTo(long pos) {
+		iterator.goTo(pos);
+	}
+
+	/**
+	 * move the cursor to the next triple with its first unbound component (in
+	 * the permutation order) greater or equal to an id
+	 *
+	 * @param id id to seek
+	 * @see BitmapTriplesIterator#seek(long)
+	 */
+	public void seek(long id) {
+		iterator.seek(id);
+	}
+
+	@Override
+	public long estimatedNumResults() {
+		return iterator.estimatedNumResults();
+	}
+
+	@Override
+	public ResultEstimationType numResultEstimation() {
+		return iterator.numResultEstimation();
+	}
+
+	@Override
+	public TripleComponentOrder getOrder() {
+		return iterator.getOrder();
+	}
+
+	@Override
+	public long getLastTriplePosition() {
+		return mainPositions.get(iterator.getLastTriplePosition());
+	}
+
+	@Override
+	public TriplePositionSupplier getLastTriplePositionSupplier() {
+		long position = getLastTriplePosition();
+		return () -> position;
+	}
+
+	@Override
+	public boolean hasNext() {
+		return iterator.hasNext();
+	}
+
+	@Override
+	public TripleID next() {
+		return iterator.next();
+	}
+}
@@ -69,7 +69,7 @@ public class BitmapTriplesIteratorZFOQ implements SuppliableIteratorTripleID {
 	private void calculateRange() {
 		if (patZ == 0) {
 			minIndex = 0;
-			maxIndex = adjIndex.getNumberOfElements();
+			maxIndex = adjIndex.getNumberOfElements() - 1;
 			return;
 		}
 		minIndex = adjIndex.find(patZ - 1);
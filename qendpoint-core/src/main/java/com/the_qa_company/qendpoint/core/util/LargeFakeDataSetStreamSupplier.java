@@ -9,9 +9,8 @@ import com.the_qa_company.qendpoint.core.options.HDTOptions;
 import com.the_qa_company.qendpoint.core.quads.QuadString;
 import com.the_qa_company.qendpoint.core.triples.TripleString;
 import com.the_qa_company.qendpoint.core.util.concurrent.ExceptionThread;
+import com.the_qa_company.qendpoint.core.util.io.IOUtil;
 import com.the_qa_company.qendpoint.core.util.string.ByteStringUtil;
-import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
-import org.apache.commons.compress.compressors.xz.XZCompressorOutputStream;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
@@ -26,7 +25,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Iterator;
 import java.util.Random;
-import java.util.zip.GZIPOutputStream;
 
 /**
  * Utility class to create fake large dataset
@@ -209,12 +207,7 @@ public class LargeFakeDataSetStreamSupplier {
 		OutputStream out;
 
 		if (compressionType != null) {
-			out = switch (compressionType) {
-			case NONE -> pout;
-			case XZ -> new XZCompressorOutputStream(pout);
-			case BZIP -> new BZip2CompressorOutputStream(pout);
-			case GZIP -> new GZIPOutputStream(pout);
-			};
+			out = IOUtil.asCompressed(pout, compressionType);
 		} else {
 			out = pout;
 		}
@@ -0,0 +1,419 @@
+package com.the_qa_company.qendpoint.core.util.concurrent;
+
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * Cache shared by multiple threads, the entries are split into segments with a
+ * byte budget. The hits aren't locked, they only update an approximate access
+ * time of the entry, the puts are locked by segment and evict the least
+ * recently used entry of a sample of the segment. With the admission policy, a
+ * new entry only replaces the sampled LRU entry of its segment if its key was
+ * requested more often (TinyLFU), the frequencies are estimated with a
+ * count-min sketch allocated when the cache is full for the first time.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ * @author Antoine Willerval
+ */
+public class ConcurrentCache<K, V> {
+	private static final int MIN_SEGMENT_SIZE = 1 << 12;
+	private static final int MAX_SEGMENTS = 64;
+	private final Segment<K, V>[] segments;
+	private final int segmentMask;
+	private final ToLongBiFunction<K, V> weigher;
+	private final boolean admission;
+	private final long sketchEntries;
+	private volatile FrequencySketch sketch;
+	private final boolean stats;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder rejections = new LongAdder();
+
+	/**
+	 * create a cache
+	 *
+	 * @param maxSize   maximum size of the cache, in the weigher unit (bytes)
+	 * @param weigher   weigher of an entry
+	 * @param admission use the frequency admission policy, false for a simple
+	 *                  LRU policy
+	 * @param stats     record the hit/miss/eviction counters
+	 */
+	@SuppressWarnings("unchecked")
+	public ConcurrentCache(long maxSize, ToLongBiFunction<K, V> weigher, boolean admission, boolean stats) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize should be positive: " + maxSize);
+		}
+		this.weigher = Objects.requireNonNull(weigher, "weigher can't be null!");
+		this.stats = stats;
+
+		int segmentCount = Integer
+				.highestOneBit(Math.min(MAX_SEGMENTS, Runtime.getRuntime().availableProcessors() * 2));
+		while (segmentCount > 1 && maxSize / segmentCount < MIN_SEGMENT_SIZE) {
+			segmentCount >>>= 1;
+		}
+		segments = new Segment[segmentCount];
+		for (int i = 0; i < segments.length; i++) {
+			segments[i] = new Segment<>(maxSize / segmentCount);
+		}
+		segmentMask = segmentCount - 1;
+
+		this.admission = admission;
+		// consider an entry of 64 bytes to size the sketch
+		sketchEntries = Math.max(1, maxSize / 64);
+	}
+
+	/**
+	 * @return the frequency sketch, allocated with the first eviction
+	 */
+	private FrequencySketch sketch() {
+		FrequencySketch sketch = this.sketch;
+		if (sketch == null) {
+			synchronized (this) {
+				sketch = this.sketch;
+				if (sketch == null) {
+					this.sketch = sketch = new FrequencySketch(sketchEntries);
+				}
+			}
+		}
+		return sketch;
+	}
+
+	private static int spread(int hash) {
+		hash ^= hash >>> 16;
+		hash *= 0x45d9f3b;
+		return hash ^ (hash >>> 16);
+	}
+
+	private Segment<K, V> segment(int hash) {
+		return segments[hash & segmentMask];
+	}
+
+	/**
+	 * get a value from the cache, the key can be of another type if its
+	 * {@link Object#equals(Object)} and {@link Object#hashCode()} methods are
+	 * matching the methods of the keys of the cache
+	 *
+	 * @param key key
+	 * @return value or null if the value isn't in the cache
+	 */
+	public V get(Object key) {
+		int hash = spread(key.hashCode());
+		FrequencySketch sketch = this.sketch;
+		if (sketch != null) {
+			sketch.increment(hash);
+		}
+		V value = segment(hash).get(key);
+		if (stats) {
+			if (value == null) {
+				misses.increment();
+			} else {
+				hits.increment();
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * put a value in the cache, the value can be rejected by the admission
+	 * policy
+	 *
+	 * @param key   key
+	 * @param value value
+	 */
+	public void put(K key, V value) {
+		int hash = spread(key.hashCode());
+		long weight = weigher.applyAsLong(key, value);
+		segment(hash).put(this, key, value, weight);
+	}
+
+	/**
+	 * get a value from the cache or compute it, the computation is done outside
+	 * the lock, so it can be done twice for concurrent misses
+	 *
+	 * @param key      key
+	 * @param supplier value supplier
+	 * @return value
+	 */
+	public V computeIfAbsent(K key, Function<K, V> supplier) {
+		V value = get(key);
+		if (value == null) {
+			value = supplier.apply(key);
+			if (value != null) {
+				put(key, value);
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * remove all the entries, the counters aren't reset
+	 */
+	public void clear() {
+		for (Segment<K, V> segment : segments) {
+			segment.clear();
+		}
+	}
+
+	/**
+	 * @return the number of entries in the cache
+	 */
+	public long size() {
+		long size = 0;
+		for (Segment<K, V> segment : segments) {
+			size += segment.size();
+		}
+		return size;
+	}
+
+	/**
+	 * @return the weight of the entries in the cache
+	 */
+	public long weight() {
+		long weight = 0;
+		for (Segment<K, V> segment : segments) {
+			weight += segment.weight();
+		}
+		return weight;
+	}
+
+	/**
+	 * @return the number of get returning a value, 0 if the stats aren't
+	 *         recorded
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return the number of get not returning a value, 0 if the stats aren't
+	 *         recorded
+	 */
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return the number of entries removed to put new entries
+	 */
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	/**
+	 * @return the number of entries rejected by the admission policy
+	 */
+	public long getRejectionCount() {
+		return rejections.sum();
+	}
+
+	@Override
+	public String toString() {
+		return "ConcurrentCache{size=" + size() + ", weight=" + weight() + ", hits=" + getHitCount() + ", misses="
+				+ getMissCount() + ", evictions=" + getEvictionCount() + ", rejections=" + getRejectionCount() + "}";
+	}
+
+	/**
+	 * segment of the cache, the reads aren't locked, a hit only writes the
+	 * current clock of the segment in the entry, the clock is incremented by
+	 * the puts. The puts are locked and evict the least recently used entry of
+	 * a sample of the segment entries.
+	 */
+	private static class Segment<K, V> {
+		private static final int EVICTION_SAMPLES = 8;
+		private final ConcurrentHashMap<K, Entry<K, V>> map = new ConcurrentHashMap<>();
+		// entries of the map to sample the eviction victims, guarded by this
+		private final ArrayList<Entry<K, V>> entries = new ArrayList<>();
+		private final long maxWeight;
+		private volatile long clock;
+		private long weight;
+
+		Segment(long maxWeight) {
+			this.maxWeight = maxWeight;
+		}
+
+		V get(Object key) {
+			Entry<K, V> entry = map.get(key);
+			if (entry == null) {
+				return null;
+			}
+			long time = clock;
+			if (entry.access != time) {
+				// approximate recency, a concurrent hit can write an older time
+				entry.access = time;
+			}
+			return entry.value;
+		}
+
+		synchronized void put(ConcurrentCache<K, V> cache, K key, V value, long entryWeight) {
+			if (entryWeight > maxWeight) {
+				cache.rejections.increment();
+				return;
+			}
+			Entry<K, V> old = map.get(key);
+			if (old != null) {
+				remove(old);
+			}
+
+			if (weight + entryWeight > maxWeight && !entries.isEmpty()) {
+				Entry<K, V> victim = sampleVictim();
+				if (cache.admission) {
+					// only admit the new entry if it is more frequent than the
+					// LRU entry of the sample
+					FrequencySketch sketch = cache.sketch();
+					if (sketch.frequency(spread(key.hashCode())) <= sketch.frequency(spread(victim.key.hashCode()))) {
+						cache.rejections.increment();
+						return;
+					}
+				}
+				while (true) {
+					remove(victim);
+					cache.evictions.increment();
+					if (weight + entryWeight <= maxWeight || entries.isEmpty()) {
+						break;
+					}
+					victim = sampleVictim();
+				}
+			}
+			long time = clock + 1;
+			Entry<K, V> entry = new Entry<>(key, value, entryWeight, time);
+			entry.index = entries.size();
+			entries.add(entry);
+			map.put(key, entry);
+			weight += entryWeight;
+			clock = time;
+		}
+
+		/**
+		 * @return the least recently used entry of a sample of the entries, the
+		 *         sample contains all the entries if the segment is small
+		 */
+		private Entry<K, V> sampleVictim() {
+			int size = entries.size();
+			if (size <= EVICTION_SAMPLES) {
+				Entry<K, V> victim = entries.get(0);
+				for (int i = 1; i < size; i++) {
+					Entry<K, V> entry = entries.get(i);
+					if (entry.access < victim.access) {
+						victim = entry;
+					}
+				}
+				return victim;
+			}
+			ThreadLocalRandom rnd = ThreadLocalRandom.current();
+			Entry<K, V> victim = entries.get(rnd.nextInt(size));
+			for (int i = 1; i < EVICTION_SAMPLES; i++) {
+				Entry<K, V> entry = entries.get(rnd.nextInt(size));
+				if (entry.access < victim.access) {
+					victim = entry;
+				}
+			}
+			return victim;
+		}
+
+		private void remove(Entry<K, V> entry) {
+			map.remove(entry.key, entry);
+			// swap with the last entry
+			Entry<K, V> last = entries.remove(entries.size() - 1);
+			if (last != entry) {
+				last.index = entry.index;
+				entries.set(entry.index, last);
+			}
+			weight -= entry.weight;
+		}
+
+		synchronized void clear() {
+			map.clear();
+			entries.clear();
+			weight = 0;
+		}
+
+		int size() {
+			return map.size();
+		}
+
+		synchronized long weight() {
+			return weight;
+		}
+	}
+
+	private static class Entry<K, V> {
+		private final K key;
+		private final V value;
+		private final long weight;
+		// last access time, in segment clock
+		private volatile long access;
+		// index in the sampled entries, guarded by the segment
+		private int index;
+
+		Entry(K key, V value, long weight, long access) {
+			this.key = key;
+			this.value = value;
+			this.weight = weight;
+			this.access = access;
+		}
+	}
+
+	/**
+	 * count-min sketch with 4 bits counters, the counters are halved after a
+	 * sample to forget the old accesses. The updates aren't synchronized, a
+	 * concurrent increment can be lost, it only reduces the precision of the
+	 * estimation.
+	 */
+	private static class FrequencySketch {
+		private static final int DEPTH = 4;
+		private static final int[] SEEDS = { 0x97cb3127, 0xb1e4dd87, 0x6a09e667, 0xbb67ae85 };
+		private final byte[] table;
+		private final int mask;
+		private final int width;
+		private final int sampleSize;
+		private int additions;
+
+		FrequencySketch(long maxEntries) {
+			width = Integer.highestOneBit((int) Math.min(1 << 24, Math.max(64, maxEntries)) * 2 - 1);
+			mask = width - 1;
+			table = new byte[width * DEPTH];
+			sampleSize = width * 10;
+		}
+
+		private int index(int hash, int row) {
+			int h = (hash ^ SEEDS[row]) * 0x9e3779b9;
+			return row * width + ((h ^ (h >>> 16)) & mask);
+		}
+
+		void increment(int hash) {
+			boolean added = false;
+			for (int i = 0; i < DEPTH; i++) {
+				int index = index(hash, i);
+				if (table[index] < 15) {
+					table[index]++;
+					added = true;
+				}
+			}
+			if (added && ++additions >= sampleSize) {
+				reset();
+			}
+		}
+
+		int frequency(int hash) {
+			int frequency = Integer.MAX_VALUE;
+			for (int i = 0; i < DEPTH; i++) {
+				frequency = Math.min(frequency, table[index(hash, i)]);
+			}
+			return frequency;
+		}
+
+		private void reset() {
+			additions = 0;
+			for (int i = 0; i < table.length; i++) {
+				table[i] >>>= 1;
+			}
+		}
+	}
+}
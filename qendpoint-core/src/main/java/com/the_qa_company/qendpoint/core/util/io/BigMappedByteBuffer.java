@@ -207,6 +207,34 @@ public class BigMappedByteBuffer {
 		}
 	}
 
+	/**
+	 * read a particular number of bytes in the buffer at an absolute index, the
+	 * position isn't used or updated, so the buffer doesn't need to be
+	 * duplicated to be read by multiple threads
+	 *
+	 * @param index  the index in the buffer
+	 * @param dst    the destination array
+	 * @param offset the offset in the destination array
+	 * @param length the length to read
+	 */
+	public void get(long index, byte[] dst, int offset, int length) {
+		int buffer1 = getBufferIndex(index);
+		int buffer2 = getBufferIndex(index + length - 1);
+
+		if (buffer1 == buffer2) {
+			// all the bytes are in the same buffer
+			buffers.get(buffer1).get(getBufferOffset(index), dst, offset, length);
+		} else {
+			// we are using 2 buffers
+			CloseMappedByteBuffer b1 = buffers.get(buffer1);
+			int inBufferIndex = getBufferOffset(index);
+			int toRead = b1.capacity() - inBufferIndex;
+
+			b1.get(inBufferIndex, dst, offset, toRead);
+			buffers.get(buffer2).get(0, dst, offset + toRead, length - toRead);
+		}
+	}
+
 	/**
 	 * clean the buffer
 	 */
@@ -1,5 +1,7 @@
 package com.the_qa_company.qendpoint.core.util.io;
 
+import com.the_qa_company.qendpoint.core.enums.CompressionType;
+
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.Closeable;
@@ -247,6 +249,37 @@ public class CloseSuppressPath implements Path, Closeable {
 		return new BufferedOutputStream(openOutputStream(options), bufferSize);
 	}
 
+	/**
+	 * open a buffered input stream to read a file written with
+	 * {@link #openOutputStream(int, CompressionType)}
+	 *
+	 * @param bufferSize  buffer size
+	 * @param compression compression of the file
+	 * @return stream
+	 * @throws IOException can't open the file
+	 */
+	public InputStream openInputStream(int bufferSize, CompressionType compression) throws IOException {
+		if (compression == CompressionType.NONE) {
+			return openInputStream(bufferSize);
+		}
+		return new BufferedInputStream(IOUtil.asUncompressed(openInputStream(bufferSize), compression), bufferSize);
+	}
+
+	/**
+	 * open a buffered output stream writing a compressed file
+	 *
+	 * @param bufferSize  buffer size
+	 * @param compression compression of the file
+	 * @return stream
+	 * @throws IOException can't open the file
+	 */
+	public OutputStream openOutputStream(int bufferSize, CompressionType compression) throws IOException {
+		if (compression == CompressionType.NONE) {
+			return openOutputStream(bufferSize);
+		}
+		return new BufferedOutputStream(IOUtil.asCompressed(openOutputStream(bufferSize), compression), bufferSize);
+	}
+
 	/**
 	 * close this path with a delete recurse instead of delete if exists
 	 */
@@ -29,8 +29,14 @@ import com.the_qa_company.qendpoint.core.unsafe.MemoryUtils;
 import com.the_qa_company.qendpoint.core.unsafe.UnsafeLongArray;
 import com.the_qa_company.qendpoint.core.util.string.ByteString;
 import com.the_qa_company.qendpoint.core.util.string.ByteStringUtil;
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
 import org.apache.commons.compress.compressors.xz.XZCompressorInputStream;
+import org.apache.commons.compress.compressors.xz.XZCompressorOutputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorInputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorOutputStream;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedReader;
@@ -59,6 +65,7 @@ import java.util.List;
 import java.util.Random;
 import java.util.stream.Stream;
 import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * @author mario.arias
@@ -333,6 +340,10 @@ public class IOUtil {
 				input = new BZip2CompressorInputStream(input, true);
 			} else if (name.endsWith("xz")) {
 				input = new XZCompressorInputStream(input, true);
+			} else if (name.endsWith(".zst") || name.endsWith(".zstd")) {
+				input = new ZstdCompressorInputStream(input);
+			} else if (name.endsWith(".lz4")) {
+				input = new LZ4FrameInputStream(input);
 			}
 		}
 		return input;
@@ -667,10 +678,31 @@ public class IOUtil {
 		case GZIP -> new GZIPInputStream(inputStream);
 		case BZIP -> new BZip2CompressorInputStream(inputStream, true);
 		case XZ -> new XZCompressorInputStream(inputStream, true);
+		case ZSTD -> new ZstdCompressorInputStream(inputStream);
+		case LZ4 -> new LZ4FrameInputStream(inputStream);
 		case NONE -> inputStream;
 		};
 	}
 
+	/**
+	 * compress an output stream
+	 *
+	 * @param outputStream the stream to write the compressed data
+	 * @param type         the compression type
+	 * @return stream to write the uncompressed data
+	 * @throws IOException can't create the compressor
+	 */
+	public static OutputStream asCompressed(OutputStream outputStream, CompressionType type) throws IOException {
+		return switch (type) {
+		case GZIP -> new GZIPOutputStream(outputStream);
+		case BZIP -> new BZip2CompressorOutputStream(outputStream);
+		case XZ -> new XZCompressorOutputStream(outputStream);
+		case ZSTD -> new ZstdCompressorOutputStream(outputStream);
+		case LZ4 -> new LZ4FrameOutputStream(outputStream, LZ4FrameOutputStream.BLOCKSIZE.SIZE_64KB);
+		case NONE -> outputStream;
+		};
+	}
+
 	/**
 	 * delete a directory recursively
 	 *
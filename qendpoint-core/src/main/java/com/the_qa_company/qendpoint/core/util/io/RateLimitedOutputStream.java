@@ -0,0 +1,70 @@
+package com.the_qa_company.qendpoint.core.util.io;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream limiting the number of bytes written per second, the writer is
+ * paused while it is ahead of the rate. It should be wrapped in a buffered
+ * stream to avoid pausing for each byte.
+ *
+ * @author Antoine Willerval
+ */
+public class RateLimitedOutputStream extends FilterOutputStream {
+	/**
+	 * minimum advance before pausing the writer
+	 */
+	private static final long MIN_WAIT_NANOS = 1_000_000L;
+	private final long bytesPerSecond;
+	private final long start = System.nanoTime();
+	private long written;
+
+	/**
+	 * @param out            stream to write to
+	 * @param bytesPerSecond maximum number of bytes written per second
+	 */
+	public RateLimitedOutputStream(OutputStream out, long bytesPerSecond) {
+		super(out);
+		if (bytesPerSecond <= 0) {
+			throw new IllegalArgumentException("bytesPerSecond should be positive: " + bytesPerSecond);
+		}
+		this.bytesPerSecond = bytesPerSecond;
+	}
+
+	private void throttle(long len) throws IOException {
+		written += len;
+		// time at which the written bytes are allowed by the rate
+		long expected = (long) (written * 1_000_000_000.0 / bytesPerSecond);
+		long wait = expected - (System.nanoTime() - start);
+		if (wait < MIN_WAIT_NANOS) {
+			return;
+		}
+		try {
+			Thread.sleep(wait / 1_000_000L, (int) (wait % 1_000_000L));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted while limiting the write rate");
+		}
+	}
+
+	/**
+	 * @return the number of bytes written in this stream
+	 */
+	public long getWrittenBytes() {
+		return written;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		out.write(b);
+		throttle(1);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		out.write(b, off, len);
+		throttle(len);
+	}
+}
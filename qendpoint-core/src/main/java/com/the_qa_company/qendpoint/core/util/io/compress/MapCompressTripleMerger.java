@@ -1,5 +1,6 @@
 package com.the_qa_company.qendpoint.core.util.io.compress;
 
+import com.the_qa_company.qendpoint.core.enums.CompressionType;
 import com.the_qa_company.qendpoint.core.enums.TripleComponentOrder;
 import com.the_qa_company.qendpoint.core.hdt.impl.diskimport.CompressTripleMapper;
 import com.the_qa_company.qendpoint.core.hdt.impl.diskimport.CompressionResult;
@@ -40,19 +41,21 @@ public class MapCompressTripleMerger implements KWayMerger.KWayMergerImpl<Triple
 	private final MultiThreadListener listener;
 	private final TripleComponentOrder order;
 	private final int bufferSize;
+	private final CompressionType compression;
 	private final int k;
 	private final AtomicLong triplesCount = new AtomicLong();
 	private final long chunkSize;
 
 	public MapCompressTripleMerger(CloseSuppressPath baseFileName, AsyncIteratorFetcher<TripleID> source,
 			CompressTripleMapper mapper, MultiThreadListener listener, TripleComponentOrder order, int bufferSize,
-			long chunkSize, int k) {
+			CompressionType compression, long chunkSize, int k) {
 		this.baseFileName = baseFileName;
 		this.source = source;
 		this.mapper = mapper;
 		this.listener = listener;
 		this.order = order;
 		this.bufferSize = bufferSize;
+		this.compression = compression;
 		this.chunkSize = chunkSize;
 		this.k = k;
 	}
@@ -77,7 +80,7 @@ public class MapCompressTripleMerger implements KWayMerger.KWayMergerImpl<Triple
 		if (sections.isEmpty()) {
 			return new TripleCompressionResultEmpty(order);
 		}
-		return new TripleCompressionResultFile(triplesCount.get(), sections.get(), order, bufferSize);
+		return new TripleCompressionResultFile(triplesCount.get(), sections.get(), order, bufferSize, compression);
 	}
 
 	/**
@@ -108,7 +111,7 @@ public class MapCompressTripleMerger implements KWayMerger.KWayMergerImpl<Triple
 				}
 			}
 		}
-		return new TripleCompressionResultPartial(files, triplesCount.get(), order, bufferSize) {
+		return new TripleCompressionResultPartial(files, triplesCount.get(), order, bufferSize, compression) {
 			@Override
 			public void close() throws IOException {
 				try {
@@ -174,7 +177,7 @@ public class MapCompressTripleMerger implements KWayMerger.KWayMergerImpl<Triple
 			IntermediateListener il = new IntermediateListener(listener);
 			il.setRange(70, 100);
 			il.setPrefix("writing triples " + output.getFileName() + " ");
-			try (CompressTripleWriter w = new CompressTripleWriter(output.openOutputStream(bufferSize))) {
+			try (CompressTripleWriter w = new CompressTripleWriter(output.openOutputStream(bufferSize, compression))) {
 				il.notifyProgress(0, "creating file");
 				TripleID prev = new TripleID(-1, -1, -1);
 				for (TripleID triple : tripleIDS) {
@@ -203,10 +206,11 @@ public class MapCompressTripleMerger implements KWayMerger.KWayMergerImpl<Triple
 			CompressTripleReader[] readers = new CompressTripleReader[inputs.size()];
 			try {
 				for (int i = 0; i < inputs.size(); i++) {
-					readers[i] = new CompressTripleReader(inputs.get(i).openInputStream(bufferSize));
+					readers[i] = new CompressTripleReader(inputs.get(i).openInputStream(bufferSize, compression));
 				}
 
-				try (CompressTripleWriter w = new CompressTripleWriter(output.openOutputStream(bufferSize))) {
+				try (CompressTripleWriter w = new CompressTripleWriter(
+						output.openOutputStream(bufferSize, compression))) {
 					ExceptionIterator<TripleID, IOException> it = CompressTripleMergeIterator.buildOfTree(readers,
 							order);
 					while (it.hasNext()) {
@@ -3,6 +3,9 @@ package com.the_qa_company.qendpoint.core.compact.bitmap;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
@@ -73,4 +76,40 @@ public class AddSnapshotBitmapTest {
 		assertBitmapEquals(s1c, s1, size);
 		assertBitmapNotEquals(s1, s3, size);
 	}
+
+	@Test
+	public void addedPositionsTest() {
+		final long size = 1_000;
+		AddSnapshotBitmap asb = AddSnapshotBitmap.of(Bitmap64Big.memory(size));
+		asb.set(1, true);
+
+		AddSnapshotBitmap.AddSnapshotDeltaBitmap s0 = asb.createSnapshot();
+		asb.set(2, true);
+		AddSnapshotBitmap.AddSnapshotDeltaBitmap s1 = asb.createSnapshot();
+		asb.set(3, true);
+		AddSnapshotBitmap.AddSnapshotDeltaBitmap s2 = asb.createSnapshot();
+		asb.set(4, true);
+
+		assertEquals(Set.of(2L, 3L, 4L), toSet(s0.copyAddedPositions()));
+		assertEquals(Set.of(3L, 4L), toSet(s1.copyAddedPositions()));
+		assertEquals(Set.of(4L), toSet(s2.copyAddedPositions()));
+
+		// the positions of a closed snapshot are kept by the previous one
+		s1.close();
+		assertEquals(Set.of(2L, 3L, 4L), toSet(s0.copyAddedPositions()));
+		s2.close();
+		assertEquals(Set.of(2L, 3L, 4L), toSet(s0.copyAddedPositions()));
+
+		// the copy isn't updated
+		RoaringBitmap copy = s0.copyAddedPositions();
+		asb.set(5, true);
+		assertEquals(Set.of(2L, 3L, 4L), toSet(copy));
+		s0.close();
+	}
+
+	private static Set<Long> toSet(RoaringBitmap bitmap) {
+		Set<Long> set = new HashSet<>();
+		bitmap.getHandle().forEach(set::add);
+		return set;
+	}
 }
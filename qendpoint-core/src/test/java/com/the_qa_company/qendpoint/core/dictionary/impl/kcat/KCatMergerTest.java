@@ -47,6 +47,7 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
@@ -325,6 +326,73 @@ public class KCatMergerTest extends AbstractMapMemoryTest {
 		}
 	}
 
+	@Test
+	public void catMappingTest() throws ParserException, IOException, NotFoundException {
+		Path root = tempDir.newFolder().toPath();
+		try {
+			int countPerHDT = 1000;
+			Random rnd = new Random(58);
+
+			HDTOptions spec = HDTOptions.of();
+			if (multi) {
+				spec.set(HDTOptionsKeys.DICTIONARY_TYPE_KEY, HDTOptionsKeys.DICTIONARY_TYPE_VALUE_MULTI_OBJECTS);
+				spec.set(HDTOptionsKeys.TEMP_DICTIONARY_IMPL_KEY, HDTOptionsKeys.TEMP_DICTIONARY_IMPL_VALUE_MULT_HASH);
+			}
+			if (map) {
+				spec.set(HDTOptionsKeys.HDTCAT_FUTURE_LOCATION, root.resolve("futurehc.hdt").toAbsolutePath());
+			}
+			Path mappingLocation = root.resolve("mapping");
+			spec.set(HDTOptionsKeys.HDTCAT_MAPPING_LOCATION, mappingLocation);
+			// write only the mapping of the first and last HDTs, all the
+			// mappings by default
+			boolean allMappings = kcat <= 2;
+			if (!allMappings) {
+				spec.set(HDTOptionsKeys.HDTCAT_MAPPING_INDEXES, "0," + (kcat - 1));
+			}
+
+			LargeFakeDataSetStreamSupplier s = LargeFakeDataSetStreamSupplier.createInfinite(42).withMaxElementSplit(50)
+					.withUnicode(unicode);
+
+			List<String> hdts = new ArrayList<>();
+			List<Bitmap> deleteBitmaps = new ArrayList<>();
+			for (int i = 0; i < kcat; i++) {
+				String location = root.resolve("hdt" + i + ".hdt").toAbsolutePath().toString();
+				hdts.add(location);
+				s.withMaxTriples(countPerHDT / 2 + rnd.nextInt(countPerHDT)).createAndSaveFakeHDT(spec, location);
+				deleteBitmaps.add(BitmapFactory.empty());
+			}
+
+			try (HDT actualHDT = HDTManager.diffBitCatHDT(hdts, deleteBitmaps, spec, null)) {
+				Dictionary actualDict = actualHDT.getDictionary();
+				for (int i = 0; i < kcat; i++) {
+					if (!allMappings && i != 0 && i != kcat - 1) {
+						assertFalse(KCatMapping.exists(mappingLocation, i));
+						continue;
+					}
+					assertTrue(KCatMapping.exists(mappingLocation, i));
+					try (HDT hdt = HDTManager.mapHDT(hdts.get(i));
+							KCatMapping mapping = new KCatMapping(mappingLocation, i)) {
+						Dictionary dict = hdt.getDictionary();
+						long[] counts = { dict.getNsubjects(), dict.getNpredicates(), dict.getNobjects() };
+						for (TripleComponentRole role : TripleComponentRole.values()) {
+							for (long id = 1; id <= counts[role.ordinal()]; id++) {
+								long newId = mapping.map(id, role);
+								assertNotEquals(0, newId);
+								assertEquals(dict.idToString(id, role).toString(),
+										actualDict.idToString(newId, role).toString());
+							}
+							assertEquals(0, mapping.map(counts[role.ordinal()] + 1, role));
+						}
+					}
+					KCatMapping.delete(mappingLocation, i);
+					assertFalse(KCatMapping.exists(mappingLocation, i));
+				}
+			}
+		} finally {
+			PathUtils.deleteDirectory(root);
+		}
+	}
+
 	@Test
 	@Ignore
 	public void catDiffTest() throws ParserException, IOException, NotFoundException {
@@ -0,0 +1,96 @@
+package com.the_qa_company.qendpoint.core.dictionary.impl.section;
+
+import com.the_qa_company.qendpoint.core.listener.ProgressListener;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
+import com.the_qa_company.qendpoint.core.util.io.CountInputStream;
+import com.the_qa_company.qendpoint.core.util.string.ByteString;
+import com.the_qa_company.qendpoint.core.util.string.ReplazableString;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PFCDictionarySectionMapTest {
+	@Rule
+	public TemporaryFolder tempDir = TemporaryFolder.builder().assureDeletion().build();
+
+	private static List<ByteString> strings() {
+		Random rnd = new Random(42);
+		return Stream.generate(() -> {
+			StringBuilder sb = new StringBuilder("http://example.org/");
+			int parts = 1 + rnd.nextInt(4);
+			for (int i = 0; i < parts; i++) {
+				sb.append(rnd.nextInt(20)).append(i % 2 == 0 ? "/" : "#");
+			}
+			if (rnd.nextInt(10) == 0) {
+				// long strings and unicode
+				sb.append("été✓".repeat(rnd.nextInt(50)));
+			}
+			return ByteString.of(sb.toString());
+		}).limit(5_000).distinct().sorted().collect(Collectors.toList());
+	}
+
+	@Test
+	public void locateExtractTest() throws IOException {
+		Path root = tempDir.newFolder().toPath();
+		Path file = root.resolve("section");
+		List<ByteString> strings = strings();
+
+		try (WriteDictionarySection section = new WriteDictionarySection(HDTOptions.of(), root.resolve("tmp"), 4096);
+				OutputStream os = new BufferedOutputStream(Files.newOutputStream(file))) {
+			section.load(strings.iterator(), strings.size(), ProgressListener.ignore());
+			section.save(os, ProgressListener.ignore());
+		}
+
+		for (HDTOptions spec : List.of(HDTOptions.of(HDTOptionsKeys.DICTIONARY_CACHE_SIZE_KEY, 0),
+				HDTOptions.of(HDTOptionsKeys.DICTIONARY_CACHE_SIZE_KEY, 0,
+						HDTOptionsKeys.DICTIONARY_PFC_BLOCK_HEADS_SAMPLING_KEY, 1),
+				HDTOptions.of(HDTOptionsKeys.DICTIONARY_CACHE_SIZE_KEY, 0,
+						HDTOptionsKeys.DICTIONARY_PFC_BLOCK_HEADS_SAMPLING_KEY, 7),
+				HDTOptions.of(HDTOptionsKeys.DICTIONARY_CACHE_SIZE_KEY, 1 << 12,
+						HDTOptionsKeys.DICTIONARY_PFC_BLOCK_HEADS_SAMPLING_KEY, 3,
+						HDTOptionsKeys.DICTIONARY_CACHE_STATS_KEY, true))) {
+			try (CountInputStream is = new CountInputStream(new BufferedInputStream(Files.newInputStream(file)));
+					PFCDictionarySectionMap map = new PFCDictionarySectionMap(is, file.toFile(), spec)) {
+				assertEquals(strings.size(), map.getNumberOfElements());
+				// twice to use the caches
+				for (int pass = 0; pass < 2; pass++) {
+					for (int i = 0; i < strings.size(); i++) {
+						ByteString str = strings.get(i);
+						assertEquals(spec + " " + str, i + 1, map.locate(str));
+						assertEquals(spec + " " + (i + 1), str.toString(), map.extract(i + 1).toString());
+
+						// mutable string with a larger buffer, not copied to
+						// search the cache
+						ReplazableString mutable = new ReplazableString(str.length() + 16);
+						mutable.appendNoCompact(str);
+						assertEquals(spec + " " + str, i + 1, map.locate(mutable));
+
+						// strings not in the section
+						assertEquals(0, map.locate(str + "!"));
+						assertEquals(0, map.locate(str.subSequence(0, str.length() - 1)));
+					}
+				}
+				assertEquals(0, map.locate("a"));
+				assertEquals(0, map.locate("✓"));
+				if (map.getLocateCache() != null) {
+					assertTrue(map.getLocateCache().getHitCount() > 0);
+				}
+			}
+		}
+	}
+}
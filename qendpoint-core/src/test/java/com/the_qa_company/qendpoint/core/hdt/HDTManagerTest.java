@@ -333,7 +333,15 @@ public class HDTManagerTest {
 								"debug.disk.slow.kway.dict=true" },
 						new Object[] { "slow-kw-t", 10, 2, 4, 2,
 								HDTOptionsKeys.LOADER_DISK_COMPRESSION_MODE_VALUE_COMPLETE, false, dict, 2,
-								"debug.disk.slow.kway.triple=true" }));
+								"debug.disk.slow.kway.triple=true" },
+						new Object[] { "temp-zstd", SIZE_VALUE * 8, 20, 50, 2,
+								HDTOptionsKeys.LOADER_DISK_COMPRESSION_MODE_VALUE_COMPLETE, false, dict, SIZE_VALUE,
+								HDTOptionsKeys.LOADER_DISK_TEMP_COMPRESSION_KEY + "="
+										+ HDTOptionsKeys.LOADER_DISK_TEMP_COMPRESSION_VALUE_ZSTD },
+						new Object[] { "temp-lz4", SIZE_VALUE * 8, 20, 50, 2,
+								HDTOptionsKeys.LOADER_DISK_COMPRESSION_MODE_VALUE_COMPLETE, false, dict, SIZE_VALUE,
+								HDTOptionsKeys.LOADER_DISK_TEMP_COMPRESSION_KEY + "="
+										+ HDTOptionsKeys.LOADER_DISK_TEMP_COMPRESSION_VALUE_LZ4 }));
 				for (int threads : new int[] {
 						// sync
 						1,
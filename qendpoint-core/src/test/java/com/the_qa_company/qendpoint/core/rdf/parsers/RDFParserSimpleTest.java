@@ -2,6 +2,8 @@ package com.the_qa_company.qendpoint.core.rdf.parsers;
 
 import com.the_qa_company.qendpoint.core.enums.RDFNotation;
 import com.the_qa_company.qendpoint.core.exceptions.ParserException;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
 import com.the_qa_company.qendpoint.core.rdf.RDFParserCallback;
 import com.the_qa_company.qendpoint.core.triples.TripleString;
 import com.the_qa_company.qendpoint.core.util.LargeFakeDataSetStreamSupplier;
@@ -11,15 +13,20 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 @RunWith(Suite.class)
 @Suite.SuiteClasses({ RDFParserSimpleTest.NTriplesTest.class, RDFParserSimpleTest.NQuadTest.class,
-		RDFParserSimpleTest.NQuadNoGraphTest.class })
+		RDFParserSimpleTest.NQuadNoGraphTest.class, RDFParserSimpleTest.NTriplesParallelTest.class,
+		RDFParserSimpleTest.NQuadParallelTest.class })
 public class RDFParserSimpleTest {
 	public static abstract class AbstractRDFParserSimpleTest extends AbstractNTriplesParserTest {
 		protected final RDFNotation notation;
@@ -84,6 +91,30 @@ public class RDFParserSimpleTest {
 				throw re[0];
 			}
 		}
+
+		@Test
+		public void lineEndTest() throws IOException, ParserException {
+			// lines ended by '\n', '\r' and "\r\n", bigger than a chunk of
+			// the parallel parser
+			String[] lineEnds = { "\n", "\r", "\r\n" };
+			List<TripleString> triples = new ArrayList<>();
+			StringBuilder text = new StringBuilder();
+			Iterator<TripleString> it = createSupplier().createTripleStringStream();
+			while (text.length() < RDFParserSimple.CHUNK_SIZE * 2L && it.hasNext()) {
+				TripleString triple = it.next().tripleToString();
+				CharSequence line = triple.asNtriple();
+				text.append(line, 0, line.length() - 1).append(lineEnds[triples.size() % lineEnds.length]);
+				triples.add(triple);
+			}
+
+			Iterator<TripleString> expected = triples.iterator();
+			createParser().doParse(new ByteArrayInputStream(text.toString().getBytes(StandardCharsets.UTF_8)),
+					"http://example.org/#", notation, true, (triple, pos) -> {
+						Assert.assertTrue(expected.hasNext());
+						Assert.assertEquals(expected.next(), triple);
+					});
+			Assert.assertFalse(expected.hasNext());
+		}
 	}
 
 	public static class NTriplesTest extends AbstractRDFParserSimpleTest {
@@ -120,4 +151,17 @@ public class RDFParserSimpleTest {
 		}
 	}
 
+	public static class NTriplesParallelTest extends NTriplesTest {
+		@Override
+		protected RDFParserCallback createParser() {
+			return new RDFParserSimple(HDTOptions.of(HDTOptionsKeys.NT_SIMPLE_PARSER_WORKERS_KEY, 4));
+		}
+	}
+
+	public static class NQuadParallelTest extends NQuadTest {
+		@Override
+		protected RDFParserCallback createParser() {
+			return new RDFParserSimple(HDTOptions.of(HDTOptionsKeys.NT_SIMPLE_PARSER_WORKERS_KEY, 4));
+		}
+	}
 }
@@ -1,5 +1,6 @@
 package com.the_qa_company.qendpoint.core.storage;
 
+import com.the_qa_company.qendpoint.core.compact.bitmap.Bitmap;
 import com.the_qa_company.qendpoint.core.compact.bitmap.Bitmap64Big;
 import com.the_qa_company.qendpoint.core.dictionary.DictionarySection;
 import com.the_qa_company.qendpoint.core.enums.DictionarySectionRole;
@@ -14,6 +15,7 @@ import com.the_qa_company.qendpoint.core.options.HDTOptions;
 import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
 import com.the_qa_company.qendpoint.core.storage.iterator.CloseableIterator;
 import com.the_qa_company.qendpoint.core.storage.iterator.QueryCloseableIterator;
+import com.the_qa_company.qendpoint.core.storage.merge.LeveledMergePolicy;
 import com.the_qa_company.qendpoint.core.storage.search.QEPComponentTriple;
 import com.the_qa_company.qendpoint.core.triples.IteratorTripleString;
 import com.the_qa_company.qendpoint.core.triples.TripleString;
@@ -33,6 +35,7 @@ import org.junit.runners.Suite;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -193,6 +196,49 @@ public class QEPCoreTest {
 			}
 		}
 
+		@Test
+		public void coreParallelSearchOrderedTest() throws QEPCoreException, IOException {
+			coreParallelSearch(true);
+		}
+
+		@Test
+		public void coreParallelSearchUnorderedTest() throws QEPCoreException, IOException {
+			coreParallelSearch(false);
+		}
+
+		private void coreParallelSearch(boolean ordered) throws QEPCoreException, IOException {
+			HDTOptions spec = HDTOptions.of(QEPCoreOptions.QEPC_SEARCH_PARALLELISM, 4,
+					QEPCoreOptions.QEPC_SEARCH_ORDERED, ordered);
+			try (HDT hdt = HDTManager.mapHDT(rootHDT); QEPCore core = new QEPCore(coreRoot, spec)) {
+				Map<TripleString, Integer> excepted = new HashMap<>();
+				IteratorTripleString it = hdt.search("", "", "");
+				while (it.hasNext()) {
+					excepted.merge(it.next().tripleToString(), 1, Integer::sum);
+				}
+
+				Map<TripleString, Integer> actual = new HashMap<>();
+				try (QueryCloseableIterator search = core.search("", "", "")) {
+					assertEquals(core.triplesCount(), search.estimateCardinality());
+					while (search.hasNext()) {
+						actual.merge(search.next().tripleString().tripleToString(), 1, Integer::sum);
+					}
+				}
+				assertEquals(excepted, actual);
+
+				assertTrue(core.containsAny());
+				assertTrue(core.containsAny(excepted.keySet().iterator().next()));
+				assertFalse(core.containsAny("http://qep.example.org/notFound", "", ""));
+
+				// close before the end of the search
+				try (QueryCloseableIterator search = core.search("", "", "")) {
+					assertTrue(search.hasNext());
+					search.next();
+				}
+			} catch (NotFoundException e) {
+				throw new AssertionError(e);
+			}
+		}
+
 		@Test
 		public void coreDatasetSearchTest() throws QEPCoreException, IOException {
 			try (HDT hdt = HDTManager.mapHDT(rootHDT); QEPCore core = new QEPCore(coreRoot, HDTOptions.of())) {
@@ -476,6 +522,265 @@ public class QEPCoreTest {
 				PathUtils.deleteDirectory(root);
 			}
 		}
+
+		@Test
+		public void mergeTest() throws IOException, ParserException {
+			Path root = tempDir.newFolder("merge").toPath();
+
+			Iterator<TripleString> it = LargeFakeDataSetStreamSupplier.createInfinite(34).createTripleStringStream();
+
+			int perNode = 200;
+			int nodes = 6;
+
+			Set<TripleString> ts = new HashSet<>(perNode * nodes);
+			List<List<TripleString>> tsNodes = new ArrayList<>(nodes);
+
+			for (int node = 0; node < nodes; node++) {
+				List<TripleString> nodeElements = new ArrayList<>(perNode);
+				for (int i = 0; i < perNode; i++) {
+					assertTrue(it.hasNext());
+					TripleString next = it.next().tripleToString();
+
+					if (ts.add(next)) {
+						nodeElements.add(next);
+					}
+				}
+				tsNodes.add(nodeElements);
+			}
+
+			HDTOptions opt = HDTOptions.of(QEPCoreOptions.QEPC_MERGE_THRESHOLD, 4);
+			Set<TripleString> deleted = new HashSet<>();
+			try {
+				try (QEPCore core = new QEPCore(root, opt, true)) {
+					for (List<TripleString> tsNode : tsNodes) {
+						core.insertTriples(tsNode.iterator(), "http://example.org/#", false, ProgressListener.ignore());
+					}
+					assertEquals(nodes, core.getDatasets().size());
+
+					// delete some triples before the merge
+					for (int i = 0; i < 10; i++) {
+						TripleString t = tsNodes.get(i % nodes).get(i);
+						assertEquals(1, core.removeTriple(t));
+						deleted.add(t);
+					}
+					ts.removeAll(deleted);
+
+					List<Path> oldDatasets = core.getDatasets().stream().map(QEPDataset::path).toList();
+
+					try (QEPCoreContext ctx = core.createSearchContext()) {
+						assertTrue(core.getMergeThread().mergeCluster());
+
+						// the old datasets are kept for the context
+						assertEquals(1, core.getDatasets().size());
+						for (Path old : oldDatasets) {
+							assertTrue(Files.exists(old));
+						}
+						assertEquals(ts.size(),
+								ctx.getContexts().stream()
+										.mapToLong(c -> c.dataset().dataset().getTriples().getNumberOfElements()).sum()
+										- deleted.size());
+						TripleString first = ts.iterator().next();
+						try (QueryCloseableIterator s = core.search(ctx, first)) {
+							assertTrue(s.hasNext());
+						}
+					}
+					// released with the context
+					for (Path old : oldDatasets) {
+						assertFalse(Files.exists(old));
+					}
+
+					// nothing to merge with a single dataset
+					assertFalse(core.getMergeThread().mergeCluster());
+					assertEquals(1, core.getDatasets().size());
+					assertEquals(ts.size(), core.triplesCount());
+
+					for (TripleString t : ts) {
+						try (QueryCloseableIterator s = core.search(t)) {
+							assertTrue(format("Can't find triple '%s' in the core", t), s.hasNext());
+						}
+					}
+					for (TripleString t : deleted) {
+						try (QueryCloseableIterator s = core.search(t)) {
+							assertFalse(format("deleted triple '%s' in the core", t), s.hasNext());
+						}
+					}
+				}
+
+				// the merged dataset is reloaded
+				try (QEPCore core = new QEPCore(root, opt, true)) {
+					assertEquals(1, core.getDatasets().size());
+					assertEquals(ts.size(), core.triplesCount());
+					try (QueryCloseableIterator s = core.search()) {
+						long count = 0;
+						while (s.hasNext()) {
+							assertTrue(ts.contains(s.next().tripleString().tripleToString()));
+							count++;
+						}
+						assertEquals(ts.size(), count);
+					}
+				}
+			} finally {
+				PathUtils.deleteDirectory(root);
+			}
+		}
+
+		@Test
+		public void replaceDeletesTest() throws IOException, ParserException {
+			for (boolean useMapping : new boolean[] { true, false }) {
+				Path root = tempDir.newFolder().toPath();
+
+				Iterator<TripleString> it = LargeFakeDataSetStreamSupplier.createInfinite(42)
+						.createTripleStringStream();
+				List<List<TripleString>> tsNodes = new ArrayList<>();
+				Set<TripleString> ts = new HashSet<>();
+				for (int node = 0; node < 3; node++) {
+					List<TripleString> nodeElements = new ArrayList<>();
+					for (int i = 0; i < 100; i++) {
+						TripleString next = it.next().tripleToString();
+						if (ts.add(next)) {
+							nodeElements.add(next);
+						}
+					}
+					tsNodes.add(nodeElements);
+				}
+
+				try (QEPCore core = new QEPCore(root, HDTOptions.of(), true)) {
+					for (List<TripleString> tsNode : tsNodes) {
+						core.insertTriples(tsNode.iterator(), "http://example.org/#", false, ProgressListener.ignore());
+					}
+
+					try (QEPCoreContext ctx = core.createSearchContext()) {
+						List<QEPDatasetContext> contexts = new ArrayList<>(ctx.getContexts());
+						List<HDT> hdts = contexts.stream().map(c -> c.dataset().dataset()).toList();
+						List<Bitmap> deletes = contexts.stream().map(QEPDatasetContext::deleteBitmap).toList();
+
+						String id = core.createNewDatasetId();
+						Path datasetPath = core.getDatasetFile(id);
+						Path mappingDir = root.resolve("mapping");
+						HDTOptions spec = HDTOptions.of(HDTOptionsKeys.HDTCAT_LOCATION, root.resolve("cat"));
+						if (useMapping) {
+							spec.set(HDTOptionsKeys.HDTCAT_MAPPING_LOCATION, mappingDir);
+						}
+						try (HDT cat = HDTManager.diffBitCatHDTObject(hdts, deletes, spec, ProgressListener.ignore(),
+								false)) {
+							cat.saveToHDT(datasetPath, ProgressListener.ignore());
+						}
+
+						// deleted during the merge
+						Set<TripleString> deleted = new HashSet<>();
+						for (int i = 0; i < 15; i++) {
+							TripleString t = tsNodes.get(i % tsNodes.size()).get(i);
+							assertEquals(1, core.removeTriple(t));
+							deleted.add(t);
+						}
+						ts.removeAll(deleted);
+
+						core.replaceDatasets(contexts, id, useMapping ? mappingDir : null);
+					}
+
+					assertEquals(1, core.getDatasets().size());
+					try (QueryCloseableIterator s = core.search()) {
+						long count = 0;
+						while (s.hasNext()) {
+							assertTrue(ts.contains(s.next().tripleString().tripleToString()));
+							count++;
+						}
+						assertEquals(ts.size(), count);
+					}
+				} finally {
+					PathUtils.deleteDirectory(root);
+				}
+			}
+		}
+
+		private static List<List<TripleString>> createBatches(Iterator<TripleString> it, Set<TripleString> ts,
+				int nodes, int perNode) {
+			List<List<TripleString>> tsNodes = new ArrayList<>(nodes);
+			for (int node = 0; node < nodes; node++) {
+				List<TripleString> nodeElements = new ArrayList<>(perNode);
+				for (int i = 0; i < perNode; i++) {
+					assertTrue(it.hasNext());
+					TripleString next = it.next().tripleToString();
+
+					if (ts.add(next)) {
+						nodeElements.add(next);
+					}
+				}
+				tsNodes.add(nodeElements);
+			}
+			return tsNodes;
+		}
+
+		@Test
+		public void leveledMergeTest() throws IOException, ParserException {
+			Path root = tempDir.newFolder("leveled").toPath();
+			Iterator<TripleString> it = LargeFakeDataSetStreamSupplier.createInfinite(12).createTripleStringStream();
+			Set<TripleString> ts = new HashSet<>();
+
+			HDTOptions opt = HDTOptions.of(QEPCoreOptions.QEPC_MERGE_THRESHOLD, 2, QEPCoreOptions.QEPC_MERGE_POLICY,
+					QEPCoreOptions.QEPC_MERGE_POLICY_LEVELED, QEPCoreOptions.QEPC_MERGE_LEVEL_BASE, 100,
+					QEPCoreOptions.QEPC_MERGE_WRITE_RATE, 1 << 24);
+			try (QEPCore core = new QEPCore(root, opt, true)) {
+				assertTrue(core.getMergeThread().getPolicy() instanceof LeveledMergePolicy);
+				for (List<TripleString> batch : createBatches(it, ts, 3, 50)) {
+					core.insertTriples(batch.iterator(), "http://example.org/#", false, ProgressListener.ignore());
+				}
+				// the 3 level 0 datasets are merged into a level 1 dataset
+				assertTrue(core.getMergeThread().mergeCluster());
+				assertEquals(1, core.getDatasets().size());
+				assertFalse(core.getMergeThread().mergeCluster());
+
+				for (List<TripleString> batch : createBatches(it, ts, 2, 50)) {
+					core.insertTriples(batch.iterator(), "http://example.org/#", false, ProgressListener.ignore());
+				}
+				assertEquals(3, core.getDatasets().size());
+				// the full level 0 is merged with the level 1 dataset
+				assertTrue(core.getMergeThread().mergeCluster());
+				assertEquals(1, core.getDatasets().size());
+				assertEquals(ts.size(), core.triplesCount());
+				for (TripleString t : ts) {
+					try (QueryCloseableIterator s = core.search(t)) {
+						assertTrue(format("Can't find triple '%s' in the core", t), s.hasNext());
+					}
+				}
+			} finally {
+				PathUtils.deleteDirectory(root);
+			}
+		}
+
+		@Test
+		public void timeWindowedMergeTest() throws IOException, ParserException {
+			Path root = tempDir.newFolder("windowed").toPath();
+			Iterator<TripleString> it = LargeFakeDataSetStreamSupplier.createInfinite(78).createTripleStringStream();
+			Set<TripleString> ts = new HashSet<>();
+
+			HDTOptions opt = HDTOptions.of(QEPCoreOptions.QEPC_MERGE_THRESHOLD, 3, QEPCoreOptions.QEPC_MERGE_POLICY,
+					QEPCoreOptions.QEPC_MERGE_POLICY_TIME_WINDOWED, QEPCoreOptions.QEPC_MERGE_WINDOW, 3_600_000);
+			try (QEPCore core = new QEPCore(root, opt, true)) {
+				for (List<TripleString> batch : createBatches(it, ts, 4, 50)) {
+					core.insertTriples(batch.iterator(), "http://example.org/#", false, ProgressListener.ignore());
+				}
+				// move 2 datasets in a past window
+				FileTime past = FileTime.fromMillis(System.currentTimeMillis() - 2 * 3_600_000);
+				List<QEPDataset> datasets = core.getDatasets();
+				Files.setLastModifiedTime(datasets.get(0).path(), past);
+				Files.setLastModifiedTime(datasets.get(1).path(), past);
+
+				// merge the past window
+				assertTrue(core.getMergeThread().mergeCluster());
+				assertEquals(3, core.getDatasets().size());
+				// 2 datasets in the current window
+				assertFalse(core.getMergeThread().mergeCluster());
+
+				List<QEPDataset> merged = core.getDatasets().stream()
+						.filter(ds -> ds.dataset().getTriples().getNumberOfElements() > 50).toList();
+				assertEquals(1, merged.size());
+				assertEquals(past.toMillis() / 1000, Files.getLastModifiedTime(merged.get(0).path()).toMillis() / 1000);
+				assertEquals(ts.size(), core.triplesCount());
+			} finally {
+				PathUtils.deleteDirectory(root);
+			}
+		}
 	}
 
 	/**
@@ -0,0 +1,124 @@
+package com.the_qa_company.qendpoint.core.storage;
+
+import com.the_qa_company.qendpoint.core.dictionary.Dictionary;
+import com.the_qa_company.qendpoint.core.enums.TripleComponentRole;
+import com.the_qa_company.qendpoint.core.exceptions.ParserException;
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
+import com.the_qa_company.qendpoint.core.triples.IteratorTripleID;
+import com.the_qa_company.qendpoint.core.triples.TripleID;
+import com.the_qa_company.qendpoint.core.util.LargeFakeDataSetStreamSupplier;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(Parameterized.class)
+public class QEPDatasetFilterTest {
+	@Parameterized.Parameters(name = "{0}")
+	public static Collection<Object> params() {
+		return List.of(HDTOptionsKeys.DICTIONARY_TYPE_VALUE_FOUR_SECTION,
+				HDTOptionsKeys.DICTIONARY_TYPE_VALUE_MULTI_OBJECTS,
+				HDTOptionsKeys.DICTIONARY_TYPE_VALUE_MULTI_OBJECTS_LANG);
+	}
+
+	@Rule
+	public TemporaryFolder tempDir = TemporaryFolder.builder().assureDeletion().build();
+
+	@Parameterized.Parameter
+	public String dictionaryType;
+
+	private static void assertContainsAll(HDT hdt, QEPDatasetFilter filter) {
+		Dictionary dict = hdt.getDictionary();
+		for (long id = 1; id <= dict.getNsubjects(); id++) {
+			CharSequence seq = dict.idToString(id, TripleComponentRole.SUBJECT);
+			assertTrue("missing subject " + seq, filter.mayContainNode(seq));
+			// test with another implementation of the string
+			assertTrue("missing subject " + seq, filter.mayContainNode(seq.toString()));
+		}
+		for (long id = dict.getNshared() + 1; id <= dict.getNobjects(); id++) {
+			CharSequence seq = dict.idToString(id, TripleComponentRole.OBJECT);
+			assertTrue("missing object " + seq, filter.mayContainNode(seq.toString()));
+		}
+		for (long id = 1; id <= dict.getNpredicates(); id++) {
+			CharSequence seq = dict.idToString(id, TripleComponentRole.PREDICATE);
+			assertTrue("missing predicate " + seq, filter.mayContainPredicate(seq.toString()));
+		}
+	}
+
+	@Test
+	public void filterTest() throws IOException, ParserException {
+		HDTOptions spec = HDTOptions.of(HDTOptionsKeys.DICTIONARY_TYPE_KEY, dictionaryType);
+		try (HDT hdt = LargeFakeDataSetStreamSupplier.createSupplierWithMaxTriples(5_000, 42).withMaxLiteralSize(20)
+				.createFakeHDT(spec)) {
+			QEPDatasetFilter filter = QEPDatasetFilter.build(hdt, 10, false);
+			assertContainsAll(hdt, filter);
+			assertFalse(filter.hasPairs());
+
+			// ~1% of false positives with 10 bits per element
+			int falsePositives = 0;
+			for (int i = 0; i < 10_000; i++) {
+				if (filter.mayContainNode("http://qep.example.org/notFound#" + i)) {
+					falsePositives++;
+				}
+			}
+			assertTrue("too many false positives: " + falsePositives, falsePositives < 500);
+
+			// read the filter from the disk
+			Path path = tempDir.newFolder().toPath().resolve("dataset.hdt.filter");
+			QEPDatasetFilter filter2 = QEPDatasetFilter.loadOrBuild(hdt, path, 10, false);
+			assertTrue(Files.exists(path));
+			assertContainsAll(hdt, QEPDatasetFilter.read(path));
+			assertContainsAll(hdt, filter2);
+		}
+	}
+
+	@Test
+	public void filterPairsTest() throws IOException, ParserException {
+		HDTOptions spec = HDTOptions.of(HDTOptionsKeys.DICTIONARY_TYPE_KEY, dictionaryType);
+		try (HDT hdt = LargeFakeDataSetStreamSupplier.createSupplierWithMaxTriples(5_000, 42).withMaxLiteralSize(20)
+				.createFakeHDT(spec)) {
+			Path path = tempDir.newFolder().toPath().resolve("dataset.hdt.filter");
+			QEPDatasetFilter.loadOrBuild(hdt, path, 10, false);
+			// different config, the filter should be rebuilt
+			QEPDatasetFilter filter = QEPDatasetFilter.loadOrBuild(hdt, path, 12, true);
+			assertTrue(filter.hasPairs());
+			assertTrue(QEPDatasetFilter.read(path).hasPairs());
+			assertContainsAll(hdt, filter);
+
+			IteratorTripleID it = hdt.getTriples().searchAll();
+			while (it.hasNext()) {
+				TripleID triple = it.next();
+				assertTrue(filter.mayContainSubjectPredicate(triple.getSubject(), triple.getPredicate()));
+				assertTrue(filter.mayContainPredicateObject(triple.getPredicate(), triple.getObject()));
+			}
+		}
+	}
+
+	@Test
+	public void filterOtherDatasetTest() throws IOException, ParserException {
+		HDTOptions spec = HDTOptions.of(HDTOptionsKeys.DICTIONARY_TYPE_KEY, dictionaryType);
+		try (HDT hdt = LargeFakeDataSetStreamSupplier.createSupplierWithMaxTriples(5_000, 42).withMaxLiteralSize(20)
+				.createFakeHDT(spec);
+				HDT hdt2 = LargeFakeDataSetStreamSupplier.createSupplierWithMaxTriples(5_000, 43).withMaxLiteralSize(20)
+						.createFakeHDT(spec)) {
+			Path path = tempDir.newFolder().toPath().resolve("dataset.hdt.filter");
+			QEPDatasetFilter.loadOrBuild(hdt, path, 10, false);
+			// filter of another dataset, the filter should be rebuilt
+			QEPDatasetFilter filter = QEPDatasetFilter.loadOrBuild(hdt2, path, 10, false);
+			assertContainsAll(hdt2, filter);
+			assertContainsAll(hdt2, QEPDatasetFilter.read(path));
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package com.the_qa_company.qendpoint.core.storage.iterator;
+
+import com.the_qa_company.qendpoint.core.storage.QEPCoreException;
+import com.the_qa_company.qendpoint.core.storage.search.QEPComponentTriple;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelQueryCloseableTest {
+	/**
+	 * iterator returning count empty triples
+	 */
+	private static class CountIterator implements QueryCloseableIterator {
+		private final AtomicInteger closed;
+		private long count;
+
+		CountIterator(long count, AtomicInteger closed) {
+			this.count = count;
+			this.closed = closed;
+		}
+
+		@Override
+		public long estimateCardinality() {
+			return count;
+		}
+
+		@Override
+		public void close() throws QEPCoreException {
+			closed.incrementAndGet();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return count > 0;
+		}
+
+		@Override
+		public QEPComponentTriple next() {
+			count--;
+			return QEPComponentTriple.of();
+		}
+	}
+
+	@Test(timeout = 10_000)
+	public void closeWithoutWaitingTest() throws InterruptedException {
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+		try {
+			AtomicInteger created = new AtomicInteger();
+			AtomicInteger closed = new AtomicInteger();
+			CountDownLatch entered = new CountDownLatch(1);
+			CountDownLatch release = new CountDownLatch(1);
+
+			Supplier<QueryCloseableIterator> blocking = () -> {
+				created.incrementAndGet();
+				entered.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					throw new AssertionError(e);
+				}
+				return new CountIterator(10, closed);
+			};
+			Supplier<QueryCloseableIterator> first = () -> {
+				created.incrementAndGet();
+				return new CountIterator(10, closed);
+			};
+
+			// the first search is run by the caller, the others by the pool
+			AtomicInteger executed = new AtomicInteger();
+			Executor executor = r -> {
+				if (executed.getAndIncrement() == 0) {
+					r.run();
+				} else {
+					pool.execute(r);
+				}
+			};
+
+			// one search is running, the other is waiting for the permit
+			QueryCloseableIterator it = ParallelQueryCloseable.of(List.of(first, blocking, blocking), executor,
+					new Semaphore(1), true, 4);
+			entered.await();
+			assertTrue(it.hasNext());
+			it.next();
+			// doesn't wait for the running search
+			it.close();
+
+			release.countDown();
+			pool.shutdown();
+			assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+
+			// the waiting search isn't started and the running search is
+			// closed by its worker
+			assertEquals(2, created.get());
+			assertEquals(2, closed.get());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package com.the_qa_company.qendpoint.core.triples.impl;
+
+import com.the_qa_company.qendpoint.core.enums.TripleComponentOrder;
+import com.the_qa_company.qendpoint.core.exceptions.ParserException;
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.hdt.HDTManager;
+import com.the_qa_company.qendpoint.core.iterator.SuppliableIteratorTripleID;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
+import com.the_qa_company.qendpoint.core.triples.IteratorTripleID;
+import com.the_qa_company.qendpoint.core.triples.TripleID;
+import com.the_qa_company.qendpoint.core.util.LargeFakeDataSetStreamSupplier;
+import com.the_qa_company.qendpoint.core.util.io.AbstractMapMemoryTest;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BitmapTriplesIndexFileTest extends AbstractMapMemoryTest {
+	@Rule
+	public TemporaryFolder tempDir = TemporaryFolder.builder().assureDeletion().build();
+
+	@Test
+	public void prefixPatternTest() {
+		assertTrue(BitmapTriples.isPrefixPattern("???"));
+		assertTrue(BitmapTriples.isPrefixPattern("S??"));
+		assertTrue(BitmapTriples.isPrefixPattern("SP?"));
+		assertTrue(BitmapTriples.isPrefixPattern("SPO"));
+		assertFalse(BitmapTriples.isPrefixPattern("?P?"));
+		assertFalse(BitmapTriples.isPrefixPattern("S?O"));
+		assertFalse(BitmapTriples.isPrefixPattern("??O"));
+		assertFalse(BitmapTriples.isPrefixPattern("?PO"));
+	}
+
+	private static Set<TripleID> searchAll(HDT hdt, TripleID pattern) {
+		Set<TripleID> set = new HashSet<>();
+		IteratorTripleID it = hdt.getTriples().search(pattern);
+		while (it.hasNext()) {
+			TripleID triple = it.next();
+			long position = it.getLastTriplePosition();
+			assertEquals("bad position for " + triple, triple, hdt.getTriples().findTriple(position));
+			if (it instanceof SuppliableIteratorTripleID sit) {
+				assertEquals("bad position supplier for " + triple, position,
+						sit.getLastTriplePositionSupplier().compute());
+			}
+			assertTrue("duplicated triple " + triple, set.add(triple.clone()));
+		}
+		return set;
+	}
+
+	@Test
+	public void permutationSearchTest() throws IOException, ParserException {
+		Path root = tempDir.newFolder().toPath();
+		Path hdtPath = root.resolve("test.hdt");
+
+		LargeFakeDataSetStreamSupplier.createSupplierWithMaxTriples(5_000, 34).createAndSaveFakeHDT(HDTOptions.of(),
+				hdtPath);
+
+		HDTOptions spec = HDTOptions.of(HDTOptionsKeys.BITMAPTRIPLES_INDEX_OTHERS, "PSO, POS,OSP",
+				HDTOptionsKeys.BITMAPTRIPLES_DISK_CHUNK_SIZE_KEY, 1000);
+
+		try (HDT hdt = HDTManager.mapIndexedHDT(hdtPath, spec, null)) {
+			BitmapTriples triples = (BitmapTriples) hdt.getTriples();
+			Map<TripleComponentOrder, BitmapTriples> others = triples.getOtherIndexes();
+			assertEquals(Set.of(TripleComponentOrder.PSO, TripleComponentOrder.POS, TripleComponentOrder.OSP),
+					others.keySet());
+			for (TripleComponentOrder order : others.keySet()) {
+				assertTrue(Files.exists(BitmapTriplesIndexFile.getIndexPath(hdtPath, order)));
+			}
+
+			try (HDT hdtRef = HDTManager.mapIndexedHDT(hdtPath, HDTOptions.of(), null)) {
+				assertTrue(((BitmapTriples) hdtRef.getTriples()).getOtherIndexes().isEmpty());
+
+				IteratorTripleID it = hdtRef.getTriples().searchAll();
+				long count = 0;
+				while (it.hasNext()) {
+					TripleID triple = it.next();
+					if (count++ % 97 != 0) {
+						continue; // only test a sample
+					}
+					TripleID[] patterns = { new TripleID(0, triple.getPredicate(), triple.getObject()),
+							new TripleID(0, 0, triple.getObject()), new TripleID(0, triple.getPredicate(), 0),
+							new TripleID(triple.getSubject(), 0, triple.getObject()) };
+
+					for (TripleID pattern : patterns) {
+						assertEquals("bad result for " + pattern, searchAll(hdtRef, pattern), searchAll(hdt, pattern));
+					}
+				}
+			}
+		}
+
+		// the permutations should be read from the disk
+		try (HDT hdt = HDTManager.mapIndexedHDT(hdtPath, spec, null)) {
+			assertEquals(3, ((BitmapTriples) hdt.getTriples()).getOtherIndexes().size());
+		}
+	}
+}
@@ -1,11 +1,33 @@
 package com.the_qa_company.qendpoint.core.triples.impl;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 
+import com.the_qa_company.qendpoint.core.enums.TripleComponentOrder;
+import com.the_qa_company.qendpoint.core.exceptions.ParserException;
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.hdt.HDTManager;
+import com.the_qa_company.qendpoint.core.iterator.SuppliableIteratorTripleID;
+import com.the_qa_company.qendpoint.core.listener.ProgressListener;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
+import com.the_qa_company.qendpoint.core.triples.TripleID;
+import com.the_qa_company.qendpoint.core.util.LargeFakeDataSetStreamSupplier;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class BitmapTriplesIteratorTest {
+	@Rule
+	public TemporaryFolder tempDir = TemporaryFolder.builder().assureDeletion().build();
 
 	@Before
 	public void setUp() throws Exception {
@@ -23,4 +45,76 @@ public class BitmapTriplesIteratorTest {
 //		}
 	}
 
+	/**
+	 * @return the first unbound component of the pattern in an order
+	 */
+	private static long sortedComponent(TripleID triple, TripleID pattern, TripleComponentOrder order) {
+		TripleID orderedTriple = new TripleID(triple);
+		TripleID orderedPattern = new TripleID(pattern);
+		TripleOrderConvert.swapComponentOrder(orderedTriple, TripleComponentOrder.SPO, order);
+		TripleOrderConvert.swapComponentOrder(orderedPattern, TripleComponentOrder.SPO, order);
+		if (orderedPattern.getSubject() == 0) {
+			return orderedTriple.getSubject();
+		}
+		if (orderedPattern.getPredicate() == 0) {
+			return orderedTriple.getPredicate();
+		}
+		return orderedTriple.getObject();
+	}
+
+	private static void seek(SuppliableIteratorTripleID it, long id) {
+		if (it instanceof BitmapTriplesIteratorPermutation permutation) {
+			permutation.seek(id);
+		} else {
+			((BitmapTriplesIterator) it).seek(id);
+		}
+	}
+
+	@Test
+	public void seekTest() throws IOException, ParserException {
+		Path hdtPath = tempDir.newFolder().toPath().resolve("test.hdt");
+		LargeFakeDataSetStreamSupplier.createSupplierWithMaxTriples(5_000, 42).withMaxElementSplit(30)
+				.createAndSaveFakeHDT(HDTOptions.of(), hdtPath);
+		try (HDT hdt = HDTManager.mapIndexedHDT(hdtPath,
+				HDTOptions.of(HDTOptionsKeys.BITMAPTRIPLES_INDEX_OTHERS, "POS"), ProgressListener.ignore())) {
+			BitmapTriples triples = (BitmapTriples) hdt.getTriples();
+			TripleID first = triples.search(new TripleID()).next().clone();
+			// ??? and S?? and SP? read from SPO, ?P? read from POS
+			List<TripleID> patterns = List.of(new TripleID(), new TripleID(first.getSubject(), 0, 0),
+					new TripleID(first.getSubject(), first.getPredicate(), 0),
+					new TripleID(0, first.getPredicate(), 0));
+			Random random = new Random(34);
+			for (TripleID pattern : patterns) {
+				List<TripleID> all = new ArrayList<>();
+				SuppliableIteratorTripleID it = triples.search(pattern);
+				TripleComponentOrder order = it.getOrder();
+				while (it.hasNext()) {
+					all.add(it.next().clone());
+				}
+				assertFalse(all.isEmpty());
+				long maxId = sortedComponent(all.get(all.size() - 1), pattern, order) + 2;
+				for (int i = 0; i < 200; i++) {
+					int skipped = random.nextInt(all.size());
+					long target = 1 + random.nextLong(maxId);
+
+					it = triples.search(pattern);
+					for (int j = 0; j < skipped; j++) {
+						it.next();
+					}
+					seek(it, target);
+
+					int expected = skipped;
+					while (expected < all.size() && sortedComponent(all.get(expected), pattern, order) < target) {
+						expected++;
+					}
+					// the seek doesn't move back and continues the iteration
+					for (int j = expected; j < all.size(); j++) {
+						assertTrue(pattern + " " + target, it.hasNext());
+						assertEquals(pattern + " " + target, all.get(j), it.next());
+					}
+					assertFalse(pattern + " " + target, it.hasNext());
+				}
+			}
+		}
+	}
 }
@@ -0,0 +1,110 @@
+package com.the_qa_company.qendpoint.core.util.concurrent;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentCacheTest {
+	@Test
+	public void putGetTest() {
+		ConcurrentCache<Long, String> cache = new ConcurrentCache<>(1 << 20, (k, v) -> 16, true, true);
+
+		assertNull(cache.get(1L));
+		cache.put(1L, "a");
+		cache.put(2L, "b");
+		assertEquals("a", cache.get(1L));
+		assertEquals("b", cache.get(2L));
+		assertNull(cache.get(3L));
+		assertEquals("c", cache.computeIfAbsent(3L, k -> "c"));
+		assertEquals("c", cache.get(3L));
+
+		assertEquals(3, cache.size());
+		assertEquals(48, cache.weight());
+		assertEquals(3, cache.getHitCount());
+		assertEquals(3, cache.getMissCount());
+
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.weight());
+		assertNull(cache.get(1L));
+	}
+
+	@Test
+	public void budgetTest() {
+		ConcurrentCache<Long, String> cache = new ConcurrentCache<>(1 << 14, (k, v) -> 100, false, false);
+
+		for (long i = 0; i < 10_000; i++) {
+			cache.put(i, "v" + i);
+			assertTrue(cache.weight() <= 1 << 14);
+		}
+		assertTrue(cache.getEvictionCount() > 0);
+		// LRU, the last value is in the cache
+		assertEquals("v9999", cache.get(9999L));
+	}
+
+	private static long hotKeysInCache(boolean admission) {
+		ConcurrentCache<Long, String> cache = new ConcurrentCache<>(1 << 14, (k, v) -> 100, admission, false);
+
+		// hot keys, requested between the scan keys
+		List<Long> hot = new ArrayList<>();
+		for (long i = 0; i < 50; i++) {
+			hot.add(i);
+		}
+
+		// scan of keys requested once
+		for (long i = 0; i < 100_000; i++) {
+			if (i % 500 == 0) {
+				hot.forEach(k -> cache.computeIfAbsent(k, key -> "hot" + key));
+			}
+			cache.computeIfAbsent(1000 + i, k -> "scan" + k);
+		}
+
+		return hot.stream().filter(k -> cache.get(k) != null).count();
+	}
+
+	@Test
+	public void admissionTest() {
+		long lru = hotKeysInCache(false);
+		long tinyLfu = hotKeysInCache(true);
+		assertTrue("only " + tinyLfu + " hot keys in the cache", tinyLfu > 40);
+		assertTrue(tinyLfu + " <= " + lru, tinyLfu > lru);
+	}
+
+	@Test
+	public void concurrentTest() throws InterruptedException {
+		ConcurrentCache<Long, String> cache = new ConcurrentCache<>(1 << 16, (k, v) -> 64, true, true);
+
+		List<Thread> threads = new ArrayList<>();
+		List<Throwable> errors = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			int seed = t;
+			Thread thread = new Thread(() -> {
+				for (long i = 0; i < 50_000; i++) {
+					long key = (i * 31 + seed) % 2_000;
+					String value = cache.computeIfAbsent(key, k -> "v" + k);
+					assertNotNull(value);
+					assertEquals("v" + key, value);
+				}
+			}, "ConcurrentCacheTest#" + t);
+			thread.setUncaughtExceptionHandler((th, e) -> {
+				synchronized (errors) {
+					errors.add(e);
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertTrue(errors.toString(), errors.isEmpty());
+		assertEquals(8 * 50_000, cache.getHitCount() + cache.getMissCount());
+		assertTrue(cache.weight() <= 1 << 16);
+	}
+}
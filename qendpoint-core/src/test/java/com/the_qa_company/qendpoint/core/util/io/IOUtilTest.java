@@ -7,9 +7,20 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-
+import java.util.Random;
+
+import com.the_qa_company.qendpoint.core.enums.CompressionType;
+import com.the_qa_company.qendpoint.core.enums.RDFNotation;
+import com.the_qa_company.qendpoint.core.exceptions.ParserException;
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.hdt.HDTManager;
+import com.the_qa_company.qendpoint.core.listener.ProgressListener;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Rule;
@@ -137,4 +148,56 @@ public class IOUtilTest {
 		Assert.assertFalse(Files.exists(p2));
 
 	}
+
+	@Test
+	public void compressionTest() throws IOException {
+		byte[] data = new byte[100_000];
+		Random rnd = new Random(42);
+		for (int i = 0; i < data.length; i++) {
+			// compressible data
+			data[i] = (byte) ('a' + rnd.nextInt(4));
+		}
+		Path root = tempDir.newFolder().toPath();
+		for (CompressionType type : CompressionType.values()) {
+			ByteArrayOutputStream bout = new ByteArrayOutputStream();
+			try (OutputStream out = IOUtil.asCompressed(bout, type)) {
+				out.write(data);
+			}
+			try (InputStream in = IOUtil.asUncompressed(new ByteArrayInputStream(bout.toByteArray()), type)) {
+				Assert.assertArrayEquals(type.name(), data, in.readAllBytes());
+			}
+
+			try (CloseSuppressPath path = CloseSuppressPath.of(root.resolve("file_" + type))) {
+				try (OutputStream out = path.openOutputStream(1024, type)) {
+					out.write(data);
+				}
+				try (InputStream in = path.openInputStream(1024, type)) {
+					Assert.assertArrayEquals(type.name(), data, in.readAllBytes());
+				}
+			}
+		}
+		assertEquals(CompressionType.ZSTD, CompressionType.guess("file.nt.zst"));
+		assertEquals(CompressionType.LZ4, CompressionType.guess("file.nt.lz4"));
+	}
+
+	@Test
+	public void compressedGenerateTest() throws IOException, ParserException {
+		String nt = """
+				<http://ex.org/s1> <http://ex.org/p> "a" .
+				<http://ex.org/s2> <http://ex.org/p> <http://ex.org/s1> .
+				""";
+		Path root = tempDir.newFolder().toPath();
+		for (String ext : new String[] { "nt.zst", "nt.zstd", "nt.lz4" }) {
+			Path file = root.resolve("data." + ext);
+			try (OutputStream out = IOUtil.asCompressed(Files.newOutputStream(file), CompressionType.guess(ext))) {
+				out.write(nt.getBytes(StandardCharsets.UTF_8));
+			}
+			RDFNotation notation = RDFNotation.guess(file);
+			assertEquals(ext, RDFNotation.NTRIPLES, notation);
+			try (HDT hdt = HDTManager.generateHDT(file.toString(), "http://ex.org/#", notation, HDTOptions.of(),
+					ProgressListener.ignore())) {
+				assertEquals(ext, 2, hdt.getTriples().getNumberOfElements());
+			}
+		}
+	}
 }
@@ -0,0 +1,39 @@
+package com.the_qa_company.qendpoint.core.util.io;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RateLimitedOutputStreamTest {
+	@Test
+	public void rateTest() throws IOException {
+		byte[] data = new byte[1 << 16];
+		new Random(42).nextBytes(data);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long start = System.nanoTime();
+		try (RateLimitedOutputStream rlos = new RateLimitedOutputStream(out, 1 << 18)) {
+			// write 64KiB at 256KiB/s
+			for (int i = 0; i < data.length; i += 1024) {
+				rlos.write(data, i, 1024);
+			}
+			assertEquals(data.length, rlos.getWrittenBytes());
+		}
+		long time = (System.nanoTime() - start) / 1_000_000;
+
+		assertTrue("written too fast: " + time + "ms", time >= 200);
+		assertArrayEquals(data, out.toByteArray());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void badRateTest() {
+		new RateLimitedOutputStream(OutputStream.nullOutputStream(), 0);
+	}
+}
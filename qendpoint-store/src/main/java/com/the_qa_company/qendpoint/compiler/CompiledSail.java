@@ -146,6 +146,7 @@ public class CompiledSail extends SailWrapper {
 				endpoint = new EndpointStore(files, spec, false,
 						options.getHdtReadMode().equals(SailCompilerSchema.HDT_READ_MODE_LOAD));
 				endpoint.setThreshold(options.getEndpointThreshold());
+				endpoint.setQueryPlanCacheSize(options.getQueryPlanCacheSize());
 				logger.info(
 						"Threshold for triples in Native RDF store: " + options.getEndpointThreshold() + " triples");
 				source = endpoint;
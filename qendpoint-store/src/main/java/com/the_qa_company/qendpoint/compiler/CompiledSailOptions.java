@@ -39,6 +39,8 @@ public class CompiledSailOptions {
 	private String hdtSpec;
 	private int timeoutUpdate;
 	private int timeoutQuery;
+	private int queryCacheSize;
+	private int queryPlanCacheSize;
 	private Map<String, String> hdtOptions;
 
 	public CompiledSailOptions() {
@@ -58,6 +60,8 @@ public class CompiledSailOptions {
 			hdtSpec = debugOptions.hdtSpec;
 			timeoutUpdate = debugOptions.timeoutUpdate;
 			timeoutQuery = debugOptions.timeoutQuery;
+			queryCacheSize = debugOptions.queryCacheSize;
+			queryPlanCacheSize = debugOptions.queryPlanCacheSize;
 			hdtOptions = debugOptions.hdtOptions;
 			dumpLocation = debugOptions.dumpLocation;
 			return;
@@ -77,6 +81,8 @@ public class CompiledSailOptions {
 		hdtSpec = "";
 		timeoutUpdate = SailCompilerSchema.TIMEOUT_UPDATE.getHandler().defaultValue();
 		timeoutQuery = SailCompilerSchema.TIMEOUT_QUERY.getHandler().defaultValue();
+		queryCacheSize = SailCompilerSchema.QUERY_CACHE_SIZE.getHandler().defaultValue();
+		queryPlanCacheSize = SailCompilerSchema.QUERY_PLAN_CACHE_SIZE.getHandler().defaultValue();
 		hdtOptions = Map.of();
 		dumpLocation = Path.of("dump");
 	}
@@ -99,6 +105,9 @@ public class CompiledSailOptions {
 		hdtSpec = reader.searchPropertyValue(SailCompilerSchema.MAIN, SailCompilerSchema.HDT_SPEC_PROPERTY);
 		timeoutUpdate = reader.searchPropertyValue(SailCompilerSchema.MAIN, SailCompilerSchema.TIMEOUT_UPDATE);
 		timeoutQuery = reader.searchPropertyValue(SailCompilerSchema.MAIN, SailCompilerSchema.TIMEOUT_QUERY);
+		queryCacheSize = reader.searchPropertyValue(SailCompilerSchema.MAIN, SailCompilerSchema.QUERY_CACHE_SIZE);
+		queryPlanCacheSize = reader.searchPropertyValue(SailCompilerSchema.MAIN,
+				SailCompilerSchema.QUERY_PLAN_CACHE_SIZE);
 		hdtOptions = reader.search(SailCompilerSchema.MAIN, SailCompilerSchema.GEN_HDT_OPTION_PARAM).stream()
 				.map(SailCompiler::asResource).collect(
 						Collectors.toMap(
@@ -297,6 +306,22 @@ public class CompiledSailOptions {
 		this.timeoutQuery = timeoutQuery;
 	}
 
+	public int getQueryCacheSize() {
+		return queryCacheSize;
+	}
+
+	public void setQueryCacheSize(int queryCacheSize) {
+		this.queryCacheSize = queryCacheSize;
+	}
+
+	public int getQueryPlanCacheSize() {
+		return queryPlanCacheSize;
+	}
+
+	public void setQueryPlanCacheSize(int queryPlanCacheSize) {
+		this.queryPlanCacheSize = queryPlanCacheSize;
+	}
+
 	public Map<String, String> getHdtOptions() {
 		return hdtOptions;
 	}
@@ -0,0 +1,336 @@
+package com.the_qa_company.qendpoint.compiler;
+
+import com.the_qa_company.qendpoint.store.EndpointStoreQueryPlanCache;
+import org.eclipse.rdf4j.query.algebra.BNodeGenerator;
+import org.eclipse.rdf4j.query.algebra.Service;
+import org.eclipse.rdf4j.query.algebra.TupleExpr;
+import org.eclipse.rdf4j.query.algebra.helpers.AbstractSimpleQueryModelVisitor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Cache of the serialized results of the SPARQL queries, the results are stored
+ * with their query, their query parameters and the version of the store data.
+ * The least recently used results are removed when the size of the cache is
+ * above its maximum size.
+ *
+ * @author Antoine Willerval
+ */
+public class QueryResultCache {
+	/**
+	 * key of a cached result
+	 *
+	 * @param query        normalized query
+	 * @param queryParam   query parameters
+	 * @param acceptHeader accept header
+	 * @param language     accept-language header
+	 * @param version      version of the store data
+	 */
+	public record Key(String query, String queryParam, String acceptHeader, String language, long version) {}
+
+	/**
+	 * cached result
+	 *
+	 * @param mime mime type of the result
+	 * @param data serialized result
+	 */
+	public record Result(String mime, byte[] data) {
+		/**
+		 * write the result
+		 *
+		 * @param out the output stream
+		 * @throws IOException write exception
+		 */
+		public void writeTo(OutputStream out) throws IOException {
+			out.write(data);
+		}
+	}
+
+	/**
+	 * normalize a query, the whitespaces outside the strings and the comments
+	 * are replaced by one space and the query is trimmed
+	 *
+	 * @param query the query
+	 * @return normalized query
+	 */
+	public static String normalizeQuery(String query) {
+		StringBuilder builder = new StringBuilder(query.length());
+		int i = 0;
+		int len = query.length();
+		boolean space = false;
+		while (i < len) {
+			char c = query.charAt(i);
+			if (Character.isWhitespace(c)) {
+				space = true;
+				i++;
+				continue;
+			}
+			if (space) {
+				if (!builder.isEmpty()) {
+					builder.append(' ');
+				}
+				space = false;
+			}
+			if (c == '#') {
+				// comment or config line, copied until the end of the line
+				int end = query.indexOf('\n', i);
+				if (end == -1) {
+					end = len;
+				} else {
+					end++;
+				}
+				builder.append(query, i, end);
+				i = end;
+			} else if (c == '"' || c == '\'') {
+				// string, copied until the end quote(s)
+				boolean longString = i + 2 < len && query.charAt(i + 1) == c && query.charAt(i + 2) == c;
+				int start = i;
+				i += longString ? 3 : 1;
+				while (i < len) {
+					char sc = query.charAt(i);
+					if (sc == '\\') {
+						i += 2;
+					} else if (sc == c
+							&& (!longString || (i + 2 < len && query.charAt(i + 1) == c && query.charAt(i + 2) == c))) {
+						i += longString ? 3 : 1;
+						break;
+					} else {
+						i++;
+					}
+				}
+				i = Math.min(i, len);
+				builder.append(query, start, i);
+			} else {
+				builder.append(c);
+				i++;
+			}
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * test if the result of a query can be cached, the results of the queries
+	 * using a zero argument function like NOW() or RAND(), a blank node
+	 * generator or a federated service aren't only depending on the store data
+	 *
+	 * @param query the parsed query
+	 * @return true if the result can be cached, false otherwise
+	 */
+	public static boolean isCacheable(TupleExpr query) {
+		if (!EndpointStoreQueryPlanCache.isCacheable(query)) {
+			return false;
+		}
+		boolean[] cacheable = { true };
+		query.visit(new AbstractSimpleQueryModelVisitor<RuntimeException>() {
+			@Override
+			public void meet(BNodeGenerator node) {
+				cacheable[0] = false;
+			}
+
+			@Override
+			public void meet(Service node) {
+				cacheable[0] = false;
+			}
+		});
+		return cacheable[0];
+	}
+
+	private final long maxSize;
+	private final LinkedHashMap<Key, Result> results = new LinkedHashMap<>(16, 0.75f, true);
+	private long size;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * create a cache
+	 *
+	 * @param maxSize maximum size of the cached results, in bytes
+	 */
+	public QueryResultCache(long maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize should be positive!");
+		}
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * get a cached result
+	 *
+	 * @param key the key
+	 * @return the result, null if not cached
+	 */
+	public Result get(Key key) {
+		Result result;
+		synchronized (this) {
+			result = results.get(key);
+		}
+		(result != null ? hits : misses).incrementAndGet();
+		return result;
+	}
+
+	/**
+	 * cache a result, the results with older versions and the least recently
+	 * used results are removed if the cache is too big
+	 *
+	 * @param key    the key
+	 * @param result the result
+	 */
+	public synchronized void put(Key key, Result result) {
+		if (result.data().length > maxSize) {
+			return;
+		}
+		Result old = results.put(key, result);
+		if (old != null) {
+			size -= old.data().length;
+		}
+		size += result.data().length;
+
+		Iterator<Map.Entry<Key, Result>> it = results.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<Key, Result> e = it.next();
+			// the results of the previous versions can't be used anymore
+			if (e.getKey().version() < key.version() || size > maxSize) {
+				size -= e.getValue().data().length;
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * remove all the results
+	 */
+	public synchronized void clear() {
+		results.clear();
+		size = 0;
+	}
+
+	/**
+	 * @return the size of the cached results, in bytes
+	 */
+	public synchronized long getSize() {
+		return size;
+	}
+
+	/**
+	 * @return the maximum size of the cached results, in bytes
+	 */
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * @return the number of results in the cache
+	 */
+	public synchronized int getCount() {
+		return results.size();
+	}
+
+	/**
+	 * @return the number of cache hits
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * @return the number of cache misses
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * create a recorder to cache the result of a query
+	 *
+	 * @param key        the key of the result
+	 * @param out        the output stream of the result
+	 * @param mimeSetter the mime setter of the result
+	 * @return recorder
+	 */
+	public Recorder recorder(Key key, OutputStream out, Consumer<String> mimeSetter) {
+		return new Recorder(key, out, mimeSetter);
+	}
+
+	/**
+	 * recorder of a query result, record the bytes written to the output stream
+	 * and the mime type, the recording is stopped if the result is bigger than
+	 * the cache
+	 */
+	public class Recorder {
+		private final Key key;
+		private final OutputStream output;
+		private final Consumer<String> mimeSetter;
+		private ByteArrayOutputStream recorded = new ByteArrayOutputStream();
+		private String mime;
+
+		private Recorder(Key key, OutputStream out, Consumer<String> mimeSetter) {
+			this.key = key;
+			this.output = new FilterOutputStream(out) {
+				@Override
+				public void write(int b) throws IOException {
+					out.write(b);
+					if (recorded != null) {
+						record(new byte[] { (byte) b }, 0, 1);
+					}
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len) throws IOException {
+					out.write(b, off, len);
+					record(b, off, len);
+				}
+			};
+			this.mimeSetter = mime -> {
+				this.mime = mime;
+				mimeSetter.accept(mime);
+			};
+		}
+
+		private void record(byte[] b, int off, int len) {
+			if (recorded == null) {
+				return;
+			}
+			if (recorded.size() + (long) len > maxSize) {
+				// too big to be cached
+				recorded = null;
+				return;
+			}
+			recorded.write(b, off, len);
+		}
+
+		/**
+		 * @return the output stream to write the result
+		 */
+		public OutputStream getOutput() {
+			return output;
+		}
+
+		/**
+		 * @return the mime setter of the result
+		 */
+		public Consumer<String> getMimeSetter() {
+			return mimeSetter;
+		}
+
+		/**
+		 * cache the recorded result, the result isn't cached if the data was
+		 * updated during the query
+		 *
+		 * @param version the current version of the store data
+		 */
+		public void complete(long version) {
+			if (recorded == null || mime == null || version != key.version()) {
+				return;
+			}
+			put(key, new Result(mime, recorded.toByteArray()));
+		}
+	}
+}
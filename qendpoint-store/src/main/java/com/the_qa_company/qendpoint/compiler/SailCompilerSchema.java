@@ -1,5 +1,6 @@
 package com.the_qa_company.qendpoint.compiler;
 
+import com.the_qa_company.qendpoint.store.EndpointStore;
 import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Literal;
 import org.eclipse.rdf4j.model.Value;
@@ -252,6 +253,17 @@ public class SailCompilerSchema {
 	 */
 	public static final Property<Integer, NumberTypeValueHandler> TIMEOUT_QUERY = propertyInt("timeoutQuery",
 			"the maximum time for non-update query, in second", 300, 0);
+	/**
+	 * mdlc:queryCacheSize
+	 */
+	public static final Property<Integer, NumberTypeValueHandler> QUERY_CACHE_SIZE = propertyInt("queryCacheSize",
+			"the maximum size of the query result cache, in bytes, 0 to disable the cache", 0, 0);
+	/**
+	 * mdlc:queryPlanCacheSize
+	 */
+	public static final Property<Integer, NumberTypeValueHandler> QUERY_PLAN_CACHE_SIZE = propertyInt(
+			"queryPlanCacheSize", "the maximum number of optimized query plans in the cache, 0 to disable the cache",
+			EndpointStore.DEFAULT_QUERY_PLAN_CACHE_SIZE, 0);
 
 	/**
 	 * mdlc:hdtPassMode property
@@ -41,6 +41,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
@@ -59,10 +60,13 @@ public class SparqlRepository {
 	private final CompiledSail compiledSail;
 	private final SailRepository repository;
 	private final Map<String, Namespace> defaultPrefixes = new TreeMap<>();
+	private final QueryResultCache queryCache;
 
 	public SparqlRepository(CompiledSail compiledSail) {
 		this.compiledSail = Objects.requireNonNull(compiledSail, "compiledSail can't be null!");
 		this.repository = new SailRepository(compiledSail);
+		int queryCacheSize = compiledSail.getOptions().getQueryCacheSize();
+		this.queryCache = queryCacheSize > 0 ? new QueryResultCache(queryCacheSize) : null;
 	}
 
 	/**
@@ -102,6 +106,13 @@ public class SparqlRepository {
 		return compiledSail.getOptions();
 	}
 
+	/**
+	 * @return the query result cache, null if the cache is disabled
+	 */
+	public QueryResultCache getQueryCache() {
+		return queryCache;
+	}
+
 	/**
 	 * reindex all the lucene sails of this repository
 	 *
@@ -488,6 +499,7 @@ public class SparqlRepository {
 		if (sparqlQuery.isEmpty()) {
 			throw new EndpointStoreInputException("Empty query");
 		}
+		String originalQuery = sparqlQuery;
 
 		RepositoryConnection connectionCloseable;
 		RepositoryConnection connection;
@@ -589,6 +601,29 @@ public class SparqlRepository {
 					sparqlQuery = sparqlQuery.substring(start);
 				}
 			}
+
+			QueryResultCache.Key cacheKey = null;
+			EndpointStore cachedStore = null;
+			if (queryCache != null && out != null && customConnection == null
+					&& !epConn.hasConfig(EndpointStore.QUERY_CONFIG_NO_CACHE)
+					&& compiledSail.getSource() instanceof EndpointStore endpoint) {
+				QueryResultCache.Key key = new QueryResultCache.Key(QueryResultCache.normalizeQuery(originalQuery),
+						queryParam, acceptHeader, acceptLanguageHeader, endpoint.getDataVersion());
+				QueryResultCache.Result result = queryCache.get(key);
+				if (result != null) {
+					mimeSetter.accept(result.mime());
+					try {
+						result.writeTo(out);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+					connection.close();
+					return null;
+				}
+				cacheKey = key;
+				cachedStore = endpoint;
+			}
+
 			sparqlQuery = applyPrefixes(sparqlQuery);
 			sparqlQuery = sparqlQuery.replaceAll("MINUS \\{(.*\\n)+.+}\\n\\s+}", "");
 
@@ -596,6 +631,14 @@ public class SparqlRepository {
 
 			ParsedQuery parsedQuery = QueryParserUtil.parseQuery(QueryLanguage.SPARQL, sparqlQuery, null);
 
+			QueryResultCache.Recorder cacheRecorder = null;
+			if (cacheKey != null && QueryResultCache.isCacheable(parsedQuery.getTupleExpr())) {
+				// record the result to cache it
+				cacheRecorder = queryCache.recorder(cacheKey, out, mimeSetter);
+				out = cacheRecorder.getOutput();
+				mimeSetter = cacheRecorder.getMimeSetter();
+			}
+
 			if (compiledSail.getOptions().isDebugShowPlans()) {
 				System.out.println(parsedQuery);
 			}
@@ -615,7 +658,15 @@ public class SparqlRepository {
 						mimeSetter.accept(format.getDefaultMIMEType());
 						TupleQueryResultHandler writer;
 						if (TupleQueryResultFormat.JSON.equals(format)) {
-							writer = new QEPSPARQLResultsJSONWriter(out);
+							if (epConn.hasConfig(EndpointStore.QUERY_CONFIG_FETCH_QUERY_PLAN)) {
+								writer = new QEPSPARQLResultsJSONWriter(out);
+							} else {
+								// no header to write, write the dictionary
+								// bytes
+								writer = new ByteSPARQLResultsJSONWriter(out);
+							}
+						} else if (TupleQueryResultFormat.TSV.equals(format)) {
+							writer = new ByteSPARQLResultsTSVWriter(out);
 						} else {
 							writer = TupleQueryResultWriterRegistry.getInstance().get(format).orElseThrow()
 									.getWriter(out);
@@ -641,6 +692,9 @@ public class SparqlRepository {
 							assert writer instanceof QueryResultCounter;
 							logger.info("Complete query with {} triples", ((QueryResultCounter) writer).getCount());
 						}
+						if (cacheRecorder != null) {
+							cacheRecorder.complete(cachedStore.getDataVersion());
+						}
 						if (customConnection == null) {
 							connection.close();
 						}
@@ -691,6 +745,9 @@ public class SparqlRepository {
 						}
 
 						writer.handleBoolean(query.evaluate());
+						if (cacheRecorder != null) {
+							cacheRecorder.complete(cachedStore.getDataVersion());
+						}
 						if (customConnection == null) {
 							connection.close();
 						}
@@ -715,7 +772,12 @@ public class SparqlRepository {
 						RDFFormat format = FormatUtils.getRDFWriterFormat(acceptHeader).orElseThrow(
 								() -> new EndpointStoreInputException("accept formats not supported: " + acceptHeader));
 						mimeSetter.accept(format.getDefaultMIMEType());
-						RDFHandler handler = Rio.createWriter(format, out);
+						RDFHandler handler;
+						if (RDFFormat.NTRIPLES.equals(format)) {
+							handler = new ByteNTriplesWriter(out);
+						} else {
+							handler = Rio.createWriter(format, out);
+						}
 						if (compiledSail.getOptions().isDebugShowCount()) {
 							handler = new RDFHandlerCounter(handler);
 						}
@@ -723,6 +785,9 @@ public class SparqlRepository {
 						if (compiledSail.getOptions().isDebugShowCount()) {
 							logger.info("Complete query with {} triples", ((RDFHandlerCounter) handler).getCount());
 						}
+						if (cacheRecorder != null) {
+							cacheRecorder.complete(cachedStore.getDataVersion());
+						}
 						if (customConnection == null) {
 							connection.close();
 						}
@@ -898,6 +963,7 @@ public class SparqlRepository {
 	 */
 	public void clearDefaultPrefixes() {
 		defaultPrefixes.clear();
+		syncPrefix();
 	}
 
 	/**
@@ -909,6 +975,10 @@ public class SparqlRepository {
 
 	private void syncPrefix() {
 		// sync prefixes, will be important when the prefix PR will be available
+		if (queryCache != null) {
+			// the cached results were computed with the previous prefixes
+			queryCache.clear();
+		}
 	}
 
 	/**
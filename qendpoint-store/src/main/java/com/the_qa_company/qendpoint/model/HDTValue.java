@@ -19,4 +19,17 @@ public interface HDTValue {
 	 * @param delegate boolean
 	 */
 	void setDelegate(boolean delegate);
+
+	/**
+	 * get the string of this value in the HDT dictionary, the dictionary
+	 * strings are usually
+	 * {@link com.the_qa_company.qendpoint.core.util.string.ByteString} and can
+	 * be written without converting them to a Java {@link String}
+	 *
+	 * @return the dictionary string (with the HDT syntax), null if the value
+	 *         isn't read from the dictionary
+	 */
+	default CharSequence getDictionaryString() {
+		return null;
+	}
 }
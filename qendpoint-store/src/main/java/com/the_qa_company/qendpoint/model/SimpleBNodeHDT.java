@@ -80,10 +80,26 @@ public class SimpleBNodeHDT extends AbstractBNode implements HDTValue {
 		}
 	}
 
+	@Override
+	public CharSequence getDictionaryString() {
+		if (this.position == SimpleIRIHDT.SHARED_POS || this.position == SimpleIRIHDT.SUBJECT_POS) {
+			return hdt.getDictionary().idToString(this.id, TripleComponentRole.SUBJECT);
+		} else if (this.position == SimpleIRIHDT.OBJECT_POS) {
+			return hdt.getDictionary().idToString(this.id, TripleComponentRole.OBJECT);
+		} else if (this.position == SimpleIRIHDT.PREDICATE_POS) {
+			return hdt.getDictionary().idToString(this.id, TripleComponentRole.PREDICATE);
+		}
+		return null;
+	}
+
 	public long getHdtId() {
 		return id;
 	}
 
+	public int getPosition() {
+		return position;
+	}
+
 	@Override
 	public void setDelegate(boolean delegate) {
 		this.delegate = delegate;
@@ -148,6 +148,21 @@ public class SimpleIRIHDT extends AbstractIRI implements HDTValue {
 		}
 	}
 
+	@Override
+	public CharSequence getDictionaryString() {
+		if (iriString != null) {
+			return iriString;
+		}
+		if (this.postion == SHARED_POS || this.postion == SUBJECT_POS) {
+			return hdt.getDictionary().idToString(this.id, TripleComponentRole.SUBJECT);
+		} else if (this.postion == OBJECT_POS) {
+			return hdt.getDictionary().idToString(this.id, TripleComponentRole.OBJECT);
+		} else if (this.postion == PREDICATE_POS) {
+			return hdt.getDictionary().idToString(this.id, TripleComponentRole.PREDICATE);
+		}
+		return null;
+	}
+
 	public String getIriString() {
 		return iriString;
 	}
@@ -285,6 +285,11 @@ public class SimpleLiteralHDT implements Literal, HDTValue {
 		return hdtID;
 	}
 
+	@Override
+	public CharSequence getDictionaryString() {
+		return hdt.getDictionary().idToString(hdtID, TripleComponentRole.OBJECT);
+	}
+
 	@Override
 	public String stringValue() {
 		return getLabel();
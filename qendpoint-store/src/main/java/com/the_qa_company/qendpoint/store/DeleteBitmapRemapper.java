@@ -0,0 +1,278 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.core.compact.bitmap.ModifiableBitmap;
+import com.the_qa_company.qendpoint.core.dictionary.Dictionary;
+import com.the_qa_company.qendpoint.core.dictionary.impl.kcat.KCatMapping;
+import com.the_qa_company.qendpoint.core.enums.TripleComponentOrder;
+import com.the_qa_company.qendpoint.core.enums.TripleComponentRole;
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.triples.IteratorTripleID;
+import com.the_qa_company.qendpoint.core.triples.TripleID;
+import com.the_qa_company.qendpoint.core.triples.Triples;
+import com.the_qa_company.qendpoint.core.triples.TriplesPrivate;
+import com.the_qa_company.qendpoint.core.util.BitUtil;
+import com.the_qa_company.qendpoint.core.util.concurrent.ExceptionThread;
+import com.the_qa_company.qendpoint.core.util.io.IOUtil;
+import com.the_qa_company.qendpoint.utils.BitArrayDisk;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Remap the triples deleted during a merge from the old HDT to the new HDT. The
+ * deleted positions are read by chunks, each chunk is split between workers,
+ * converted to the IDs of the new dictionary with the mapping of the merge,
+ * sorted and located in the new triples with searches or with an ordered pass
+ * over the triples of each subject if the subject has many deleted triples.
+ *
+ * @author Antoine Willerval
+ */
+public class DeleteBitmapRemapper {
+	/**
+	 * minimum number of deleted triples handled by a worker
+	 */
+	private static final int MIN_WORKER_CHUNK = 1024;
+	/**
+	 * default maximum number of deleted triples converted at the same time
+	 */
+	private static final int CHUNK_SIZE = 1 << 18;
+	private final HDT oldHdt;
+	private final HDT newHdt;
+	private final KCatMapping mapping;
+	private final int workers;
+	private final int chunkSize;
+
+	/**
+	 * create a remapper converting the IDs with the strings of the dictionaries
+	 *
+	 * @param oldHdt  the HDT used before the merge
+	 * @param newHdt  the HDT created by the merge
+	 * @param workers the maximum number of workers
+	 */
+	public DeleteBitmapRemapper(HDT oldHdt, HDT newHdt, int workers) {
+		this(oldHdt, newHdt, null, workers);
+	}
+
+	/**
+	 * create a remapper
+	 *
+	 * @param oldHdt  the HDT used before the merge
+	 * @param newHdt  the HDT created by the merge
+	 * @param mapping the mapping of the old HDT IDs to the new HDT IDs written
+	 *                by the merge, null to convert the IDs with the strings of
+	 *                the dictionaries
+	 * @param workers the maximum number of workers
+	 */
+	public DeleteBitmapRemapper(HDT oldHdt, HDT newHdt, KCatMapping mapping, int workers) {
+		this(oldHdt, newHdt, mapping, workers, CHUNK_SIZE);
+	}
+
+	DeleteBitmapRemapper(HDT oldHdt, HDT newHdt, KCatMapping mapping, int workers, int chunkSize) {
+		this.oldHdt = Objects.requireNonNull(oldHdt, "oldHdt can't be null!");
+		this.newHdt = Objects.requireNonNull(newHdt, "newHdt can't be null!");
+		this.mapping = mapping;
+		if (workers <= 0) {
+			throw new IllegalArgumentException("Number of workers should be positive!");
+		}
+		this.workers = workers;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * mark in a new bitmap the deleted triples of the old HDT
+	 *
+	 * @param oldDeleteBitmap bitmap of the deleted triples of the old HDT
+	 * @param newDeleteBitmap bitmap of the deleted triples of the new HDT
+	 * @return the number of triples marked in the new bitmap
+	 * @throws IOException remap exception
+	 */
+	public long remap(BitArrayDisk oldDeleteBitmap, ModifiableBitmap newDeleteBitmap) throws IOException {
+		long[] positions = new long[(int) Math.min(chunkSize, oldDeleteBitmap.countOnes())];
+		if (positions.length == 0) {
+			return 0;
+		}
+		TripleID[] triples = new TripleID[positions.length];
+		long[] newPositions = new long[positions.length];
+
+		long marked = 0;
+		long position = -1;
+		while (true) {
+			// read the next chunk of deleted positions
+			int size = 0;
+			while (size < positions.length && (position = oldDeleteBitmap.selectNext1(position + 1)) >= 0) {
+				positions[size++] = position;
+			}
+			if (size == 0) {
+				return marked;
+			}
+			marked += remapChunk(positions, size, triples, newPositions, newDeleteBitmap);
+			if (size < positions.length) {
+				return marked;
+			}
+		}
+	}
+
+	private long remapChunk(long[] positions, int size, TripleID[] triples, long[] newPositions,
+			ModifiableBitmap newDeleteBitmap) throws IOException {
+		// convert the deleted triples to the new IDs, each worker is working
+		// on a sorted part of the positions to use the last ID caches
+		int workerCount = (int) Math.min(workers, Math.max(1, size / MIN_WORKER_CHUNK));
+		runWorkers(workerCount, size, (start, end) -> convert(positions, triples, start, end));
+
+		// remove the triples not in the new HDT and sort them
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			TripleID triple = triples[i];
+			triples[i] = null;
+			if (triple != null) {
+				triples[count++] = triple;
+			}
+		}
+		Arrays.parallelSort(triples, 0, count);
+
+		int sortedCount = count;
+		runWorkers(workerCount, sortedCount, (start, end) -> locate(triples, newPositions, start, end));
+
+		long marked = 0;
+		for (int i = 0; i < sortedCount; i++) {
+			triples[i] = null;
+			if (newPositions[i] >= 0) {
+				newDeleteBitmap.set(newPositions[i], true);
+				marked++;
+			}
+		}
+		return marked;
+	}
+
+	private void convert(long[] positions, TripleID[] triples, int start, int end) {
+		Dictionary oldDictionary = oldHdt.getDictionary();
+		Dictionary newDictionary = newHdt.getDictionary();
+		Triples oldTriples = oldHdt.getTriples();
+		ComponentMapper subjects = new ComponentMapper(oldDictionary, newDictionary, TripleComponentRole.SUBJECT);
+		ComponentMapper predicates = new ComponentMapper(oldDictionary, newDictionary, TripleComponentRole.PREDICATE);
+		ComponentMapper objects = new ComponentMapper(oldDictionary, newDictionary, TripleComponentRole.OBJECT);
+
+		for (int i = start; i < end; i++) {
+			TripleID tripleID = oldTriples.findTriple(positions[i]);
+			if (!tripleID.isValid()) {
+				continue;
+			}
+			TripleID triple = new TripleID(subjects.map(tripleID.getSubject()), predicates.map(tripleID.getPredicate()),
+					objects.map(tripleID.getObject()));
+			if (triple.isValid()) {
+				triples[i] = triple;
+			}
+		}
+	}
+
+	/**
+	 * locate sorted triples in the new HDT, the triples of a subject are read
+	 * once if the searches would read more triples
+	 */
+	private void locate(TripleID[] triples, long[] newPositions, int start, int end) {
+		Triples newTriples = newHdt.getTriples();
+		boolean sortedSubjects = newTriples instanceof TriplesPrivate tp && tp.getOrder() == TripleComponentOrder.SPO;
+		int index = start;
+		while (index < end) {
+			long subject = triples[index].getSubject();
+			int groupEnd = index + 1;
+			while (groupEnd < end && triples[groupEnd].getSubject() == subject) {
+				groupEnd++;
+			}
+			if (sortedSubjects && groupEnd - index > 1) {
+				IteratorTripleID it = newTriples.search(new TripleID(subject, 0, 0));
+				long subjectTriples = it.estimatedNumResults();
+				if ((long) (groupEnd - index) * Math.max(1, BitUtil.log2(subjectTriples)) >= subjectTriples) {
+					// the searches would read more than the triples of the
+					// subject
+					scan(it, triples, newPositions, index, groupEnd);
+					index = groupEnd;
+					continue;
+				}
+			}
+			for (; index < groupEnd; index++) {
+				IteratorTripleID it = newTriples.search(triples[index]);
+				if (it.hasNext()) {
+					it.next();
+					newPositions[index] = it.getLastTriplePosition();
+				} else {
+					newPositions[index] = -1;
+				}
+			}
+		}
+	}
+
+	private void scan(IteratorTripleID it, TripleID[] triples, long[] newPositions, int start, int end) {
+		Arrays.fill(newPositions, start, end, -1);
+		int index = start;
+		while (index < end && it.hasNext()) {
+			TripleID triple = it.next();
+			int cmp;
+			while (index < end && (cmp = triples[index].compareTo(triple)) <= 0) {
+				if (cmp == 0) {
+					newPositions[index] = it.getLastTriplePosition();
+				}
+				index++;
+			}
+		}
+	}
+
+	private static void runWorkers(int workerCount, int size, ChunkRunnable runnable) throws IOException {
+		if (workerCount == 1) {
+			runnable.run(0, size);
+			return;
+		}
+		ExceptionThread.ExceptionRunnable[] runnables = new ExceptionThread.ExceptionRunnable[workerCount];
+		for (int i = 0; i < workerCount; i++) {
+			int start = (int) ((long) size * i / workerCount);
+			int end = (int) ((long) size * (i + 1) / workerCount);
+			runnables[i] = () -> runnable.run(start, end);
+		}
+		try {
+			ExceptionThread.async("DeleteBitmapRemapper", runnables).startAll().joinAndCrashIfRequired();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted remap", e);
+		} catch (ExceptionThread.ExceptionThreadException e) {
+			IOUtil.throwIOOrRuntime(e.getCause());
+		}
+	}
+
+	@FunctionalInterface
+	private interface ChunkRunnable {
+		void run(int start, int end);
+	}
+
+	/**
+	 * map the IDs of a component from the old dictionary to the new one, keep
+	 * the last mapping because the deleted triples are sorted
+	 */
+	private class ComponentMapper {
+		private final Dictionary oldDictionary;
+		private final Dictionary newDictionary;
+		private final TripleComponentRole role;
+		private long lastOld = -2;
+		private long lastNew = -2;
+
+		ComponentMapper(Dictionary oldDictionary, Dictionary newDictionary, TripleComponentRole role) {
+			this.oldDictionary = oldDictionary;
+			this.newDictionary = newDictionary;
+			this.role = role;
+		}
+
+		long map(long oldId) {
+			if (oldId != lastOld) {
+				if (mapping != null) {
+					// 0 if the id was removed by the merge, the triple is
+					// ignored
+					lastNew = mapping.map(oldId, role);
+				} else {
+					lastNew = newDictionary.stringToId(oldDictionary.idToString(oldId, role), role);
+				}
+				lastOld = oldId;
+			}
+			return lastNew;
+		}
+	}
+}
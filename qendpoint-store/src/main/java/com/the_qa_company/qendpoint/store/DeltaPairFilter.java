@@ -0,0 +1,188 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.utils.BitArrayDisk;
+import org.eclipse.rdf4j.common.io.NioFile;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Blocked Bloom filter of the subject-predicate, predicate-object and
+ * subject-object HDT id pairs of the triples in the delta store, used with the
+ * bitX/bitY/bitZ bitmaps to know if a triple pattern should be searched over
+ * the delta store. The hashes of a pair are in the same 512 bits block, so a
+ * test is only reading one cache line. The filter is stored in a
+ * {@link BitArrayDisk}, the size of an existing filter is read from its file.
+ *
+ * @author Antoine Willerval
+ */
+public class DeltaPairFilter implements Closeable {
+	/**
+	 * bits of a block
+	 */
+	private static final int BLOCK_BITS = 512;
+	/**
+	 * bits set in a block by a pair
+	 */
+	private static final int HASHES = 4;
+	/**
+	 * bits allocated by pair
+	 */
+	private static final long BITS_PER_PAIR = 16;
+	/**
+	 * minimum size of the filter
+	 */
+	private static final long MIN_BITS = 1L << 16;
+	/**
+	 * maximum size of the filter
+	 */
+	private static final long MAX_BITS = 1L << 34;
+	private static final int SP = 1;
+	private static final int PO = 2;
+	private static final int SO = 3;
+
+	/**
+	 * compute the number of bits of a filter
+	 *
+	 * @param triples expected number of triples in the delta store
+	 * @return number of bits, a power of 2
+	 */
+	public static long getSizeForTriples(long triples) {
+		long bits = Math.max(MIN_BITS, Math.min(MAX_BITS, Math.max(triples, 0) * 3 * BITS_PER_PAIR));
+		return Long.highestOneBit(bits - 1) << 1;
+	}
+
+	private final BitArrayDisk bits;
+	private final long blockMask;
+
+	/**
+	 * open or create a filter
+	 *
+	 * @param file           the filter file
+	 * @param triples        expected number of triples in the delta store, only
+	 *                       used if the file doesn't exist
+	 * @param coalesceWrites only write the modified words in the file with
+	 *                       {@link #flush()} or {@link #close()}
+	 * @throws IOException can't open the file
+	 */
+	public DeltaPairFilter(File file, long triples, boolean coalesceWrites) throws IOException {
+		long size = getSizeForTriples(triples);
+		if (file.exists() && file.length() >= Long.BYTES) {
+			// reuse the size of the existing filter
+			try (NioFile nio = new NioFile(file)) {
+				long words = nio.readLong(0);
+				if (words > 0 && Long.bitCount(words * Long.SIZE) == 1 && words * Long.SIZE >= BLOCK_BITS) {
+					size = words * Long.SIZE;
+				}
+			}
+		}
+		this.bits = new BitArrayDisk(size, file, coalesceWrites);
+		this.blockMask = size / BLOCK_BITS - 1;
+	}
+
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	private static long hash(int type, long a, long b) {
+		return mix(mix(a * 31 + type) ^ b);
+	}
+
+	private void put(int type, long a, long b) {
+		long h = hash(type, a, b);
+		long block = (h & blockMask) * BLOCK_BITS;
+		long bitHash = h >>> 28;
+		for (int i = 0; i < HASHES; i++) {
+			bits.set(block + (bitHash & (BLOCK_BITS - 1)), true);
+			bitHash >>>= 9;
+		}
+	}
+
+	private boolean contains(int type, long a, long b) {
+		long h = hash(type, a, b);
+		long block = (h & blockMask) * BLOCK_BITS;
+		long bitHash = h >>> 28;
+		for (int i = 0; i < HASHES; i++) {
+			if (!bits.access(block + (bitHash & (BLOCK_BITS - 1)))) {
+				return false;
+			}
+			bitHash >>>= 9;
+		}
+		return true;
+	}
+
+	private static boolean isId(long id) {
+		return id != 0 && id != -1;
+	}
+
+	/**
+	 * add the pairs of a delta triple, the components not in the HDT (0 or -1)
+	 * are ignored
+	 *
+	 * @param subject   subject id
+	 * @param predicate predicate id
+	 * @param object    object id
+	 */
+	public void add(long subject, long predicate, long object) {
+		if (isId(subject) && isId(predicate)) {
+			put(SP, subject, predicate);
+		}
+		if (isId(predicate) && isId(object)) {
+			put(PO, predicate, object);
+		}
+		if (isId(subject) && isId(object)) {
+			put(SO, subject, object);
+		}
+	}
+
+	/**
+	 * test if a triple pattern can match a triple of the delta, the components
+	 * not in the HDT (0 or -1) are considered as unbound
+	 *
+	 * @param subject   subject id
+	 * @param predicate predicate id
+	 * @param object    object id
+	 * @return false if no delta triple can match the pattern, true if a delta
+	 *         triple might match it
+	 */
+	public boolean mightContain(long subject, long predicate, long object) {
+		if (isId(subject) && isId(predicate) && !contains(SP, subject, predicate)) {
+			return false;
+		}
+		if (isId(predicate) && isId(object) && !contains(PO, predicate, object)) {
+			return false;
+		}
+		return !isId(subject) || !isId(object) || contains(SO, subject, object);
+	}
+
+	/**
+	 * @return true if no pair was added to the filter
+	 */
+	public boolean isEmpty() {
+		return bits.countOnes() == 0;
+	}
+
+	/**
+	 * @return the number of bits of the filter
+	 */
+	public long getSize() {
+		return blockMask * BLOCK_BITS + BLOCK_BITS;
+	}
+
+	/**
+	 * write the coalesced words in the file
+	 *
+	 * @throws IOException write exception
+	 */
+	public void flush() throws IOException {
+		bits.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		bits.close();
+	}
+}
@@ -168,6 +168,14 @@ public class EndpointFiles {
 		return locationHdt + "bitZ";
 	}
 
+	/**
+	 * @return the HDT delta pair filter file
+	 */
+	@ParsedStringValue("store.deltaPairFilter")
+	public String getHDTDeltaPairFilter() {
+		return locationHdt + "deltaPairs";
+	}
+
 	/**
 	 * @return the HDT file
 	 */
@@ -176,6 +184,36 @@ public class EndpointFiles {
 		return getHDTIndex(locationHdt, hdtIndexName);
 	}
 
+	/**
+	 * @return the HDT statistics file
+	 */
+	@ParsedStringValue("hdt.statistics")
+	public String getHDTStatistics() {
+		return getHDTIndex() + ".stats";
+	}
+
+	/**
+	 * @return path of {@link #getHDTStatistics()}
+	 */
+	public Path getHDTStatisticsPath() {
+		return Path.of(getHDTStatistics());
+	}
+
+	/**
+	 * @return the HDT value index file
+	 */
+	@ParsedStringValue("hdt.valueIndex")
+	public String getHDTValueIndex() {
+		return getHDTIndex() + ".values";
+	}
+
+	/**
+	 * @return path of {@link #getHDTValueIndex()}
+	 */
+	public Path getHDTValueIndexPath() {
+		return Path.of(getHDTValueIndex());
+	}
+
 	/**
 	 * @return the HDT file with HDT version
 	 */
@@ -222,6 +260,15 @@ public class EndpointFiles {
 		return locationHdt + hdtIndexName + ".new.hdt" + HDTVersion.get_index_suffix("-");
 	}
 
+	/**
+	 * @return the directory of the mapping from the old HDT IDs to the new HDT
+	 *         IDs, written by the merge
+	 */
+	@ParsedStringValue("hdt.new.mappingLocation")
+	public String getHDTNewMapping() {
+		return locationHdt + hdtIndexName + ".new.mapping";
+	}
+
 	/**
 	 * @return the delete triple
 	 *         {@link com.the_qa_company.qendpoint.utils.BitArrayDisk} file
@@ -1,15 +1,13 @@
 package com.the_qa_company.qendpoint.store;
 
-import com.the_qa_company.qendpoint.core.enums.TripleComponentRole;
+import com.the_qa_company.qendpoint.core.dictionary.impl.kcat.KCatMapping;
 import com.the_qa_company.qendpoint.core.exceptions.NotFoundException;
 import com.the_qa_company.qendpoint.core.exceptions.ParserException;
 import com.the_qa_company.qendpoint.core.hdt.HDT;
 import com.the_qa_company.qendpoint.core.hdt.HDTManager;
 import com.the_qa_company.qendpoint.core.options.HDTOptions;
 import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
-import com.the_qa_company.qendpoint.core.triples.IteratorTripleID;
 import com.the_qa_company.qendpoint.core.triples.IteratorTripleString;
-import com.the_qa_company.qendpoint.core.triples.TripleID;
 import com.the_qa_company.qendpoint.core.triples.TripleString;
 import com.the_qa_company.qendpoint.core.util.StopWatch;
 import com.the_qa_company.qendpoint.core.util.io.Closer;
@@ -19,6 +17,8 @@ import com.the_qa_company.qendpoint.model.SimpleIRIHDT;
 import com.the_qa_company.qendpoint.utils.BitArrayDisk;
 import com.the_qa_company.qendpoint.utils.CloseSafeHDT;
 import com.the_qa_company.qendpoint.utils.OverrideHDTOptions;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.file.PathUtils;
 import org.eclipse.rdf4j.common.concurrent.locks.Lock;
@@ -77,6 +77,19 @@ public class EndpointStore extends AbstractNotifyingSail {
 	 * set the user locales
 	 */
 	public static final String QUERY_CONFIG_USER_LOCALES = "user_locales";
+	/**
+	 * don't use the query result cache
+	 */
+	public static final String QUERY_CONFIG_NO_CACHE = "no_cache";
+	/**
+	 * default maximum number of plans in the query plan cache
+	 */
+	public static final int DEFAULT_QUERY_PLAN_CACHE_SIZE = 256;
+	/**
+	 * expected number of delta triples used to size the delta pair filter if
+	 * the automatic merge is disabled
+	 */
+	public static final int DEFAULT_DELTA_PAIR_FILTER_TRIPLES = 100_000;
 	private static final AtomicLong ENDPOINT_DEBUG_ID_GEN = new AtomicLong();
 	private static final Logger logger = LoggerFactory.getLogger(EndpointStore.class);
 	private final long debugId;
@@ -109,6 +122,8 @@ public class EndpointStore extends AbstractNotifyingSail {
 	private BitArrayDisk bitX;
 	private BitArrayDisk bitY;
 	private BitArrayDisk bitZ;
+	// filter of the id pairs used in the rdf4j delta store, null if disabled
+	private DeltaPairFilter deltaPairFilter;
 
 	// marks if store A or store B is used
 	public boolean switchStore = false;
@@ -120,6 +135,20 @@ public class EndpointStore extends AbstractNotifyingSail {
 
 	public boolean isMergeTriggered = false;
 
+	// version of the data, incremented after each change
+	private final AtomicLong dataVersion = new AtomicLong();
+
+	// statistics of the HDT, null if disabled or loading
+	private volatile HDTStatistics statistics;
+	// value index of the HDT, null if disabled or loading
+	private volatile HDTValueIndex valueIndex;
+	// thread loading the statistics and the value index of the HDT after a
+	// merge, null if they are loaded with the HDT
+	private volatile Thread hdtIndexesThread;
+
+	// cache of the optimized query plans, cleared after a reset of the HDT
+	private EndpointStoreQueryPlanCache queryPlanCache = new EndpointStoreQueryPlanCache(DEFAULT_QUERY_PLAN_CACHE_SIZE);
+
 	private boolean freezeNotifications = false;
 
 	// threshold above which the merge process is starting
@@ -146,6 +175,7 @@ public class EndpointStore extends AbstractNotifyingSail {
 	private MergeRunnable.MergeThread<?> mergerThread;
 	private final AtomicReference<EndpointStoreDump> dump = new AtomicReference<>();
 	private final AtomicBoolean dumping = new AtomicBoolean();
+	private volatile EndpointStoreMetrics metrics;
 
 	public void deleteNativeLocks() throws IOException {
 		// remove lock files of a hard shutdown (SAIL is already locked by
@@ -167,6 +197,7 @@ public class EndpointStore extends AbstractNotifyingSail {
 		debugId = ENDPOINT_DEBUG_ID_GEN.incrementAndGet();
 		EndpointStoreUtils.openEndpoint(this);
 		this.endpointFiles = files;
+		this.metrics = new EndpointStoreMetrics(this, Metrics.globalRegistry);
 		this.loadIntoMemory = loadIntoMemory;
 		this.mergeRunnable = new MergeRunnable(this);
 		logger.info("CHECK IF A PREVIOUS MERGE WAS STOPPED");
@@ -213,7 +244,9 @@ public class EndpointStore extends AbstractNotifyingSail {
 		this.nativeStoreA.init();
 		this.nativeStoreB.init();
 		checkWhichStore();
-		resetHDT(hdt, false);
+		// the statistics and the value index can be computed for a new HDT,
+		// don't block the opening of the store
+		resetHDT(hdt, false, true);
 		this.valueFactory = new EndpointStoreValueFactory(hdt);
 		this.threshold = 100000;
 
@@ -290,14 +323,16 @@ public class EndpointStore extends AbstractNotifyingSail {
 		if (this.bitX != null) {
 			bitX.close();
 		}
-		this.bitX = new BitArrayDisk(hdt.getDictionary().getNsubjects(), endpointFiles.getHDTBitX());
+		this.bitX = new BitArrayDisk(hdt.getDictionary().getNsubjects(), new File(endpointFiles.getHDTBitX()),
+				isCoalesceWrites());
 	}
 
 	public void reloadBitY() throws IOException {
 		if (this.bitY != null) {
 			bitY.close();
 		}
-		this.bitY = new BitArrayDisk(hdt.getDictionary().getNpredicates(), endpointFiles.getHDTBitY());
+		this.bitY = new BitArrayDisk(hdt.getDictionary().getNpredicates(), new File(endpointFiles.getHDTBitY()),
+				isCoalesceWrites());
 	}
 
 	public void reloadBitZ() throws IOException {
@@ -305,20 +340,56 @@ public class EndpointStore extends AbstractNotifyingSail {
 			bitZ.close();
 		}
 		this.bitZ = new BitArrayDisk(hdt.getDictionary().getNobjects() - hdt.getDictionary().getNshared(),
-				endpointFiles.getHDTBitZ());
+				new File(endpointFiles.getHDTBitZ()), isCoalesceWrites());
+	}
+
+	public void reloadDeltaPairFilter() throws IOException {
+		if (this.deltaPairFilter != null) {
+			deltaPairFilter.close();
+			deltaPairFilter = null;
+		}
+		if (spec.getBoolean(EndpointStoreOptions.DELTA_PAIR_FILTER, true)) {
+			this.deltaPairFilter = new DeltaPairFilter(new File(endpointFiles.getHDTDeltaPairFilter()),
+					getThreshold() > 0 ? getThreshold() : DEFAULT_DELTA_PAIR_FILTER_TRIPLES, isCoalesceWrites());
+		}
 	}
 
 	public void initNativeStoreDictionary() throws IOException {
 		reloadBitX();
 		reloadBitY();
 		reloadBitZ();
-		// if the bitmaps have not been initialized with the native store
-		if (this.bitX.countOnes() == 0 && this.bitY.countOnes() == 0 && this.bitZ.countOnes() == 0) {
+		reloadDeltaPairFilter();
+		// if the bitmaps have not been initialized with the native store, the
+		// filter is also recreated if it wasn't created with the bitmaps
+		if ((this.bitX.countOnes() == 0 && this.bitY.countOnes() == 0 && this.bitZ.countOnes() == 0)
+				|| (deltaPairFilter != null && deltaPairFilter.isEmpty())) {
 			initBitmaps();
+			this.bitX.flush();
+			this.bitY.flush();
+			this.bitZ.flush();
+			if (deltaPairFilter != null) {
+				deltaPairFilter.flush();
+			}
 		}
 	}
 
 	public void resetHDT(HDT hdt, boolean closeOld) throws IOException {
+		resetHDT(hdt, closeOld, false);
+	}
+
+	/**
+	 * set the HDT of the store
+	 *
+	 * @param hdt          the new HDT
+	 * @param closeOld     close the previous HDT
+	 * @param asyncIndexes load the statistics and the value index of the HDT in
+	 *                     another thread, the queries are optimized without
+	 *                     them until they are loaded
+	 * @throws IOException io exception
+	 */
+	public void resetHDT(HDT hdt, boolean closeOld, boolean asyncIndexes) throws IOException {
+		// the previous HDT can't be closed while its indexes are loaded
+		awaitHDTIndexes();
 		if (closeOld && this.hdt != null) {
 			try {
 				this.hdt.close();
@@ -331,6 +402,130 @@ public class EndpointStore extends AbstractNotifyingSail {
 		initNativeStoreDictionary();
 		this.setValueFactory(new EndpointStoreValueFactory(hdt));
 		this.hdtConverter = new HDTConverter(this);
+		if (asyncIndexes) {
+			// the indexes of the previous HDT are using its ids
+			this.statistics = null;
+			this.valueIndex = null;
+			Thread thread = new Thread(() -> loadHDTIndexes(hdt), "EndpointStoreHDTIndexes-" + debugId);
+			thread.setDaemon(true);
+			hdtIndexesThread = thread;
+			thread.start();
+		} else {
+			loadHDTIndexes(hdt);
+		}
+		markDataChanged();
+		// the plans are using the ids, the statistics and the value index of
+		// the previous HDT
+		clearQueryPlanCache();
+	}
+
+	private void loadHDTIndexes(HDT hdt) {
+		try {
+			this.statistics = loadStatistics(hdt);
+			this.valueIndex = loadValueIndex(hdt);
+		} catch (Throwable t) {
+			logger.error("Can't load the HDT indexes", t);
+			return;
+		}
+		// the plans were optimized without the indexes
+		clearQueryPlanCache();
+	}
+
+	private void clearQueryPlanCache() {
+		EndpointStoreQueryPlanCache planCache = queryPlanCache;
+		if (planCache != null) {
+			planCache.clear();
+		}
+	}
+
+	/**
+	 * wait for the statistics and the value index of the HDT to be loaded
+	 */
+	public void awaitHDTIndexes() {
+		Thread thread = hdtIndexesThread;
+		if (thread == null) {
+			return;
+		}
+		try {
+			thread.join();
+			hdtIndexesThread = null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SailException("Interrupted while loading the HDT indexes", e);
+		}
+	}
+
+	private HDTStatistics loadStatistics(HDT hdt) {
+		if (!spec.getBoolean(EndpointStoreOptions.STATISTICS, true)) {
+			return null;
+		}
+		try {
+			return HDTStatistics.loadOrCompute(hdt, endpointFiles.getHDTIndexPath(),
+					endpointFiles.getHDTStatisticsPath(),
+					(int) spec.getInt(EndpointStoreOptions.STATISTICS_CHARACTERISTIC_SETS,
+							EndpointStoreOptions.STATISTICS_CHARACTERISTIC_SETS_DEFAULT));
+		} catch (IOException | IllegalArgumentException e) {
+			logger.warn("Can't load the HDT statistics", e);
+			return null;
+		}
+	}
+
+	/**
+	 * @return the statistics of the current HDT, null if disabled or loading
+	 */
+	public HDTStatistics getStatistics() {
+		return statistics;
+	}
+
+	private HDTValueIndex loadValueIndex(HDT hdt) {
+		if (!spec.getBoolean(EndpointStoreOptions.VALUE_INDEX, false)) {
+			return null;
+		}
+		try {
+			return HDTValueIndex.loadOrCompute(hdt, endpointFiles.getHDTIndexPath(),
+					endpointFiles.getHDTValueIndexPath());
+		} catch (IOException e) {
+			logger.warn("Can't load the HDT value index", e);
+			return null;
+		}
+	}
+
+	/**
+	 * @return the value index of the current HDT, null if disabled or loading
+	 */
+	public HDTValueIndex getValueIndex() {
+		return valueIndex;
+	}
+
+	/**
+	 * @return the cache of the optimized query plans, null if disabled
+	 */
+	public EndpointStoreQueryPlanCache getQueryPlanCache() {
+		return queryPlanCache;
+	}
+
+	/**
+	 * set the maximum number of plans in the query plan cache
+	 *
+	 * @param size the size, 0 for disabling the cache
+	 */
+	public void setQueryPlanCacheSize(int size) {
+		queryPlanCache = size == 0 ? null : new EndpointStoreQueryPlanCache(size);
+	}
+
+	/**
+	 * @return the version of the data, incremented after the commit of a
+	 *         connection updating the store or after a reset of the HDT
+	 */
+	public long getDataVersion() {
+		return dataVersion.get();
+	}
+
+	/**
+	 * mark a change of the data, increment the data version
+	 */
+	public void markDataChanged() {
+		dataVersion.incrementAndGet();
 	}
 
 	/**
@@ -348,8 +543,8 @@ public class EndpointStore extends AbstractNotifyingSail {
 			setDeleteBitMap(new BitArrayDisk(this.hdt.getTriples().getNumberOfElements()));
 		else {
 			// @todo: these should be recovered from the file if it is there
-			setDeleteBitMap(
-					new BitArrayDisk(this.hdt.getTriples().getNumberOfElements(), endpointFiles.getTripleDeleteArr()));
+			setDeleteBitMap(new BitArrayDisk(this.hdt.getTriples().getNumberOfElements(),
+					new File(endpointFiles.getTripleDeleteArr()), isCoalesceWrites()));
 		}
 	}
 
@@ -454,10 +649,11 @@ public class EndpointStore extends AbstractNotifyingSail {
 				if (mergerThread != null) {
 					mergerThread.join();
 				}
+				awaitHDTIndexes();
 			} finally {
 				try {
 					try {
-						Closer.closeAll(hdt, bitX, bitY, bitZ, deleteBitMap);
+						Closer.closeAll(hdt, bitX, bitY, bitZ, deltaPairFilter, deleteBitMap);
 					} finally {
 						if (rdfWriterTempTriples != null) {
 							rdfWriterTempTriples.getWriter().close();
@@ -482,7 +678,11 @@ public class EndpointStore extends AbstractNotifyingSail {
 	@Override
 	public void shutDown() throws SailException {
 		EndpointStoreUtils.closeEndpoint(this);
-		super.shutDown();
+		try {
+			super.shutDown();
+		} finally {
+			metrics.close();
+		}
 	}
 
 	public boolean isLoadIntoMemory() {
@@ -614,7 +814,7 @@ public class EndpointStore extends AbstractNotifyingSail {
 	 */
 	public void initTempDeleteArray() throws IOException {
 		this.tempdeleteBitMap = new BitArrayDisk(this.hdt.getTriples().getNumberOfElements(),
-				endpointFiles.getTripleDeleteTempArr());
+				new File(endpointFiles.getTripleDeleteTempArr()), isCoalesceWrites());
 		this.tempdeleteBitMap.force(false);
 	}
 
@@ -642,110 +842,27 @@ public class EndpointStore extends AbstractNotifyingSail {
 	public void resetDeleteArray(HDT newHdt) throws IOException {
 		// delete array created at merge time
 
-		BitArrayDisk newDeleteArray = new BitArrayDisk(newHdt.getTriples().getNumberOfElements());
-
-		long lastOldSubject = -2;
-		long lastNewSubject = -2;
-
-		long lastOldPredicate = -2;
-		long lastNewPredicate = -2;
-
-		long lastOldObject = -2;
-		long lastNewObject = -2;
+		BitArrayDisk newDeleteArray = new BitArrayDisk(newHdt.getTriples().getNumberOfElements(), isCoalesceWrites());
 
-		// @todo: remove debug count
-		int debugSavedSubject = 0;
-		int debugSavedPredicate = 0;
-		int debugSavedObject = 0;
-		int debugTotal = 0;
 		StopWatch watch = new StopWatch();
-
-		// iterate over the temp array, convert the triples and mark it as
-		// deleted in the new HDT file
-		for (long i = 0; i < tempdeleteBitMap.getNumBits(); i++) {
-			if (tempdeleteBitMap.access(i)) { // means that a triple has been
-				// deleted during merge
-				// find the deleted triple in the old HDT index
-				TripleID tripleID = this.hdt.getTriples().findTriple(i);
-				if (tripleID.isValid()) {
-					long oldSubject = tripleID.getSubject();
-					long oldPredicate = tripleID.getPredicate();
-					long oldObject = tripleID.getObject();
-
-					// check if the last subject was this subject
-
-					long subject;
-
-					if (oldSubject != lastOldSubject) {
-						subject = newHdt.getDictionary().stringToId(
-								this.hdt.getDictionary().idToString(oldSubject, TripleComponentRole.SUBJECT),
-								TripleComponentRole.SUBJECT);
-						lastNewSubject = subject;
-						lastOldSubject = oldSubject;
-					} else {
-						subject = lastNewSubject;
-						debugSavedSubject++;
-					}
-
-					// check if the last predicate was this predicate
-
-					long predicate;
-
-					if (oldPredicate != lastOldPredicate) {
-						predicate = newHdt.getDictionary().stringToId(
-								this.hdt.getDictionary().idToString(oldPredicate, TripleComponentRole.PREDICATE),
-								TripleComponentRole.PREDICATE);
-						lastNewPredicate = predicate;
-						lastOldPredicate = oldPredicate;
-					} else {
-						predicate = lastNewPredicate;
-						debugSavedPredicate++;
-					}
-
-					// check if the last object was this object
-
-					long object;
-
-					if (oldObject != lastOldObject) {
-						object = newHdt.getDictionary().stringToId(
-								this.hdt.getDictionary().idToString(oldObject, TripleComponentRole.OBJECT),
-								TripleComponentRole.OBJECT);
-						lastNewObject = object;
-						lastOldObject = oldObject;
-					} else {
-						object = lastNewObject;
-						debugSavedObject++;
-					}
-					debugTotal++;
-
-					// search over the given triple with the ID so that we can
-					// mark the new array..
-					TripleID triple = new TripleID(subject, predicate, object);
-
-					if (!triple.isNoMatch()) {
-						IteratorTripleID next = newHdt.getTriples().search(triple);
-						if (next.hasNext()) {
-							next.next();
-							long newIndex = next.getLastTriplePosition();
-							newDeleteArray.set(newIndex, true);
-						}
-					}
-				}
-			}
+		int workers = (int) spec.getInt(EndpointStoreOptions.MERGE_REMAP_WORKERS,
+				Runtime.getRuntime()::availableProcessors);
+
+		// convert the triples deleted during the merge and mark them as
+		// deleted in the new HDT file, the IDs are converted with the mapping
+		// written by the merge, it can be missing if the merge was restarted
+		// with a previous version
+		Path mappingLocation = Path.of(endpointFiles.getHDTNewMapping());
+		long marked;
+		try (KCatMapping mapping = KCatMapping.exists(mappingLocation, 0) ? new KCatMapping(mappingLocation, 0)
+				: null) {
+			marked = new DeleteBitmapRemapper(this.hdt, newHdt, mapping, workers).remap(tempdeleteBitMap,
+					newDeleteArray);
 		}
 
+		logger.debug("Remapped {}/{} deleted triple(s) in {}", marked, tempdeleteBitMap.countOnes(),
+				watch.stopAndShow());
 		if (MergeRunnableStopPoint.debug) {
-			logger.debug("HDT cache saved element(s) ones={} in {}", tempdeleteBitMap.countOnes(), watch.stopAndShow());
-			if (debugTotal != 0) {
-				logger.debug("debugSavedSubject        : {} % | {} / {}", 100 * debugSavedSubject / debugTotal,
-						debugSavedSubject, debugTotal);
-				logger.debug("debugSavedPredicate      : {} % | {} / {}", 100 * debugSavedPredicate / debugTotal,
-						debugSavedPredicate, debugTotal);
-				logger.debug("debugSavedObject         : {} % | {} / {}", 100 * debugSavedObject / debugTotal,
-						debugSavedObject, debugTotal);
-			} else {
-				logger.debug("no remap");
-			}
 			logger.debug("Tmp map: {}", tempdeleteBitMap.printInfo());
 			logger.debug("New map: {}", newDeleteArray.printInfo());
 		}
@@ -779,6 +896,8 @@ public class EndpointStore extends AbstractNotifyingSail {
 				throw new RuntimeException(e);
 			}
 		}
+		// write the coalesced words before the deletion of the temp files
+		this.deleteBitMap.force(true);
 	}
 
 	// called from a locked block
@@ -837,12 +956,15 @@ public class EndpointStore extends AbstractNotifyingSail {
 
 		if (object != -1 && object != 0) {
 			if (object <= this.hdt.getDictionary().getNshared()) {
-				return this.getBitX().access(object - 1);
-			} else {
-				return this.getBitZ().access(object - hdt.getDictionary().getNshared() - 1);
+				if (!this.getBitX().access(object - 1)) {
+					return false;
+				}
+			} else if (!this.getBitZ().access(object - hdt.getDictionary().getNshared() - 1)) {
+				return false;
 			}
 		}
-		return true;
+		// the components are in the delta, check that they are used together
+		return deltaPairFilter == null || deltaPairFilter.mightContain(subject, predicate, object);
 	}
 
 	public void modifyBitmaps(long subject, long predicate, long object) {
@@ -861,6 +983,9 @@ public class EndpointStore extends AbstractNotifyingSail {
 				this.getBitZ().set(object - hdt.getDictionary().getNshared() - 1, true);
 			}
 		}
+		if (deltaPairFilter != null) {
+			deltaPairFilter.add(subject, predicate, object);
+		}
 	}
 
 	/**
@@ -993,11 +1118,18 @@ public class EndpointStore extends AbstractNotifyingSail {
 	}
 
 	public void flushWrites() throws IOException {
+		// write the coalesced words before the commit of the native stores
 		getDeleteBitMap().force(true);
 		if (isMerging()) {
 			getRdfWriterTempTriples().getWriter().flush();
 			getTempDeleteBitMap().force(true);
 		}
+		getBitX().flush();
+		getBitY().flush();
+		getBitZ().flush();
+		if (deltaPairFilter != null) {
+			deltaPairFilter.flush();
+		}
 		logger.debug("Writes completed");
 	}
 
@@ -1009,6 +1141,14 @@ public class EndpointStore extends AbstractNotifyingSail {
 		this.triplesCount = triplesCount;
 	}
 
+	/**
+	 * @return if the bitmaps of the store are using the write-coalescing mode,
+	 *         see {@link EndpointStoreOptions#BITMAP_COALESCE_WRITES}
+	 */
+	public boolean isCoalesceWrites() {
+		return spec.getBoolean(EndpointStoreOptions.BITMAP_COALESCE_WRITES, true);
+	}
+
 	public BitArrayDisk getBitX() {
 		return bitX;
 	}
@@ -1021,6 +1161,14 @@ public class EndpointStore extends AbstractNotifyingSail {
 		return bitZ;
 	}
 
+	/**
+	 * @return the filter of the id pairs used in the delta store, null if
+	 *         {@link EndpointStoreOptions#DELTA_PAIR_FILTER} is disabled
+	 */
+	public DeltaPairFilter getDeltaPairFilter() {
+		return deltaPairFilter;
+	}
+
 	public HDTOptions getHDTSpec() {
 		return spec;
 	}
@@ -1085,6 +1233,29 @@ public class EndpointStore extends AbstractNotifyingSail {
 		dumping.set(val);
 	}
 
+	/**
+	 * @return the metrics of the store
+	 */
+	public EndpointStoreMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * set the registry of the store metrics, the meters are removed from the
+	 * previous registry, by default the metrics are registered in
+	 * {@link Metrics#globalRegistry}
+	 *
+	 * @param registry the registry
+	 */
+	public void setMeterRegistry(MeterRegistry registry) {
+		EndpointStoreMetrics old = metrics;
+		if (old.getRegistry() == registry) {
+			return;
+		}
+		old.close();
+		metrics = new EndpointStoreMetrics(this, registry);
+	}
+
 	long getDebugId() {
 		return debugId;
 	}
@@ -59,6 +59,10 @@ public class EndpointStoreConnection extends SailSourceConnection implements Con
 	private CloseTask closeTask;
 	private final AtomicBoolean timeout = new AtomicBoolean();
 	private final Map<String, String> config = new HashMap<>();
+	private final AtomicLong scannedTriples = new AtomicLong();
+	private long updateStart;
+	// if the current transaction has updated the data
+	private boolean dataUpdated;
 
 	public EndpointStoreConnection(EndpointStore endpoint) throws InterruptedException {
 		super(endpoint, endpoint.getCurrentSaliStore(), new StrictEvaluationStrategyFactory());
@@ -155,7 +159,8 @@ public class EndpointStoreConnection extends SailSourceConnection implements Con
 	@Override
 	protected CloseableIteration<? extends BindingSet, QueryEvaluationException> evaluateInternal(TupleExpr tupleExpr,
 			Dataset dataset, BindingSet bindings, boolean includeInferred) throws SailException {
-		return queryPreparer.evaluate(tupleExpr, dataset, bindings, includeInferred, 0);
+		return endpoint.getMetrics().measureQuery(this,
+				queryPreparer.evaluate(tupleExpr, dataset, bindings, includeInferred, 0));
 	}
 
 	@Override
@@ -243,6 +248,7 @@ public class EndpointStoreConnection extends SailSourceConnection implements Con
 			throw new MergeRunnableStopPoint.MergeRunnableException("connections request disabled");
 
 		isWriteConnection = true;
+		dataUpdated = true;
 
 		// System.out.println(subj.stringValue()+" - "+ pred.stringValue() + " -
 		// "+ obj.stringValue());
@@ -294,6 +300,7 @@ public class EndpointStoreConnection extends SailSourceConnection implements Con
 			this.endpoint.modifyBitmaps(subjectID, predicateID, objectID);
 			// increase the number of statements
 			this.endpoint.triplesCount++;
+			this.endpoint.getMetrics().recordAdd();
 		}
 	}
 
@@ -317,6 +324,7 @@ public class EndpointStoreConnection extends SailSourceConnection implements Con
 
 	@Override
 	protected void clearInternal(Resource... contexts) throws SailException {
+		dataUpdated = true;
 		getCurrentConnectionWrite().clear(contexts);
 	}
 
@@ -335,6 +343,14 @@ public class EndpointStoreConnection extends SailSourceConnection implements Con
 		super.commitInternal();
 		this.connA_write.commit();
 		this.connB_write.commit();
+		markDataChanged();
+	}
+
+	private void markDataChanged() {
+		if (dataUpdated) {
+			dataUpdated = false;
+			endpoint.markDataChanged();
+		}
 	}
 
 	@Override
@@ -360,6 +376,7 @@ public class EndpointStoreConnection extends SailSourceConnection implements Con
 
 	@Override
 	public void startUpdate(UpdateContext op) throws SailException {
+		updateStart = System.nanoTime();
 		// @todo: is this not strange that both are prepared?
 		this.connA_write.startUpdate(op);
 		this.connB_write.startUpdate(op);
@@ -388,11 +405,14 @@ public class EndpointStoreConnection extends SailSourceConnection implements Con
 		if (op != null) {
 			updateLock.release();
 		}
+		endpoint.getMetrics().recordUpdate(updateStart);
 	}
 
 	@Override
 	protected void rollbackInternal() throws SailException {
 		getCurrentConnectionWrite().rollback();
+		// the delete bitmap isn't rolled back
+		markDataChanged();
 	}
 
 	@Override
@@ -452,6 +472,7 @@ public class EndpointStoreConnection extends SailSourceConnection implements Con
 			throw new MergeRunnableStopPoint.MergeRunnableException("connections request disabled");
 
 		isWriteConnection = true;
+		dataUpdated = true;
 
 		Resource newSubj;
 		IRI newPred;
@@ -487,6 +508,7 @@ public class EndpointStoreConnection extends SailSourceConnection implements Con
 			this.getCurrentConnectionWrite().removeStatement(op, newSubj, newPred, newObj, contexts);
 		}
 		// this.endpoint.triplesCount--;
+		this.endpoint.getMetrics().recordRemove();
 
 		TripleID tripleID = getTripleID(subjectID, predicateID, objectID);
 		assignBitMapDeletes(tripleID, subj, pred, obj);
@@ -638,6 +660,13 @@ public class EndpointStoreConnection extends SailSourceConnection implements Con
 		return timeout.get();
 	}
 
+	/**
+	 * @return the number of triples scanned by the iterators of this connection
+	 */
+	public AtomicLong getScannedTriples() {
+		return scannedTriples;
+	}
+
 	public EndpointStore getEndpoint() {
 		return endpoint;
 	}
@@ -28,24 +28,27 @@ public class EndpointStoreEvaluationStatisticsHDT extends EvaluationStatistics {
 			Value predicate = getConstantValue(sp.getPredicateVar());
 			Value object = getConstantValue(sp.getObjectVar());
 
-			HDTConverter hdtConverter = new HDTConverter(endpoint);
+			HDTConverter hdtConverter = endpoint.getHdtConverter();
 			long subId = hdtConverter.subjectToID((Resource) subject);
 			long predId = hdtConverter.predicateToID((IRI) predicate);
 			long objId = hdtConverter.objectToID(object);
 
 			double cardinality;
 
-			if (subId == 0 && predId == 0 && objId == 0) {
-				/*
-				 * apparently we got all variables in the triple so we'll not
-				 * search the whole knowledge base to get the cardinality so put
-				 * we put a high card to put this triple on last in the ordering
-				 * scenario
-				 */
-				cardinality = Double.MAX_VALUE;
+			if (subId == -1 || predId == -1 || objId == -1) {
+				// a constant isn't in the HDT, the triples can only be in the
+				// delta
+				cardinality = 0;
+			} else if (subId == 0 && predId == 0 && objId == 0) {
+				cardinality = endpoint.getHdt().getTriples().getNumberOfElements();
 			} else {
-				cardinality = endpoint.getHdt().getTriples().search(new TripleID(subId, predId, objId))
-						.estimatedNumResults();
+				HDTStatistics statistics = endpoint.getStatistics();
+				if (statistics != null && subId == 0 && objId == 0) {
+					cardinality = statistics.getPredicateTriples(predId);
+				} else {
+					cardinality = endpoint.getHdt().getTriples().search(new TripleID(subId, predId, objId))
+							.estimatedNumResults();
+				}
 			}
 			return cardinality;
 		}
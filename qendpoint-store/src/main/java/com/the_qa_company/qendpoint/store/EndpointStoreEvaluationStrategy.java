@@ -0,0 +1,327 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.model.SimpleLiteralHDT;
+import org.eclipse.rdf4j.collection.factory.api.CollectionFactory;
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.FilterIteration;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.base.CoreDatatype;
+import org.eclipse.rdf4j.model.impl.BooleanLiteral;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.Dataset;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.algebra.Compare;
+import org.eclipse.rdf4j.query.algebra.Distinct;
+import org.eclipse.rdf4j.query.algebra.Join;
+import org.eclipse.rdf4j.query.algebra.SameTerm;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.evaluation.QueryEvaluationStep;
+import org.eclipse.rdf4j.query.algebra.evaluation.QueryValueEvaluationStep;
+import org.eclipse.rdf4j.query.algebra.evaluation.TripleSource;
+import org.eclipse.rdf4j.query.algebra.evaluation.federation.FederatedServiceResolver;
+import org.eclipse.rdf4j.query.algebra.evaluation.impl.EvaluationStatistics;
+import org.eclipse.rdf4j.query.algebra.evaluation.impl.ExtendedEvaluationStrategy;
+import org.eclipse.rdf4j.query.algebra.evaluation.impl.QueryEvaluationContext;
+import org.eclipse.rdf4j.query.algebra.evaluation.impl.evaluationsteps.StatementPatternQueryEvaluationStep;
+import org.eclipse.rdf4j.query.algebra.evaluation.util.QueryEvaluationUtil;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Evaluation strategy of the {@link EndpointStore}, the HDT values are compared
+ * with their HDT IDs for the equality filters, sameTerm and DISTINCT, the
+ * strings are only read from the dictionary when the values are projected or
+ * when the IDs can't be compared. The joins between 2 triple patterns are done
+ * over the HDT IDs, see {@link EndpointStoreIdJoinStep}.
+ *
+ * @author Antoine Willerval
+ */
+public class EndpointStoreEvaluationStrategy extends ExtendedEvaluationStrategy {
+	private final EndpointTripleSource endpointTripleSource;
+	private final HDTConverter converter;
+	private final boolean idJoin;
+	// search the patterns only in the delta store
+	private final TripleSource deltaTripleSource;
+
+	public EndpointStoreEvaluationStrategy(EndpointTripleSource tripleSource, Dataset dataset,
+			FederatedServiceResolver serviceResolver, long iterationCacheSyncThreshold,
+			EvaluationStatistics evaluationStatistics) {
+		super(tripleSource, dataset, serviceResolver, iterationCacheSyncThreshold, evaluationStatistics);
+		this.endpointTripleSource = tripleSource;
+		this.converter = tripleSource.getEndpointStore().getHdtConverter();
+		this.idJoin = tripleSource.getEndpointStore().getHDTSpec().getBoolean(EndpointStoreOptions.ID_JOIN, true);
+		this.deltaTripleSource = new TripleSource() {
+			@Override
+			public CloseableIteration<? extends Statement, QueryEvaluationException> getStatements(Resource subj,
+					IRI pred, Value obj, Resource... contexts) throws QueryEvaluationException {
+				return endpointTripleSource.getDeltaStatements(subj, pred, obj, contexts);
+			}
+
+			@Override
+			public ValueFactory getValueFactory() {
+				return endpointTripleSource.getValueFactory();
+			}
+		};
+	}
+
+	/**
+	 * compare 2 values with their ids
+	 *
+	 * @param left  left value
+	 * @param right right value
+	 * @return {@link Boolean#TRUE} if the values are the same term,
+	 *         {@link Boolean#FALSE} if they are different terms or null if the
+	 *         ids can't be compared
+	 */
+	private Boolean sameTermById(Value left, Value right) {
+		long leftKey = converter.idKey(left);
+		if (leftKey == HDTConverter.NO_ID_KEY) {
+			return null;
+		}
+		long rightKey = converter.idKey(right);
+		if (rightKey == HDTConverter.NO_ID_KEY) {
+			return null;
+		}
+		if (HDTConverter.isPredicateIdKey(leftKey) != HDTConverter.isPredicateIdKey(rightKey)) {
+			// a predicate can also be a subject or an object
+			return null;
+		}
+		return leftKey == rightKey;
+	}
+
+	/**
+	 * @param value value
+	 * @return if the value is a NaN float or double literal
+	 */
+	private static boolean isNaN(Value value) {
+		if (!(value instanceof Literal literal)) {
+			return false;
+		}
+		CoreDatatype datatype = literal.getCoreDatatype();
+		return (datatype == CoreDatatype.XSD.DOUBLE || datatype == CoreDatatype.XSD.FLOAT)
+				&& literal.getLabel().trim().equals("NaN");
+	}
+
+	/**
+	 * @param value value
+	 * @return if the value is a numeric literal
+	 */
+	private static boolean isNumeric(Value value) {
+		return value instanceof Literal literal
+				&& literal.getCoreDatatype().asXSDDatatype().map(CoreDatatype.XSD::isNumericDatatype).orElse(false);
+	}
+
+	@Override
+	protected QueryValueEvaluationStep prepare(Compare node, QueryEvaluationContext context) {
+		if (node instanceof EndpointStoreValueRangeOptimizer.RangeCompare rangeNode) {
+			return prepareRange(rangeNode, context);
+		}
+		Compare.CompareOp op = node.getOperator();
+		if (op != Compare.CompareOp.EQ && op != Compare.CompareOp.NE) {
+			return super.prepare(node, context);
+		}
+		QueryValueEvaluationStep leftStep = precompile(node.getLeftArg(), context);
+		QueryValueEvaluationStep rightStep = precompile(node.getRightArg(), context);
+		return bindings -> {
+			Value left = leftStep.evaluate(bindings);
+			Value right = rightStep.evaluate(bindings);
+			// NaN isn't equal to any number, even itself (op:numeric-equal)
+			if (isNaN(left) && isNumeric(right) || isNaN(right) && isNumeric(left)) {
+				return BooleanLiteral.valueOf(op == Compare.CompareOp.NE);
+			}
+			Boolean same = sameTermById(left, right);
+			// two different literals can still have the same value
+			if (same != null && (same || !left.isLiteral() || !right.isLiteral())) {
+				return BooleanLiteral.valueOf(same == (op == Compare.CompareOp.EQ));
+			}
+			return BooleanLiteral.valueOf(QueryEvaluationUtil.compare(left, right, op, false));
+		};
+	}
+
+	/**
+	 * compare the HDT literals with their rank in the value index, the other
+	 * values are compared with the constant
+	 */
+	private QueryValueEvaluationStep prepareRange(EndpointStoreValueRangeOptimizer.RangeCompare node,
+			QueryEvaluationContext context) {
+		QueryValueEvaluationStep valueStep = precompile(node.getValueArg(), context);
+		QueryValueEvaluationStep compareStep = super.prepare(node, context);
+		HDTValueIndex.ValueRange range = node.getRange();
+		return bindings -> {
+			if (valueStep.evaluate(bindings) instanceof SimpleLiteralHDT literal) {
+				Boolean contains = range.contains(literal.getHdtID());
+				if (contains != null) {
+					// the indexed literals can be already searched by id
+					return BooleanLiteral.valueOf(contains && !node.isExcludeIndexed());
+				}
+			}
+			return compareStep.evaluate(bindings);
+		};
+	}
+
+	@Override
+	protected QueryEvaluationStep prepare(StatementPattern node, QueryEvaluationContext context)
+			throws QueryEvaluationException {
+		if (node instanceof EndpointStoreValueRangeOptimizer.DeltaStatementPattern) {
+			return new StatementPatternQueryEvaluationStep(node, context, deltaTripleSource);
+		}
+		return super.prepare(node, context);
+	}
+
+	@Override
+	protected QueryValueEvaluationStep prepare(SameTerm node, QueryEvaluationContext context) {
+		QueryValueEvaluationStep leftStep = precompile(node.getLeftArg(), context);
+		QueryValueEvaluationStep rightStep = precompile(node.getRightArg(), context);
+		return bindings -> {
+			Value left = leftStep.evaluate(bindings);
+			Value right = rightStep.evaluate(bindings);
+			Boolean same = sameTermById(left, right);
+			if (same != null) {
+				return BooleanLiteral.valueOf(same);
+			}
+			return BooleanLiteral.valueOf(left != null && left.equals(right));
+		};
+	}
+
+	@Override
+	protected QueryEvaluationStep prepare(Join node, QueryEvaluationContext context) throws QueryEvaluationException {
+		QueryEvaluationStep step = super.prepare(node, context);
+		if (!idJoin) {
+			return step;
+		}
+		EndpointStoreIdJoinStep idJoinStep = EndpointStoreIdJoinStep.of(node, context, step, endpointTripleSource);
+		return idJoinStep != null ? idJoinStep : step;
+	}
+
+	@Override
+	protected QueryEvaluationStep prepare(Distinct node, QueryEvaluationContext context)
+			throws QueryEvaluationException {
+		QueryEvaluationStep child = precompile(node.getArg(), context);
+		Set<String> argNames = node.getArg().getBindingNames();
+		return bindings -> {
+			Set<String> names = argNames;
+			if (!bindings.isEmpty()) {
+				names = new LinkedHashSet<>(argNames);
+				names.addAll(bindings.getBindingNames());
+			}
+			return new IdDistinctIteration(child.evaluate(bindings), names.toArray(String[]::new),
+					getCollectionFactory().get());
+		};
+	}
+
+	/**
+	 * distinct iteration using the HDT ids of the bindings, the set of the seen
+	 * solutions is created by the collection factory of the strategy
+	 */
+	private class IdDistinctIteration extends FilterIteration<BindingSet, QueryEvaluationException> {
+		private final String[] names;
+		private final CollectionFactory collectionFactory;
+		private final Set<DistinctKey> seen;
+		private final Map<Long, Long> predicateKeys = new HashMap<>();
+
+		IdDistinctIteration(CloseableIteration<BindingSet, QueryEvaluationException> iter, String[] names,
+				CollectionFactory collectionFactory) {
+			super(iter);
+			this.names = names;
+			this.collectionFactory = collectionFactory;
+			this.seen = collectionFactory.createSet();
+		}
+
+		@Override
+		protected boolean accept(BindingSet bindings) throws QueryEvaluationException {
+			long[] ids = new long[names.length];
+			Object[] values = null;
+			int bound = 0;
+			for (int i = 0; i < names.length; i++) {
+				Value value = bindings.getValue(names[i]);
+				if (value == null) {
+					ids[i] = HDTConverter.NO_ID_KEY;
+					continue;
+				}
+				bound++;
+				long key = converter.idKey(value);
+				if (key == HDTConverter.NO_ID_KEY) {
+					Object resolved = converter.resolveIdKey(value);
+					if (resolved instanceof Long resolvedKey) {
+						key = resolvedKey;
+					} else {
+						// not an HDT term, compared with its value
+						if (values == null) {
+							values = new Object[names.length + 1];
+						}
+						values[i] = resolved;
+					}
+				} else if (HDTConverter.isPredicateIdKey(key)) {
+					key = predicateKeys.computeIfAbsent(key, converter::resolvePredicateIdKey);
+				}
+				ids[i] = key;
+			}
+			if (bound != bindings.size()) {
+				// binding not in the expected names, compared with its solution
+				if (values == null) {
+					values = new Object[names.length + 1];
+				}
+				values[names.length] = bindings;
+			}
+			return seen.add(new DistinctKey(ids, values));
+		}
+
+		@Override
+		protected void handleClose() throws QueryEvaluationException {
+			try {
+				super.handleClose();
+			} finally {
+				try {
+					collectionFactory.close();
+				} finally {
+					predicateKeys.clear();
+				}
+			}
+		}
+	}
+
+	/**
+	 * key of a distinct solution, the id keys of the bindings in the order of
+	 * the binding names, the values are only set for the values without id key
+	 */
+	private static final class DistinctKey implements Serializable {
+		@Serial
+		private static final long serialVersionUID = 1L;
+		private final long[] ids;
+		private final Object[] values;
+		private final int hash;
+
+		DistinctKey(long[] ids, Object[] values) {
+			this.ids = ids;
+			this.values = values;
+			this.hash = 31 * Arrays.hashCode(ids) + Arrays.hashCode(values);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof DistinctKey other)) {
+				return false;
+			}
+			return hash == other.hash && Arrays.equals(ids, other.ids) && Arrays.equals(values, other.values);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+}
@@ -0,0 +1,678 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.core.enums.TripleComponentOrder;
+import com.the_qa_company.qendpoint.core.enums.TripleComponentRole;
+import com.the_qa_company.qendpoint.core.iterator.SequentialSearchIteratorTripleID;
+import com.the_qa_company.qendpoint.core.triples.IteratorTripleID;
+import com.the_qa_company.qendpoint.core.triples.TripleID;
+import com.the_qa_company.qendpoint.core.triples.impl.BitmapTriplesIterator;
+import com.the_qa_company.qendpoint.core.triples.impl.BitmapTriplesIteratorPermutation;
+import com.the_qa_company.qendpoint.core.triples.impl.BitmapTriplesIteratorY;
+import com.the_qa_company.qendpoint.core.triples.impl.BitmapTriplesIteratorYFOQ;
+import com.the_qa_company.qendpoint.core.triples.impl.BitmapTriplesIteratorZ;
+import com.the_qa_company.qendpoint.core.triples.impl.TripleOrderConvert;
+import com.the_qa_company.qendpoint.store.exception.EndpointTimeoutException;
+import com.the_qa_company.qendpoint.utils.BitArrayDisk;
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.LookAheadIteration;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.MutableBindingSet;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.algebra.Join;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.Var;
+import org.eclipse.rdf4j.query.algebra.evaluation.QueryEvaluationStep;
+import org.eclipse.rdf4j.query.algebra.evaluation.impl.QueryEvaluationContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Join of 2 triple patterns over the HDT IDs. If a pattern is much smaller than
+ * the other, its join keys are searched in the other pattern (bind join over
+ * the IDs), otherwise a merge join is used if the HDT iterators of both
+ * patterns are sorted by the join variable (for example a subject star with the
+ * predicates bound), the sorted iterators are moved to the next key of the
+ * other pattern without reading the triples between them. The smallest pattern
+ * is put in an ID hash map if the patterns aren't sorted. The default join is
+ * used if the delta store can contain triples for one of the patterns or if the
+ * join variable is already bound.
+ *
+ * @author Antoine Willerval
+ */
+public class EndpointStoreIdJoinStep implements QueryEvaluationStep {
+	private static final TripleComponentRole[] ROLES = { TripleComponentRole.SUBJECT, TripleComponentRole.PREDICATE,
+			TripleComponentRole.OBJECT };
+	/**
+	 * number of results read before checking the timeout
+	 */
+	private static final int TIMEOUT_CHECK_STEP = 0x1000;
+	/**
+	 * shift of the space of the non-shared subject and object join keys
+	 */
+	private static final int KEY_SPACE_SHIFT = 61;
+	/**
+	 * mask of the id of a join key
+	 */
+	private static final long KEY_ID_MASK = (1L << KEY_SPACE_SHIFT) - 1;
+
+	/**
+	 * create the ID join step of a join if it can be used
+	 *
+	 * @param join         join
+	 * @param context      evaluation context
+	 * @param fallback     default join step
+	 * @param tripleSource triple source
+	 * @return step, null if the join isn't between 2 triple patterns with a
+	 *         common variable
+	 */
+	public static EndpointStoreIdJoinStep of(Join join, QueryEvaluationContext context, QueryEvaluationStep fallback,
+			EndpointTripleSource tripleSource) {
+		if (context.getDataset() != null || !(join.getLeftArg() instanceof StatementPattern left)
+				|| !(join.getRightArg() instanceof StatementPattern right)) {
+			return null;
+		}
+		Pattern leftPattern = Pattern.of(left);
+		Pattern rightPattern = Pattern.of(right);
+		if (leftPattern == null || rightPattern == null) {
+			return null;
+		}
+		List<String> joinVars = new ArrayList<>();
+		for (Var var : leftPattern.vars) {
+			if (var.hasValue() || rightPattern.indexOf(var.getName()) == -1) {
+				continue;
+			}
+			// a predicate can also be a subject or an object, the ids can't be
+			// compared
+			boolean leftPredicate = leftPattern.indexOf(var.getName()) == 1;
+			boolean rightPredicate = rightPattern.indexOf(var.getName()) == 1;
+			if (leftPredicate != rightPredicate) {
+				return null;
+			}
+			joinVars.add(var.getName());
+		}
+		if (joinVars.isEmpty()) {
+			return null;
+		}
+		return new EndpointStoreIdJoinStep(leftPattern, rightPattern, joinVars, context, fallback, tripleSource);
+	}
+
+	private final Pattern left;
+	private final Pattern right;
+	private final List<String> joinVars;
+	private final QueryEvaluationContext context;
+	private final QueryEvaluationStep fallback;
+	private final EndpointTripleSource tripleSource;
+	private final EndpointStore endpoint;
+	private final long hashMaxSize;
+	private final long lookupCost;
+
+	private EndpointStoreIdJoinStep(Pattern left, Pattern right, List<String> joinVars, QueryEvaluationContext context,
+			QueryEvaluationStep fallback, EndpointTripleSource tripleSource) {
+		this.left = left;
+		this.right = right;
+		this.joinVars = joinVars;
+		this.context = context;
+		this.fallback = fallback;
+		this.tripleSource = tripleSource;
+		this.endpoint = tripleSource.getEndpointStore();
+		this.hashMaxSize = endpoint.getHDTSpec().getInt(EndpointStoreOptions.ID_JOIN_HASH_MAX_SIZE,
+				EndpointStoreOptions.ID_JOIN_HASH_MAX_SIZE_DEFAULT);
+		this.lookupCost = Math.max(1, endpoint.getHDTSpec().getInt(EndpointStoreOptions.ID_JOIN_LOOKUP_COST,
+				EndpointStoreOptions.ID_JOIN_LOOKUP_COST_DEFAULT));
+	}
+
+	@Override
+	public CloseableIteration<BindingSet, QueryEvaluationException> evaluate(BindingSet bindings) {
+		for (String joinVar : joinVars) {
+			if (bindings.hasBinding(joinVar)) {
+				return fallback.evaluate(bindings);
+			}
+		}
+		HDTConverter converter = endpoint.getHdtConverter();
+		TripleID leftPattern = left.toTripleID(bindings, converter);
+		TripleID rightPattern = right.toTripleID(bindings, converter);
+		if (leftPattern == null || rightPattern == null) {
+			return fallback.evaluate(bindings);
+		}
+		if (leftPattern.isNoMatch() || rightPattern.isNoMatch()) {
+			// at least one pattern isn't in the HDT, only the delta can have
+			// results
+			return fallback.evaluate(bindings);
+		}
+		if (left.hasDeltaStatements(tripleSource, bindings, leftPattern)
+				|| right.hasDeltaStatements(tripleSource, bindings, rightPattern)) {
+			return fallback.evaluate(bindings);
+		}
+
+		String joinVar = joinVars.get(0);
+		int leftJoinIndex = left.indexOf(joinVar);
+		int rightJoinIndex = right.indexOf(joinVar);
+
+		IteratorTripleID leftIt = endpoint.getHdt().getTriples().search(leftPattern);
+		IteratorTripleID rightIt = endpoint.getHdt().getTriples().search(rightPattern);
+
+		long leftSize = leftIt.estimatedNumResults();
+		long rightSize = rightIt.estimatedNumResults();
+		// searching the keys of a small pattern is cheaper than reading the
+		// other pattern
+		if (Math.min(leftSize, rightSize) * lookupCost < Math.max(leftSize, rightSize)) {
+			if (leftSize <= rightSize) {
+				return new LookupJoinIteration(bindings, new PatternReader(leftIt, leftJoinIndex), rightPattern,
+						rightJoinIndex, true);
+			} else {
+				return new LookupJoinIteration(bindings, new PatternReader(rightIt, rightJoinIndex), leftPattern,
+						leftJoinIndex, false);
+			}
+		}
+
+		if (isSortedBy(leftIt, leftPattern, leftJoinIndex) && isSortedBy(rightIt, rightPattern, rightJoinIndex)) {
+			return new MergeJoinIteration(bindings, new PatternReader(leftIt, leftJoinIndex),
+					new PatternReader(rightIt, rightJoinIndex));
+		}
+
+		if (Math.min(leftSize, rightSize) > hashMaxSize) {
+			return fallback.evaluate(bindings);
+		}
+		if (leftSize <= rightSize) {
+			return new HashJoinIteration(bindings, new PatternReader(leftIt, leftJoinIndex),
+					new PatternReader(rightIt, rightJoinIndex), true);
+		} else {
+			return new HashJoinIteration(bindings, new PatternReader(rightIt, rightJoinIndex),
+					new PatternReader(leftIt, leftJoinIndex), false);
+		}
+	}
+
+	/**
+	 * test if the results of an HDT iterator are sorted by a component
+	 *
+	 * @param it        iterator
+	 * @param pattern   searched pattern
+	 * @param component component index (0 subject, 1 predicate, 2 object)
+	 * @return true if the results are sorted by this component
+	 */
+	static boolean isSortedBy(IteratorTripleID it, TripleID pattern, int component) {
+		// only the iterators reading the triples in the order of their index
+		// are known, the object index isn't sorted by subject
+		if (!(it instanceof BitmapTriplesIterator || it instanceof BitmapTriplesIteratorY
+				|| it instanceof BitmapTriplesIteratorYFOQ || it instanceof BitmapTriplesIteratorZ
+				|| it instanceof SequentialSearchIteratorTripleID || it instanceof BitmapTriplesIteratorPermutation)) {
+			return false;
+		}
+		TripleComponentOrder order = it.getOrder();
+		// the first unbound component in the order of the index is sorted
+		TripleID componentPattern = new TripleID(pattern);
+		TripleOrderConvert.swapComponentOrder(componentPattern, TripleComponentOrder.SPO, order);
+		TripleID components = new TripleID(1, 2, 3);
+		TripleOrderConvert.swapComponentOrder(components, TripleComponentOrder.SPO, order);
+		for (int i = 0; i < 3; i++) {
+			if (get(componentPattern, i) != 0) {
+				continue;
+			}
+			return get(components, i) == component + 1;
+		}
+		return false;
+	}
+
+	private static long get(TripleID triple, int index) {
+		return switch (index) {
+		case 0 -> triple.getSubject();
+		case 1 -> triple.getPredicate();
+		case 2 -> triple.getObject();
+		default -> throw new IllegalArgumentException("bad index: " + index);
+		};
+	}
+
+	/**
+	 * get a join key for a component of a triple, the subject and object
+	 * non-shared ids are moved after the shared ids to keep the order
+	 *
+	 * @param triple triple
+	 * @param index  component index
+	 * @return key
+	 */
+	private long joinKey(TripleID triple, int index) {
+		long id = get(triple, index);
+		if (index == 1 || id <= endpoint.getHdt().getDictionary().getNshared()) {
+			return id;
+		}
+		return id | (index == 0 ? 1L : 2L) << KEY_SPACE_SHIFT;
+	}
+
+	/**
+	 * get the smallest id of a component with a join key greater or equal to a
+	 * key
+	 *
+	 * @param key   key
+	 * @param index component index
+	 * @return id, {@link Long#MAX_VALUE} if no id of this component is greater
+	 */
+	private long seekId(long key, int index) {
+		long space = key >>> KEY_SPACE_SHIFT;
+		if (index == 1 || space == 0 || space == (index == 0 ? 1 : 2)) {
+			return key & KEY_ID_MASK;
+		}
+		if (space < (index == 0 ? 1 : 2)) {
+			// the subject keys are before the non-shared objects
+			return endpoint.getHdt().getDictionary().getNshared() + 1;
+		}
+		return Long.MAX_VALUE;
+	}
+
+	/**
+	 * get the id of a component with a join key
+	 *
+	 * @param key   key
+	 * @param index component index
+	 * @return id, 0 if no id of this component has this key
+	 */
+	private long lookupId(long key, int index) {
+		long space = key >>> KEY_SPACE_SHIFT;
+		if (index == 1 || space == 0 || space == (index == 0 ? 1 : 2)) {
+			return key & KEY_ID_MASK;
+		}
+		return 0;
+	}
+
+	/**
+	 * a triple pattern of the join
+	 */
+	private static class Pattern {
+		static Pattern of(StatementPattern pattern) {
+			if (pattern.getContextVar() != null) {
+				return null;
+			}
+			Var[] vars = { pattern.getSubjectVar(), pattern.getPredicateVar(), pattern.getObjectVar() };
+			Set<String> names = new HashSet<>();
+			for (Var var : vars) {
+				// same variable twice in the pattern
+				if (!var.hasValue() && !names.add(var.getName())) {
+					return null;
+				}
+			}
+			return new Pattern(vars);
+		}
+
+		final Var[] vars;
+
+		Pattern(Var[] vars) {
+			this.vars = vars;
+		}
+
+		int indexOf(String name) {
+			for (int i = 0; i < vars.length; i++) {
+				if (!vars[i].hasValue() && vars[i].getName().equals(name)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		Value value(BindingSet bindings, int index) {
+			Var var = vars[index];
+			if (var.hasValue()) {
+				return var.getValue();
+			}
+			return bindings.getValue(var.getName());
+		}
+
+		/**
+		 * @return the HDT pattern, null if a bound value can't be used in this
+		 *         position
+		 */
+		TripleID toTripleID(BindingSet bindings, HDTConverter converter) {
+			Value subject = value(bindings, 0);
+			Value predicate = value(bindings, 1);
+			Value object = value(bindings, 2);
+			if ((subject != null && !(subject instanceof Resource))
+					|| (predicate != null && !(predicate instanceof IRI))) {
+				return null;
+			}
+			return new TripleID(converter.subjectToID((Resource) subject), converter.predicateToID((IRI) predicate),
+					converter.objectToID(object));
+		}
+
+		boolean hasDeltaStatements(EndpointTripleSource tripleSource, BindingSet bindings, TripleID pattern) {
+			return tripleSource.hasNativeStoreStatements((Resource) value(bindings, 0), (IRI) value(bindings, 1),
+					value(bindings, 2), pattern.getSubject(), pattern.getPredicate(), pattern.getObject());
+		}
+
+		void bind(MutableBindingSet set, TripleID triple, HDTConverter converter) {
+			for (int i = 0; i < vars.length; i++) {
+				Var var = vars[i];
+				if (var.hasValue() || set.hasBinding(var.getName())) {
+					continue;
+				}
+				set.setBinding(var.getName(), converter.idToValue(ROLES[i], get(triple, i)));
+			}
+		}
+	}
+
+	/**
+	 * reader of the non-deleted triples of an HDT iterator
+	 */
+	private class PatternReader {
+		private final IteratorTripleID iterator;
+		private final int joinIndex;
+		private final BitArrayDisk deleteBitMap;
+		private TripleID next;
+		private long read;
+		private long deleted;
+
+		PatternReader(IteratorTripleID iterator, int joinIndex) {
+			this.iterator = iterator;
+			this.joinIndex = joinIndex;
+			this.deleteBitMap = endpoint.getDeleteBitMap();
+		}
+
+		TripleID peek() {
+			if (next == null) {
+				while (iterator.hasNext()) {
+					TripleID triple = iterator.next();
+					if ((++read % TIMEOUT_CHECK_STEP) == 0 && tripleSource.getEndpointStoreConnection().isTimeout()) {
+						throw new EndpointTimeoutException();
+					}
+					if (!deleteBitMap.access(iterator.getLastTriplePosition())) {
+						next = triple.clone();
+						break;
+					}
+					deleted++;
+				}
+			}
+			return next;
+		}
+
+		TripleID poll() {
+			TripleID triple = peek();
+			next = null;
+			return triple;
+		}
+
+		long key(TripleID triple) {
+			return joinKey(triple, joinIndex);
+		}
+
+		/**
+		 * move the reader to the first triple with a key greater or equal to a
+		 * key, the iterator is sorted by the key
+		 *
+		 * @param key key
+		 */
+		void seek(long key) {
+			TripleID triple = peek();
+			if (triple == null || key(triple) >= key) {
+				return;
+			}
+			next = null;
+			if (iterator instanceof BitmapTriplesIterator it) {
+				it.seek(seekId(key, joinIndex));
+			} else if (iterator instanceof BitmapTriplesIteratorPermutation it) {
+				it.seek(seekId(key, joinIndex));
+			}
+			// the other iterators are read until the key
+			while ((triple = peek()) != null && key(triple) < key) {
+				next = null;
+			}
+		}
+	}
+
+	/**
+	 * base iteration of the ID joins
+	 */
+	private abstract class IdJoinIteration extends LookAheadIteration<BindingSet, QueryEvaluationException> {
+		private final BindingSet bindings;
+		private final PatternReader[] readers;
+		private long read;
+		/**
+		 * triples read by the readers created during the join
+		 */
+		long otherRead;
+		long otherDeleted;
+
+		IdJoinIteration(BindingSet bindings, PatternReader... readers) {
+			this.bindings = bindings;
+			this.readers = readers;
+		}
+
+		/**
+		 * create the result of 2 triples
+		 *
+		 * @return binding set, null if the other join variables aren't
+		 *         compatible
+		 */
+		BindingSet join(TripleID leftTriple, TripleID rightTriple) {
+			if ((++read % TIMEOUT_CHECK_STEP) == 0 && tripleSource.getEndpointStoreConnection().isTimeout()) {
+				throw new EndpointTimeoutException();
+			}
+			for (int i = 1; i < joinVars.size(); i++) {
+				String joinVar = joinVars.get(i);
+				if (joinKey(leftTriple, left.indexOf(joinVar)) != joinKey(rightTriple, right.indexOf(joinVar))) {
+					return null;
+				}
+			}
+			MutableBindingSet set = context.createBindingSet(bindings);
+			HDTConverter converter = endpoint.getHdtConverter();
+			left.bind(set, leftTriple, converter);
+			right.bind(set, rightTriple, converter);
+			return set;
+		}
+
+		@Override
+		protected void handleClose() throws QueryEvaluationException {
+			try {
+				super.handleClose();
+			} finally {
+				long hdtRead = otherRead;
+				long hdtDeleted = otherDeleted;
+				for (PatternReader reader : readers) {
+					hdtRead += reader.read;
+					hdtDeleted += reader.deleted;
+				}
+				tripleSource.getEndpointStoreConnection().getScannedTriples().addAndGet(hdtRead);
+				endpoint.getMetrics().recordScan(hdtRead, hdtDeleted, 0, 0, 0);
+			}
+		}
+	}
+
+	/**
+	 * merge join of 2 sorted HDT iterators
+	 */
+	private class MergeJoinIteration extends IdJoinIteration {
+		private final PatternReader leftReader;
+		private final PatternReader rightReader;
+		private final List<TripleID> leftGroup = new ArrayList<>();
+		private final List<TripleID> rightGroup = new ArrayList<>();
+		private int leftIndex;
+		private int rightIndex;
+
+		MergeJoinIteration(BindingSet bindings, PatternReader leftReader, PatternReader rightReader) {
+			super(bindings, leftReader, rightReader);
+			this.leftReader = leftReader;
+			this.rightReader = rightReader;
+		}
+
+		private boolean nextGroups() {
+			leftGroup.clear();
+			rightGroup.clear();
+			leftIndex = 0;
+			rightIndex = 0;
+			while (true) {
+				TripleID leftTriple = leftReader.peek();
+				TripleID rightTriple = rightReader.peek();
+				if (leftTriple == null || rightTriple == null) {
+					return false;
+				}
+				long leftKey = leftReader.key(leftTriple);
+				long rightKey = rightReader.key(rightTriple);
+				if (leftKey < rightKey) {
+					leftReader.seek(rightKey);
+				} else if (leftKey > rightKey) {
+					rightReader.seek(leftKey);
+				} else {
+					do {
+						leftGroup.add(leftReader.poll());
+					} while (leftReader.peek() != null && leftReader.key(leftReader.peek()) == leftKey);
+					do {
+						rightGroup.add(rightReader.poll());
+					} while (rightReader.peek() != null && rightReader.key(rightReader.peek()) == rightKey);
+					return true;
+				}
+			}
+		}
+
+		@Override
+		protected BindingSet getNextElement() throws QueryEvaluationException {
+			while (true) {
+				if (leftIndex < leftGroup.size()) {
+					BindingSet set = join(leftGroup.get(leftIndex), rightGroup.get(rightIndex++));
+					if (rightIndex == rightGroup.size()) {
+						rightIndex = 0;
+						leftIndex++;
+					}
+					if (set != null) {
+						return set;
+					}
+					continue;
+				}
+				if (!nextGroups()) {
+					return null;
+				}
+			}
+		}
+	}
+
+	/**
+	 * bind join over the IDs, the join key of each triple of the driving
+	 * pattern is searched in the other pattern
+	 */
+	private class LookupJoinIteration extends IdJoinIteration {
+		private final PatternReader drivingReader;
+		private final TripleID lookupPattern;
+		private final int lookupJoinIndex;
+		private final boolean drivingLeft;
+		private final List<TripleID> matches = new ArrayList<>();
+		private TripleID drivingTriple;
+		private long lastKey = -1;
+		private int matchIndex;
+
+		LookupJoinIteration(BindingSet bindings, PatternReader drivingReader, TripleID lookupPattern,
+				int lookupJoinIndex, boolean drivingLeft) {
+			super(bindings, drivingReader);
+			this.drivingReader = drivingReader;
+			this.lookupPattern = lookupPattern;
+			this.lookupJoinIndex = lookupJoinIndex;
+			this.drivingLeft = drivingLeft;
+		}
+
+		private void lookup(long key) {
+			matches.clear();
+			long id = lookupId(key, lookupJoinIndex);
+			if (id == 0) {
+				return;
+			}
+			TripleID pattern = new TripleID(lookupPattern);
+			switch (lookupJoinIndex) {
+			case 0 -> pattern.setSubject(id);
+			case 1 -> pattern.setPredicate(id);
+			default -> pattern.setObject(id);
+			}
+			PatternReader reader = new PatternReader(endpoint.getHdt().getTriples().search(pattern), lookupJoinIndex);
+			TripleID triple;
+			while ((triple = reader.poll()) != null) {
+				matches.add(triple);
+			}
+			otherRead += reader.read;
+			otherDeleted += reader.deleted;
+		}
+
+		@Override
+		protected BindingSet getNextElement() throws QueryEvaluationException {
+			while (true) {
+				if (matchIndex < matches.size()) {
+					TripleID lookupTriple = matches.get(matchIndex++);
+					BindingSet set = drivingLeft ? join(drivingTriple, lookupTriple)
+							: join(lookupTriple, drivingTriple);
+					if (set != null) {
+						return set;
+					}
+					continue;
+				}
+				drivingTriple = drivingReader.poll();
+				if (drivingTriple == null) {
+					return null;
+				}
+				long key = drivingReader.key(drivingTriple);
+				// the triples of the driving pattern are often grouped by key
+				if (key != lastKey) {
+					lookup(key);
+					lastKey = key;
+				}
+				matchIndex = 0;
+			}
+		}
+	}
+
+	/**
+	 * hash join, the build pattern is read in a map
+	 */
+	private class HashJoinIteration extends IdJoinIteration {
+		private final PatternReader buildReader;
+		private final PatternReader probeReader;
+		private final boolean buildLeft;
+		private Map<Long, List<TripleID>> map;
+		private TripleID probeTriple;
+		private List<TripleID> matches;
+		private int matchIndex;
+
+		HashJoinIteration(BindingSet bindings, PatternReader buildReader, PatternReader probeReader,
+				boolean buildLeft) {
+			super(bindings, buildReader, probeReader);
+			this.buildReader = buildReader;
+			this.probeReader = probeReader;
+			this.buildLeft = buildLeft;
+		}
+
+		@Override
+		protected BindingSet getNextElement() throws QueryEvaluationException {
+			if (map == null) {
+				map = new HashMap<>();
+				TripleID triple;
+				while ((triple = buildReader.poll()) != null) {
+					map.computeIfAbsent(buildReader.key(triple), k -> new ArrayList<>()).add(triple);
+				}
+			}
+			while (true) {
+				if (matches != null && matchIndex < matches.size()) {
+					TripleID buildTriple = matches.get(matchIndex++);
+					BindingSet set = buildLeft ? join(buildTriple, probeTriple) : join(probeTriple, buildTriple);
+					if (set != null) {
+						return set;
+					}
+					continue;
+				}
+				probeTriple = probeReader.poll();
+				if (probeTriple == null) {
+					return null;
+				}
+				matches = map.get(probeReader.key(probeTriple));
+				matchIndex = 0;
+			}
+		}
+
+		@Override
+		protected void handleClose() throws QueryEvaluationException {
+			try {
+				super.handleClose();
+			} finally {
+				map = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,320 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.core.dictionary.Dictionary;
+import com.the_qa_company.qendpoint.core.dictionary.DictionarySection;
+import com.the_qa_company.qendpoint.core.dictionary.impl.section.PFCDictionarySectionMap;
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.util.concurrent.ConcurrentCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.IterationWrapper;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metrics of the query, update and merge paths of an {@link EndpointStore}, the
+ * meters are registered in a micrometer {@link MeterRegistry}, by default the
+ * {@link Metrics#globalRegistry} (no-op until a registry is added to it). The
+ * meters are tagged with the {@code store} tag, the location of the HDT of the
+ * store. <br>
+ * The ratios (delete bitmap hit ratio, dictionary cache hit rate) aren't
+ * computed here, they can be computed by the monitoring system with the
+ * {@code result} tag of the counters. The dictionary cache counters are only
+ * updated if the cache and its stats are enabled with the
+ * {@link com.the_qa_company.qendpoint.core.options.HDTOptionsKeys#DICTIONARY_CACHE_SIZE_KEY}
+ * and
+ * {@link com.the_qa_company.qendpoint.core.options.HDTOptionsKeys#DICTIONARY_CACHE_STATS_KEY}
+ * options.
+ *
+ * @author Antoine Willerval
+ */
+public class EndpointStoreMetrics implements Closeable {
+	/**
+	 * prefix of the meter names
+	 */
+	public static final String PREFIX = "qendpoint.";
+	/**
+	 * tag of the store location
+	 */
+	public static final String STORE_TAG = "store";
+
+	private final MeterRegistry registry;
+	private final List<Meter> meters = new ArrayList<>();
+	private final Timer query;
+	private final DistributionSummary queryTriplesScanned;
+	private final Timer update;
+	private final Counter updateAdded;
+	private final Counter updateRemoved;
+	private final Counter scannedHDT;
+	private final Counter scannedNative;
+	private final Counter deleteBitmapHit;
+	private final Counter deleteBitmapMiss;
+	private final Counter nativeSearched;
+	private final Counter nativeSkipped;
+	private final Counter valueReuseHit;
+	private final Counter valueReuseMiss;
+	private final Timer[] mergeSteps;
+	private final Timer mergeUpdateLock;
+	private final Timer mergeConnectionLock;
+	private final Object dictionaryCacheLock = new Object() {};
+	private Dictionary dictionaryCacheLastDictionary;
+	private final long[] dictionaryCacheBase = new long[2];
+	private final long[] dictionaryCacheLast = new long[2];
+
+	/**
+	 * create the metrics of a store
+	 *
+	 * @param endpoint the store
+	 * @param registry the registry to register the meters
+	 */
+	public EndpointStoreMetrics(EndpointStore endpoint, MeterRegistry registry) {
+		this.registry = Objects.requireNonNull(registry, "registry can't be null!");
+		Tags tags = Tags.of(STORE_TAG, endpoint.getEndpointFiles().getHDTIndexPath().toAbsolutePath().toString());
+
+		query = register(Timer.builder(PREFIX + "query")
+				.description("Time to evaluate a SPARQL query and read its results").tags(tags).register(registry));
+		queryTriplesScanned = register(DistributionSummary.builder(PREFIX + "query.triples.scanned")
+				.description("Number of HDT and delta triples scanned by a SPARQL query").baseUnit("triples").tags(tags)
+				.register(registry));
+		update = register(
+				Timer.builder(PREFIX + "update").description("Time to run an update").tags(tags).register(registry));
+		updateAdded = register(Counter.builder(PREFIX + "update.triples").tag("operation", "add")
+				.description("Number of triples added by the updates").tags(tags).register(registry));
+		updateRemoved = register(Counter.builder(PREFIX + "update.triples").tag("operation", "remove")
+				.description("Number of triples removed by the updates").tags(tags).register(registry));
+		scannedHDT = register(Counter.builder(PREFIX + "triples.scanned").tag("source", "hdt")
+				.description("Number of triples read by the store iterators").baseUnit("triples").tags(tags)
+				.register(registry));
+		scannedNative = register(Counter.builder(PREFIX + "triples.scanned").tag("source", "native")
+				.description("Number of triples read by the store iterators").baseUnit("triples").tags(tags)
+				.register(registry));
+		deleteBitmapHit = register(Counter.builder(PREFIX + "delete.bitmap").tag("result", "hit")
+				.description("HDT triples tested against the delete bitmap").tags(tags).register(registry));
+		deleteBitmapMiss = register(Counter.builder(PREFIX + "delete.bitmap").tag("result", "miss")
+				.description("HDT triples tested against the delete bitmap").tags(tags).register(registry));
+		nativeSearched = register(Counter.builder(PREFIX + "native.search").tag("result", "searched")
+				.description("Triple patterns searched or skipped over the native stores").tags(tags)
+				.register(registry));
+		nativeSkipped = register(Counter.builder(PREFIX + "native.search").tag("result", "skipped")
+				.description("Triple patterns searched or skipped over the native stores").tags(tags)
+				.register(registry));
+		valueReuseHit = register(Counter.builder(PREFIX + "value.reuse").tag("result", "hit")
+				.description("HDT ids converted to values by the store iterators, hit if the value of the previous"
+						+ " triple is reused")
+				.tags(tags).register(registry));
+		valueReuseMiss = register(Counter.builder(PREFIX + "value.reuse").tag("result", "miss")
+				.description("HDT ids converted to values by the store iterators, hit if the value of the previous"
+						+ " triple is reused")
+				.tags(tags).register(registry));
+		register(FunctionCounter.builder(PREFIX + "dictionary.cache", endpoint, e -> dictionaryCacheCount(e, 0))
+				.tag("result", "hit").description("Gets of the HDT dictionary section caches").tags(tags)
+				.register(registry));
+		register(FunctionCounter.builder(PREFIX + "dictionary.cache", endpoint, e -> dictionaryCacheCount(e, 1))
+				.tag("result", "miss").description("Gets of the HDT dictionary section caches").tags(tags)
+				.register(registry));
+		mergeSteps = new Timer[3];
+		for (int i = 0; i < mergeSteps.length; i++) {
+			mergeSteps[i] = register(Timer.builder(PREFIX + "merge.step").tag("step", String.valueOf(i + 1))
+					.description("Duration of the merge steps").tags(tags).register(registry));
+		}
+		mergeUpdateLock = register(Timer.builder(PREFIX + "merge.lock").tag("lock", "update")
+				.description("Time the merge prevents the new updates or connections").tags(tags).register(registry));
+		mergeConnectionLock = register(Timer.builder(PREFIX + "merge.lock").tag("lock", "connection")
+				.description("Time the merge prevents the new updates or connections").tags(tags).register(registry));
+
+		register(Gauge.builder(PREFIX + "delta.triples", endpoint, e -> e.triplesCount)
+				.description("Number of triples in the delta store").baseUnit("triples").tags(tags).register(registry));
+		register(Gauge
+				.builder(PREFIX + "hdt.triples", endpoint,
+						e -> e.getHdt() == null ? 0 : e.getHdt().getTriples().getNumberOfElements())
+				.description("Number of triples in the HDT").baseUnit("triples").tags(tags).register(registry));
+		register(Gauge.builder(PREFIX + "merging", endpoint, e -> e.isMerging() ? 1 : 0)
+				.description("1 if the store is merging, 0 otherwise").tags(tags).register(registry));
+	}
+
+	/**
+	 * count the hits (index 0) or the misses (index 1) of the dictionary
+	 * section caches of the store HDT, the counts of the previous HDTs are kept
+	 * to have a monotonic counter after a merge
+	 */
+	private double dictionaryCacheCount(EndpointStore endpoint, int index) {
+		HDT hdt = endpoint.getHdt();
+		Dictionary dictionary = hdt == null ? null : hdt.getDictionary();
+		synchronized (dictionaryCacheLock) {
+			if (dictionary != dictionaryCacheLastDictionary) {
+				// the HDT was replaced by a merge
+				for (int i = 0; i < dictionaryCacheBase.length; i++) {
+					dictionaryCacheBase[i] += dictionaryCacheLast[i];
+					dictionaryCacheLast[i] = 0;
+				}
+				dictionaryCacheLastDictionary = dictionary;
+			}
+			if (dictionary != null) {
+				List<DictionarySection> sections = new ArrayList<>();
+				sections.add(dictionary.getShared());
+				sections.add(dictionary.getSubjects());
+				sections.add(dictionary.getPredicates());
+				sections.addAll(dictionary.getAllObjects().values());
+				long hits = 0;
+				long misses = 0;
+				for (DictionarySection section : sections) {
+					if (section instanceof PFCDictionarySectionMap map) {
+						// null if the cache is disabled
+						for (ConcurrentCache<?, ?> cache : new ConcurrentCache<?, ?>[] { map.getLocateCache(),
+								map.getExtractCache() }) {
+							if (cache != null) {
+								hits += cache.getHitCount();
+								misses += cache.getMissCount();
+							}
+						}
+					}
+				}
+				dictionaryCacheLast[0] = hits;
+				dictionaryCacheLast[1] = misses;
+			}
+			return dictionaryCacheBase[index] + dictionaryCacheLast[index];
+		}
+	}
+
+	private <M extends Meter> M register(M meter) {
+		meters.add(meter);
+		return meter;
+	}
+
+	/**
+	 * @return the registry of the meters
+	 */
+	public MeterRegistry getRegistry() {
+		return registry;
+	}
+
+	/**
+	 * measure the evaluation of a query, the time and the scanned triples are
+	 * recorded when the iteration is closed
+	 *
+	 * @param connection the connection evaluating the query
+	 * @param iteration  the query iteration
+	 * @param <T>        iteration type
+	 * @param <E>        iteration exception
+	 * @return measured iteration
+	 */
+	public <T, E extends Exception> CloseableIteration<T, E> measureQuery(EndpointStoreConnection connection,
+			CloseableIteration<T, E> iteration) {
+		AtomicLong scanned = connection.getScannedTriples();
+		long startScanned = scanned.get();
+		long start = System.nanoTime();
+		return new IterationWrapper<>(iteration) {
+			@Override
+			protected void handleClose() throws E {
+				try {
+					super.handleClose();
+				} finally {
+					query.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+					queryTriplesScanned.record(scanned.get() - startScanned);
+				}
+			}
+		};
+	}
+
+	/**
+	 * record the end of an update
+	 *
+	 * @param startNanos {@link System#nanoTime()} at the start of the update
+	 */
+	public void recordUpdate(long startNanos) {
+		update.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * record a triple added by an update
+	 */
+	public void recordAdd() {
+		updateAdded.increment();
+	}
+
+	/**
+	 * record a triple removed by an update
+	 */
+	public void recordRemove() {
+		updateRemoved.increment();
+	}
+
+	/**
+	 * record the triples read by a store iterator
+	 *
+	 * @param hdtRead        HDT triples read
+	 * @param hdtDeleted     HDT triples skipped with the delete bitmap
+	 * @param nativeRead     native store triples read
+	 * @param dictionaryHit  ids converted by reusing the value of the previous
+	 *                       triple
+	 * @param dictionaryMiss ids converted with the dictionary
+	 */
+	public void recordScan(long hdtRead, long hdtDeleted, long nativeRead, long dictionaryHit, long dictionaryMiss) {
+		scannedHDT.increment(hdtRead);
+		scannedNative.increment(nativeRead);
+		deleteBitmapHit.increment(hdtDeleted);
+		deleteBitmapMiss.increment(hdtRead - hdtDeleted);
+		valueReuseHit.increment(dictionaryHit);
+		valueReuseMiss.increment(dictionaryMiss);
+	}
+
+	/**
+	 * record a native store search
+	 *
+	 * @param searched if the native stores were searched or skipped with the
+	 *                 bitmaps
+	 */
+	public void recordNativeSearch(boolean searched) {
+		(searched ? nativeSearched : nativeSkipped).increment();
+	}
+
+	/**
+	 * record the duration of a merge step
+	 *
+	 * @param step       the step (1, 2 or 3)
+	 * @param startNanos {@link System#nanoTime()} at the start of the step
+	 */
+	public void recordMergeStep(int step, long startNanos) {
+		mergeSteps[step - 1].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * record the time the merge prevented the new updates
+	 *
+	 * @param startNanos {@link System#nanoTime()} at the lock creation
+	 */
+	public void recordMergeUpdateLock(long startNanos) {
+		mergeUpdateLock.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * record the time the merge prevented the new connections
+	 *
+	 * @param startNanos {@link System#nanoTime()} at the lock creation
+	 */
+	public void recordMergeConnectionLock(long startNanos) {
+		mergeConnectionLock.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * remove the meters from the registry
+	 */
+	@Override
+	public void close() {
+		meters.forEach(registry::remove);
+		meters.clear();
+	}
+}
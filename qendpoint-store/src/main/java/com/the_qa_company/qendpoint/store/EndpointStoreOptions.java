@@ -0,0 +1,116 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.options.Key;
+
+/**
+ * keys usable with {@link HDTOptions#set(String, String)} related with the
+ * {@link EndpointStore}, see
+ * {@link com.the_qa_company.qendpoint.core.options.HDTOptionsKeys} for the keys
+ * usable with the HDT loading
+ *
+ * @author Antoine Willerval
+ */
+public class EndpointStoreOptions {
+	/**
+	 * Key for the number of HDT triples read at the same time by the
+	 * {@link EndpointStoreTripleIterator}, 1 to disable the batches, default
+	 * {@link #TRIPLE_ITERATOR_BATCH_SIZE_DEFAULT}
+	 */
+	@Key(type = Key.Type.NUMBER, desc = "Number of HDT triples read at the same time by the store iterators")
+	public static final String TRIPLE_ITERATOR_BATCH_SIZE = "qendpoint.store.iterator.batchSize";
+	/**
+	 * default value for {@link #TRIPLE_ITERATOR_BATCH_SIZE}
+	 */
+	public static final int TRIPLE_ITERATOR_BATCH_SIZE_DEFAULT = 256;
+	/**
+	 * Key to use the merge/hash joins over the HDT IDs between 2 triple
+	 * patterns, default true
+	 */
+	@Key(type = Key.Type.BOOLEAN, desc = "Use the merge/hash joins over the HDT IDs")
+	public static final String ID_JOIN = "qendpoint.store.join.id";
+	/**
+	 * Key for the maximum estimated number of triples to put in the map of an
+	 * ID hash join, the bind join is used above this size, default
+	 * {@link #ID_JOIN_HASH_MAX_SIZE_DEFAULT}
+	 */
+	@Key(type = Key.Type.NUMBER, desc = "Maximum estimated number of triples to put in the map of an ID hash join")
+	public static final String ID_JOIN_HASH_MAX_SIZE = "qendpoint.store.join.hashMaxSize";
+	/**
+	 * default value for {@link #ID_JOIN_HASH_MAX_SIZE}
+	 */
+	public static final long ID_JOIN_HASH_MAX_SIZE_DEFAULT = 1_000_000;
+	/**
+	 * Key for the estimated cost of the search of a join key in a triple
+	 * pattern, compared to the read of a triple, the patterns of an ID join are
+	 * joined by searching the join keys of the smallest pattern in the other
+	 * pattern if it is cheaper than reading both patterns, default
+	 * {@link #ID_JOIN_LOOKUP_COST_DEFAULT}
+	 */
+	@Key(type = Key.Type.NUMBER, desc = "Estimated cost of the search of a join key in a triple pattern")
+	public static final String ID_JOIN_LOOKUP_COST = "qendpoint.store.join.lookupCost";
+	/**
+	 * default value for {@link #ID_JOIN_LOOKUP_COST}
+	 */
+	public static final long ID_JOIN_LOOKUP_COST_DEFAULT = 16;
+	/**
+	 * Key to only write the modified words of the delete and dictionary bitmaps
+	 * when the store writes are flushed instead of writing them for each
+	 * update, default true
+	 */
+	@Key(type = Key.Type.BOOLEAN, desc = "Write the modified words of the store bitmaps by batches")
+	public static final String BITMAP_COALESCE_WRITES = "qendpoint.store.bitmap.coalesceWrites";
+	/**
+	 * Key for the number of workers used to remap the triples deleted during a
+	 * merge to the new HDT, default the number of processors
+	 */
+	@Key(type = Key.Type.NUMBER, desc = "Number of workers to remap the triples deleted during a merge")
+	public static final String MERGE_REMAP_WORKERS = "qendpoint.store.merge.remapWorkers";
+	/**
+	 * Key to use the {@link DeltaPairFilter} of the subject-predicate,
+	 * predicate-object and subject-object pairs of the delta store to skip the
+	 * delta searches, the filter is sized from the merge threshold, default
+	 * true
+	 */
+	@Key(type = Key.Type.BOOLEAN, desc = "Use a filter of the delta store id pairs to skip the delta searches")
+	public static final String DELTA_PAIR_FILTER = "qendpoint.store.delta.pairFilter";
+	/**
+	 * Key to compute the {@link HDTStatistics} of the HDT and use them to order
+	 * the joins, the statistics are saved next to the HDT, default true
+	 */
+	@Key(type = Key.Type.BOOLEAN, desc = "Compute the HDT statistics to order the joins")
+	public static final String STATISTICS = "qendpoint.store.statistics";
+	/**
+	 * Key for the maximum number of characteristic sets kept in the
+	 * {@link HDTStatistics}, 0 to disable them, default
+	 * {@link #STATISTICS_CHARACTERISTIC_SETS_DEFAULT}
+	 */
+	@Key(type = Key.Type.NUMBER, desc = "Maximum number of characteristic sets kept in the HDT statistics")
+	public static final String STATISTICS_CHARACTERISTIC_SETS = "qendpoint.store.statistics.characteristicSets";
+	/**
+	 * default value for {@link #STATISTICS_CHARACTERISTIC_SETS}
+	 */
+	public static final int STATISTICS_CHARACTERISTIC_SETS_DEFAULT = 4096;
+	/**
+	 * Key to compute the {@link HDTValueIndex} of the numeric and date literals
+	 * of the HDT and use it for the range filters, the index is saved next to
+	 * the HDT, only the dictionaries with datatype sections are indexed,
+	 * default false
+	 */
+	@Key(type = Key.Type.BOOLEAN, desc = "Compute the value index of the HDT literals for the range filters")
+	public static final String VALUE_INDEX = "qendpoint.store.valueIndex";
+	/**
+	 * Key for the maximum number of HDT literals of a range filter searched
+	 * with their ids instead of reading all the values of the triple pattern, 0
+	 * to disable, default {@link #VALUE_INDEX_MAX_ID_SET_DEFAULT}
+	 */
+	@Key(type = Key.Type.NUMBER, desc = "Maximum number of literals of a range filter searched with their ids")
+	public static final String VALUE_INDEX_MAX_ID_SET = "qendpoint.store.valueIndex.maxIdSet";
+	/**
+	 * default value for {@link #VALUE_INDEX_MAX_ID_SET}
+	 */
+	public static final int VALUE_INDEX_MAX_ID_SET_DEFAULT = 128;
+
+	private EndpointStoreOptions() {
+	}
+}
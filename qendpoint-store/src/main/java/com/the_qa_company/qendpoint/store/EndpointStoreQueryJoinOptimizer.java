@@ -0,0 +1,207 @@
+package com.the_qa_company.qendpoint.store;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.Dataset;
+import org.eclipse.rdf4j.query.algebra.Join;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.TupleExpr;
+import org.eclipse.rdf4j.query.algebra.Var;
+import org.eclipse.rdf4j.query.algebra.evaluation.QueryOptimizer;
+import org.eclipse.rdf4j.query.algebra.evaluation.impl.EvaluationStatistics;
+import org.eclipse.rdf4j.query.algebra.helpers.AbstractSimpleQueryModelVisitor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Join order optimizer for the blocks of joins between triple patterns using
+ * the {@link HDTStatistics} of the store. The patterns are greedily ordered by
+ * the estimated size of the intermediate results: the number of results of a
+ * pattern for each binding of its join variables is estimated with the distinct
+ * subjects/objects of its predicate, or with the characteristic sets for the
+ * subject stars. The other blocks are left to the
+ * {@link org.eclipse.rdf4j.query.algebra.evaluation.optimizer.QueryJoinOptimizer}.
+ *
+ * @author Antoine Willerval
+ */
+public class EndpointStoreQueryJoinOptimizer implements QueryOptimizer {
+	private final EndpointStore endpoint;
+	private final HDTStatistics statistics;
+	private final EvaluationStatistics evaluationStatistics;
+
+	public EndpointStoreQueryJoinOptimizer(EndpointStore endpoint, HDTStatistics statistics,
+			EvaluationStatistics evaluationStatistics) {
+		this.endpoint = endpoint;
+		this.statistics = statistics;
+		this.evaluationStatistics = evaluationStatistics;
+	}
+
+	@Override
+	public void optimize(TupleExpr tupleExpr, Dataset dataset, BindingSet bindings) {
+		tupleExpr.visit(new AbstractSimpleQueryModelVisitor<RuntimeException>() {
+			@Override
+			public void meet(Join node) {
+				List<StatementPattern> patterns = new ArrayList<>();
+				if (!collectPatterns(node, patterns)) {
+					super.meet(node);
+					return;
+				}
+				List<StatementPattern> order = order(patterns);
+				if (order.equals(patterns)) {
+					return;
+				}
+				TupleExpr join = order.get(0);
+				for (int i = 1; i < order.size(); i++) {
+					join = new Join(join, order.get(i));
+				}
+				node.replaceWith(join);
+			}
+		});
+	}
+
+	/**
+	 * collect the patterns of a block of joins
+	 *
+	 * @param expr     the block
+	 * @param patterns the patterns, in the current join order
+	 * @return true if the block only contains triple patterns, false otherwise
+	 */
+	private static boolean collectPatterns(TupleExpr expr, List<StatementPattern> patterns) {
+		if (expr instanceof StatementPattern sp) {
+			patterns.add(sp);
+			return true;
+		}
+		if (expr instanceof Join join) {
+			return collectPatterns(join.getLeftArg(), patterns) && collectPatterns(join.getRightArg(), patterns);
+		}
+		return false;
+	}
+
+	/**
+	 * order the patterns of a block
+	 *
+	 * @param patterns the patterns
+	 * @return the patterns in the join order
+	 */
+	List<StatementPattern> order(List<StatementPattern> patterns) {
+		List<StatementPattern> remaining = new ArrayList<>(patterns);
+		List<StatementPattern> order = new ArrayList<>(patterns.size());
+		Map<StatementPattern, Double> cardinalities = new HashMap<>();
+		for (StatementPattern pattern : patterns) {
+			cardinalities.put(pattern, evaluationStatistics.getCardinality(pattern));
+		}
+		Set<String> boundVars = new HashSet<>();
+		// predicates of the patterns joined with a subject variable
+		Map<String, long[]> stars = new HashMap<>();
+		double size = 1;
+
+		while (!remaining.isEmpty()) {
+			StatementPattern best = null;
+			double bestSize = 0;
+			for (StatementPattern pattern : remaining) {
+				double patternSize = size * getResultsByBinding(pattern, cardinalities.get(pattern), boundVars, stars);
+				if (best == null || patternSize < bestSize
+						|| (patternSize == bestSize && cardinalities.get(pattern) < cardinalities.get(best))) {
+					best = pattern;
+					bestSize = patternSize;
+				}
+			}
+			remaining.remove(best);
+			order.add(best);
+			size = Math.max(bestSize, 1);
+
+			long predicate = getPredicateId(best);
+			Var subject = best.getSubjectVar();
+			if (predicate > 0 && !subject.hasValue()) {
+				stars.merge(subject.getName(), new long[] { predicate }, HDTStatistics::union);
+			}
+			for (Var var : best.getVarList()) {
+				if (!var.hasValue()) {
+					boundVars.add(var.getName());
+				}
+			}
+		}
+		return order;
+	}
+
+	private long getPredicateId(StatementPattern pattern) {
+		Value predicate = pattern.getPredicateVar().getValue();
+		if (!(predicate instanceof IRI iri)) {
+			return 0;
+		}
+		return endpoint.getHdtConverter().predicateToID(iri);
+	}
+
+	private static boolean isBound(Var var, Set<String> boundVars) {
+		return var != null && !var.hasValue() && boundVars.contains(var.getName());
+	}
+
+	/**
+	 * estimate the number of results of a pattern for each binding of the
+	 * previous patterns
+	 *
+	 * @param pattern     the pattern
+	 * @param cardinality cardinality of the pattern without the bound variables
+	 * @param boundVars   the variables bound by the previous patterns
+	 * @param stars       the predicates of the previous patterns by subject
+	 *                    variable
+	 * @return estimation
+	 */
+	private double getResultsByBinding(StatementPattern pattern, double cardinality, Set<String> boundVars,
+			Map<String, long[]> stars) {
+		boolean subjectBound = isBound(pattern.getSubjectVar(), boundVars);
+		boolean predicateBound = isBound(pattern.getPredicateVar(), boundVars);
+		boolean objectBound = isBound(pattern.getObjectVar(), boundVars);
+
+		if (!subjectBound && !predicateBound && !objectBound) {
+			// cartesian product or first pattern
+			return cardinality;
+		}
+
+		long predicate = getPredicateId(pattern);
+		long predicateTriples = statistics.getPredicateTriples(predicate);
+		if (predicateTriples == 0) {
+			// no statistics for this predicate
+			double results = cardinality;
+			if (subjectBound) {
+				results /= Math.max(1, statistics.getDistinctSubjects());
+			}
+			if (predicateBound) {
+				results /= Math.max(1, statistics.getDistinctPredicates());
+			}
+			if (objectBound) {
+				results /= Math.max(1, statistics.getDistinctObjects());
+			}
+			return results;
+		}
+
+		double results = cardinality;
+		if (subjectBound) {
+			long[] star = stars.get(pattern.getSubjectVar().getName());
+			double starResults = -1;
+			if (star != null) {
+				double previous = statistics.estimateStar(star);
+				double next = statistics.estimateStar(HDTStatistics.union(star, new long[] { predicate }));
+				if (previous > 0 && next >= 0) {
+					// selectivity of the constant object
+					starResults = next / previous * (cardinality / predicateTriples);
+				}
+			}
+			if (starResults >= 0) {
+				results = starResults;
+			} else {
+				results /= Math.max(1, statistics.getPredicateSubjects(predicate));
+			}
+		}
+		if (objectBound) {
+			results /= Math.max(1, statistics.getPredicateObjects(predicate));
+		}
+		return results;
+	}
+}
@@ -0,0 +1,154 @@
+package com.the_qa_company.qendpoint.store;
+
+import org.eclipse.rdf4j.query.Dataset;
+import org.eclipse.rdf4j.query.algebra.FunctionCall;
+import org.eclipse.rdf4j.query.algebra.TupleExpr;
+import org.eclipse.rdf4j.query.algebra.helpers.AbstractSimpleQueryModelVisitor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the optimized query plans of an {@link EndpointStore}, the plans are
+ * stored with the algebra of the parsed query, the dataset and the names of the
+ * bound variables, so the queries only differing by their binding values are
+ * using the same plan. The cache is cleared when the HDT is changed.
+ *
+ * @author Antoine Willerval
+ */
+public class EndpointStoreQueryPlanCache {
+	/**
+	 * key of a cached plan
+	 *
+	 * @param query        algebra of the parsed query, the query model nodes
+	 *                     are compared by structure
+	 * @param dataset      dataset of the query
+	 * @param bindingNames names of the bound variables
+	 */
+	public record Key(TupleExpr query, Dataset dataset, Set<String> bindingNames) {}
+
+	/**
+	 * test if the plan of a query can be cached, the zero argument functions
+	 * like NOW() are evaluated by the optimizer, so their plans can't be reused
+	 *
+	 * @param query the query
+	 * @return true if the plan can be cached, false otherwise
+	 */
+	public static boolean isCacheable(TupleExpr query) {
+		boolean[] cacheable = { true };
+		query.visit(new AbstractSimpleQueryModelVisitor<RuntimeException>() {
+			@Override
+			public void meet(FunctionCall node) {
+				if (node.getArgs().isEmpty()) {
+					cacheable[0] = false;
+				} else {
+					super.meet(node);
+				}
+			}
+		});
+		return cacheable[0];
+	}
+
+	private final int maxCount;
+	private final LinkedHashMap<Key, TupleExpr> plans;
+	private long generation;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * create a cache
+	 *
+	 * @param maxCount maximum number of cached plans
+	 */
+	public EndpointStoreQueryPlanCache(int maxCount) {
+		if (maxCount <= 0) {
+			throw new IllegalArgumentException("maxCount should be positive!");
+		}
+		this.maxCount = maxCount;
+		this.plans = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, TupleExpr> eldest) {
+				return size() > EndpointStoreQueryPlanCache.this.maxCount;
+			}
+		};
+	}
+
+	/**
+	 * get a cached plan
+	 *
+	 * @param key the key
+	 * @return a copy of the plan, null if not cached
+	 */
+	public TupleExpr get(Key key) {
+		TupleExpr plan;
+		synchronized (this) {
+			plan = plans.get(key);
+		}
+		if (plan == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		return plan.clone();
+	}
+
+	/**
+	 * @return the generation of the cache, incremented after each clear
+	 */
+	public synchronized long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * cache a plan, the plan isn't cached if the cache was cleared since the
+	 * generation was read
+	 *
+	 * @param key        the key, the query is copied
+	 * @param plan       the optimized plan, the plan is copied
+	 * @param generation the generation of the cache before the optimization
+	 */
+	public synchronized void put(Key key, TupleExpr plan, long generation) {
+		if (generation != this.generation) {
+			return;
+		}
+		plans.put(new Key(key.query().clone(), key.dataset(), Set.copyOf(key.bindingNames())), plan.clone());
+	}
+
+	/**
+	 * remove all the plans
+	 */
+	public synchronized void clear() {
+		generation++;
+		plans.clear();
+	}
+
+	/**
+	 * @return the number of plans in the cache
+	 */
+	public synchronized int getCount() {
+		return plans.size();
+	}
+
+	/**
+	 * @return the maximum number of plans in the cache
+	 */
+	public int getMaxCount() {
+		return maxCount;
+	}
+
+	/**
+	 * @return the number of cache hits
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * @return the number of cache misses
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+}
@@ -19,7 +19,6 @@ import org.eclipse.rdf4j.query.algebra.UpdateExpr;
 import org.eclipse.rdf4j.query.algebra.evaluation.AbstractQueryPreparer;
 import org.eclipse.rdf4j.query.algebra.evaluation.EvaluationStrategy;
 import org.eclipse.rdf4j.query.algebra.evaluation.impl.EvaluationStatistics;
-import org.eclipse.rdf4j.query.algebra.evaluation.impl.ExtendedEvaluationStrategy;
 import org.eclipse.rdf4j.query.algebra.evaluation.optimizer.BindingAssignerOptimizer;
 import org.eclipse.rdf4j.query.algebra.evaluation.optimizer.CompareOptimizer;
 import org.eclipse.rdf4j.query.algebra.evaluation.optimizer.ConjunctiveConstraintSplitterOptimizer;
@@ -32,6 +31,7 @@ import org.eclipse.rdf4j.query.algebra.evaluation.optimizer.QueryJoinOptimizer;
 import org.eclipse.rdf4j.query.algebra.evaluation.optimizer.QueryModelNormalizerOptimizer;
 import org.eclipse.rdf4j.query.algebra.evaluation.optimizer.SameTermFilterOptimizer;
 import org.eclipse.rdf4j.query.explanation.Explanation;
+import org.eclipse.rdf4j.query.impl.EmptyBindingSet;
 import org.eclipse.rdf4j.query.impl.IteratingTupleQueryResult;
 import org.eclipse.rdf4j.query.parser.ParsedTupleQuery;
 import org.eclipse.rdf4j.query.parser.impl.AbstractParserQuery;
@@ -99,13 +99,20 @@ public class EndpointStoreQueryPreparer extends AbstractQueryPreparer {
 			Dataset dataset, BindingSet bindings, boolean includeInferred, int maxExecutionTime)
 			throws QueryEvaluationException {
 
-		if (this.cloneTupleExpression) {
-			tupleExpr = tupleExpr.clone();
-		}
-		if (!(tupleExpr instanceof QueryRoot)) {
-			tupleExpr = new QueryRoot(tupleExpr);
+		// the plans of the explained queries are optimized in place, they
+		// aren't cached
+		EndpointStoreQueryPlanCache planCache = endpoint.getQueryPlanCache();
+		EndpointStoreQueryPlanCache.Key planKey = null;
+		long planGeneration = 0;
+		TupleExpr plan = null;
+		if (planCache != null && this.cloneTupleExpression && !conn.hasConfig(EndpointStore.QUERY_CONFIG_NO_OPTIMIZER)
+				&& EndpointStoreQueryPlanCache.isCacheable(tupleExpr)) {
+			planKey = new EndpointStoreQueryPlanCache.Key(tupleExpr, dataset, bindings.getBindingNames());
+			planGeneration = planCache.getGeneration();
+			plan = planCache.get(planKey);
 		}
-		EvaluationStrategy strategy = new ExtendedEvaluationStrategy(getTripleSource(), dataset,
+
+		EvaluationStrategy strategy = new EndpointStoreEvaluationStrategy(getTripleSource(), dataset,
 				new SPARQLServiceWikibaseLabelResolver(tripleSource,
 						conn.getConfig(EndpointStore.QUERY_CONFIG_USER_LOCALES)),
 				0L, evaluationStatistics);
@@ -118,23 +125,53 @@ public class EndpointStoreQueryPreparer extends AbstractQueryPreparer {
 			strategy.setTrackTime(this.trackTime);
 		}
 
-		new VariableToIdSubstitution(endpoint).optimize(tupleExpr, dataset, bindings);
+		if (plan != null) {
+			// the bindings are used during the evaluation of the cached plan
+			return strategy.evaluate(plan, bindings);
+		}
+
+		if (this.cloneTupleExpression) {
+			tupleExpr = tupleExpr.clone();
+		}
+		if (!(tupleExpr instanceof QueryRoot)) {
+			tupleExpr = new QueryRoot(tupleExpr);
+		}
+
+		// a cached plan is shared by all the binding values, so they aren't
+		// assigned by the optimizers
+		BindingSet optimizerBindings = planKey != null ? EmptyBindingSet.getInstance() : bindings;
+
+		new VariableToIdSubstitution(endpoint).optimize(tupleExpr, dataset, optimizerBindings);
 
 		if (!conn.hasConfig(EndpointStore.QUERY_CONFIG_NO_OPTIMIZER)) {
-			new BindingAssignerOptimizer().optimize(tupleExpr, dataset, bindings);
-			new ConstantOptimizer(strategy).optimize(tupleExpr, dataset, bindings);
-			new CompareOptimizer().optimize(tupleExpr, dataset, bindings);
-			new ConjunctiveConstraintSplitterOptimizer().optimize(tupleExpr, dataset, bindings);
-			new DisjunctiveConstraintOptimizer().optimize(tupleExpr, dataset, bindings);
-			new SameTermFilterOptimizer().optimize(tupleExpr, dataset, bindings);
-			new QueryModelNormalizerOptimizer().optimize(tupleExpr, dataset, bindings);
-			new QueryJoinOptimizer(evaluationStatistics).optimize(tupleExpr, dataset, bindings);
-			new IterativeEvaluationOptimizer().optimize(tupleExpr, dataset, bindings);
-			new FilterOptimizer().optimize(tupleExpr, dataset, bindings);
-			new OrderLimitOptimizer().optimize(tupleExpr, dataset, bindings);
+			new BindingAssignerOptimizer().optimize(tupleExpr, dataset, optimizerBindings);
+			new ConstantOptimizer(strategy).optimize(tupleExpr, dataset, optimizerBindings);
+			new CompareOptimizer().optimize(tupleExpr, dataset, optimizerBindings);
+			new ConjunctiveConstraintSplitterOptimizer().optimize(tupleExpr, dataset, optimizerBindings);
+			new DisjunctiveConstraintOptimizer().optimize(tupleExpr, dataset, optimizerBindings);
+			new SameTermFilterOptimizer().optimize(tupleExpr, dataset, optimizerBindings);
+			new QueryModelNormalizerOptimizer().optimize(tupleExpr, dataset, optimizerBindings);
+			new QueryJoinOptimizer(evaluationStatistics).optimize(tupleExpr, dataset, optimizerBindings);
+			HDTStatistics statistics = endpoint.getStatistics();
+			if (statistics != null) {
+				new EndpointStoreQueryJoinOptimizer(endpoint, statistics, evaluationStatistics).optimize(tupleExpr,
+						dataset, optimizerBindings);
+			}
+			new IterativeEvaluationOptimizer().optimize(tupleExpr, dataset, optimizerBindings);
+			HDTValueIndex valueIndex = endpoint.getValueIndex();
+			if (valueIndex != null) {
+				new EndpointStoreValueRangeOptimizer(endpoint, valueIndex).optimize(tupleExpr, dataset,
+						optimizerBindings);
+			}
+			new FilterOptimizer().optimize(tupleExpr, dataset, optimizerBindings);
+			new OrderLimitOptimizer().optimize(tupleExpr, dataset, optimizerBindings);
 		}
 
-		new ServiceClauseOptimizer().optimize(tupleExpr, dataset, bindings);
+		new ServiceClauseOptimizer().optimize(tupleExpr, dataset, optimizerBindings);
+
+		if (planKey != null) {
+			planCache.put(planKey, tupleExpr, planGeneration);
+		}
 
 		return strategy.evaluate(tupleExpr, bindings);
 	}
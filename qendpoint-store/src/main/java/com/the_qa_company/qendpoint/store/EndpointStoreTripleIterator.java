@@ -1,6 +1,7 @@
 package com.the_qa_company.qendpoint.store;
 
 import com.the_qa_company.qendpoint.store.exception.EndpointTimeoutException;
+import com.the_qa_company.qendpoint.utils.BitArrayDisk;
 import org.eclipse.rdf4j.common.iteration.CloseableIteration;
 import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Resource;
@@ -14,11 +15,19 @@ import com.the_qa_company.qendpoint.core.triples.TripleID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Iterator over the HDT and the native store results of a search, the HDT
+ * triples are read by batches to test the delete bitmap word by word. The first
+ * batch is small and the next batches are growing until the maximum batch size,
+ * the short iterations (ASK, LIMIT 1) aren't prefetching triples.
+ */
 public class EndpointStoreTripleIterator implements CloseableIteration<Statement, QueryEvaluationException> {
 	private static final Logger logger = LoggerFactory.getLogger(EndpointStoreTripleIterator.class);
+	private static final int INITIAL_BATCH_SIZE = 4;
 
 	private final AtomicBoolean closed = new AtomicBoolean();
 	private final EndpointStore endpoint;
@@ -26,7 +35,23 @@ public class EndpointStoreTripleIterator implements CloseableIteration<Statement
 	private final EndpointTripleSource endpointTripleSource;
 	private final IteratorTripleID iterator;
 	private final CloseableIteration<? extends Statement, SailException> repositoryResult;
+	private final int maxBatchSize;
+	private TripleID[] batch = new TripleID[0];
+	private long[] batchPositions = new long[0];
+	private int batchSize;
+	private int batchIndex;
+	private long lastSubjectID;
+	private Resource lastSubject;
+	private long lastPredicateID;
+	private IRI lastPredicate;
 	private Statement next;
+	// metrics, recorded when the iterator is closed or exhausted
+	private boolean metricsRecorded;
+	private long hdtRead;
+	private long hdtDeleted;
+	private long nativeRead;
+	private long dictionaryHit;
+	private long dictionaryMiss;
 
 	public EndpointStoreTripleIterator(EndpointStoreConnection connection, EndpointTripleSource endpointTripleSource,
 			IteratorTripleID iter, CloseableIteration<? extends Statement, SailException> repositoryResult) {
@@ -35,6 +60,97 @@ public class EndpointStoreTripleIterator implements CloseableIteration<Statement
 		this.endpointTripleSource = Objects.requireNonNull(endpointTripleSource, "endpointTripleSource can't be null!");
 		this.iterator = Objects.requireNonNull(iter, "iter can't be null!");
 		this.repositoryResult = Objects.requireNonNull(repositoryResult, "repositoryResult can't be null!");
+		this.maxBatchSize = (int) Math.max(1,
+				endpoint.getHDTSpec().getInt(EndpointStoreOptions.TRIPLE_ITERATOR_BATCH_SIZE,
+						EndpointStoreOptions.TRIPLE_ITERATOR_BATCH_SIZE_DEFAULT));
+	}
+
+	/**
+	 * grow the batch before a read, the first batch is small
+	 */
+	private void growBatch() {
+		int size = batch.length == 0 ? Math.min(INITIAL_BATCH_SIZE, maxBatchSize)
+				: Math.min(batch.length * 2, maxBatchSize);
+		if (size == batch.length) {
+			return;
+		}
+		int old = batch.length;
+		batch = Arrays.copyOf(batch, size);
+		for (int i = old; i < size; i++) {
+			batch[i] = new TripleID();
+		}
+		batchPositions = Arrays.copyOf(batchPositions, size);
+	}
+
+	/**
+	 * fill the batch with the next non deleted triples of the HDT iterator
+	 *
+	 * @return if the batch contains at least one triple
+	 */
+	private boolean fillBatch() {
+		batchIndex = 0;
+		batchSize = 0;
+		while (batchSize == 0 && iterator.hasNext()) {
+			growBatch();
+			int read = 0;
+			while (read < batch.length && iterator.hasNext()) {
+				batch[read].assign(iterator.next());
+				batchPositions[read] = iterator.getLastTriplePosition();
+				read++;
+			}
+			hdtRead += read;
+			// test the delete bitmap over the block, the positions of a
+			// search are mostly sorted, so the same word is reused
+			BitArrayDisk deleteBitMap = endpoint.getDeleteBitMap();
+			int wordIndex = -1;
+			long word = 0;
+			for (int i = 0; i < read; i++) {
+				long index = batchPositions[i];
+				int currentWordIndex = (int) (index >>> 6);
+				if (currentWordIndex != wordIndex) {
+					wordIndex = currentWordIndex;
+					word = deleteBitMap.getWord(wordIndex);
+				}
+				if ((word & (1L << index)) != 0) {
+					hdtDeleted++;
+					continue; // deleted triple
+				}
+				if (batchSize != i) {
+					TripleID tmp = batch[batchSize];
+					batch[batchSize] = batch[i];
+					batch[i] = tmp;
+					batchPositions[batchSize] = index;
+				}
+				batchSize++;
+			}
+		}
+		return batchSize != 0;
+	}
+
+	private Statement createHDTStatement(TripleID tripleID) {
+		HDTConverter converter = endpoint.getHdtConverter();
+		// the triples are sorted, the subject/predicate are often the same
+		long subjectID = tripleID.getSubject();
+		if (lastSubject == null || lastSubjectID != subjectID) {
+			lastSubject = converter.idToSubjectHDTResource(subjectID);
+			lastSubjectID = subjectID;
+			dictionaryMiss++;
+		} else {
+			dictionaryHit++;
+		}
+		long predicateID = tripleID.getPredicate();
+		if (lastPredicate == null || lastPredicateID != predicateID) {
+			lastPredicate = converter.idToPredicateHDTResource(predicateID);
+			lastPredicateID = predicateID;
+			dictionaryMiss++;
+		} else {
+			dictionaryHit++;
+		}
+		Value object = converter.idToObjectHDTResource(tripleID.getObject());
+		if (logger.isTraceEnabled()) {
+			logger.trace("From HDT   {} {} {} ", lastSubject, lastPredicate, object);
+		}
+		return endpointTripleSource.getValueFactory().createStatement(lastSubject, lastPredicate, object);
 	}
 
 	@Override
@@ -49,23 +165,14 @@ public class EndpointStoreTripleIterator implements CloseableIteration<Statement
 			throw new EndpointTimeoutException();
 		}
 		// iterate over the result of hdt
-		while (iterator.hasNext()) {
-			TripleID tripleID = iterator.next();
-			long index = iterator.getLastTriplePosition();
-			if (!endpoint.getDeleteBitMap().access(index)) {
-				Resource subject = endpoint.getHdtConverter().idToSubjectHDTResource(tripleID.getSubject());
-				IRI predicate = endpoint.getHdtConverter().idToPredicateHDTResource(tripleID.getPredicate());
-				Value object = endpoint.getHdtConverter().idToObjectHDTResource(tripleID.getObject());
-				if (logger.isTraceEnabled()) {
-					logger.trace("From HDT   {} {} {} ", subject, predicate, object);
-				}
-				next = endpointTripleSource.getValueFactory().createStatement(subject, predicate, object);
-				return true;
-			}
+		if (batchIndex < batchSize || fillBatch()) {
+			next = createHDTStatement(batch[batchIndex++]);
+			return true;
 		}
 		// iterate over the result of rdf4j
 		if (this.repositoryResult.hasNext()) {
 			Statement stm = repositoryResult.next();
+			nativeRead++;
 			Resource newSubj = endpoint.getHdtConverter().rdf4jToHdtIDsubject(stm.getSubject());
 			IRI newPred = endpoint.getHdtConverter().rdf4jToHdtIDpredicate(stm.getPredicate());
 			Value newObject = endpoint.getHdtConverter().rdf4jToHdtIDobject(stm.getObject());
@@ -76,16 +183,25 @@ public class EndpointStoreTripleIterator implements CloseableIteration<Statement
 			}
 			return true;
 		}
+		recordMetrics();
 		return false;
 	}
 
+	private void recordMetrics() {
+		if (metricsRecorded) {
+			return;
+		}
+		metricsRecorded = true;
+		connection.getScannedTriples().addAndGet(hdtRead + nativeRead);
+		endpoint.getMetrics().recordScan(hdtRead, hdtDeleted, nativeRead, dictionaryHit, dictionaryMiss);
+	}
+
 	@Override
 	public Statement next() {
 		if (!hasNext()) {
 			return null;
 		}
-		Statement stm = endpointTripleSource.getValueFactory().createStatement(next.getSubject(), next.getPredicate(),
-				next.getObject(), next.getContext());
+		Statement stm = next;
 		next = null;
 		return stm;
 	}
@@ -100,6 +216,7 @@ public class EndpointStoreTripleIterator implements CloseableIteration<Statement
 		if (!closed.get()) {
 			try {
 				closed.set(true);
+				recordMetrics();
 			} finally {
 				repositoryResult.close();
 			}
@@ -0,0 +1,258 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.core.enums.TripleComponentRole;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.Dataset;
+import org.eclipse.rdf4j.query.algebra.BindingSetAssignment;
+import org.eclipse.rdf4j.query.algebra.Compare;
+import org.eclipse.rdf4j.query.algebra.Filter;
+import org.eclipse.rdf4j.query.algebra.Join;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.TupleExpr;
+import org.eclipse.rdf4j.query.algebra.Union;
+import org.eclipse.rdf4j.query.algebra.ValueConstant;
+import org.eclipse.rdf4j.query.algebra.ValueExpr;
+import org.eclipse.rdf4j.query.algebra.Var;
+import org.eclipse.rdf4j.query.algebra.evaluation.QueryOptimizer;
+import org.eclipse.rdf4j.query.algebra.helpers.AbstractSimpleQueryModelVisitor;
+import org.eclipse.rdf4j.query.impl.ListBindingSet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Optimizer replacing the range filters between a variable and a numeric or
+ * date constant ({@code FILTER(?x > 100)}) by a {@link RangeCompare}, the HDT
+ * literals of the variable are compared with the ranks of the
+ * {@link HDTValueIndex} using their ids, only the other values are read and
+ * compared with the constant, see {@link EndpointStoreEvaluationStrategy}.
+ * <p>
+ * Only the comparisons used as filter condition are replaced, they are split by
+ * the
+ * {@link org.eclipse.rdf4j.query.algebra.evaluation.optimizer.ConjunctiveConstraintSplitterOptimizer},
+ * a comparison error and a false comparison are then removing the same
+ * solutions.
+ * <p>
+ * If the range is exact and contains at most
+ * {@link EndpointStoreOptions#VALUE_INDEX_MAX_ID_SET} literals, the triple
+ * pattern of the filter binding the variable as object is replaced by the union
+ * of a search of each HDT id of the range and of a search of the delta store
+ * filtered by value, see {@link DeltaStatementPattern}.
+ *
+ * @author Antoine Willerval
+ */
+public class EndpointStoreValueRangeOptimizer implements QueryOptimizer {
+	private final EndpointStore endpoint;
+	private final HDTValueIndex index;
+	private final long maxIdSet;
+
+	public EndpointStoreValueRangeOptimizer(EndpointStore endpoint, HDTValueIndex index) {
+		this.endpoint = endpoint;
+		this.index = index;
+		this.maxIdSet = endpoint.getHDTSpec().getInt(EndpointStoreOptions.VALUE_INDEX_MAX_ID_SET,
+				EndpointStoreOptions.VALUE_INDEX_MAX_ID_SET_DEFAULT);
+	}
+
+	@Override
+	public void optimize(TupleExpr tupleExpr, Dataset dataset, BindingSet bindings) {
+		tupleExpr.visit(new AbstractSimpleQueryModelVisitor<RuntimeException>() {
+			@Override
+			public void meet(Filter node) {
+				super.meet(node);
+				if (node.getCondition() instanceof Compare compare && !(compare instanceof RangeCompare)) {
+					RangeCompare rangeCompare = createRangeCompare(compare);
+					if (rangeCompare != null) {
+						node.setCondition(rangeCompare);
+						replaceWithIdSet(node, rangeCompare);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * replace the triple pattern of a filter binding the value as object with
+	 * the ids of the range, the filter is kept
+	 */
+	private void replaceWithIdSet(Filter filter, RangeCompare rangeCompare) {
+		HDTValueIndex.ValueRange range = rangeCompare.getRange();
+		if (!range.isExact() || range.size() > maxIdSet) {
+			return;
+		}
+		String name = ((Var) rangeCompare.getValueArg()).getName();
+		StatementPattern pattern = findObjectPattern(filter.getArg(), name);
+		if (pattern == null) {
+			return;
+		}
+
+		HDTConverter converter = endpoint.getHdtConverter();
+		List<String> names = List.of(name);
+		List<BindingSet> ids = new ArrayList<>();
+		for (HDTValueIndex.SectionRange sectionRange : range.getRanges()) {
+			HDTValueIndex.Section section = sectionRange.section();
+			for (int rank = sectionRange.start(); rank < sectionRange.end(); rank++) {
+				ids.add(new ListBindingSet(names,
+						converter.idToValue(TripleComponentRole.OBJECT, section.idOfRank(rank))));
+			}
+		}
+		BindingSetAssignment idSet = new BindingSetAssignment();
+		idSet.setBindingNames(Set.of(name));
+		idSet.setBindingSets(ids);
+
+		// the HDT literals are searched with their ids, the other values of the
+		// delta store are compared with the constant
+		RangeCompare deltaCompare = new RangeCompare(rangeCompare.getLeftArg().clone(),
+				rangeCompare.getRightArg().clone(), rangeCompare.getOperator(), rangeCompare.valueLeft, range, true);
+		Union union = new Union(new Join(idSet, pattern.clone()),
+				new Filter(new DeltaStatementPattern(pattern), deltaCompare));
+		pattern.replaceWith(union);
+	}
+
+	/**
+	 * find the triple pattern binding a variable as object, only the patterns
+	 * joined with the filter are searched
+	 */
+	private static StatementPattern findObjectPattern(TupleExpr expr, String name) {
+		if (expr instanceof Join join) {
+			StatementPattern pattern = findObjectPattern(join.getLeftArg(), name);
+			return pattern != null ? pattern : findObjectPattern(join.getRightArg(), name);
+		}
+		if (!(expr instanceof StatementPattern pattern) || pattern instanceof DeltaStatementPattern) {
+			return null;
+		}
+		Var object = pattern.getObjectVar();
+		if (object.hasValue() || !object.getName().equals(name)) {
+			return null;
+		}
+		// the other components can't be the value
+		for (Var var : new Var[] { pattern.getSubjectVar(), pattern.getPredicateVar(), pattern.getContextVar() }) {
+			if (var != null && var.getName().equals(name)) {
+				return null;
+			}
+		}
+		return pattern;
+	}
+
+	private static Literal constantLiteral(ValueExpr expr) {
+		Value value;
+		if (expr instanceof ValueConstant constant) {
+			value = constant.getValue();
+		} else if (expr instanceof Var var && var.hasValue()) {
+			value = var.getValue();
+		} else {
+			return null;
+		}
+		return value instanceof Literal literal ? literal : null;
+	}
+
+	private static boolean isUnboundVar(ValueExpr expr) {
+		return expr instanceof Var var && !var.hasValue();
+	}
+
+	private static Compare.CompareOp reverse(Compare.CompareOp op) {
+		return switch (op) {
+		case LT -> Compare.CompareOp.GT;
+		case LE -> Compare.CompareOp.GE;
+		case GT -> Compare.CompareOp.LT;
+		case GE -> Compare.CompareOp.LE;
+		default -> op;
+		};
+	}
+
+	private RangeCompare createRangeCompare(Compare compare) {
+		ValueExpr left = compare.getLeftArg();
+		ValueExpr right = compare.getRightArg();
+		Compare.CompareOp op = compare.getOperator();
+		boolean valueLeft;
+		Literal constant;
+		if (isUnboundVar(left) && (constant = constantLiteral(right)) != null) {
+			valueLeft = true;
+		} else if (isUnboundVar(right) && (constant = constantLiteral(left)) != null) {
+			valueLeft = false;
+			op = reverse(op);
+		} else {
+			return null;
+		}
+		HDTValueIndex.ValueRange range = index.range(op, constant);
+		if (range == null) {
+			return null;
+		}
+		return new RangeCompare(left.clone(), right.clone(), compare.getOperator(), valueLeft, range, false);
+	}
+
+	/**
+	 * comparison between a variable and a constant using the ranks of the
+	 * {@link HDTValueIndex}, evaluated as a {@link Compare} by the other
+	 * evaluation strategies
+	 */
+	public static class RangeCompare extends Compare {
+		private final boolean valueLeft;
+		private final HDTValueIndex.ValueRange range;
+		private final boolean excludeIndexed;
+
+		RangeCompare(ValueExpr leftArg, ValueExpr rightArg, CompareOp operator, boolean valueLeft,
+				HDTValueIndex.ValueRange range, boolean excludeIndexed) {
+			super(leftArg, rightArg, operator);
+			this.valueLeft = valueLeft;
+			this.range = range;
+			this.excludeIndexed = excludeIndexed;
+		}
+
+		/**
+		 * @return the variable side of the comparison
+		 */
+		public ValueExpr getValueArg() {
+			return valueLeft ? getLeftArg() : getRightArg();
+		}
+
+		/**
+		 * @return the range of the HDT literals matching the comparison
+		 */
+		public HDTValueIndex.ValueRange getRange() {
+			return range;
+		}
+
+		/**
+		 * @return if the indexed HDT literals are never matching the
+		 *         comparison, they were already searched with their ids
+		 */
+		public boolean isExcludeIndexed() {
+			return excludeIndexed;
+		}
+
+		@Override
+		public String getSignature() {
+			return super.getSignature() + (excludeIndexed ? " (value index, not indexed)" : " (value index)");
+		}
+
+		@Override
+		public RangeCompare clone() {
+			return (RangeCompare) super.clone();
+		}
+	}
+
+	/**
+	 * triple pattern only searched in the delta store, the HDT triples aren't
+	 * read, see {@link EndpointTripleSource#getDeltaStatements}
+	 */
+	public static class DeltaStatementPattern extends StatementPattern {
+		DeltaStatementPattern(StatementPattern pattern) {
+			super(pattern.getScope(), pattern.getSubjectVar().clone(), pattern.getPredicateVar().clone(),
+					pattern.getObjectVar().clone(),
+					pattern.getContextVar() == null ? null : pattern.getContextVar().clone());
+		}
+
+		@Override
+		public String getSignature() {
+			return super.getSignature() + " (delta)";
+		}
+
+		@Override
+		public DeltaStatementPattern clone() {
+			return (DeltaStatementPattern) super.clone();
+		}
+	}
+}
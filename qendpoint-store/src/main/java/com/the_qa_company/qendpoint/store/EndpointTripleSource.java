@@ -42,6 +42,26 @@ public class EndpointTripleSource implements TripleSource {
 	@Override
 	public CloseableIteration<? extends Statement, QueryEvaluationException> getStatements(Resource resource, IRI iri,
 			Value value, Resource... resources) throws QueryEvaluationException {
+		return getStatements(true, resource, iri, value, resources);
+	}
+
+	/**
+	 * search a pattern only in the native stores, the HDT triples aren't read
+	 *
+	 * @param resource  subject, null for any
+	 * @param iri       predicate, null for any
+	 * @param value     object, null for any
+	 * @param resources contexts
+	 * @return the statements of the native stores
+	 * @throws QueryEvaluationException search exception
+	 */
+	public CloseableIteration<? extends Statement, QueryEvaluationException> getDeltaStatements(Resource resource,
+			IRI iri, Value value, Resource... resources) throws QueryEvaluationException {
+		return getStatements(false, resource, iri, value, resources);
+	}
+
+	private CloseableIteration<? extends Statement, QueryEvaluationException> getStatements(boolean searchHDT,
+			Resource resource, IRI iri, Value value, Resource... resources) throws QueryEvaluationException {
 
 		if (EndpointStoreConnection.debugWaittime != 0) {
 			try {
@@ -62,14 +82,47 @@ public class EndpointTripleSource implements TripleSource {
 			initHDTIndex();
 		}
 
-		// convert uris into ids if needed
-		Resource newSubj;
-		IRI newPred;
-		Value newObj;
+		// convert uris into ids if needed, the HDT values already contain the
+		// ids, so no dictionary lookup is done for them
 		long subjectID = this.endpoint.getHdtConverter().subjectToID(resource);
 		long predicateID = this.endpoint.getHdtConverter().predicateToID(iri);
 		long objectID = this.endpoint.getHdtConverter().objectToID(value);
 
+		logger.debug("SEARCH {} {} {}", subjectID, predicateID, objectID);
+
+		// check if we need to search over the delta and if yes, search
+		CloseableIteration<? extends Statement, SailException> repositoryResult = getNativeStoreStatements(resource,
+				iri, value, subjectID, predicateID, objectID, resources);
+
+		// iterate over the HDT file
+		IteratorTripleID iterator;
+		if (searchHDT && subjectID != -1 && predicateID != -1 && objectID != -1) {
+			logger.debug("Searching over HDT {} {} {}", subjectID, predicateID, objectID);
+			TripleID t = new TripleID(subjectID, predicateID, objectID);
+			// search with the ID to check if the triples has been deleted
+			iterator = this.endpoint.getHdt().getTriples().search(t);
+		} else {// no need to search over hdt
+			iterator = new EmptyTriplesIterator(TripleComponentOrder.SPO);
+		}
+
+		// iterate over hdt result, delete the triples marked as deleted and add
+		// the triples from the delta
+		return new EndpointStoreTripleIterator(endpointStoreConnection, this, iterator, repositoryResult);
+	}
+
+	private CloseableIteration<? extends Statement, SailException> getNativeStoreStatements(Resource resource, IRI iri,
+			Value value, long subjectID, long predicateID, long objectID, Resource... resources) {
+		if (!shouldSearchOverNativeStore(subjectID, predicateID, objectID)) {
+			logger.debug("Not searching over native store");
+			endpoint.getMetrics().recordNativeSearch(false);
+			return new EmptyIteration<>();
+		}
+		endpoint.getMetrics().recordNativeSearch(true);
+		// the rdf4j values are only created if we need to search over the
+		// delta
+		Resource newSubj;
+		IRI newPred;
+		Value newObj;
 		if (subjectID == 0 || subjectID == -1) {
 			newSubj = resource;
 		} else {
@@ -85,47 +138,40 @@ public class EndpointTripleSource implements TripleSource {
 		} else {
 			newObj = this.endpoint.getHdtConverter().objectIdToIRI(objectID);
 		}
-
-		logger.debug("SEARCH {} {} {}", newSubj, newPred, newObj);
-
-		// check if we need to search over the delta and if yes, search
-		CloseableIteration<? extends Statement, SailException> repositoryResult;
-		if (shouldSearchOverNativeStore(subjectID, predicateID, objectID)) {
-			logger.debug("Searching over native store");
-			count++;
-			if (endpoint.isMergeTriggered) {
-				// query both native stores
-				logger.debug("Query both RDF4j stores!");
-				CloseableIteration<? extends Statement, SailException> repositoryResult1 = this.endpointStoreConnection
-						.getConnA_read().getStatements(newSubj, newPred, newObj, false, resources);
-				CloseableIteration<? extends Statement, SailException> repositoryResult2 = this.endpointStoreConnection
-						.getConnB_read().getStatements(newSubj, newPred, newObj, false, resources);
-				repositoryResult = new CombinedNativeStoreResult(repositoryResult1, repositoryResult2);
-
-			} else {
-				logger.debug("Query only one RDF4j stores!");
-				repositoryResult = this.endpointStoreConnection.getCurrentConnectionRead().getStatements(newSubj,
-						newPred, newObj, false, resources);
-			}
+		logger.debug("Searching over native store");
+		count++;
+		if (endpoint.isMergeTriggered) {
+			// query both native stores
+			logger.debug("Query both RDF4j stores!");
+			CloseableIteration<? extends Statement, SailException> repositoryResult1 = this.endpointStoreConnection
+					.getConnA_read().getStatements(newSubj, newPred, newObj, false, resources);
+			CloseableIteration<? extends Statement, SailException> repositoryResult2 = this.endpointStoreConnection
+					.getConnB_read().getStatements(newSubj, newPred, newObj, false, resources);
+			return new CombinedNativeStoreResult(repositoryResult1, repositoryResult2);
 		} else {
-			logger.debug("Not searching over native store");
-			repositoryResult = new EmptyIteration<>();
+			logger.debug("Query only one RDF4j stores!");
+			return this.endpointStoreConnection.getCurrentConnectionRead().getStatements(newSubj, newPred, newObj,
+					false, resources);
 		}
+	}
 
-		// iterate over the HDT file
-		IteratorTripleID iterator;
-		if (subjectID != -1 && predicateID != -1 && objectID != -1) {
-			logger.debug("Searching over HDT {} {} {}", subjectID, predicateID, objectID);
-			TripleID t = new TripleID(subjectID, predicateID, objectID);
-			// search with the ID to check if the triples has been deleted
-			iterator = this.endpoint.getHdt().getTriples().search(t);
-		} else {// no need to search over hdt
-			iterator = new EmptyTriplesIterator(TripleComponentOrder.SPO);
+	/**
+	 * test if the native stores contain at least one triple for a pattern
+	 *
+	 * @param resource    subject, null for any
+	 * @param iri         predicate, null for any
+	 * @param value       object, null for any
+	 * @param subjectID   HDT id of the subject
+	 * @param predicateID HDT id of the predicate
+	 * @param objectID    HDT id of the object
+	 * @return if the native stores contain a triple for this pattern
+	 */
+	public boolean hasNativeStoreStatements(Resource resource, IRI iri, Value value, long subjectID, long predicateID,
+			long objectID) {
+		try (CloseableIteration<? extends Statement, SailException> it = getNativeStoreStatements(resource, iri, value,
+				subjectID, predicateID, objectID)) {
+			return it.hasNext();
 		}
-
-		// iterate over hdt result, delete the triples marked as deleted and add
-		// the triples from the delta
-		return new EndpointStoreTripleIterator(endpointStoreConnection, this, iterator, repositoryResult);
 	}
 
 	// this function determines if a triple pattern should be searched over the
@@ -152,25 +198,14 @@ public class EndpointTripleSource implements TripleSource {
 							.access(object - this.endpoint.getHdt().getDictionary().getNshared() - 1);
 				}
 			}
-			logger.debug("Search over native store? {} {} {}", containsSubject, containsPredicate, containsObject);
-			return containsSubject && containsPredicate && containsObject;
+			DeltaPairFilter filter = this.endpoint.getDeltaPairFilter();
+			boolean containsPairs = filter == null || filter.mightContain(subject, predicate, object);
+			logger.debug("Search over native store? {} {} {} {}", containsSubject, containsPredicate, containsObject,
+					containsPairs);
+			return containsSubject && containsPredicate && containsObject && containsPairs;
 		} else {
-			if (subject != 0 && subject != -1 && !this.endpoint.getBitX().access(subject - 1)) {
-				return false;
-			}
-			if (predicate != 0 && predicate != -1 && !this.endpoint.getBitY().access(predicate - 1)) {
-				return false;
-			}
-			if (object != 0 && object != -1) {
-				if (object <= this.endpoint.getHdt().getDictionary().getNshared()) {
-					return this.endpoint.getBitX().access(object - 1);
-				} else {
-					return this.endpoint.getBitZ()
-							.access(object - this.endpoint.getHdt().getDictionary().getNshared() - 1);
-				}
-			}
+			return this.endpoint.shouldSearchOverRDF4J(subject, predicate, object);
 		}
-		return true;
 	}
 
 	@Override
@@ -182,6 +217,10 @@ public class EndpointTripleSource implements TripleSource {
 		return endpoint;
 	}
 
+	public EndpointStoreConnection getEndpointStoreConnection() {
+		return endpointStoreConnection;
+	}
+
 	public long getCount() {
 		return count;
 	}
@@ -40,7 +40,13 @@ public class HDTConverter {
 		if (subj == null) {
 			return 0;
 		}
-		if (!(subj instanceof SimpleIRIHDT hdtSubj)) {
+		if (subj instanceof SimpleBNodeHDT hdtBNode && hdtBNode.getHdtId() != -1) {
+			int position = hdtBNode.getPosition();
+			if (position == SimpleIRIHDT.SHARED_POS || position == SimpleIRIHDT.SUBJECT_POS) {
+				return hdtBNode.getHdtId();
+			}
+		}
+		if (!(subj instanceof SimpleIRIHDT hdtSubj) || hdtSubj.getId() == -1) {
 			return this.hdt.getDictionary().stringToId(subj.toString(), TripleComponentRole.SUBJECT);
 		}
 		// if it is a HDT IRI we do not need to make a full conversion, we
@@ -54,6 +60,10 @@ public class HDTConverter {
 		if (position == SimpleIRIHDT.PREDICATE_POS) {
 			translate = hdt.getDictionary().idToString(id, TripleComponentRole.PREDICATE).toString();
 		} else if (position == SimpleIRIHDT.OBJECT_POS) {
+			if (id > hdt.getDictionary().getNshared()) {
+				// a non-shared object can't be a subject of the HDT
+				return -1;
+			}
 			translate = hdt.getDictionary().idToString(id, TripleComponentRole.OBJECT).toString();
 		} else {
 			translate = "";
@@ -95,7 +105,13 @@ public class HDTConverter {
 		if (obj != null) {
 			// if it is a HDT IRI we do not need to make a full conversion, we
 			// already have the IDs
-			if (obj instanceof SimpleIRIHDT hdtObj) {
+			if (obj instanceof SimpleBNodeHDT hdtBNode && hdtBNode.getHdtId() != -1) {
+				int position = hdtBNode.getPosition();
+				if (position == SimpleIRIHDT.SHARED_POS || position == SimpleIRIHDT.OBJECT_POS) {
+					return hdtBNode.getHdtId();
+				}
+			}
+			if (obj instanceof SimpleIRIHDT hdtObj && hdtObj.getId() != -1) {
 				long id = hdtObj.getId();
 				int position = hdtObj.getPostion();
 				if (position == SimpleIRIHDT.SHARED_POS || position == SimpleIRIHDT.OBJECT_POS) {
@@ -105,6 +121,10 @@ public class HDTConverter {
 				if (position == SimpleIRIHDT.PREDICATE_POS) {
 					translate = hdt.getDictionary().idToString(id, TripleComponentRole.PREDICATE).toString();
 				} else if (position == SimpleIRIHDT.SUBJECT_POS) {
+					if (id > hdt.getDictionary().getNshared()) {
+						// a non-shared subject can't be an object of the HDT
+						return -1;
+					}
 					translate = hdt.getDictionary().idToString(id, TripleComponentRole.SUBJECT).toString();
 				} else {
 					translate = "";
@@ -369,4 +389,135 @@ public class HDTConverter {
 			return null;
 		}
 	}
+
+	/**
+	 * no HDT key for this value
+	 */
+	public static final long NO_ID_KEY = -1;
+	private static final int ID_KEY_SPACE_SHIFT = 62;
+	private static final long ID_KEY_SHARED = 0;
+	private static final long ID_KEY_SUBJECT = 1;
+	private static final long ID_KEY_OBJECT = 2;
+	private static final long ID_KEY_PREDICATE = 3;
+
+	private long idKey(long space, long id) {
+		return (space << ID_KEY_SPACE_SHIFT) | id;
+	}
+
+	private long idKeyOfPosition(int position, long id) {
+		return switch (position) {
+		case SimpleIRIHDT.SHARED_POS -> idKey(ID_KEY_SHARED, id);
+		case SimpleIRIHDT.SUBJECT_POS ->
+			idKey(id <= hdt.getDictionary().getNshared() ? ID_KEY_SHARED : ID_KEY_SUBJECT, id);
+		case SimpleIRIHDT.OBJECT_POS ->
+			idKey(id <= hdt.getDictionary().getNshared() ? ID_KEY_SHARED : ID_KEY_OBJECT, id);
+		case SimpleIRIHDT.PREDICATE_POS -> idKey(ID_KEY_PREDICATE, id);
+		default -> NO_ID_KEY;
+		};
+	}
+
+	/**
+	 * get the ID key of a value without reading the dictionary, two values with
+	 * the same subject/object key or the same predicate key are the same RDF
+	 * term. A predicate key and a subject/object key can describe the same
+	 * term, see {@link #resolveIdKey(Value)}.
+	 *
+	 * @param value value
+	 * @return key, {@link #NO_ID_KEY} if the value isn't an HDT value
+	 */
+	public long idKey(Value value) {
+		if (value instanceof SimpleIRIHDT iri) {
+			if (iri.getId() == -1) {
+				return NO_ID_KEY;
+			}
+			return idKeyOfPosition(iri.getPostion(), iri.getId());
+		}
+		if (value instanceof SimpleBNodeHDT bnode) {
+			if (bnode.getHdtId() == -1) {
+				return NO_ID_KEY;
+			}
+			return idKeyOfPosition(bnode.getPosition(), bnode.getHdtId());
+		}
+		if (value instanceof SimpleLiteralHDT literal) {
+			return idKeyOfPosition(SimpleIRIHDT.OBJECT_POS, literal.getHdtID());
+		}
+		return NO_ID_KEY;
+	}
+
+	/**
+	 * @param key id key
+	 * @return if the key is a predicate key
+	 * @see #idKey(Value)
+	 */
+	public static boolean isPredicateIdKey(long key) {
+		return key != NO_ID_KEY && (key >>> ID_KEY_SPACE_SHIFT) == ID_KEY_PREDICATE;
+	}
+
+	/**
+	 * convert a predicate key to a subject/object key if the predicate is also
+	 * a subject or an object in the HDT
+	 *
+	 * @param key predicate key
+	 * @return subject/object key or the predicate key
+	 */
+	public long resolvePredicateIdKey(long key) {
+		long id = key & ~(ID_KEY_PREDICATE << ID_KEY_SPACE_SHIFT);
+		CharSequence str = hdt.getDictionary().idToString(id, TripleComponentRole.PREDICATE);
+		if (str == null) {
+			return key;
+		}
+		long soKey = stringIdKey(str, false);
+		return soKey == NO_ID_KEY ? key : soKey;
+	}
+
+	private long stringIdKey(CharSequence str, boolean predicate) {
+		Dictionary dict = hdt.getDictionary();
+		long id = dict.stringToId(str, TripleComponentRole.SUBJECT);
+		if (id > 0) {
+			return idKey(id <= dict.getNshared() ? ID_KEY_SHARED : ID_KEY_SUBJECT, id);
+		}
+		id = dict.stringToId(str, TripleComponentRole.OBJECT);
+		if (id > 0) {
+			return idKey(id <= dict.getNshared() ? ID_KEY_SHARED : ID_KEY_OBJECT, id);
+		}
+		if (predicate) {
+			id = dict.stringToId(str, TripleComponentRole.PREDICATE);
+			if (id > 0) {
+				return idKey(ID_KEY_PREDICATE, id);
+			}
+		}
+		return NO_ID_KEY;
+	}
+
+	/**
+	 * get a key for the value, two values are the same RDF term if and only if
+	 * their keys are equals, the dictionary is only read for the predicate keys
+	 * and the non HDT values.
+	 *
+	 * @param value value
+	 * @return the key ({@link Long}) or the value if it isn't in the HDT
+	 */
+	public Object resolveIdKey(Value value) {
+		if (value == null) {
+			return null;
+		}
+		long key = idKey(value);
+		if (key == NO_ID_KEY) {
+			if (value.isLiteral()) {
+				long id = objectToID(value);
+				if (id > 0) {
+					key = idKeyOfPosition(SimpleIRIHDT.OBJECT_POS, id);
+				}
+			} else {
+				key = stringIdKey(value.toString(), true);
+			}
+			if (key == NO_ID_KEY) {
+				return value;
+			}
+		}
+		if (isPredicateIdKey(key)) {
+			key = resolvePredicateIdKey(key);
+		}
+		return key;
+	}
 }
@@ -0,0 +1,476 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.core.dictionary.Dictionary;
+import com.the_qa_company.qendpoint.core.enums.TripleComponentOrder;
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.triples.IteratorTripleID;
+import com.the_qa_company.qendpoint.core.triples.TripleID;
+import com.the_qa_company.qendpoint.core.triples.impl.BitmapTriples;
+import com.the_qa_company.qendpoint.core.triples.impl.BitmapTriplesIteratorZFOQ;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Statistics of a HDT used to estimate the cardinality of the joins: the number
+ * of triples, distinct subjects and distinct objects of each predicate and a
+ * summary of the characteristic sets (the sets of predicates used by the
+ * subjects) with the number of subjects and the number of triples of each
+ * predicate. Only the most used characteristic sets are kept.
+ *
+ * @author Antoine Willerval
+ */
+public class HDTStatistics {
+	private static final Logger logger = LoggerFactory.getLogger(HDTStatistics.class);
+	private static final long MAGIC = 0x5354415453544448L; // HDTSTATS
+	private static final int VERSION = 1;
+
+	/**
+	 * characteristic set
+	 *
+	 * @param predicates  sorted predicate ids of the set
+	 * @param subjects    number of subjects with this set
+	 * @param occurrences number of triples of each predicate for these subjects
+	 */
+	public record CharacteristicSet(long[] predicates, long subjects, long[] occurrences) {
+		/**
+		 * @param sortedPredicates sorted predicates
+		 * @return true if all the predicates are in this set
+		 */
+		public boolean containsAll(long[] sortedPredicates) {
+			int i = 0;
+			for (long predicate : sortedPredicates) {
+				while (i < predicates.length && predicates[i] < predicate) {
+					i++;
+				}
+				if (i == predicates.length || predicates[i] != predicate) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * @param predicate the predicate
+		 * @return the average number of triples with this predicate by subject
+		 */
+		public double multiplicity(long predicate) {
+			int index = Arrays.binarySearch(predicates, predicate);
+			return index < 0 ? 0 : (double) occurrences[index] / subjects;
+		}
+	}
+
+	/**
+	 * load the statistics of a HDT or compute and save them if the file doesn't
+	 * exist or if it was created for another HDT
+	 *
+	 * @param hdt                   the hdt
+	 * @param hdtFile               the file of the hdt
+	 * @param file                  the statistics file
+	 * @param maxCharacteristicSets maximum number of characteristic sets to
+	 *                              keep
+	 * @return statistics
+	 * @throws IOException read/write exception
+	 */
+	public static HDTStatistics loadOrCompute(HDT hdt, Path hdtFile, Path file, int maxCharacteristicSets)
+			throws IOException {
+		long[] signature = signature(hdt, hdtFile);
+		if (Files.exists(file)) {
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+				if (in.readLong() == MAGIC && in.readInt() == VERSION) {
+					long[] fileSignature = readLongs(in);
+					if (Arrays.equals(signature, fileSignature)) {
+						return read(in);
+					}
+				}
+			}
+			logger.info("outdated statistics file {}, computing new statistics", file);
+		}
+		HDTStatistics statistics = compute(hdt, maxCharacteristicSets);
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+			out.writeLong(MAGIC);
+			out.writeInt(VERSION);
+			writeLongs(out, signature);
+			statistics.write(out);
+		}
+		Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+		return statistics;
+	}
+
+	static long[] signature(HDT hdt, Path hdtFile) throws IOException {
+		Dictionary dict = hdt.getDictionary();
+		return new long[] { hdt.getTriples().getNumberOfElements(), dict.getNshared(), dict.getNsubjects(),
+				dict.getNpredicates(), dict.getNobjects(), Files.size(hdtFile),
+				Files.getLastModifiedTime(hdtFile).toMillis() };
+	}
+
+	/**
+	 * compute the statistics of a HDT with a pass in SPO order and a pass in
+	 * OPS order, the HDT should be indexed to read the triples by object
+	 *
+	 * @param hdt                   the hdt
+	 * @param maxCharacteristicSets maximum number of characteristic sets to
+	 *                              keep
+	 * @return statistics
+	 */
+	public static HDTStatistics compute(HDT hdt, int maxCharacteristicSets) {
+		long start = System.currentTimeMillis();
+		Dictionary dict = hdt.getDictionary();
+		int npredicates = (int) dict.getNpredicates();
+		long[] triples = new long[npredicates + 1];
+		long[] subjects = new long[npredicates + 1];
+		long[] objects = new long[npredicates + 1];
+		CharacteristicSetCounter counter = new CharacteristicSetCounter(maxCharacteristicSets);
+
+		// the triples are sorted by subject, the predicates of a subject are
+		// read before the next subject
+		long[] preds = new long[16];
+		long[] occs = new long[16];
+		int size = 0;
+		long lastSubject = 0;
+		IteratorTripleID it = hdt.getTriples().searchAll();
+		while (it.hasNext()) {
+			TripleID triple = it.next();
+			long subject = triple.getSubject();
+			long predicate = triple.getPredicate();
+			triples[(int) predicate]++;
+			if (subject != lastSubject) {
+				counter.add(preds, occs, size, subjects);
+				size = 0;
+				lastSubject = subject;
+			}
+			int index = indexOf(preds, size, predicate);
+			if (index == -1) {
+				if (size == preds.length) {
+					preds = Arrays.copyOf(preds, size * 2);
+					occs = Arrays.copyOf(occs, size * 2);
+				}
+				preds[size] = predicate;
+				occs[size] = 1;
+				size++;
+			} else {
+				occs[index]++;
+			}
+		}
+		counter.add(preds, occs, size, subjects);
+
+		// the distinct objects of each predicate
+		long nobjects = dict.getNobjects();
+		countPredicateObjects(hdt, objects);
+
+		HDTStatistics statistics = new HDTStatistics(hdt.getTriples().getNumberOfElements(), dict.getNsubjects(),
+				nobjects, triples, subjects, objects, counter.build());
+		logger.info("HDT statistics computed in {}ms, {} characteristic sets", System.currentTimeMillis() - start,
+				statistics.characteristicSets.size());
+		return statistics;
+	}
+
+	/**
+	 * count the distinct objects of each predicate with one pass over the
+	 * triples in OPS order, read with the object index
+	 *
+	 * @param hdt     the hdt
+	 * @param objects the counts by predicate
+	 */
+	private static void countPredicateObjects(HDT hdt, long[] objects) {
+		IteratorTripleID it;
+		if (hdt.getTriples() instanceof BitmapTriples triples && triples.getOrder() == TripleComponentOrder.SPO
+				&& triples.getIndexZ() != null) {
+			it = new BitmapTriplesIteratorZFOQ(triples, new TripleID());
+		} else {
+			it = hdt.getTriples().search(new TripleID());
+			if (it.getOrder() != TripleComponentOrder.OPS) {
+				throw new IllegalArgumentException("The triples of the HDT can't be read in OPS order");
+			}
+		}
+		long lastObject = 0;
+		long lastPredicate = 0;
+		while (it.hasNext()) {
+			TripleID triple = it.next();
+			long object = triple.getObject();
+			long predicate = triple.getPredicate();
+			if (object != lastObject || predicate != lastPredicate) {
+				objects[(int) predicate]++;
+				lastObject = object;
+				lastPredicate = predicate;
+			}
+		}
+	}
+
+	private static int indexOf(long[] array, int size, long value) {
+		// the triples are grouped by predicate, the last one is the most
+		// probable
+		for (int i = size - 1; i >= 0; i--) {
+			if (array[i] == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	static long[] readLongs(DataInputStream in) throws IOException {
+		long[] array = new long[in.readInt()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = in.readLong();
+		}
+		return array;
+	}
+
+	static void writeLongs(DataOutputStream out, long[] array) throws IOException {
+		out.writeInt(array.length);
+		for (long value : array) {
+			out.writeLong(value);
+		}
+	}
+
+	private static HDTStatistics read(DataInputStream in) throws IOException {
+		long triples = in.readLong();
+		long nsubjects = in.readLong();
+		long nobjects = in.readLong();
+		long[] predicateTriples = readLongs(in);
+		long[] predicateSubjects = readLongs(in);
+		long[] predicateObjects = readLongs(in);
+		int sets = in.readInt();
+		List<CharacteristicSet> characteristicSets = new ArrayList<>(sets);
+		for (int i = 0; i < sets; i++) {
+			long[] predicates = readLongs(in);
+			long subjects = in.readLong();
+			long[] occurrences = readLongs(in);
+			characteristicSets.add(new CharacteristicSet(predicates, subjects, occurrences));
+		}
+		return new HDTStatistics(triples, nsubjects, nobjects, predicateTriples, predicateSubjects, predicateObjects,
+				characteristicSets);
+	}
+
+	private final long triples;
+	private final long nsubjects;
+	private final long nobjects;
+	private final long[] predicateTriples;
+	private final long[] predicateSubjects;
+	private final long[] predicateObjects;
+	private final List<CharacteristicSet> characteristicSets;
+
+	private HDTStatistics(long triples, long nsubjects, long nobjects, long[] predicateTriples,
+			long[] predicateSubjects, long[] predicateObjects, List<CharacteristicSet> characteristicSets) {
+		this.triples = triples;
+		this.nsubjects = nsubjects;
+		this.nobjects = nobjects;
+		this.predicateTriples = predicateTriples;
+		this.predicateSubjects = predicateSubjects;
+		this.predicateObjects = predicateObjects;
+		this.characteristicSets = characteristicSets;
+	}
+
+	private void write(DataOutputStream out) throws IOException {
+		out.writeLong(triples);
+		out.writeLong(nsubjects);
+		out.writeLong(nobjects);
+		writeLongs(out, predicateTriples);
+		writeLongs(out, predicateSubjects);
+		writeLongs(out, predicateObjects);
+		out.writeInt(characteristicSets.size());
+		for (CharacteristicSet set : characteristicSets) {
+			writeLongs(out, set.predicates());
+			out.writeLong(set.subjects());
+			writeLongs(out, set.occurrences());
+		}
+	}
+
+	private static long get(long[] array, long predicate) {
+		return predicate > 0 && predicate < array.length ? array[(int) predicate] : 0;
+	}
+
+	/**
+	 * @return the number of triples
+	 */
+	public long getTriples() {
+		return triples;
+	}
+
+	/**
+	 * @return the number of distinct subjects
+	 */
+	public long getDistinctSubjects() {
+		return nsubjects;
+	}
+
+	/**
+	 * @return the number of distinct objects
+	 */
+	public long getDistinctObjects() {
+		return nobjects;
+	}
+
+	/**
+	 * @return the number of distinct predicates
+	 */
+	public long getDistinctPredicates() {
+		return predicateTriples.length - 1;
+	}
+
+	/**
+	 * @param predicate predicate id
+	 * @return the number of triples with this predicate
+	 */
+	public long getPredicateTriples(long predicate) {
+		return get(predicateTriples, predicate);
+	}
+
+	/**
+	 * @param predicate predicate id
+	 * @return the number of distinct subjects with this predicate
+	 */
+	public long getPredicateSubjects(long predicate) {
+		return get(predicateSubjects, predicate);
+	}
+
+	/**
+	 * @param predicate predicate id
+	 * @return the number of distinct objects with this predicate
+	 */
+	public long getPredicateObjects(long predicate) {
+		return get(predicateObjects, predicate);
+	}
+
+	/**
+	 * @return the kept characteristic sets, sorted by decreasing number of
+	 *         subjects
+	 */
+	public List<CharacteristicSet> getCharacteristicSets() {
+		return characteristicSets;
+	}
+
+	/**
+	 * union of 2 sorted predicate arrays
+	 *
+	 * @param a sorted predicates
+	 * @param b sorted predicates
+	 * @return sorted union
+	 */
+	public static long[] union(long[] a, long[] b) {
+		long[] union = new long[a.length + b.length];
+		int i = 0;
+		int j = 0;
+		int size = 0;
+		while (i < a.length || j < b.length) {
+			long value;
+			if (j == b.length || (i < a.length && a[i] < b[j])) {
+				value = a[i++];
+			} else if (i == a.length || b[j] < a[i]) {
+				value = b[j++];
+			} else {
+				value = a[i++];
+				j++;
+			}
+			union[size++] = value;
+		}
+		return size == union.length ? union : Arrays.copyOf(union, size);
+	}
+
+	/**
+	 * estimate the number of results of a subject star join with unbound
+	 * objects using the characteristic sets
+	 *
+	 * @param predicates predicate ids of the star, sorted
+	 * @return estimation, -1 if no kept characteristic set contains these
+	 *         predicates
+	 */
+	public double estimateStar(long[] predicates) {
+		double cardinality = 0;
+		boolean found = false;
+		for (CharacteristicSet set : characteristicSets) {
+			if (!set.containsAll(predicates)) {
+				continue;
+			}
+			found = true;
+			double setCardinality = set.subjects();
+			for (long predicate : predicates) {
+				setCardinality *= set.multiplicity(predicate);
+			}
+			cardinality += setCardinality;
+		}
+		return found ? cardinality : -1;
+	}
+
+	/**
+	 * counter of the characteristic sets, the sets with the lowest number of
+	 * subjects are removed when there are too many sets
+	 */
+	private static class CharacteristicSetCounter {
+		private final int maxSets;
+		private final Map<PredicateSet, long[]> sets = new HashMap<>();
+		private long pruneThreshold;
+
+		CharacteristicSetCounter(int maxSets) {
+			this.maxSets = maxSets;
+		}
+
+		void add(long[] preds, long[] occs, int size, long[] predicateSubjects) {
+			if (size == 0) {
+				return;
+			}
+			for (int i = 0; i < size; i++) {
+				predicateSubjects[(int) preds[i]]++;
+			}
+			if (maxSets == 0) {
+				return;
+			}
+			// sort the predicates with their occurrences
+			long[] predicates = Arrays.copyOf(preds, size);
+			long[] occurrences = new long[size];
+			Arrays.sort(predicates);
+			for (int i = 0; i < size; i++) {
+				occurrences[Arrays.binarySearch(predicates, preds[i])] = occs[i];
+			}
+			// [subjects, occurrences...]
+			long[] counts = sets.computeIfAbsent(new PredicateSet(predicates), k -> new long[size + 1]);
+			counts[0]++;
+			for (int i = 0; i < size; i++) {
+				counts[i + 1] += occurrences[i];
+			}
+			if (sets.size() > maxSets * 2) {
+				// remove the less used sets
+				while (sets.size() > maxSets) {
+					pruneThreshold++;
+					long threshold = pruneThreshold;
+					sets.values().removeIf(c -> c[0] <= threshold);
+				}
+			}
+		}
+
+		List<CharacteristicSet> build() {
+			List<CharacteristicSet> list = new ArrayList<>(sets.size());
+			sets.forEach((key, counts) -> list.add(
+					new CharacteristicSet(key.predicates(), counts[0], Arrays.copyOfRange(counts, 1, counts.length))));
+			list.sort(Comparator.comparingLong(CharacteristicSet::subjects).reversed());
+			return List.copyOf(list.subList(0, Math.min(maxSets, list.size())));
+		}
+	}
+
+	private record PredicateSet(long[] predicates) {
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof PredicateSet other && Arrays.equals(predicates, other.predicates);
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(predicates);
+		}
+	}
+}
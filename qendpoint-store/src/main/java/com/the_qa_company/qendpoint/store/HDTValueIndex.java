@@ -0,0 +1,630 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.core.dictionary.Dictionary;
+import com.the_qa_company.qendpoint.core.dictionary.DictionarySection;
+import com.the_qa_company.qendpoint.core.enums.TripleComponentRole;
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.util.LiteralsUtils;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.base.CoreDatatype;
+import org.eclipse.rdf4j.model.datatypes.XMLDatatypeUtil;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.query.algebra.Compare;
+import org.eclipse.rdf4j.query.algebra.evaluation.ValueExprEvaluationException;
+import org.eclipse.rdf4j.query.algebra.evaluation.util.QueryEvaluationUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.datatype.DatatypeConstants;
+import javax.xml.datatype.XMLGregorianCalendar;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Value-ordered index of the numeric and date typed literals of a HDT. The
+ * dictionaries with a section by datatype (
+ * {@link com.the_qa_company.qendpoint.core.options.HDTOptionsKeys#DICTIONARY_TYPE_VALUE_MULTI_OBJECTS}
+ * and
+ * {@link com.the_qa_company.qendpoint.core.options.HDTOptionsKeys#DICTIONARY_TYPE_VALUE_MULTI_OBJECTS_LANG})
+ * are sorting their literals by string, the index stores for each numeric or
+ * date section the positions of the literals sorted by value. A range
+ * comparison with a constant is converted into a range of ranks, the literals
+ * are then filtered with their HDT ids without reading the dictionary, see
+ * {@link EndpointStoreValueRangeOptimizer}. When all the literals comparable
+ * with the constant are indexed, the range is exact and its ids can be searched
+ * instead of filtering all the values.
+ *
+ * @author Antoine Willerval
+ */
+public class HDTValueIndex {
+	private static final Logger logger = LoggerFactory.getLogger(HDTValueIndex.class);
+	private static final long MAGIC = 0x45554C4156544448L; // HDTVALUE
+	private static final int VERSION = 2;
+	private static final ValueFactory VF = SimpleValueFactory.getInstance();
+
+	/**
+	 * load the index of a HDT or compute and save it if the file doesn't exist
+	 * or if it was created for another HDT
+	 *
+	 * @param hdt     the hdt
+	 * @param hdtFile the file of the hdt
+	 * @param file    the index file
+	 * @return index
+	 * @throws IOException read/write exception
+	 */
+	public static HDTValueIndex loadOrCompute(HDT hdt, Path hdtFile, Path file) throws IOException {
+		long[] signature = HDTStatistics.signature(hdt, hdtFile);
+		if (Files.exists(file)) {
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+				if (in.readLong() == MAGIC && in.readInt() == VERSION) {
+					long[] fileSignature = HDTStatistics.readLongs(in);
+					if (Arrays.equals(signature, fileSignature)) {
+						return read(hdt, in);
+					}
+				}
+			}
+			logger.info("outdated value index file {}, computing a new index", file);
+		}
+		HDTValueIndex index = compute(hdt);
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+			out.writeLong(MAGIC);
+			out.writeInt(VERSION);
+			HDTStatistics.writeLongs(out, signature);
+			index.write(out);
+		}
+		Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+		return index;
+	}
+
+	/**
+	 * compute the index of a HDT
+	 *
+	 * @param hdt the hdt
+	 * @return index, empty if the dictionary doesn't have datatype sections
+	 */
+	public static HDTValueIndex compute(HDT hdt) {
+		long start = System.currentTimeMillis();
+		Dictionary dict = hdt.getDictionary();
+		List<Section> sections = new ArrayList<>();
+		List<String> unindexedTypes = new ArrayList<>();
+		for (Map.Entry<? extends CharSequence, DictionarySection> e : dict.getAllObjects().entrySet()) {
+			String type = e.getKey().toString();
+			CoreDatatype.XSD datatype = comparableDatatype(type);
+			if (datatype == null) {
+				continue;
+			}
+			DictionarySection section = e.getValue();
+			long firstId = isIndexed(datatype) ? firstId(dict, type, section) : -1;
+			if (firstId == -1) {
+				// the literals of this section can match a range
+				unindexedTypes.add(type);
+				continue;
+			}
+			Section indexed = datatype.isCalendarDatatype() ? computeCalendar(type, datatype, firstId, section)
+					: computeNumeric(type, datatype, firstId, section);
+			if (indexed.order.length != 0) {
+				sections.add(indexed);
+			}
+		}
+		logger.info("HDT value index computed in {}ms, {} sections", System.currentTimeMillis() - start,
+				sections.size());
+		return new HDTValueIndex(sections, unindexedTypes);
+	}
+
+	/**
+	 * @param type section type
+	 * @return the datatype of the section if its literals can be compared with
+	 *         a numeric or a date constant, null otherwise
+	 */
+	private static CoreDatatype.XSD comparableDatatype(String type) {
+		if (type.length() < 2 || type.charAt(0) != '<' || type.charAt(type.length() - 1) != '>') {
+			return null; // not a datatype section
+		}
+		Optional<CoreDatatype.XSD> datatype = CoreDatatype.from(VF.createIRI(type.substring(1, type.length() - 1)))
+				.asXSDDatatype();
+		if (datatype.isEmpty()) {
+			return null;
+		}
+		CoreDatatype.XSD xsd = datatype.get();
+		if (xsd.isNumericDatatype() || xsd.isCalendarDatatype()) {
+			return xsd;
+		}
+		return null;
+	}
+
+	/**
+	 * @param datatype comparable datatype
+	 * @return if the sections of this datatype can be indexed
+	 */
+	private static boolean isIndexed(CoreDatatype.XSD datatype) {
+		return datatype.isNumericDatatype() || datatype == CoreDatatype.XSD.DATETIME
+				|| datatype == CoreDatatype.XSD.DATE;
+	}
+
+	/**
+	 * @return if the literals of 2 datatypes can be compared
+	 */
+	private static boolean isComparable(CoreDatatype.XSD datatype1, CoreDatatype.XSD datatype2) {
+		return datatype1.isNumericDatatype() ? datatype2.isNumericDatatype()
+				: datatype1.isCalendarDatatype() && datatype2.isCalendarDatatype();
+	}
+
+	/**
+	 * find the global id of the first element of a section, the ids of a
+	 * section are consecutive
+	 *
+	 * @return id, -1 if the section can't be indexed
+	 */
+	private static long firstId(Dictionary dict, String type, DictionarySection section) {
+		long size = section.getNumberOfElements();
+		if (size == 0 || size > Integer.MAX_VALUE) {
+			return -1;
+		}
+		long firstId = dict.stringToId(section.extract(1) + LiteralsUtils.TYPE_OPERATOR.toString() + type,
+				TripleComponentRole.OBJECT);
+		long lastId = dict.stringToId(section.extract(size) + LiteralsUtils.TYPE_OPERATOR.toString() + type,
+				TripleComponentRole.OBJECT);
+		if (firstId <= 0 || lastId != firstId + size - 1) {
+			logger.warn("Can't find the ids of the section {}, the section isn't indexed", type);
+			return -1;
+		}
+		return firstId;
+	}
+
+	/**
+	 * @param str section string
+	 * @return the label of the literal
+	 */
+	private static String label(CharSequence str) {
+		String s = str.toString();
+		if (s.length() >= 2 && s.charAt(0) == '"' && s.charAt(s.length() - 1) == '"') {
+			return s.substring(1, s.length() - 1);
+		}
+		return s;
+	}
+
+	private record Entry<K> (K key, int position) {}
+
+	/**
+	 * numeric value, the infinite values are described by the sign of infinity
+	 */
+	private record NumericKey(int infinity, BigDecimal value) implements Comparable<NumericKey> {
+		@Override
+		public int compareTo(NumericKey o) {
+			if (infinity != 0 || o.infinity != 0) {
+				return Integer.compare(infinity, o.infinity);
+			}
+			return value.compareTo(o.value);
+		}
+	}
+
+	private static NumericKey parseNumeric(String label, CoreDatatype.XSD datatype) {
+		if (!XMLDatatypeUtil.isValidValue(label, datatype)) {
+			return null;
+		}
+		String value = XMLDatatypeUtil.collapseWhiteSpace(label);
+		if (datatype.isFloatingPointDatatype()) {
+			switch (value) {
+			case "INF", "+INF" -> {
+				return new NumericKey(1, null);
+			}
+			case "-INF" -> {
+				return new NumericKey(-1, null);
+			}
+			case "NaN" -> {
+				// NaN isn't ordered
+				return null;
+			}
+			}
+		}
+		try {
+			return new NumericKey(0, new BigDecimal(value));
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private static boolean isNaN(String label) {
+		return XMLDatatypeUtil.collapseWhiteSpace(label).equals("NaN");
+	}
+
+	private static Section computeNumeric(String type, CoreDatatype.XSD datatype, long firstId,
+			DictionarySection section) {
+		List<Entry<NumericKey>> entries = new ArrayList<>();
+		boolean nan = false;
+		Iterator<? extends CharSequence> it = section.getSortedEntries();
+		for (int position = 0; it.hasNext(); position++) {
+			String label = label(it.next());
+			NumericKey key = parseNumeric(label, datatype);
+			if (key != null) {
+				entries.add(new Entry<>(key, position));
+			} else if (datatype.isFloatingPointDatatype() && isNaN(label)) {
+				// the invalid literals aren't matching any range, but NaN can
+				nan = true;
+			}
+		}
+		entries.sort(Comparator.comparing(Entry::key));
+		return new Section(type, datatype, firstId, section, false, true, nan,
+				entries.stream().mapToInt(Entry::position).toArray());
+	}
+
+	private static XMLGregorianCalendar parseCalendar(String label, CoreDatatype.XSD datatype) {
+		if (!XMLDatatypeUtil.isValidValue(label, datatype)) {
+			return null;
+		}
+		try {
+			return XMLDatatypeUtil.parseCalendar(label);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	private static boolean hasTimezone(XMLGregorianCalendar calendar) {
+		return calendar.getTimezone() != DatatypeConstants.FIELD_UNDEFINED;
+	}
+
+	private static Section computeCalendar(String type, CoreDatatype.XSD datatype, long firstId,
+			DictionarySection section) {
+		// the dates with and without timezone can't always be compared, only
+		// the dates of the first kind are indexed
+		List<Entry<XMLGregorianCalendar>> entries = new ArrayList<>();
+		Boolean timezone = null;
+		boolean complete = true;
+		Iterator<? extends CharSequence> it = section.getSortedEntries();
+		for (int position = 0; it.hasNext(); position++) {
+			XMLGregorianCalendar key = parseCalendar(label(it.next()), datatype);
+			if (key == null) {
+				continue;
+			}
+			if (timezone == null) {
+				timezone = hasTimezone(key);
+			} else if (timezone != hasTimezone(key)) {
+				// the invalid dates aren't matching any range, but these ones
+				// can
+				complete = false;
+				continue;
+			}
+			entries.add(new Entry<>(key, position));
+		}
+		entries.sort(Comparator.comparing(Entry::key, XMLGregorianCalendar::compare));
+		return new Section(type, datatype, firstId, section, timezone != null && timezone, complete, false,
+				entries.stream().mapToInt(Entry::position).toArray());
+	}
+
+	private static HDTValueIndex read(HDT hdt, DataInputStream in) throws IOException {
+		Map<? extends CharSequence, DictionarySection> objects = hdt.getDictionary().getAllObjects();
+		int count = in.readInt();
+		List<Section> sections = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			String type = in.readUTF();
+			long firstId = in.readLong();
+			boolean timezone = in.readBoolean();
+			boolean complete = in.readBoolean();
+			boolean nan = in.readBoolean();
+			int[] order = new int[in.readInt()];
+			for (int j = 0; j < order.length; j++) {
+				order[j] = in.readInt();
+			}
+			CoreDatatype.XSD datatype = comparableDatatype(type);
+			DictionarySection section = objects.entrySet().stream().filter(e -> e.getKey().toString().equals(type))
+					.map(Map.Entry::getValue).findAny().orElse(null);
+			if (datatype == null || section == null) {
+				throw new IOException("Unknown section in the value index: " + type);
+			}
+			sections.add(new Section(type, datatype, firstId, section, timezone, complete, nan, order));
+		}
+		int unindexedCount = in.readInt();
+		List<String> unindexedTypes = new ArrayList<>(unindexedCount);
+		for (int i = 0; i < unindexedCount; i++) {
+			unindexedTypes.add(in.readUTF());
+		}
+		return new HDTValueIndex(sections, unindexedTypes);
+	}
+
+	private final List<Section> sections;
+	// types of the comparable sections without index
+	private final List<String> unindexedTypes;
+	private final List<CoreDatatype.XSD> unindexedDatatypes;
+
+	private HDTValueIndex(List<Section> sections, List<String> unindexedTypes) {
+		this.sections = sections;
+		this.unindexedTypes = unindexedTypes;
+		this.unindexedDatatypes = unindexedTypes.stream().map(HDTValueIndex::comparableDatatype).toList();
+	}
+
+	private void write(DataOutputStream out) throws IOException {
+		out.writeInt(sections.size());
+		for (Section section : sections) {
+			out.writeUTF(section.type);
+			out.writeLong(section.firstId);
+			out.writeBoolean(section.timezone);
+			out.writeBoolean(section.complete);
+			out.writeBoolean(section.nan);
+			out.writeInt(section.order.length);
+			for (int position : section.order) {
+				out.writeInt(position);
+			}
+		}
+		out.writeInt(unindexedTypes.size());
+		for (String type : unindexedTypes) {
+			out.writeUTF(type);
+		}
+	}
+
+	/**
+	 * @return the indexed sections
+	 */
+	public List<Section> getSections() {
+		return sections;
+	}
+
+	/**
+	 * create the range of the literals matching a comparison with a constant
+	 *
+	 * @param op       comparison, only {@link Compare.CompareOp#LT},
+	 *                 {@link Compare.CompareOp#LE},
+	 *                 {@link Compare.CompareOp#GT} and
+	 *                 {@link Compare.CompareOp#GE} are supported
+	 * @param constant the constant, right operand of the comparison
+	 * @return range, null if no section can be filtered with this comparison
+	 */
+	public ValueRange range(Compare.CompareOp op, Literal constant) {
+		if (op != Compare.CompareOp.LT && op != Compare.CompareOp.LE && op != Compare.CompareOp.GT
+				&& op != Compare.CompareOp.GE) {
+			return null;
+		}
+		CoreDatatype.XSD datatype = constant.getCoreDatatype().asXSDDatatype().orElse(null);
+		if (datatype == null) {
+			return null;
+		}
+		Boolean timezone = null;
+		if (datatype.isCalendarDatatype()) {
+			XMLGregorianCalendar calendar = parseCalendar(constant.getLabel(), datatype);
+			if (calendar == null) {
+				return null;
+			}
+			timezone = hasTimezone(calendar);
+		} else if (!datatype.isNumericDatatype()) {
+			return null;
+		}
+
+		List<SectionRange> ranges = new ArrayList<>();
+		// if the literals comparable with the constant are all in the ranges
+		boolean exact = true;
+		for (Section section : sections) {
+			if (!isComparable(section.datatype, datatype)) {
+				continue;
+			}
+			if (timezone != null && (section.datatype != datatype || section.timezone != timezone)) {
+				exact = false;
+				continue;
+			}
+			SectionRange range = section.range(op, constant);
+			if (range == null) {
+				exact = false;
+				continue;
+			}
+			exact &= section.complete && !(section.nan && section.nanMatches(op, constant));
+			ranges.add(range);
+		}
+		for (CoreDatatype.XSD unindexed : unindexedDatatypes) {
+			exact &= !isComparable(unindexed, datatype);
+		}
+		return ranges.isEmpty() ? null : new ValueRange(ranges.toArray(SectionRange[]::new), exact);
+	}
+
+	/**
+	 * section of the index
+	 */
+	public static class Section {
+		private final String type;
+		private final CoreDatatype.XSD datatype;
+		private final IRI datatypeIRI;
+		private final long firstId;
+		private final DictionarySection section;
+		private final boolean timezone;
+		// if the literals not indexed can't match a range, except NaN
+		private final boolean complete;
+		// if the section contains NaN, not indexed
+		private final boolean nan;
+		// rank -> position in the section
+		private final int[] order;
+		// position in the section -> rank, -1 if the literal isn't indexed
+		private final int[] ranks;
+
+		private Section(String type, CoreDatatype.XSD datatype, long firstId, DictionarySection section,
+				boolean timezone, boolean complete, boolean nan, int[] order) {
+			this.type = type;
+			this.datatype = datatype;
+			this.datatypeIRI = datatype.getIri();
+			this.firstId = firstId;
+			this.section = section;
+			this.timezone = timezone;
+			this.complete = complete;
+			this.nan = nan;
+			this.order = order;
+			this.ranks = new int[(int) section.getNumberOfElements()];
+			Arrays.fill(ranks, -1);
+			for (int rank = 0; rank < order.length; rank++) {
+				ranks[order[rank]] = rank;
+			}
+		}
+
+		/**
+		 * @return the type of the section
+		 */
+		public String getType() {
+			return type;
+		}
+
+		/**
+		 * @return the id of the first literal of the section
+		 */
+		public long getFirstId() {
+			return firstId;
+		}
+
+		/**
+		 * @return the number of indexed literals
+		 */
+		public int size() {
+			return order.length;
+		}
+
+		/**
+		 * @param rank rank
+		 * @return the HDT id of the literal with this rank
+		 */
+		public long idOfRank(int rank) {
+			return firstId + order[rank];
+		}
+
+		/**
+		 * @param rank rank
+		 * @return the literal with this rank
+		 */
+		public Literal literalOfRank(int rank) {
+			return VF.createLiteral(label(section.extract(order[rank] + 1)), datatypeIRI);
+		}
+
+		/**
+		 * @return the first rank where the comparison isn't equal to the prefix
+		 *         value, the comparison is true until this rank for LT/LE and
+		 *         after this rank for GT/GE
+		 */
+		private int boundary(Compare.CompareOp op, Literal constant, boolean prefix) {
+			int start = 0;
+			int end = order.length;
+			while (start < end) {
+				int mid = (start + end) >>> 1;
+				if (QueryEvaluationUtil.compare(literalOfRank(mid), constant, op, false) == prefix) {
+					start = mid + 1;
+				} else {
+					end = mid;
+				}
+			}
+			return start;
+		}
+
+		/**
+		 * @return if NaN is matching a comparison
+		 */
+		private boolean nanMatches(Compare.CompareOp op, Literal constant) {
+			try {
+				return QueryEvaluationUtil.compare(VF.createLiteral("NaN", datatypeIRI), constant, op, false);
+			} catch (ValueExprEvaluationException e) {
+				return false;
+			}
+		}
+
+		private SectionRange range(Compare.CompareOp op, Literal constant) {
+			try {
+				return switch (op) {
+				case LT, LE -> new SectionRange(this, 0, boundary(op, constant, true));
+				case GT, GE -> new SectionRange(this, boundary(op, constant, false), order.length);
+				default -> throw new AssertionError(op);
+				};
+			} catch (ValueExprEvaluationException e) {
+				// can't compare this section
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * ranks of the literals of a section matching a comparison
+	 *
+	 * @param section section
+	 * @param start   start rank (inclusive)
+	 * @param end     end rank (exclusive)
+	 */
+	public record SectionRange(Section section, int start, int end) {
+		/**
+		 * @return the number of literals in the range
+		 */
+		public int size() {
+			return end - start;
+		}
+	}
+
+	/**
+	 * literals matching a comparison, the literals of the sections not in the
+	 * range or not indexed should be compared with their value
+	 */
+	public static class ValueRange {
+		private final SectionRange[] ranges;
+		private final boolean exact;
+
+		private ValueRange(SectionRange[] ranges, boolean exact) {
+			this.ranges = ranges;
+			this.exact = exact;
+		}
+
+		/**
+		 * @return the ranges of the sections
+		 */
+		public List<SectionRange> getRanges() {
+			return List.of(ranges);
+		}
+
+		/**
+		 * @return if the HDT literals matching the comparison are all in the
+		 *         ranges, the other HDT literals aren't matching it
+		 */
+		public boolean isExact() {
+			return exact;
+		}
+
+		/**
+		 * @return the number of literals in the ranges
+		 */
+		public long size() {
+			long size = 0;
+			for (SectionRange range : ranges) {
+				size += range.size();
+			}
+			return size;
+		}
+
+		/**
+		 * test if a literal is in the range
+		 *
+		 * @param id HDT id of the literal
+		 * @return {@link Boolean#TRUE} if the literal is in the range,
+		 *         {@link Boolean#FALSE} if it isn't or null if the literal
+		 *         isn't indexed for this range
+		 */
+		public Boolean contains(long id) {
+			for (SectionRange range : ranges) {
+				Section section = range.section;
+				long position = id - section.firstId;
+				if (position < 0 || position >= section.ranks.length) {
+					continue;
+				}
+				int rank = section.ranks[(int) position];
+				if (rank == -1) {
+					return null;
+				}
+				return rank >= range.start && rank < range.end;
+			}
+			return null;
+		}
+	}
+}
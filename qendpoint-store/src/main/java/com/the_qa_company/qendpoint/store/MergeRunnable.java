@@ -4,6 +4,7 @@ import com.github.jsonldjava.shaded.com.google.common.base.Stopwatch;
 import com.the_qa_company.qendpoint.store.exception.EndpointStoreException;
 import com.the_qa_company.qendpoint.utils.BitArrayDisk;
 import com.the_qa_company.qendpoint.utils.OverrideHDTOptions;
+import com.the_qa_company.qendpoint.utils.rdf.ByteNTriplesWriter;
 import org.apache.commons.io.file.PathUtils;
 import org.eclipse.rdf4j.common.concurrent.locks.Lock;
 import org.eclipse.rdf4j.common.concurrent.locks.LockManager;
@@ -11,12 +12,12 @@ import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Resource;
 import org.eclipse.rdf4j.model.Statement;
 import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
 import org.eclipse.rdf4j.repository.RepositoryConnection;
 import org.eclipse.rdf4j.repository.RepositoryResult;
-import org.eclipse.rdf4j.rio.RDFFormat;
-import org.eclipse.rdf4j.rio.RDFWriter;
-import org.eclipse.rdf4j.rio.Rio;
 import com.the_qa_company.qendpoint.core.compact.bitmap.BitmapFactory;
+import com.the_qa_company.qendpoint.core.dictionary.Dictionary;
+import com.the_qa_company.qendpoint.core.dictionary.impl.kcat.KCatMapping;
 import com.the_qa_company.qendpoint.core.enums.RDFNotation;
 import com.the_qa_company.qendpoint.core.enums.TripleComponentRole;
 import com.the_qa_company.qendpoint.core.exceptions.ParserException;
@@ -34,6 +35,8 @@ import java.nio.file.Files;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 
@@ -507,6 +510,7 @@ public class MergeRunnable {
 	 */
 	private synchronized void step1(boolean restarting, Lock switchLock) throws InterruptedException, IOException {
 		logger.info("Start Merge process...");
+		long stepStart = System.nanoTime();
 		markRestartStepCompleted(0);
 
 		debugStepPoint(MergeRunnableStopPoint.STEP1_START);
@@ -515,8 +519,10 @@ public class MergeRunnable {
 
 		// if we aren't restarting, create the lock, otherwise switchLock
 		// already contains the update lock
+		long lockStart = stepStart;
 		if (!restarting) {
 			switchLock = createUpdateLock();
+			lockStart = System.nanoTime();
 		}
 		// create a lock so that new incoming connections don't do anything
 		// wait for all running updates to finish
@@ -560,6 +566,7 @@ public class MergeRunnable {
 			// delete previous array in case of restart
 			Files.deleteIfExists(Path.of(endpointFiles.getTripleDeleteCopyArr()));
 		}
+		endpoint.getDeleteBitMap().flush();
 		Files.copy(Path.of(endpointFiles.getTripleDeleteArr()), Path.of(endpointFiles.getTripleDeleteCopyArr()),
 				StandardCopyOption.REPLACE_EXISTING);
 		EndpointStoreDump dumpInfo = endpoint.getDumpRef().getAndSet(null);
@@ -573,6 +580,7 @@ public class MergeRunnable {
 
 		// release the lock so that the connections can continue
 		switchLock.release();
+		endpoint.getMetrics().recordMergeUpdateLock(lockStart);
 		debugStepPoint(MergeRunnableStopPoint.STEP1_END);
 		logger.debug("Switch-Lock released");
 		logger.info("End merge step 1");
@@ -582,6 +590,7 @@ public class MergeRunnable {
 		// recover
 		this.endpoint.writeWhichStore();
 		markRestartStepCompleted(2);
+		endpoint.getMetrics().recordMergeStep(1, stepStart);
 		step2(false, null, dumpInfo);
 	}
 
@@ -609,6 +618,7 @@ public class MergeRunnable {
 	 */
 	private synchronized void step2(boolean restarting, Lock lock, EndpointStoreDump dumpInfo)
 			throws InterruptedException, IOException {
+		long stepStart = System.nanoTime();
 		debugStepPoint(MergeRunnableStopPoint.STEP2_START);
 		// diff hdt indexes...
 		logger.debug("Dump all triples from the native store to file");
@@ -642,6 +652,7 @@ public class MergeRunnable {
 		delete(endpointFiles.getTripleDeleteArr());
 
 		logger.info("End merge step 2");
+		endpoint.getMetrics().recordMergeStep(2, stepStart);
 
 		step3(false, null);
 	}
@@ -737,10 +748,12 @@ public class MergeRunnable {
 	 */
 	private synchronized void step3(boolean restarting, Lock lock) throws InterruptedException, IOException {
 		logger.debug("Start Step 3");
+		long stepStart = System.nanoTime();
 		debugStepPoint(MergeRunnableStopPoint.STEP3_START);
 		// index the new file
 
 		Lock translateLock;
+		long lockStart = stepStart;
 
 		try (HDT newHdt = HDTManager.mapIndexedHDT(endpointFiles.getHDTNewIndex(), endpoint.getHDTSpec(), null)) {
 
@@ -751,6 +764,7 @@ public class MergeRunnable {
 			// create a lock so that new incoming connections don't do anything
 			if (!restarting) {
 				translateLock = createConnectionLock();
+				lockStart = System.nanoTime();
 				// wait for all running updates to finish
 				waitForActiveConnections();
 			} else {
@@ -788,7 +802,9 @@ public class MergeRunnable {
 		HDT tempHdt = endpoint.loadIndex();
 
 		convertOldToNew(tempHdt);
-		this.endpoint.resetHDT(tempHdt, true);
+		// the statistics are loaded in another thread to release the lock
+		// without waiting for them
+		this.endpoint.resetHDT(tempHdt, true, true);
 
 		// mark the triples as deleted from the temp file stored while merge
 		this.endpoint.markDeletedTempTriples();
@@ -810,6 +826,7 @@ public class MergeRunnable {
 		deleteOld(endpointFiles.getHDTIndexV11());
 
 		translateLock.release();
+		endpoint.getMetrics().recordMergeConnectionLock(lockStart);
 		logger.debug("Translate-Lock released");
 		logger.debug("Lock released");
 
@@ -818,6 +835,7 @@ public class MergeRunnable {
 		debugStepPoint(MergeRunnableStopPoint.MERGE_END_OLD_SLEEP);
 
 		logger.info("Merge finished");
+		endpoint.getMetrics().recordMergeStep(3, stepStart);
 		if (restartAnother) {
 			// recurse to the step1 to dump
 			step1(false, null);
@@ -839,6 +857,9 @@ public class MergeRunnable {
 		OverrideHDTOptions catOpt = new OverrideHDTOptions(endpoint.getHDTSpec());
 		catOpt.setOverride(HDTOptionsKeys.HDTCAT_LOCATION, location);
 		catOpt.setOverride(HDTOptionsKeys.HDTCAT_FUTURE_LOCATION, file.getAbsolutePath());
+		// keep the ID mapping of the old HDT for the conversion of step 3
+		catOpt.setOverride(HDTOptionsKeys.HDTCAT_MAPPING_LOCATION, endpointFiles.getHDTNewMapping());
+		catOpt.setOverride(HDTOptionsKeys.HDTCAT_MAPPING_INDEXES, "0");
 		try (BitArrayDisk deleteBitmap = new BitArrayDisk(endpoint.getHdt().getTriples().getNumberOfElements(),
 				new File(bitArray))) {
 			try (HDT hdt = HDTManager.diffBitCatHDT(List.of(hdtInput1, hdtInput2),
@@ -886,27 +907,24 @@ public class MergeRunnable {
 
 	private void writeTempFile(RepositoryConnection connection, String file) throws IOException {
 		try (FileOutputStream out = new FileOutputStream(file)) {
-			RDFWriter writer = Rio.createWriter(RDFFormat.NTRIPLES, out);
-			RepositoryResult<Statement> repositoryResult = connection.getStatements(null, null, null, false);
+			// the HDT values are written from the dictionary bytes, without
+			// converting them to rdf4j values
+			ByteNTriplesWriter writer = new ByteNTriplesWriter(out);
+			HDTConverter converter = this.endpoint.getHdtConverter();
+			ValueFactory vf = this.endpoint.getValueFactory();
 			writer.startRDF();
 			logger.debug("Content dumped file");
-			while (repositoryResult.hasNext()) {
-				Statement stm = repositoryResult.next();
+			try (RepositoryResult<Statement> repositoryResult = connection.getStatements(null, null, null, false)) {
+				while (repositoryResult.hasNext()) {
+					Statement stm = repositoryResult.next();
 
-				Resource newSubjIRI = this.endpoint.getHdtConverter().rdf4jToHdtIDsubject(stm.getSubject());
-				newSubjIRI = this.endpoint.getHdtConverter().subjectHdtResourceToResource(newSubjIRI);
+					Resource newSubj = converter.rdf4jToHdtIDsubject(stm.getSubject());
+					IRI newPred = converter.rdf4jToHdtIDpredicate(stm.getPredicate());
+					Value newObj = converter.rdf4jToHdtIDobject(stm.getObject());
 
-				IRI newPredIRI = this.endpoint.getHdtConverter().rdf4jToHdtIDpredicate(stm.getPredicate());
-				newPredIRI = this.endpoint.getHdtConverter().predicateHdtResourceToResource(newPredIRI);
-
-				Value newObjIRI = this.endpoint.getHdtConverter().rdf4jToHdtIDobject(stm.getObject());
-				newObjIRI = this.endpoint.getHdtConverter().objectHdtResourceToResource(newObjIRI);
-
-				Statement stmConverted = this.endpoint.getValueFactory().createStatement(newSubjIRI, newPredIRI,
-						newObjIRI);
-				logger.debug("  {} {} {}", stmConverted.getSubject(), stmConverted.getPredicate(),
-						stmConverted.getObject());
-				writer.handleStatement(stmConverted);
+					logger.debug("  {} {} {}", newSubj, newPred, newObj);
+					writer.handleStatement(vf.createStatement(newSubj, newPred, newObj));
+				}
 			}
 			writer.endRDF();
 		}
@@ -914,67 +932,48 @@ public class MergeRunnable {
 
 	private void convertOldToNew(HDT newHDT) throws IOException {
 		logger.info("Started converting IDs in the merge store");
+		Path mappingLocation = Path.of(endpointFiles.getHDTNewMapping());
 		try {
 			Stopwatch stopwatch = Stopwatch.createStarted();
 			endpoint.regenFreezedStore();
-			try (RepositoryConnection connectionChanging = this.endpoint.getConnectionToChangingStore(); // B
+			// the mapping of the cat is used to convert the HDT IDs without
+			// the strings, it can be missing if the merge was restarted with
+			// a previous version
+			try (KCatMapping mapping = KCatMapping.exists(mappingLocation, 0) ? new KCatMapping(mappingLocation, 0)
+					: null;
+					RepositoryConnection connectionChanging = this.endpoint.getConnectionToChangingStore(); // B
 					RepositoryConnection connectionFreezed = this.endpoint.getConnectionToFreezedStore() // A
 			) {
-				connectionFreezed.begin();
+				if (mapping == null) {
+					logger.debug("No merge mapping, converting the IDs with the strings");
+				}
+				HDTConverter iriConverter = new HDTConverter(this.endpoint);
+				IdConverter converter = new IdConverter(iriConverter, this.endpoint.getValueFactory(), newHDT, mapping);
+				List<Statement> buffer = new ArrayList<>(MERGE_OLD_TO_NEW_SPLIT);
 				try (RepositoryResult<Statement> statements = connectionChanging.getStatements(null, null, null)) {
 					long count = 0;
 					for (Statement s : statements) {
 						count++;
-						// get the string
-						// convert the string using the new dictionary
-
-						// get the old IRIs with old IDs
-						HDTConverter iriConverter = new HDTConverter(this.endpoint);
-						Resource oldSubject = iriConverter.rdf4jToHdtIDsubject(s.getSubject());
-						IRI oldPredicate = iriConverter.rdf4jToHdtIDpredicate(s.getPredicate());
-						Value oldObject = iriConverter.rdf4jToHdtIDobject(s.getObject());
-
-						// if the old string cannot be converted than we can
-						// keep the
-						// same
-						Resource newSubjIRI = oldSubject;
-						long id = newHDT.getDictionary().stringToId(oldSubject.toString(), TripleComponentRole.SUBJECT);
-						if (id != -1) {
-							newSubjIRI = iriConverter.subjectIdToIRI(id);
-						}
-
-						IRI newPredIRI = oldPredicate;
-						id = newHDT.getDictionary().stringToId(oldPredicate.toString(), TripleComponentRole.PREDICATE);
-
-						if (id != -1) {
-							newPredIRI = iriConverter.predicateIdToIRI(id);
-						}
-						Value newObjIRI = oldObject;
-						id = newHDT.getDictionary().stringToId(oldObject.toString(), TripleComponentRole.OBJECT);
-						if (id != -1) {
-							newObjIRI = iriConverter.objectIdToIRI(id);
-						}
-						logger.debug("old:[{} {} {}]", oldSubject, oldPredicate, oldObject);
+						// convert the old IDs using the mapping or the strings
+						// of the new dictionary
+						Resource newSubjIRI = converter.subject(s.getSubject());
+						IRI newPredIRI = converter.predicate(s.getPredicate());
+						Value newObjIRI = converter.object(s.getObject());
+						logger.debug("old:[{} {} {}]", s.getSubject(), s.getPredicate(), s.getObject());
 						logger.debug("new:[{} {} {}]", newSubjIRI, newPredIRI, newObjIRI);
-						connectionFreezed.add(newSubjIRI, newPredIRI, newObjIRI);
-						// alternative, i.e. make inplace replacements
-						// connectionChanging.remove(s.getSubject(),
-						// s.getPredicate(),
-						// s.getObject());
-						// connectionChanging.add(newSubjIRI, newPredIRI,
-						// newObjIRI);
-
-						if (count % MERGE_OLD_TO_NEW_SPLIT == 0) {
+						buffer.add(this.endpoint.getValueFactory().createStatement(newSubjIRI, newPredIRI, newObjIRI));
+
+						if (buffer.size() == MERGE_OLD_TO_NEW_SPLIT) {
 							logger.debug("Converted {}", count);
-							connectionFreezed.commit();
-							connectionFreezed.begin();
+							addConverted(connectionFreezed, buffer);
 						}
 					}
-					if (count % MERGE_OLD_TO_NEW_SPLIT != 0) {
-						connectionFreezed.commit();
+					if (!buffer.isEmpty()) {
+						addConverted(connectionFreezed, buffer);
 					}
 				}
 			}
+			KCatMapping.delete(mappingLocation, 0);
 			endpoint.regenChangingStore();
 			// @todo: why?
 			this.endpoint.switchStore = !this.endpoint.switchStore;
@@ -986,6 +985,7 @@ public class MergeRunnable {
 			Files.deleteIfExists(Path.of(endpointFiles.getHDTBitX()));
 			Files.deleteIfExists(Path.of(endpointFiles.getHDTBitY()));
 			Files.deleteIfExists(Path.of(endpointFiles.getHDTBitZ()));
+			Files.deleteIfExists(Path.of(endpointFiles.getHDTDeltaPairFilter()));
 			stopwatch = Stopwatch.createStarted();
 			logger.info("Time elapsed to initialize native store dictionary: " + stopwatch);
 		} catch (Throwable e) {
@@ -994,4 +994,86 @@ public class MergeRunnable {
 		}
 	}
 
+	/**
+	 * add a batch of converted statements to a store, the statements are sorted
+	 * by subject to add them with a better locality in the store indexes
+	 *
+	 * @param connection connection to the store
+	 * @param buffer     statements, cleared after the add
+	 */
+	private static void addConverted(RepositoryConnection connection, List<Statement> buffer) {
+		buffer.sort(Comparator.comparing((Statement st) -> st.getSubject().stringValue())
+				.thenComparing(st -> st.getPredicate().stringValue()));
+		connection.begin();
+		connection.add(buffer);
+		connection.commit();
+		buffer.clear();
+	}
+
+	/**
+	 * convert the values of the merge store from the old HDT IDs to the new HDT
+	 * IDs
+	 */
+	private static class IdConverter {
+		private final HDTConverter iriConverter;
+		private final Dictionary newDictionary;
+		private final KCatMapping mapping;
+		private final ValueFactory valueFactory;
+		private final long newShared;
+
+		IdConverter(HDTConverter iriConverter, ValueFactory valueFactory, HDT newHDT, KCatMapping mapping) {
+			this.iriConverter = iriConverter;
+			this.valueFactory = valueFactory;
+			this.newDictionary = newHDT.getDictionary();
+			this.mapping = mapping;
+			this.newShared = newDictionary.getNshared();
+		}
+
+		private long map(long oldId, TripleComponentRole role) {
+			if (oldId == -1 || mapping == null) {
+				return 0;
+			}
+			return mapping.map(oldId, role);
+		}
+
+		private long stringToId(Value oldValue, TripleComponentRole role) {
+			// if the old string cannot be converted than we can keep the same
+			return newDictionary.stringToId(oldValue.toString(), role);
+		}
+
+		private IRI subjectOrObjectIRI(long id, String prefix) {
+			return valueFactory.createIRI(HDTConverter.HDT_URI + (id <= newShared ? "SO" : prefix) + id);
+		}
+
+		Resource subject(Resource oldSubject) {
+			long id = map(iriConverter.rdf4jSubjectToHdtID(oldSubject), TripleComponentRole.SUBJECT);
+			if (id > 0) {
+				return subjectOrObjectIRI(id, "S");
+			}
+			Resource old = iriConverter.rdf4jToHdtIDsubject(oldSubject);
+			id = stringToId(old, TripleComponentRole.SUBJECT);
+			return id != -1 ? subjectOrObjectIRI(id, "S") : old;
+		}
+
+		IRI predicate(IRI oldPredicate) {
+			long id = map(iriConverter.rdf4jPredicateToHdtID(oldPredicate), TripleComponentRole.PREDICATE);
+			if (id > 0) {
+				return iriConverter.predicateIdToIRI(id);
+			}
+			IRI old = iriConverter.rdf4jToHdtIDpredicate(oldPredicate);
+			id = stringToId(old, TripleComponentRole.PREDICATE);
+			return id != -1 ? iriConverter.predicateIdToIRI(id) : old;
+		}
+
+		Value object(Value oldObject) {
+			long id = map(iriConverter.rdf4jObjectToHdtID(oldObject), TripleComponentRole.OBJECT);
+			if (id > 0) {
+				return subjectOrObjectIRI(id, "O");
+			}
+			Value old = iriConverter.rdf4jToHdtIDobject(oldObject);
+			id = stringToId(old, TripleComponentRole.OBJECT);
+			return id != -1 ? subjectOrObjectIRI(id, "O") : old;
+		}
+	}
+
 }
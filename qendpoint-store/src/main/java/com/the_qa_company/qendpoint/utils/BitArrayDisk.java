@@ -4,6 +4,7 @@ import com.the_qa_company.qendpoint.store.exception.EndpointStoreException;
 import org.eclipse.rdf4j.common.io.NioFile;
 import com.the_qa_company.qendpoint.core.compact.bitmap.ModifiableBitmap;
 import com.the_qa_company.qendpoint.core.listener.ProgressListener;
+import com.the_qa_company.qendpoint.core.util.BitUtil;
 import com.the_qa_company.qendpoint.core.util.io.IOUtil;
 
 import java.io.Closeable;
@@ -11,15 +12,20 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 /**
- * Implementation of {@link ModifiableBitmap} write on disk
+ * Implementation of {@link ModifiableBitmap} write on disk. By default, each
+ * {@link #set(long, boolean)} writes its word in the file, with the
+ * write-coalescing mode, the modified words are only marked as dirty and
+ * written in sorted batches by {@link #force(boolean)} or {@link #close()}.
  */
 public class BitArrayDisk implements ModifiableBitmap, Closeable {
 
 	protected final static int LOGW = 6;
 	protected final static int W = 64;
+	private static final int FLUSH_BUFFER_WORDS = 1 << 13;
 
 	/**
 	 * compute the number of the highest bit of a value
@@ -46,13 +52,14 @@ public class BitArrayDisk implements ModifiableBitmap, Closeable {
 	protected long allBits;
 	protected long[] words;
 
-	private static final int BLOCKS_PER_SUPER = 4;
+	private static final int LOG_WORDS_PER_SUPER = 3;
+	private static final int WORDS_PER_SUPER = 1 << LOG_WORDS_PER_SUPER;
+	private static final int BITS_PER_SUPER = WORDS_PER_SUPER * W;
 
-	// Variables
+	// rank directory, Fenwick tree over the number of ones of each
+	// superblock, updated with the modified words after its creation
 	private long pop;
-	private long[] superBlocksLong;
-	private int[] superBlocksInt;
-	private byte[] blocks;
+	private long[] superBlocks;
 	private boolean indexUpToDate;
 
 	NioFile output;
@@ -60,6 +67,12 @@ public class BitArrayDisk implements ModifiableBitmap, Closeable {
 	// only for testing we don't necessarily need to store the array on disk
 	private boolean inMemory = false;
 
+	// bitmap of the words modified since the last flush, only used with the
+	// write-coalescing mode
+	private final boolean coalesceWrites;
+	private long[] dirtyWords;
+	private boolean dirty;
+
 	/**
 	 * create a on disk bit array
 	 *
@@ -77,8 +90,21 @@ public class BitArrayDisk implements ModifiableBitmap, Closeable {
 	 * @param nbits the number of bits to allocate
 	 */
 	public BitArrayDisk(long nbits) throws IOException {
+		this(nbits, false);
+	}
+
+	/**
+	 * create a in memory bit array, can be switch to a on disk bit array with
+	 * {@link #changeToInDisk(java.io.File)}
+	 *
+	 * @param nbits          the number of bits to allocate
+	 * @param coalesceWrites use the write-coalescing mode after the switch to a
+	 *                       on disk bit array
+	 */
+	public BitArrayDisk(long nbits, boolean coalesceWrites) throws IOException {
 		this.numbits = 0;
 		this.inMemory = true;
+		this.coalesceWrites = coalesceWrites;
 		initWordsArray(nbits);
 	}
 
@@ -89,8 +115,21 @@ public class BitArrayDisk implements ModifiableBitmap, Closeable {
 	 * @param file  the array location
 	 */
 	public BitArrayDisk(long nbits, File file) throws IOException {
+		this(nbits, file, false);
+	}
+
+	/**
+	 * create a on disk bit array
+	 *
+	 * @param nbits          the number of bits to allocate
+	 * @param file           the array location
+	 * @param coalesceWrites only write the modified words in the file with
+	 *                       {@link #force(boolean)} or {@link #close()}
+	 */
+	public BitArrayDisk(long nbits, File file, boolean coalesceWrites) throws IOException {
 		this.numbits = 0;
 		this.output = new NioFile(file);
+		this.coalesceWrites = coalesceWrites;
 		initWordsArray(nbits);
 	}
 
@@ -146,7 +185,7 @@ public class BitArrayDisk implements ModifiableBitmap, Closeable {
 				}
 				// recompute numbits if we have at least one bit
 				if (lastNonZero != -1)
-					numbits = 8L * lastNonZero + log2(words[lastNonZero]);
+					numbits = (long) W * lastNonZero + log2(words[lastNonZero]);
 			}
 		} else {
 			int nwords = (int) numWords(nbits);
@@ -175,8 +214,26 @@ public class BitArrayDisk implements ModifiableBitmap, Closeable {
 		return (words[wordIndex] & (1L << bitIndex)) != 0;
 	}
 
+	/**
+	 * get a 64 bits word of the bitmap, the bit {@code i} of the word is the
+	 * bit {@code wordIndex * 64 + i} of the bitmap
+	 *
+	 * @param wordIndex word index
+	 * @return word, 0 if the word is after the end of the bitmap
+	 */
+	public long getWord(int wordIndex) {
+		if (wordIndex < 0)
+			throw new IndexOutOfBoundsException("wordIndex < 0: " + wordIndex);
+		if (wordIndex >= words.length) {
+			return 0;
+		}
+		return words[wordIndex];
+	}
+
 	protected final void ensureSize(int wordsRequired) {
 		if (words.length < wordsRequired) {
+			// the rank directory is recreated with the new size
+			indexUpToDate = false;
 			long[] newWords = new long[Math.max(words.length * 2, wordsRequired)];
 			System.arraycopy(words, 0, newWords, 0, Math.min(words.length, newWords.length));
 			words = newWords;
@@ -185,27 +242,90 @@ public class BitArrayDisk implements ModifiableBitmap, Closeable {
 
 	@Override
 	public void set(long bitIndex, boolean value) {
-		indexUpToDate = false;
 		if (bitIndex < 0)
 			throw new IndexOutOfBoundsException("bitIndex < 0: " + bitIndex);
 
 		int wordIndex = wordIndex(bitIndex);
 		ensureSize(wordIndex + 1);
 
+		long oldWord = words[wordIndex];
 		if (value) {
 			words[wordIndex] |= (1L << bitIndex);
 		} else {
 			words[wordIndex] &= ~(1L << bitIndex);
 		}
 
+		if (indexUpToDate && oldWord != words[wordIndex]) {
+			updateSuperBlock(wordIndex, value ? 1 : -1);
+		}
+
 		this.numbits = Math.max(this.numbits, bitIndex + 1);
 		if (!inMemory) {
-			try {
-				writeToDisk(words[wordIndex], wordIndex);
-			} catch (IOException e) {
-				throw new EndpointStoreException(e);
+			if (coalesceWrites) {
+				markDirty(wordIndex);
+			} else {
+				try {
+					writeToDisk(words[wordIndex], wordIndex);
+				} catch (IOException e) {
+					throw new EndpointStoreException(e);
+				}
+			}
+		}
+	}
+
+	private void markDirty(int wordIndex) {
+		int dirtyIndex = wordIndex >>> LOGW;
+		if (dirtyWords == null) {
+			dirtyWords = new long[Math.max(dirtyIndex + 1, (words.length >>> LOGW) + 1)];
+		} else if (dirtyWords.length <= dirtyIndex) {
+			dirtyWords = Arrays.copyOf(dirtyWords, Math.max(dirtyWords.length * 2, dirtyIndex + 1));
+		}
+		dirtyWords[dirtyIndex] |= 1L << wordIndex;
+		dirty = true;
+	}
+
+	/**
+	 * write the dirty words in the file, the consecutive words are written with
+	 * one write
+	 *
+	 * @throws IOException write exception
+	 */
+	private void flushDirtyWords() throws IOException {
+		if (!dirty) {
+			return;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(FLUSH_BUFFER_WORDS * Long.BYTES);
+		int start = -1; // first word of the buffer
+		for (int i = 0; i < dirtyWords.length; i++) {
+			long dirtyWord = dirtyWords[i];
+			while (dirtyWord != 0) {
+				int wordIndex = (i << LOGW) + Long.numberOfTrailingZeros(dirtyWord);
+				dirtyWord &= dirtyWord - 1;
+
+				if (start != -1 && (start + buffer.position() / Long.BYTES != wordIndex || !buffer.hasRemaining())) {
+					writeBuffer(buffer, start);
+					start = -1;
+				}
+				if (start == -1) {
+					start = wordIndex;
+				}
+				buffer.putLong(words[wordIndex]);
 			}
+			dirtyWords[i] = 0;
+		}
+		if (start != -1) {
+			writeBuffer(buffer, start);
+		}
+		dirty = false;
+	}
+
+	private void writeBuffer(ByteBuffer buffer, int startWord) throws IOException {
+		buffer.flip();
+		long position = (startWord + 1) * 8L; // +1 reserved for the length
+		while (buffer.hasRemaining()) {
+			position += output.write(buffer, position);
 		}
+		buffer.clear();
 	}
 
 	@Override
@@ -225,40 +345,54 @@ public class BitArrayDisk implements ModifiableBitmap, Closeable {
 		}
 	}
 
+	/**
+	 * recreate the rank directory, after its creation, the directory is updated
+	 * with the set calls
+	 */
 	public void updateIndex() {
-		trimToSize();
-		if (numbits > Integer.MAX_VALUE) {
-			superBlocksLong = new long[1 + (words.length - 1) / BLOCKS_PER_SUPER];
-		} else {
-			superBlocksInt = new int[1 + (words.length - 1) / BLOCKS_PER_SUPER];
+		int superBlockCount = (int) ((words.length + WORDS_PER_SUPER - 1L) >>> LOG_WORDS_PER_SUPER);
+		if (superBlocks == null || superBlocks.length != superBlockCount + 1) {
+			superBlocks = new long[superBlockCount + 1];
 		}
-		blocks = new byte[words.length];
-
-		long countBlock = 0, countSuperBlock = 0;
-		int blockIndex = 0, superBlockIndex = 0;
-
-		while (blockIndex < words.length) {
-			if ((blockIndex % BLOCKS_PER_SUPER) == 0) {
-				countSuperBlock += countBlock;
-				if (superBlocksLong != null) {
-					if (superBlockIndex < superBlocksLong.length) {
-						superBlocksLong[superBlockIndex++] = countSuperBlock;
-					}
-				} else {
-					if (superBlockIndex < superBlocksInt.length) {
-						superBlocksInt[superBlockIndex++] = (int) countSuperBlock;
-					}
-				}
-				countBlock = 0;
+		pop = 0;
+		for (int i = 0; i < superBlockCount; i++) {
+			long count = 0;
+			int end = Math.min(words.length, (i + 1) << LOG_WORDS_PER_SUPER);
+			for (int j = i << LOG_WORDS_PER_SUPER; j < end; j++) {
+				count += Long.bitCount(words[j]);
+			}
+			pop += count;
+			superBlocks[i + 1] = count;
+		}
+		// build the Fenwick tree in place
+		for (int i = 1; i < superBlocks.length; i++) {
+			int parent = i + (i & -i);
+			if (parent < superBlocks.length) {
+				superBlocks[parent] += superBlocks[i];
 			}
-			blocks[blockIndex] = (byte) countBlock;
-			countBlock += Long.bitCount(words[blockIndex]);
-			blockIndex++;
 		}
-		pop = countSuperBlock + countBlock;
 		indexUpToDate = true;
 	}
 
+	private void updateSuperBlock(int wordIndex, long delta) {
+		pop += delta;
+		for (int i = (wordIndex >>> LOG_WORDS_PER_SUPER) + 1; i < superBlocks.length; i += i & -i) {
+			superBlocks[i] += delta;
+		}
+	}
+
+	/**
+	 * @param superBlockIndex superblock index
+	 * @return the number of ones before the superblock
+	 */
+	private long superBlockRank(int superBlockIndex) {
+		long rank = 0;
+		for (int i = superBlockIndex; i > 0; i -= i & -i) {
+			rank += superBlocks[i];
+		}
+		return rank;
+	}
+
 	@Override
 	public long rank1(long pos) {
 		if (pos < 0) {
@@ -271,47 +405,136 @@ public class BitArrayDisk implements ModifiableBitmap, Closeable {
 			return pop;
 		}
 
-		long superBlockIndex = pos / (BLOCKS_PER_SUPER * W);
-		long superBlockRank;
-		if (superBlocksLong != null) {
-			superBlockRank = superBlocksLong[(int) superBlockIndex];
-		} else {
-			superBlockRank = superBlocksInt[(int) superBlockIndex];
+		int wordIndex = wordIndex(pos);
+		int superBlockIndex = wordIndex >>> LOG_WORDS_PER_SUPER;
+		long rank = superBlockRank(superBlockIndex);
+		for (int i = superBlockIndex << LOG_WORDS_PER_SUPER; i < wordIndex; i++) {
+			rank += Long.bitCount(words[i]);
 		}
 
-		long blockIndex = pos / W;
-		long blockRank = 0xFF & blocks[(int) blockIndex];
-
 		long chunkIndex = W - 1 - pos % W;
-		long block = words[(int) blockIndex] << chunkIndex;
-		long chunkRank = Long.bitCount(block);
-
-		return superBlockRank + blockRank + chunkRank;
+		return rank + Long.bitCount(words[wordIndex] << chunkIndex);
 	}
 
 	@Override
 	public long rank0(long pos) {
-		throw new RuntimeException("Not implemented");
+		return pos + 1L - rank1(pos);
 	}
 
 	@Override
 	public long selectPrev1(long start) {
-		throw new RuntimeException("Not implemented");
+		if (start < 0) {
+			return -1;
+		}
+
+		int wordIndex = wordIndex(start);
+		long word;
+		if (wordIndex >= words.length) {
+			wordIndex = words.length - 1;
+			word = wordIndex < 0 ? 0 : words[wordIndex];
+		} else {
+			word = words[wordIndex] & (~0L >>> (W - 1 - start % W));
+		}
+
+		while (true) {
+			if (word != 0)
+				return ((long) wordIndex * W) + W - 1 - Long.numberOfLeadingZeros(word);
+			if (--wordIndex < 0)
+				return -1;
+			word = words[wordIndex];
+		}
 	}
 
 	@Override
 	public long selectNext1(long start) {
-		throw new RuntimeException("Not implemented");
+		if (start < 0)
+			throw new IndexOutOfBoundsException("start < 0: " + start);
+
+		int wordIndex = wordIndex(start);
+		if (wordIndex >= words.length)
+			return -1;
+
+		long word = words[wordIndex] & (~0L << start);
+
+		while (true) {
+			if (word != 0)
+				return ((long) wordIndex * W) + Long.numberOfTrailingZeros(word);
+			if (++wordIndex == words.length)
+				return -1;
+			word = words[wordIndex];
+		}
+	}
+
+	/**
+	 * search the superblock containing the n-th one or zero with the Fenwick
+	 * tree
+	 *
+	 * @param n     the number of ones/zeros
+	 * @param zeros search the zeros
+	 * @return superblock index and number of ones/zeros before it, in a 2
+	 *         elements array
+	 */
+	private long[] searchSuperBlock(long n, boolean zeros) {
+		int index = 0;
+		long count = 0;
+		for (int step = Integer.highestOneBit(superBlocks.length - 1); step != 0; step >>>= 1) {
+			int next = index + step;
+			if (next >= superBlocks.length) {
+				continue;
+			}
+			long nextCount = zeros ? (long) step * BITS_PER_SUPER - superBlocks[next] : superBlocks[next];
+			if (count + nextCount < n) {
+				index = next;
+				count += nextCount;
+			}
+		}
+		return new long[] { index, count };
 	}
 
 	@Override
 	public long select0(long n) {
-		throw new RuntimeException("Not implemented");
+		if (n <= 0) {
+			return -1;
+		}
+		if (!indexUpToDate) {
+			updateIndex();
+		}
+		if (n > numbits - pop) {
+			return numbits;
+		}
+
+		long[] superBlock = searchSuperBlock(n, true);
+		long countdown = n - superBlock[1];
+		for (int i = (int) superBlock[0] << LOG_WORDS_PER_SUPER;; i++) {
+			int wordZeros = W - Long.bitCount(words[i]);
+			if (wordZeros >= countdown) {
+				return (long) i * W + BitUtil.select0(words[i], (int) countdown) - 1;
+			}
+			countdown -= wordZeros;
+		}
 	}
 
 	@Override
 	public long select1(long n) {
-		throw new RuntimeException("Not implemented");
+		if (n <= 0) {
+			return -1;
+		}
+		if (!indexUpToDate) {
+			updateIndex();
+		}
+		if (n > pop) {
+			return numbits;
+		}
+
+		long[] superBlock = searchSuperBlock(n, false);
+		long countdown = n - superBlock[1];
+		for (int i = (int) superBlock[0] << LOG_WORDS_PER_SUPER;; i++) {
+			int wordOnes = Long.bitCount(words[i]);
+			if (wordOnes >= countdown) {
+				return (long) i * W + BitUtil.select1(words[i], (int) countdown) - 1;
+			}
+			countdown -= wordOnes;
+		}
 	}
 
 	@Override
@@ -321,7 +544,7 @@ public class BitArrayDisk implements ModifiableBitmap, Closeable {
 
 	@Override
 	public long countZeros() {
-		throw new RuntimeException("Not implemented");
+		return numbits - countOnes();
 	}
 
 	@Override
@@ -380,16 +603,50 @@ public class BitArrayDisk implements ModifiableBitmap, Closeable {
 
 	@Override
 	public void close() throws IOException {
-		IOUtil.closeObject(output);
+		try {
+			if (!inMemory && output != null && !output.isClosed()) {
+				flushDirtyWords();
+			}
+		} finally {
+			IOUtil.closeObject(output);
+		}
 	}
 
+	/**
+	 * write the dirty words (write-coalescing mode) and force the writes on the
+	 * storage device
+	 *
+	 * @param bool see {@link NioFile#force(boolean)}
+	 * @throws IOException write exception
+	 */
 	public void force(boolean bool) throws IOException {
 		if (inMemory) {
 			return;
 		}
+		flushDirtyWords();
 		this.output.force(bool);
 	}
 
+	/**
+	 * write the dirty words (write-coalescing mode) without forcing the writes
+	 * on the storage device
+	 *
+	 * @throws IOException write exception
+	 */
+	public void flush() throws IOException {
+		if (inMemory) {
+			return;
+		}
+		flushDirtyWords();
+	}
+
+	/**
+	 * @return if the write-coalescing mode is used
+	 */
+	public boolean isCoalesceWrites() {
+		return coalesceWrites;
+	}
+
 	public String printInfo() {
 		return "numWords:" + getNumWords() + ", numbits: " + getNumBits() + ", ones: " + countOnes()
 				+ (inMemory ? ", inMemory: true" : "\nfile: " + output.getFile().getAbsolutePath())
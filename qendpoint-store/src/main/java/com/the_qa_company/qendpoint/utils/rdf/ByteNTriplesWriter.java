@@ -0,0 +1,110 @@
+package com.the_qa_company.qendpoint.utils.rdf;
+
+import org.eclipse.rdf4j.model.BNode;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Triple;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.rio.RDFHandler;
+import org.eclipse.rdf4j.rio.RDFHandlerException;
+import org.eclipse.rdf4j.rio.helpers.RDFStarUtil;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * N-Triples writer writing the HDT values from the bytes of the dictionary with
+ * a {@link ByteValueOutput}, the RDF-star triples are encoded as IRIs like the
+ * rdf4j N-Triples writer.
+ *
+ * @author Antoine Willerval
+ */
+public class ByteNTriplesWriter implements RDFHandler {
+	private final ByteValueOutput out;
+
+	public ByteNTriplesWriter(OutputStream out) {
+		this.out = new ByteValueOutput(out);
+	}
+
+	@Override
+	public void startRDF() throws RDFHandlerException {
+		// nothing to write
+	}
+
+	@Override
+	public void endRDF() throws RDFHandlerException {
+		try {
+			out.close();
+		} catch (IOException e) {
+			throw new RDFHandlerException(e);
+		}
+	}
+
+	@Override
+	public void handleNamespace(String prefix, String uri) throws RDFHandlerException {
+		// not supported by the format
+	}
+
+	@Override
+	public void handleStatement(Statement st) throws RDFHandlerException {
+		try {
+			writeValue(st.getSubject());
+			out.write(' ');
+			writeValue(st.getPredicate());
+			out.write(' ');
+			writeValue(st.getObject());
+			out.write(' ');
+			out.write('.');
+			out.write('\n');
+		} catch (IOException e) {
+			throw new RDFHandlerException(e);
+		}
+	}
+
+	@Override
+	public void handleComment(String comment) throws RDFHandlerException {
+		try {
+			for (String line : comment.split("\r\n|\r|\n")) {
+				out.write('#');
+				out.write(' ');
+				out.write(line, ByteValueOutput.Escape.NONE);
+				out.write('\n');
+			}
+		} catch (IOException e) {
+			throw new RDFHandlerException(e);
+		}
+	}
+
+	private void writeValue(Value value) throws IOException {
+		if (value instanceof IRI iri) {
+			out.write('<');
+			out.write(ByteValueOutput.iriString(iri), ByteValueOutput.Escape.IRI);
+			out.write('>');
+		} else if (value instanceof BNode node) {
+			out.write('_');
+			out.write(':');
+			out.write(ByteValueOutput.bnodeId(node), ByteValueOutput.Escape.NONE);
+		} else if (value instanceof Literal lit) {
+			out.readLiteral(lit);
+			CharSequence str = out.getLiteral();
+			out.write('"');
+			out.write(str, out.getLabelStart(), out.getLabelEnd(), ByteValueOutput.Escape.STRING);
+			out.write('"');
+			if (out.getLanguageStart() != -1) {
+				out.write('@');
+				out.write(str, out.getLanguageStart(), str.length(), ByteValueOutput.Escape.NONE);
+			} else if (out.getDatatypeStart() != -1) {
+				out.write('^');
+				out.write('^');
+				out.write('<');
+				out.write(str, out.getDatatypeStart(), out.getDatatypeEnd(), ByteValueOutput.Escape.IRI);
+				out.write('>');
+			}
+		} else if (value instanceof Triple triple) {
+			writeValue(RDFStarUtil.toRDFEncodedValue(triple));
+		} else {
+			throw new IOException("Unknown value type: " + value.getClass());
+		}
+	}
+}
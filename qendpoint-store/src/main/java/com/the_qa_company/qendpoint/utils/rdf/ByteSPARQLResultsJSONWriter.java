@@ -0,0 +1,164 @@
+package com.the_qa_company.qendpoint.utils.rdf;
+
+import org.eclipse.rdf4j.model.BNode;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.model.Triple;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.query.Binding;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.QueryResultHandlerException;
+import org.eclipse.rdf4j.query.TupleQueryResultHandler;
+import org.eclipse.rdf4j.query.TupleQueryResultHandlerException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * SPARQL JSON results writer writing the HDT values from the bytes of the
+ * dictionary with a {@link ByteValueOutput}, the output isn't indented.
+ *
+ * @author Antoine Willerval
+ * @see QEPSPARQLResultsJSONWriter
+ */
+public class ByteSPARQLResultsJSONWriter implements TupleQueryResultHandler {
+	private static final byte[] TYPE_URI = "{\"type\":\"uri\",\"value\":\"".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] TYPE_BNODE = "{\"type\":\"bnode\",\"value\":\"".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] TYPE_LITERAL = "{\"type\":\"literal\",\"value\":\"".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] TYPE_TRIPLE = "{\"type\":\"triple\",\"value\":{\"subject\":"
+			.getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] PREDICATE = ",\"predicate\":".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] OBJECT = ",\"object\":".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] LANG = "\",\"xml:lang\":\"".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] DATATYPE = "\",\"datatype\":\"".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] END_VALUE = "\"}".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] HEAD_VARS = "{\"head\":{\"vars\":[".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] HEAD_LINKS = "],\"link\":[".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] BINDINGS = "]},\"results\":{\"bindings\":[".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] END = "]}}".getBytes(StandardCharsets.US_ASCII);
+
+	private final ByteValueOutput out;
+	private List<String> links = List.of();
+	private boolean firstSolution = true;
+
+	public ByteSPARQLResultsJSONWriter(OutputStream out) {
+		this.out = new ByteValueOutput(out);
+	}
+
+	@Override
+	public void handleBoolean(boolean value) throws QueryResultHandlerException {
+		try {
+			out.write(("{\"head\":{},\"boolean\":" + value + "}").getBytes(StandardCharsets.US_ASCII));
+			out.close();
+		} catch (IOException e) {
+			throw new QueryResultHandlerException(e);
+		}
+	}
+
+	@Override
+	public void handleLinks(List<String> linkUrls) throws QueryResultHandlerException {
+		links = List.copyOf(linkUrls);
+	}
+
+	private void writeStringArray(List<String> strings) throws IOException {
+		for (int i = 0; i < strings.size(); i++) {
+			if (i != 0) {
+				out.write(',');
+			}
+			out.write('"');
+			out.write(strings.get(i), ByteValueOutput.Escape.JSON);
+			out.write('"');
+		}
+	}
+
+	@Override
+	public void startQueryResult(List<String> bindingNames) throws TupleQueryResultHandlerException {
+		try {
+			out.write(HEAD_VARS);
+			writeStringArray(bindingNames);
+			if (!links.isEmpty()) {
+				out.write(HEAD_LINKS);
+				writeStringArray(links);
+			}
+			out.write(BINDINGS);
+		} catch (IOException e) {
+			throw new TupleQueryResultHandlerException(e);
+		}
+	}
+
+	@Override
+	public void endQueryResult() throws TupleQueryResultHandlerException {
+		try {
+			out.write(END);
+			out.close();
+		} catch (IOException e) {
+			throw new TupleQueryResultHandlerException(e);
+		}
+	}
+
+	@Override
+	public void handleSolution(BindingSet bindingSet) throws TupleQueryResultHandlerException {
+		try {
+			if (firstSolution) {
+				firstSolution = false;
+			} else {
+				out.write(',');
+			}
+			out.write('{');
+			boolean first = true;
+			for (Binding binding : bindingSet) {
+				if (first) {
+					first = false;
+				} else {
+					out.write(',');
+				}
+				out.write('"');
+				out.write(binding.getName(), ByteValueOutput.Escape.JSON);
+				out.write('"');
+				out.write(':');
+				writeValue(binding.getValue());
+			}
+			out.write('}');
+		} catch (IOException e) {
+			throw new TupleQueryResultHandlerException(e);
+		}
+	}
+
+	private void writeValue(Value value) throws IOException {
+		if (value instanceof IRI iri) {
+			out.write(TYPE_URI);
+			out.write(ByteValueOutput.iriString(iri), ByteValueOutput.Escape.JSON);
+			out.write(END_VALUE);
+		} else if (value instanceof BNode node) {
+			out.write(TYPE_BNODE);
+			out.write(ByteValueOutput.bnodeId(node), ByteValueOutput.Escape.JSON);
+			out.write(END_VALUE);
+		} else if (value instanceof Literal lit) {
+			out.readLiteral(lit);
+			CharSequence str = out.getLiteral();
+			out.write(TYPE_LITERAL);
+			out.write(str, out.getLabelStart(), out.getLabelEnd(), ByteValueOutput.Escape.JSON);
+			if (out.getLanguageStart() != -1) {
+				out.write(LANG);
+				out.write(str, out.getLanguageStart(), str.length(), ByteValueOutput.Escape.JSON);
+			} else if (out.getDatatypeStart() != -1) {
+				out.write(DATATYPE);
+				out.write(str, out.getDatatypeStart(), out.getDatatypeEnd(), ByteValueOutput.Escape.JSON);
+			}
+			out.write(END_VALUE);
+		} else if (value instanceof Triple triple) {
+			out.write(TYPE_TRIPLE);
+			writeValue(triple.getSubject());
+			out.write(PREDICATE);
+			writeValue(triple.getPredicate());
+			out.write(OBJECT);
+			writeValue(triple.getObject());
+			out.write('}');
+			out.write('}');
+		} else {
+			throw new IOException("Unknown value type: " + value.getClass());
+		}
+	}
+}
@@ -0,0 +1,184 @@
+package com.the_qa_company.qendpoint.utils.rdf;
+
+import org.eclipse.rdf4j.model.BNode;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.base.CoreDatatype;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.QueryResultHandlerException;
+import org.eclipse.rdf4j.query.TupleQueryResultHandler;
+import org.eclipse.rdf4j.query.TupleQueryResultHandlerException;
+import org.eclipse.rdf4j.rio.helpers.NTriplesUtil;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * SPARQL TSV results writer writing the HDT values from the bytes of the
+ * dictionary with a {@link ByteValueOutput}. The numeric literals are written
+ * without quotes if their label is already in the Turtle syntax of their
+ * datatype, they aren't normalized.
+ *
+ * @author Antoine Willerval
+ */
+public class ByteSPARQLResultsTSVWriter implements TupleQueryResultHandler {
+	private static final String XSD_INTEGER = CoreDatatype.XSD.INTEGER.getIri().stringValue();
+	private static final String XSD_DECIMAL = CoreDatatype.XSD.DECIMAL.getIri().stringValue();
+	private static final String XSD_DOUBLE = CoreDatatype.XSD.DOUBLE.getIri().stringValue();
+
+	private final ByteValueOutput out;
+	private List<String> bindingNames;
+
+	public ByteSPARQLResultsTSVWriter(OutputStream out) {
+		this.out = new ByteValueOutput(out);
+	}
+
+	@Override
+	public void handleBoolean(boolean value) throws QueryResultHandlerException {
+		throw new UnsupportedOperationException("Cannot handle boolean results");
+	}
+
+	@Override
+	public void handleLinks(List<String> linkUrls) throws QueryResultHandlerException {
+		// not supported by the format
+	}
+
+	@Override
+	public void startQueryResult(List<String> bindingNames) throws TupleQueryResultHandlerException {
+		this.bindingNames = bindingNames;
+		try {
+			for (int i = 0; i < bindingNames.size(); i++) {
+				if (i != 0) {
+					out.write('\t');
+				}
+				out.write('?');
+				out.write(bindingNames.get(i), ByteValueOutput.Escape.NONE);
+			}
+			out.write('\n');
+		} catch (IOException e) {
+			throw new TupleQueryResultHandlerException(e);
+		}
+	}
+
+	@Override
+	public void endQueryResult() throws TupleQueryResultHandlerException {
+		try {
+			out.close();
+		} catch (IOException e) {
+			throw new TupleQueryResultHandlerException(e);
+		}
+	}
+
+	@Override
+	public void handleSolution(BindingSet bindingSet) throws TupleQueryResultHandlerException {
+		try {
+			for (int i = 0; i < bindingNames.size(); i++) {
+				if (i != 0) {
+					out.write('\t');
+				}
+				Value value = bindingSet.getValue(bindingNames.get(i));
+				if (value != null) {
+					writeValue(value);
+				}
+			}
+			out.write('\n');
+		} catch (IOException e) {
+			throw new TupleQueryResultHandlerException(e);
+		}
+	}
+
+	private void writeValue(Value value) throws IOException {
+		if (value instanceof IRI iri) {
+			out.write('<');
+			out.write(ByteValueOutput.iriString(iri), ByteValueOutput.Escape.IRI);
+			out.write('>');
+		} else if (value instanceof BNode node) {
+			out.write('_');
+			out.write(':');
+			out.write(ByteValueOutput.bnodeId(node), ByteValueOutput.Escape.NONE);
+		} else if (value instanceof Literal lit) {
+			out.readLiteral(lit);
+			CharSequence str = out.getLiteral();
+			int labelStart = out.getLabelStart();
+			int labelEnd = out.getLabelEnd();
+			int dtStart = out.getDatatypeStart();
+			int dtEnd = out.getDatatypeEnd();
+			if (dtStart != -1 && isTurtleNumber(str, labelStart, labelEnd, dtStart, dtEnd)) {
+				out.write(str, labelStart, labelEnd, ByteValueOutput.Escape.NONE);
+				return;
+			}
+			out.write('"');
+			out.write(str, labelStart, labelEnd, ByteValueOutput.Escape.STRING);
+			out.write('"');
+			if (out.getLanguageStart() != -1) {
+				out.write('@');
+				out.write(str, out.getLanguageStart(), str.length(), ByteValueOutput.Escape.NONE);
+			} else if (dtStart != -1) {
+				out.write('^');
+				out.write('^');
+				out.write('<');
+				out.write(str, dtStart, dtEnd, ByteValueOutput.Escape.IRI);
+				out.write('>');
+			}
+		} else {
+			// RDF-star triple
+			out.write(NTriplesUtil.toNTriplesString(value), ByteValueOutput.Escape.NONE);
+		}
+	}
+
+	/**
+	 * test if a label can be written as a Turtle number of its datatype
+	 */
+	private static boolean isTurtleNumber(CharSequence str, int start, int end, int dtStart, int dtEnd) {
+		boolean integer = ByteValueOutput.regionEquals(str, dtStart, dtEnd, XSD_INTEGER);
+		boolean decimal = !integer && ByteValueOutput.regionEquals(str, dtStart, dtEnd, XSD_DECIMAL);
+		boolean dbl = !integer && !decimal && ByteValueOutput.regionEquals(str, dtStart, dtEnd, XSD_DOUBLE);
+		if (!integer && !decimal && !dbl) {
+			return false;
+		}
+		int i = start;
+		if (i < end && (str.charAt(i) == '+' || str.charAt(i) == '-')) {
+			i++;
+		}
+		int intDigits = 0;
+		while (i < end && isDigit(str.charAt(i))) {
+			i++;
+			intDigits++;
+		}
+		if (integer) {
+			return intDigits != 0 && i == end;
+		}
+		int fracDigits = 0;
+		boolean dot = i < end && str.charAt(i) == '.';
+		if (dot) {
+			i++;
+			while (i < end && isDigit(str.charAt(i))) {
+				i++;
+				fracDigits++;
+			}
+		}
+		if (decimal) {
+			return dot && fracDigits != 0 && i == end;
+		}
+		// double, an exponent is required
+		if (intDigits + fracDigits == 0 || i == end || (str.charAt(i) != 'e' && str.charAt(i) != 'E')) {
+			return false;
+		}
+		i++;
+		if (i < end && (str.charAt(i) == '+' || str.charAt(i) == '-')) {
+			i++;
+		}
+		int expDigits = 0;
+		while (i < end && isDigit(str.charAt(i))) {
+			i++;
+			expDigits++;
+		}
+		return expDigits != 0 && i == end;
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+}
@@ -0,0 +1,477 @@
+package com.the_qa_company.qendpoint.utils.rdf;
+
+import com.the_qa_company.qendpoint.core.util.string.ByteString;
+import com.the_qa_company.qendpoint.model.HDTValue;
+import com.the_qa_company.qendpoint.model.SimpleLiteralHDT;
+import org.eclipse.rdf4j.model.BNode;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.model.base.CoreDatatype;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Buffered output writing the values of the query results as UTF-8 bytes. The
+ * HDT values are written from the bytes of their dictionary strings without
+ * creating Java strings, the buffers are pooled between the outputs and flushed
+ * by large chunks.
+ *
+ * @author Antoine Willerval
+ */
+public class ByteValueOutput implements Closeable {
+	/**
+	 * size of the pooled buffers
+	 */
+	public static final int BUFFER_SIZE = 1 << 16;
+	private static final ArrayBlockingQueue<byte[]> POOL = new ArrayBlockingQueue<>(16);
+	private static final byte[] HEX = "0123456789ABCDEF".getBytes();
+	private static final String XSD_STRING = CoreDatatype.XSD.STRING.getIri().stringValue();
+
+	/**
+	 * escape methods of the written strings
+	 */
+	public enum Escape {
+		/**
+		 * no escape
+		 */
+		NONE,
+		/**
+		 * JSON string escape
+		 */
+		JSON,
+		/**
+		 * N-Triples/Turtle string escape
+		 */
+		STRING,
+		/**
+		 * N-Triples IRI escape
+		 */
+		IRI
+	}
+
+	private final OutputStream out;
+	private byte[] buffer;
+	private int size;
+
+	// parts of the last literal read by readLiteral
+	private CharSequence literal;
+	private int labelStart;
+	private int labelEnd;
+	private int languageStart;
+	private int datatypeStart;
+	private int datatypeEnd;
+
+	/**
+	 * create an output
+	 *
+	 * @param out the stream to write the bytes
+	 */
+	public ByteValueOutput(OutputStream out) {
+		this.out = Objects.requireNonNull(out, "out can't be null!");
+		byte[] pooled = POOL.poll();
+		this.buffer = pooled != null ? pooled : new byte[BUFFER_SIZE];
+	}
+
+	private void ensure(int len) throws IOException {
+		if (size + len > buffer.length) {
+			flushBuffer();
+		}
+	}
+
+	private void flushBuffer() throws IOException {
+		if (size != 0) {
+			out.write(buffer, 0, size);
+			size = 0;
+		}
+	}
+
+	/**
+	 * write a byte
+	 *
+	 * @param b the byte
+	 * @throws IOException write exception
+	 */
+	public void write(int b) throws IOException {
+		if (size == buffer.length) {
+			flushBuffer();
+		}
+		buffer[size++] = (byte) b;
+	}
+
+	/**
+	 * write bytes
+	 *
+	 * @param bytes the bytes
+	 * @param off   offset in the bytes
+	 * @param len   number of bytes to write
+	 * @throws IOException write exception
+	 */
+	public void write(byte[] bytes, int off, int len) throws IOException {
+		if (len > buffer.length) {
+			flushBuffer();
+			out.write(bytes, off, len);
+			return;
+		}
+		ensure(len);
+		System.arraycopy(bytes, off, buffer, size, len);
+		size += len;
+	}
+
+	/**
+	 * write bytes
+	 *
+	 * @param bytes the bytes
+	 * @throws IOException write exception
+	 */
+	public void write(byte[] bytes) throws IOException {
+		write(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * write a string
+	 *
+	 * @param str    the string
+	 * @param escape escape method
+	 * @throws IOException write exception
+	 */
+	public void write(CharSequence str, Escape escape) throws IOException {
+		write(str, 0, str.length(), escape);
+	}
+
+	/**
+	 * write a part of a string, the {@link ByteString} are written from their
+	 * buffer, the other char sequences are encoded in UTF-8
+	 *
+	 * @param str    the string
+	 * @param start  start index (inclusive)
+	 * @param end    end index (exclusive)
+	 * @param escape escape method
+	 * @throws IOException write exception
+	 */
+	public void write(CharSequence str, int start, int end, Escape escape) throws IOException {
+		if (str instanceof ByteString bs) {
+			byte[] bytes = bs.getBuffer();
+			if (escape == Escape.NONE) {
+				write(bytes, start, end - start);
+				return;
+			}
+			int last = start;
+			for (int i = start; i < end; i++) {
+				int c = bytes[i] & 0xFF;
+				// the bytes of the UTF-8 multibyte chars are all above 0x7F,
+				// only the ASCII chars are escaped
+				if (c < 0x80 && needEscape(c, escape)) {
+					write(bytes, last, i - last);
+					writeEscaped(c, escape);
+					last = i + 1;
+				}
+			}
+			write(bytes, last, end - last);
+			return;
+		}
+		for (int i = start; i < end; i++) {
+			char c = str.charAt(i);
+			if (c < 0x80) {
+				if (escape != Escape.NONE && needEscape(c, escape)) {
+					writeEscaped(c, escape);
+				} else {
+					write(c);
+				}
+			} else if (c < 0x800) {
+				ensure(2);
+				buffer[size++] = (byte) (0xC0 | (c >> 6));
+				buffer[size++] = (byte) (0x80 | (c & 0x3F));
+			} else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(str.charAt(i + 1))) {
+				int cp = Character.toCodePoint(c, str.charAt(++i));
+				ensure(4);
+				buffer[size++] = (byte) (0xF0 | (cp >> 18));
+				buffer[size++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+				buffer[size++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+				buffer[size++] = (byte) (0x80 | (cp & 0x3F));
+			} else if (Character.isSurrogate(c)) {
+				// unpaired surrogate, can't be encoded
+				write('?');
+			} else {
+				ensure(3);
+				buffer[size++] = (byte) (0xE0 | (c >> 12));
+				buffer[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				buffer[size++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+	}
+
+	private static boolean needEscape(int c, Escape escape) {
+		return switch (escape) {
+		case NONE -> false;
+		case JSON, STRING -> c < 0x20 || c == '"' || c == '\\' || c == 0x7F;
+		case IRI -> c <= 0x20 || c == '<' || c == '>' || c == '"' || c == '{' || c == '}' || c == '|' || c == '^'
+				|| c == '`' || c == '\\';
+		};
+	}
+
+	private void writeEscaped(int c, Escape escape) throws IOException {
+		if (escape != Escape.IRI) {
+			switch (c) {
+			case '"' -> {
+				write('\\');
+				write('"');
+				return;
+			}
+			case '\\' -> {
+				write('\\');
+				write('\\');
+				return;
+			}
+			case '\n' -> {
+				write('\\');
+				write('n');
+				return;
+			}
+			case '\r' -> {
+				write('\\');
+				write('r');
+				return;
+			}
+			case '\t' -> {
+				write('\\');
+				write('t');
+				return;
+			}
+			case '\b' -> {
+				write('\\');
+				write('b');
+				return;
+			}
+			case '\f' -> {
+				write('\\');
+				write('f');
+				return;
+			}
+			default -> {
+				// other control chars
+			}
+			}
+		}
+		ensure(6);
+		buffer[size++] = '\\';
+		buffer[size++] = 'u';
+		buffer[size++] = '0';
+		buffer[size++] = '0';
+		buffer[size++] = HEX[(c >> 4) & 0xF];
+		buffer[size++] = HEX[c & 0xF];
+	}
+
+	/**
+	 * get the string of an IRI, the dictionary string if the IRI is an HDT
+	 * value
+	 *
+	 * @param iri the IRI
+	 * @return string
+	 */
+	public static CharSequence iriString(IRI iri) {
+		if (iri instanceof HDTValue hdtValue) {
+			CharSequence str = hdtValue.getDictionaryString();
+			if (str != null) {
+				return str;
+			}
+		}
+		return iri.stringValue();
+	}
+
+	/**
+	 * get the id of a blank node, the dictionary string (without the "_:"
+	 * prefix) if the node is an HDT value
+	 *
+	 * @param node the blank node
+	 * @return id
+	 */
+	public static CharSequence bnodeId(BNode node) {
+		if (node instanceof HDTValue hdtValue) {
+			CharSequence str = hdtValue.getDictionaryString();
+			if (str != null) {
+				if (str.length() >= 2 && str.charAt(0) == '_' && str.charAt(1) == ':') {
+					return str instanceof ByteString bs ? bs.subSequence(2) : str.subSequence(2, str.length());
+				}
+				return str;
+			}
+		}
+		return node.getID();
+	}
+
+	/**
+	 * read the parts of a literal, the parts can be fetched with
+	 * {@link #getLiteral()}, {@link #getLabelStart()}, {@link #getLabelEnd()},
+	 * {@link #getLanguageStart()}, {@link #getDatatypeStart()} and
+	 * {@link #getDatatypeEnd()}
+	 *
+	 * @param lit the literal
+	 */
+	public void readLiteral(Literal lit) {
+		if (lit instanceof SimpleLiteralHDT hdtLit && readDictionaryLiteral(hdtLit.getDictionaryString())) {
+			return;
+		}
+		// not an HDT literal, use the rdf4j API
+		String label = lit.getLabel();
+		String language = lit.getLanguage().orElse(null);
+		StringBuilder builder = new StringBuilder(label.length() + 2);
+		builder.append('"').append(label).append('"');
+		labelStart = 1;
+		labelEnd = label.length() + 1;
+		languageStart = -1;
+		datatypeStart = -1;
+		datatypeEnd = -1;
+		if (language != null) {
+			builder.append('@');
+			languageStart = builder.length();
+			builder.append(language);
+		} else {
+			String datatype = lit.getDatatype().stringValue();
+			if (!datatype.equals(XSD_STRING)) {
+				builder.append("^^<");
+				datatypeStart = builder.length();
+				builder.append(datatype);
+				datatypeEnd = builder.length();
+				builder.append('>');
+			}
+		}
+		literal = builder;
+	}
+
+	private boolean readDictionaryLiteral(CharSequence str) {
+		if (str == null || str.length() < 2 || str.charAt(0) != '"') {
+			return false;
+		}
+		int endQuote = -1;
+		for (int i = str.length() - 1; i > 0; i--) {
+			if (str.charAt(i) == '"') {
+				endQuote = i;
+				break;
+			}
+		}
+		if (endQuote == -1) {
+			return false;
+		}
+		int length = str.length();
+		languageStart = -1;
+		datatypeStart = -1;
+		datatypeEnd = -1;
+		if (endQuote + 1 < length) {
+			if (str.charAt(endQuote + 1) == '@') {
+				languageStart = endQuote + 2;
+			} else if (endQuote + 4 < length && str.charAt(endQuote + 1) == '^' && str.charAt(endQuote + 2) == '^'
+					&& str.charAt(endQuote + 3) == '<' && str.charAt(length - 1) == '>') {
+				datatypeStart = endQuote + 4;
+				datatypeEnd = length - 1;
+				if (regionEquals(str, datatypeStart, datatypeEnd, XSD_STRING)) {
+					datatypeStart = -1;
+					datatypeEnd = -1;
+				}
+			} else {
+				return false;
+			}
+		}
+		literal = str;
+		labelStart = 1;
+		labelEnd = endQuote;
+		return true;
+	}
+
+	/**
+	 * test if a part of a char sequence is equal to a string
+	 *
+	 * @param seq   char sequence
+	 * @param start start index (inclusive)
+	 * @param end   end index (exclusive)
+	 * @param str   string to compare, only with ASCII chars
+	 * @return true if the part is equal to the string
+	 */
+	public static boolean regionEquals(CharSequence seq, int start, int end, String str) {
+		if (end - start != str.length()) {
+			return false;
+		}
+		for (int i = 0; i < str.length(); i++) {
+			if (seq.charAt(start + i) != str.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the literal string read by {@link #readLiteral(Literal)}
+	 */
+	public CharSequence getLiteral() {
+		return literal;
+	}
+
+	/**
+	 * @return the start of the label in {@link #getLiteral()}
+	 */
+	public int getLabelStart() {
+		return labelStart;
+	}
+
+	/**
+	 * @return the end of the label in {@link #getLiteral()}
+	 */
+	public int getLabelEnd() {
+		return labelEnd;
+	}
+
+	/**
+	 * @return the start of the language in {@link #getLiteral()}, the language
+	 *         ends at the end of the literal, -1 if the literal has no language
+	 */
+	public int getLanguageStart() {
+		return languageStart;
+	}
+
+	/**
+	 * @return the start of the datatype in {@link #getLiteral()}, -1 if the
+	 *         literal has a language or the xsd:string datatype
+	 */
+	public int getDatatypeStart() {
+		return datatypeStart;
+	}
+
+	/**
+	 * @return the end of the datatype in {@link #getLiteral()}, -1 if the
+	 *         literal has a language or the xsd:string datatype
+	 */
+	public int getDatatypeEnd() {
+		return datatypeEnd;
+	}
+
+	/**
+	 * write the buffer to the stream and flush it
+	 *
+	 * @throws IOException write exception
+	 */
+	public void flush() throws IOException {
+		flushBuffer();
+		out.flush();
+	}
+
+	/**
+	 * flush the buffer and give it back to the pool, the stream isn't closed
+	 *
+	 * @throws IOException write exception
+	 */
+	@Override
+	public void close() throws IOException {
+		if (buffer == null) {
+			return;
+		}
+		try {
+			flush();
+		} finally {
+			byte[] old = buffer;
+			buffer = null;
+			POOL.offer(old);
+		}
+	}
+}
@@ -0,0 +1,173 @@
+package com.the_qa_company.qendpoint.compiler;
+
+import com.the_qa_company.qendpoint.core.exceptions.ParserException;
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.hdt.HDTManager;
+import com.the_qa_company.qendpoint.core.listener.ProgressListener;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.triples.TripleString;
+import com.the_qa_company.qendpoint.store.EndpointFiles;
+import com.the_qa_company.qendpoint.store.EndpointStore;
+import org.eclipse.rdf4j.query.QueryLanguage;
+import org.eclipse.rdf4j.query.parser.QueryParserUtil;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class QueryResultCacheTest {
+	private static final String EX = "http://example.org/#";
+	private static final String QUERY = "SELECT * { ?s ?p ?o }";
+	private static final String ACCEPT = "application/sparql-results+json";
+
+	@Rule
+	public TemporaryFolder tempDir = TemporaryFolder.builder().assureDeletion().build();
+
+	@Test
+	public void normalizeTest() {
+		assertEquals("SELECT * { ?s ?p ?o }", QueryResultCache.normalizeQuery("  SELECT *\n{\t?s   ?p ?o\n}\n"));
+		// strings aren't normalized
+		assertEquals("SELECT * { ?s ?p \"a  b\" }", QueryResultCache.normalizeQuery("SELECT *  { ?s ?p \"a  b\" }"));
+		assertEquals("SELECT * { ?s ?p 'a \\'  b' }", QueryResultCache.normalizeQuery("SELECT * { ?s ?p 'a \\'  b' }"));
+		assertEquals("SELECT * { ?s ?p \"\"\"a \"  b\"\"\" }",
+				QueryResultCache.normalizeQuery("SELECT * {\n?s ?p \"\"\"a \"  b\"\"\" }"));
+		// the comments end with a new line
+		assertNotEquals(QueryResultCache.normalizeQuery("# a\n?x"), QueryResultCache.normalizeQuery("# a ?x"));
+	}
+
+	@Test
+	public void evictionTest() {
+		QueryResultCache cache = new QueryResultCache(10);
+		QueryResultCache.Key k1 = new QueryResultCache.Key("q1", "", ACCEPT, null, 0);
+		QueryResultCache.Key k2 = new QueryResultCache.Key("q2", "", ACCEPT, null, 0);
+		QueryResultCache.Key k3 = new QueryResultCache.Key("q3", "", ACCEPT, null, 0);
+
+		cache.put(k1, new QueryResultCache.Result("mime", new byte[4]));
+		cache.put(k2, new QueryResultCache.Result("mime", new byte[4]));
+		assertEquals(8, cache.getSize());
+		// use k1, k2 is the least recently used
+		assertNotNull(cache.get(k1));
+		cache.put(k3, new QueryResultCache.Result("mime", new byte[4]));
+		assertEquals(8, cache.getSize());
+		assertNotNull(cache.get(k1));
+		assertNull(cache.get(k2));
+		assertNotNull(cache.get(k3));
+
+		// too big
+		cache.put(k2, new QueryResultCache.Result("mime", new byte[11]));
+		assertNull(cache.get(k2));
+
+		// new version, the old results are removed
+		QueryResultCache.Key k4 = new QueryResultCache.Key("q1", "", ACCEPT, null, 1);
+		cache.put(k4, new QueryResultCache.Result("mime", new byte[2]));
+		assertEquals(1, cache.getCount());
+		assertEquals(2, cache.getSize());
+	}
+
+	private static boolean isCacheable(String query) {
+		return QueryResultCache
+				.isCacheable(QueryParserUtil.parseQuery(QueryLanguage.SPARQL, query, null).getTupleExpr());
+	}
+
+	@Test
+	public void cacheableTest() {
+		assertTrue(isCacheable(QUERY));
+		assertTrue(isCacheable("SELECT * { ?s ?p ?o FILTER(STRLEN(STR(?o)) > 2) }"));
+		assertFalse(isCacheable("SELECT * { ?s ?p ?o FILTER(?o > NOW()) }"));
+		assertFalse(isCacheable("SELECT * { ?s ?p ?o BIND(RAND() AS ?r) }"));
+		assertFalse(isCacheable("SELECT * { ?s ?p ?o BIND(UUID() AS ?r) }"));
+		assertFalse(isCacheable("SELECT * { ?s ?p ?o BIND(STRUUID() AS ?r) }"));
+		assertFalse(isCacheable("SELECT * { ?s ?p ?o BIND(BNODE() AS ?r) }"));
+		assertFalse(isCacheable("SELECT * { ?s ?p ?o BIND(BNODE(STR(?o)) AS ?r) }"));
+		assertFalse(isCacheable("SELECT * { SERVICE <http://example.org/sparql> { ?s ?p ?o } }"));
+	}
+
+	private static String execute(SparqlRepository repository, String queryParam) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		repository.execute(QUERY, 0, ACCEPT, null, out, queryParam);
+		return out.toString(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void repositoryCacheTest() throws IOException, ParserException {
+		Path root = tempDir.newFolder().toPath();
+		EndpointFiles files = new EndpointFiles(root.resolve("native"), root.resolve("hdt"), "index.hdt");
+		Path hdtFile = Path.of(files.getHDTIndex());
+		Files.createDirectories(hdtFile.getParent());
+		try (HDT hdt = HDTManager.generateHDT(List.of(new TripleString(EX + "s", EX + "p", EX + "o1")).iterator(), EX,
+				HDTOptions.of(), ProgressListener.ignore())) {
+			hdt.saveToHDT(hdtFile, ProgressListener.ignore());
+		}
+
+		String model = "@prefix mdlc: <" + SailCompilerSchema.COMPILER_NAMESPACE + "> .\n"
+				+ "mdlc:main mdlc:queryCacheSize 1000000 .\n";
+		SparqlRepository repository = CompiledSail.compiler()
+				.withConfig(new ByteArrayInputStream(model.getBytes(StandardCharsets.UTF_8)), RDFFormat.TURTLE, false)
+				.withEndpointFiles(files).compileToSparqlRepository();
+		try {
+			QueryResultCache cache = repository.getQueryCache();
+			assertNotNull(cache);
+
+			String r1 = execute(repository, "");
+			assertEquals(0, cache.getHits());
+			assertEquals(1, cache.getCount());
+			assertTrue(r1.contains(EX + "o1"));
+
+			// same query with other whitespaces
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			String[] mime = new String[1];
+			repository.execute("SELECT *\n{ ?s ?p ?o\n}", 0, ACCEPT, m -> mime[0] = m, out, "");
+			assertEquals(1, cache.getHits());
+			assertEquals(ACCEPT, mime[0]);
+			assertArrayEquals(r1.getBytes(StandardCharsets.UTF_8), out.toByteArray());
+
+			// bypass the cache
+			assertEquals(r1, execute(repository, EndpointStore.QUERY_CONFIG_NO_CACHE));
+			assertEquals(1, cache.getHits());
+
+			// update the store, the version is changed
+			EndpointStore store = (EndpointStore) ((CompiledSail) repository.getRepository().getSail()).getSource();
+			long version = store.getDataVersion();
+			repository.executeUpdate("INSERT DATA { <" + EX + "s> <" + EX + "p> <" + EX + "o2> }", 0, null);
+			assertNotEquals(version, store.getDataVersion());
+
+			String r2 = execute(repository, "");
+			assertEquals(1, cache.getHits());
+			assertTrue(r2.contains(EX + "o2"));
+			assertEquals(r2, execute(repository, ""));
+			assertEquals(2, cache.getHits());
+			// the results of the old version are removed
+			assertEquals(1, cache.getCount());
+
+			// the results depending on the time aren't cached
+			int count = cache.getCount();
+			ByteArrayOutputStream nowOut = new ByteArrayOutputStream();
+			repository.execute("SELECT ?s ?now { ?s ?p ?o BIND(NOW() AS ?now) }", 0, ACCEPT, null, nowOut, "");
+			assertTrue(nowOut.toString(StandardCharsets.UTF_8).contains(EX + "s"));
+			assertEquals(count, cache.getCount());
+
+			// the prefixes are changing the queries
+			repository.clearDefaultPrefixes();
+			assertEquals(0, cache.getCount());
+			assertFalse(execute(repository, "").isEmpty());
+		} finally {
+			repository.shutDown();
+		}
+	}
+}
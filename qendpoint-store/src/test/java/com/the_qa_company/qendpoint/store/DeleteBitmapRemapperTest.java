@@ -0,0 +1,112 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.core.dictionary.Dictionary;
+import com.the_qa_company.qendpoint.core.dictionary.impl.kcat.KCatMapping;
+import com.the_qa_company.qendpoint.core.enums.TripleComponentRole;
+import com.the_qa_company.qendpoint.core.exceptions.NotFoundException;
+import com.the_qa_company.qendpoint.core.exceptions.ParserException;
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.hdt.HDTManager;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
+import com.the_qa_company.qendpoint.core.triples.IteratorTripleString;
+import com.the_qa_company.qendpoint.core.triples.TripleID;
+import com.the_qa_company.qendpoint.core.util.LargeFakeDataSetStreamSupplier;
+import com.the_qa_company.qendpoint.utils.BitArrayDisk;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DeleteBitmapRemapperTest {
+	@Rule
+	public TemporaryFolder tempDir = TemporaryFolder.builder().assureDeletion().build();
+
+	@Test
+	public void remapTest() throws IOException, ParserException, NotFoundException {
+		Path root = tempDir.newFolder().toPath();
+		Path oldPath = root.resolve("old.hdt");
+		Path newPath = root.resolve("new.hdt");
+		// same seed, the new HDT contains the triples of the old HDT
+		LargeFakeDataSetStreamSupplier.createSupplierWithMaxTriples(10_000, 42).createAndSaveFakeHDT(HDTOptions.of(),
+				oldPath);
+		LargeFakeDataSetStreamSupplier.createSupplierWithMaxTriples(15_000, 42).createAndSaveFakeHDT(HDTOptions.of(),
+				newPath);
+
+		try (HDT oldHdt = HDTManager.mapIndexedHDT(oldPath); HDT newHdt = HDTManager.mapIndexedHDT(newPath)) {
+			long numTriples = oldHdt.getTriples().getNumberOfElements();
+			// many deletes to use the scan, few deletes to use the searches
+			for (long step : new long[] { 2, 3, 997 }) {
+				for (int workers : new int[] { 1, 4 }) {
+					BitArrayDisk oldDelete = new BitArrayDisk(numTriples);
+					for (long i = 0; i < numTriples; i += step) {
+						oldDelete.set(i, true);
+					}
+					BitArrayDisk newDelete = new BitArrayDisk(newHdt.getTriples().getNumberOfElements());
+
+					long marked = new DeleteBitmapRemapper(oldHdt, newHdt, workers).remap(oldDelete, newDelete);
+
+					assertEquals(oldDelete.countOnes(), marked);
+					assertEquals(marked, newDelete.countOnes());
+
+					Dictionary dict = oldHdt.getDictionary();
+					for (long i = 0; i < numTriples; i += step) {
+						TripleID triple = oldHdt.getTriples().findTriple(i);
+						IteratorTripleString it = newHdt.search(
+								dict.idToString(triple.getSubject(), TripleComponentRole.SUBJECT),
+								dict.idToString(triple.getPredicate(), TripleComponentRole.PREDICATE),
+								dict.idToString(triple.getObject(), TripleComponentRole.OBJECT));
+						assertTrue(it.hasNext());
+						it.next();
+						assertTrue(newDelete.access(it.getLastTriplePosition()));
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void remapMappingTest() throws IOException, ParserException, NotFoundException {
+		Path root = tempDir.newFolder().toPath();
+		Path oldPath = root.resolve("old.hdt");
+		Path otherPath = root.resolve("other.hdt");
+		Path mappingLocation = root.resolve("mapping");
+		LargeFakeDataSetStreamSupplier.createSupplierWithMaxTriples(10_000, 42).createAndSaveFakeHDT(HDTOptions.of(),
+				oldPath);
+		LargeFakeDataSetStreamSupplier.createSupplierWithMaxTriples(5_000, 34).createAndSaveFakeHDT(HDTOptions.of(),
+				otherPath);
+
+		// the new HDT is the cat of the old HDT with another HDT, like a merge
+		HDTOptions spec = HDTOptions.of(HDTOptionsKeys.HDTCAT_LOCATION, root.resolve("cat").toAbsolutePath(),
+				HDTOptionsKeys.HDTCAT_MAPPING_LOCATION, mappingLocation);
+		try (HDT newHdt = HDTManager.catHDTPath(List.of(oldPath, otherPath), spec, null);
+				HDT oldHdt = HDTManager.mapIndexedHDT(oldPath);
+				KCatMapping mapping = new KCatMapping(mappingLocation, 0)) {
+			long numTriples = oldHdt.getTriples().getNumberOfElements();
+			for (long step : new long[] { 1, 3, 997 }) {
+				BitArrayDisk oldDelete = new BitArrayDisk(numTriples);
+				for (long i = 0; i < numTriples; i += step) {
+					oldDelete.set(i, true);
+				}
+				BitArrayDisk expected = new BitArrayDisk(newHdt.getTriples().getNumberOfElements());
+				BitArrayDisk newDelete = new BitArrayDisk(newHdt.getTriples().getNumberOfElements());
+
+				long expectedMarked = new DeleteBitmapRemapper(oldHdt, newHdt, 2).remap(oldDelete, expected);
+				// small chunks to read the deleted positions in multiple chunks
+				long marked = new DeleteBitmapRemapper(oldHdt, newHdt, mapping, 2, 1000).remap(oldDelete, newDelete);
+
+				assertEquals(oldDelete.countOnes(), marked);
+				assertEquals(expectedMarked, marked);
+				for (long i = 0; i < newHdt.getTriples().getNumberOfElements(); i++) {
+					assertEquals(expected.access(i), newDelete.access(i));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.core.enums.TripleComponentRole;
+import com.the_qa_company.qendpoint.core.exceptions.ParserException;
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.hdt.HDTManager;
+import com.the_qa_company.qendpoint.core.listener.ProgressListener;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.triples.TripleString;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.repository.sail.SailRepository;
+import org.eclipse.rdf4j.repository.sail.SailRepositoryConnection;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DeltaPairFilterTest {
+	private static final String EX = "http://example.org/#";
+
+	@Rule
+	public TemporaryFolder tempDir = TemporaryFolder.builder().assureDeletion().build();
+
+	@Test
+	public void filterTest() throws IOException {
+		File file = tempDir.newFile();
+		Files.delete(file.toPath());
+		long size;
+		try (DeltaPairFilter filter = new DeltaPairFilter(file, 1000, false)) {
+			assertTrue(filter.isEmpty());
+			size = filter.getSize();
+			assertEquals(1, Long.bitCount(size));
+			for (long i = 1; i <= 1000; i++) {
+				filter.add(i, i % 10 + 1, i + 1);
+			}
+			assertFalse(filter.isEmpty());
+		}
+
+		// the size is read from the file
+		try (DeltaPairFilter filter = new DeltaPairFilter(file, 100_000_000, false)) {
+			assertEquals(size, filter.getSize());
+			for (long i = 1; i <= 1000; i++) {
+				assertTrue(filter.mightContain(i, i % 10 + 1, i + 1));
+				assertTrue(filter.mightContain(i, i % 10 + 1, 0));
+				assertTrue(filter.mightContain(0, i % 10 + 1, i + 1));
+				assertTrue(filter.mightContain(i, -1, i + 1));
+			}
+			assertTrue(filter.mightContain(0, 0, 0));
+
+			int falsePositives = 0;
+			for (long i = 1; i <= 1000; i++) {
+				if (filter.mightContain(i, (i + 5) % 10 + 1, 0)) {
+					falsePositives++;
+				}
+			}
+			assertTrue("too many false positives: " + falsePositives, falsePositives < 50);
+		}
+	}
+
+	@Test
+	public void endpointTest() throws IOException, ParserException {
+		EndpointFiles files = new EndpointFiles(tempDir.newFolder().toPath());
+		Path hdtPath = files.getHDTIndexPath();
+		Files.createDirectories(hdtPath.getParent());
+		try (HDT hdt = HDTManager.generateHDT(
+				List.of(new TripleString(EX + "a", EX + "p", EX + "d"), new TripleString(EX + "c", EX + "q", EX + "b"))
+						.iterator(),
+				EX, HDTOptions.of(), ProgressListener.ignore())) {
+			hdt.saveToHDT(hdtPath, ProgressListener.ignore());
+		}
+		EndpointStore endpoint = new EndpointStore(files, HDTOptions.of());
+		SailRepository repository = new SailRepository(endpoint);
+		repository.init();
+		try {
+			ValueFactory vf = repository.getValueFactory();
+			try (SailRepositoryConnection connection = repository.getConnection()) {
+				connection.add(vf.createIRI(EX + "a"), vf.createIRI(EX + "p"), vf.createIRI(EX + "b"));
+				connection.add(vf.createIRI(EX + "c"), vf.createIRI(EX + "q"), vf.createIRI(EX + "d"));
+			}
+
+			HDT hdt = endpoint.getHdt();
+			long a = hdt.getDictionary().stringToId(EX + "a", TripleComponentRole.SUBJECT);
+			long p = hdt.getDictionary().stringToId(EX + "p", TripleComponentRole.PREDICATE);
+			long q = hdt.getDictionary().stringToId(EX + "q", TripleComponentRole.PREDICATE);
+			long b = hdt.getDictionary().stringToId(EX + "b", TripleComponentRole.OBJECT);
+
+			assertTrue(endpoint.shouldSearchOverRDF4J(a, p, 0));
+			assertTrue(endpoint.shouldSearchOverRDF4J(a, p, b));
+			assertTrue(endpoint.shouldSearchOverRDF4J(a, 0, 0));
+			// a, q and b are all in the delta, but not together
+			assertFalse(endpoint.shouldSearchOverRDF4J(a, q, 0));
+			assertFalse(endpoint.shouldSearchOverRDF4J(0, q, b));
+
+			try (SailRepositoryConnection connection = repository.getConnection()) {
+				assertEquals(2, connection.getStatements(vf.createIRI(EX + "a"), null, null, false).stream().count());
+				assertEquals(0, connection.getStatements(vf.createIRI(EX + "a"), vf.createIRI(EX + "q"), null, false)
+						.stream().count());
+			}
+		} finally {
+			repository.shutDown();
+		}
+
+		// the filter is reloaded with the store
+		endpoint = new EndpointStore(files, HDTOptions.of());
+		repository = new SailRepository(endpoint);
+		repository.init();
+		try {
+			HDT hdt = endpoint.getHdt();
+			long a = hdt.getDictionary().stringToId(EX + "a", TripleComponentRole.SUBJECT);
+			long p = hdt.getDictionary().stringToId(EX + "p", TripleComponentRole.PREDICATE);
+			long q = hdt.getDictionary().stringToId(EX + "q", TripleComponentRole.PREDICATE);
+			assertTrue(endpoint.shouldSearchOverRDF4J(a, p, 0));
+			assertFalse(endpoint.shouldSearchOverRDF4J(a, q, 0));
+		} finally {
+			repository.shutDown();
+		}
+	}
+}
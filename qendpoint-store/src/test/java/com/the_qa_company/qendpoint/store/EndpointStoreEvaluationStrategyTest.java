@@ -0,0 +1,108 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.core.exceptions.ParserException;
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.hdt.HDTManager;
+import com.the_qa_company.qendpoint.core.listener.ProgressListener;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.triples.TripleString;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.XSD;
+import org.eclipse.rdf4j.query.TupleQueryResult;
+import org.eclipse.rdf4j.repository.sail.SailRepository;
+import org.eclipse.rdf4j.repository.sail.SailRepositoryConnection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class EndpointStoreEvaluationStrategyTest {
+	private static final String EX = "http://example.org/#";
+	@Rule
+	public TemporaryFolder tempDir = TemporaryFolder.builder().assureDeletion().build();
+	private SailRepository repository;
+
+	private static TripleString triple(String s, String p, String o) {
+		return new TripleString(s.startsWith("_:") ? s : EX + s, EX + p,
+				o.startsWith("\"") || o.startsWith("_:") ? o : EX + o);
+	}
+
+	@Before
+	public void setup() throws IOException, ParserException {
+		Path root = tempDir.newFolder().toPath();
+		EndpointFiles files = new EndpointFiles(root);
+		Path hdtIndex = Path.of(files.getHDTIndex());
+		Files.createDirectories(hdtIndex.getParent());
+
+		String xsdInt = "^^<" + XSD.INT + ">";
+		List<TripleString> triples = List.of(triple("a", "p", "b"), triple("b", "p", "c"),
+				triple("a", "q", "\"1\"" + xsdInt), triple("b", "q", "\"01\"" + xsdInt),
+				triple("c", "q", "\"2\"" + xsdInt), triple("p", "p", "a"), triple("a", "r", "_:b1"),
+				triple("a", "nan", "\"NaN\"^^<" + XSD.DOUBLE + ">"));
+		try (HDT hdt = HDTManager.generateHDT(triples.iterator(), EX, HDTOptions.of(), ProgressListener.ignore())) {
+			hdt.saveToHDT(hdtIndex, ProgressListener.ignore());
+		}
+
+		repository = new SailRepository(new EndpointStore(files));
+		repository.init();
+
+		// add triples in the delta store
+		try (SailRepositoryConnection connection = repository.getConnection()) {
+			ValueFactory vf = connection.getValueFactory();
+			connection.begin();
+			connection.add(vf.createIRI(EX, "d"), vf.createIRI(EX, "q"), vf.createLiteral("1", XSD.INT));
+			connection.add(vf.createIRI(EX, "a"), vf.createIRI(EX, "p"), vf.createIRI(EX, "c"));
+			connection.commit();
+		}
+	}
+
+	@After
+	public void complete() {
+		repository.shutDown();
+	}
+
+	private long count(String query) {
+		try (SailRepositoryConnection connection = repository.getConnection();
+				TupleQueryResult result = connection.prepareTupleQuery("PREFIX ex: <" + EX + ">\n" + query)
+						.evaluate()) {
+			return result.stream().count();
+		}
+	}
+
+	@Test
+	public void distinctTest() {
+		// the "1" literal is in the HDT and in the delta store
+		assertEquals(3, count("SELECT DISTINCT ?o { ?s ex:q ?o }"));
+		// ex:p is a predicate and a subject, ex:nan is only a predicate
+		assertEquals(8, count("SELECT DISTINCT ?x { { ?x ?p ?y } UNION { ?y ?x ?z } }"));
+		// unbound values
+		assertEquals(3, count("SELECT DISTINCT ?s ?o { ?s ex:p ?x OPTIONAL { ?x ex:nan ?o } }"));
+		// values not in the HDT
+		assertEquals(4, count("SELECT DISTINCT ?s ?v { ?s ex:p ?x BIND(STR(?x) AS ?v) }"));
+		assertEquals(1, count("SELECT DISTINCT ?v { ?s ex:p ?x BIND(STRLEN(STR(?s)) AS ?v) }"));
+	}
+
+	@Test
+	public void equalityTest() {
+		// "1" and "01" are the same value, but not the same term
+		assertEquals(10, count("SELECT * { ?s ex:q ?o . ?s2 ex:q ?o2 FILTER(?o = ?o2) }"));
+		assertEquals(6, count("SELECT * { ?s ex:q ?o . ?s2 ex:q ?o2 FILTER(sameTerm(?o, ?o2)) }"));
+		assertEquals(6, count("SELECT * { ?s ex:q ?o . ?s2 ex:q ?o2 FILTER(?o != ?o2) }"));
+		assertEquals(4, count("SELECT * { ?s ?x ?o FILTER(?x = ex:p) }"));
+		assertEquals(3, count("SELECT * { ?s ex:p ?o . ?o2 ex:p ?s FILTER(?s = ?s) }"));
+		// subject/object join on the shared section
+		assertEquals(3, count("SELECT * { ?s ex:p ?o . ?o ex:p ?o2 }"));
+		// NaN isn't equal to itself, but it is the same term
+		assertEquals(0, count("SELECT * { ?s ex:nan ?o . ?s2 ex:nan ?o2 FILTER(?o = ?o2) }"));
+		assertEquals(1, count("SELECT * { ?s ex:nan ?o . ?s2 ex:nan ?o2 FILTER(?o != ?o2) }"));
+		assertEquals(1, count("SELECT * { ?s ex:nan ?o . ?s2 ex:nan ?o2 FILTER(sameTerm(?o, ?o2)) }"));
+	}
+}
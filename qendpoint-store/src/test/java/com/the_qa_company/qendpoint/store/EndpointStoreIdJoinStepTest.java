@@ -0,0 +1,199 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.core.exceptions.ParserException;
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.hdt.HDTManager;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
+import com.the_qa_company.qendpoint.core.triples.TripleID;
+import com.the_qa_company.qendpoint.core.util.LargeFakeDataSetStreamSupplier;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.rio.helpers.NTriplesUtil;
+import org.eclipse.rdf4j.query.Binding;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.TupleQueryResult;
+import org.eclipse.rdf4j.repository.RepositoryResult;
+import org.eclipse.rdf4j.repository.sail.SailRepository;
+import org.eclipse.rdf4j.repository.sail.SailRepositoryConnection;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EndpointStoreIdJoinStepTest {
+	@Rule
+	public TemporaryFolder tempDir = TemporaryFolder.builder().assureDeletion().build();
+
+	private SailRepository createStore(Path hdt, HDTOptions spec) throws IOException {
+		EndpointFiles files = new EndpointFiles(tempDir.newFolder().toPath());
+		Path hdtIndex = Path.of(files.getHDTIndex());
+		Files.createDirectories(hdtIndex.getParent());
+		Files.copy(hdt, hdtIndex);
+		SailRepository repository = new SailRepository(new EndpointStore(files, spec));
+		repository.init();
+		return repository;
+	}
+
+	private static List<String> query(SailRepository repository, String query) {
+		List<String> results = new ArrayList<>();
+		try (SailRepositoryConnection connection = repository.getConnection();
+				TupleQueryResult result = connection.prepareTupleQuery(query).evaluate()) {
+			for (BindingSet bindings : result) {
+				List<String> values = new ArrayList<>();
+				for (Binding binding : bindings) {
+					values.add(binding.getName() + "=" + binding.getValue());
+				}
+				values.sort(String::compareTo);
+				results.add(String.join(" ", values));
+			}
+		}
+		results.sort(String::compareTo);
+		return results;
+	}
+
+	private static void deleteSome(SailRepository repository) {
+		try (SailRepositoryConnection connection = repository.getConnection()) {
+			List<Statement> statements;
+			try (RepositoryResult<Statement> it = connection.getStatements(null, null, null, false)) {
+				statements = it.stream().collect(Collectors.toList());
+			}
+			connection.begin();
+			for (int i = 0; i < statements.size(); i += 7) {
+				connection.remove(statements.get(i));
+			}
+			connection.commit();
+		}
+	}
+
+	@Test
+	public void sortedOrderTest() throws IOException, ParserException {
+		Path hdtPath = tempDir.newFolder().toPath().resolve("test.hdt");
+		LargeFakeDataSetStreamSupplier.createSupplierWithMaxTriples(200, 34).createAndSaveFakeHDT(HDTOptions.of(),
+				hdtPath);
+		try (HDT hdt = HDTManager.mapIndexedHDT(hdtPath)) {
+			TripleID all = new TripleID();
+			// SPO index, sorted by subject
+			assertTrue(EndpointStoreIdJoinStep.isSortedBy(hdt.getTriples().search(all), all, 0));
+			assertFalse(EndpointStoreIdJoinStep.isSortedBy(hdt.getTriples().search(all), all, 2));
+
+			TripleID predicate = new TripleID(0, 1, 0);
+			assertTrue(EndpointStoreIdJoinStep.isSortedBy(hdt.getTriples().search(predicate), predicate, 0));
+
+			// object index, not sorted by subject
+			TripleID object = new TripleID(0, 0, 1);
+			assertFalse(EndpointStoreIdJoinStep.isSortedBy(hdt.getTriples().search(object), object, 0));
+		}
+	}
+
+	@Test
+	public void joinTest() throws IOException, ParserException {
+		Path root = tempDir.newFolder().toPath();
+		Path hdt = root.resolve("test.hdt");
+		LargeFakeDataSetStreamSupplier.createSupplierWithMaxTriples(2_000, 67).withMaxElementSplit(20)
+				.createAndSaveFakeHDT(HDTOptions.of(), hdt);
+
+		SailRepository bindJoin = createStore(hdt, HDTOptions.of(EndpointStoreOptions.ID_JOIN, false));
+		SailRepository idJoin = createStore(hdt, HDTOptions.of());
+		SailRepository idJoinPermutation = createStore(hdt,
+				HDTOptions.of(HDTOptionsKeys.BITMAPTRIPLES_INDEX_OTHERS, "POS,OSP"));
+		// force the bind join for the hash join part
+		SailRepository idJoinSmallHash = createStore(hdt, HDTOptions.of(EndpointStoreOptions.ID_JOIN_HASH_MAX_SIZE, 1));
+		// never search the keys, merge/hash joins only
+		SailRepository idJoinNoLookup = createStore(hdt,
+				HDTOptions.of(EndpointStoreOptions.ID_JOIN_LOOKUP_COST, Integer.MAX_VALUE));
+		// always search the keys of the smallest pattern
+		SailRepository idJoinLookup = createStore(hdt, HDTOptions.of(EndpointStoreOptions.ID_JOIN_LOOKUP_COST, 0));
+		// merge joins seeking in the permutations
+		SailRepository idJoinPermutationNoLookup = createStore(hdt,
+				HDTOptions.of(HDTOptionsKeys.BITMAPTRIPLES_INDEX_OTHERS, "POS,OSP",
+						EndpointStoreOptions.ID_JOIN_LOOKUP_COST, Integer.MAX_VALUE));
+		List<SailRepository> stores = List.of(bindJoin, idJoin, idJoinPermutation, idJoinSmallHash, idJoinNoLookup,
+				idJoinLookup, idJoinPermutationNoLookup);
+		try {
+			Statement first;
+			try (SailRepositoryConnection connection = bindJoin.getConnection();
+					RepositoryResult<Statement> it = connection.getStatements(null, null, null, false)) {
+				first = it.next();
+			}
+			String subject = NTriplesUtil.toNTriplesString(first.getSubject());
+			String predicate = NTriplesUtil.toNTriplesString(first.getPredicate());
+			String object = NTriplesUtil.toNTriplesString(first.getObject());
+			String[] queries = { "SELECT * { ?s ?p ?o . ?s ?p2 ?o2 }", "SELECT * { ?s ?p ?o . ?o ?p2 ?o2 }",
+					"SELECT * { ?s ?p ?o . ?o2 ?p ?s }", "SELECT * { ?s ?p ?o . ?s2 ?p2 ?s }",
+					// selective or bound patterns
+					"SELECT * { " + subject + " ?p ?o . ?s ?p2 ?o }",
+					"SELECT * { ?s " + predicate + " ?o . ?s ?p2 ?o2 }",
+					"SELECT * { ?s " + predicate + " ?o . ?s2 ?p2 ?o }",
+					"SELECT * { ?s ?p " + object + " . ?s ?p2 ?o2 }" };
+
+			for (int step = 0; step < 2; step++) {
+				for (String query : queries) {
+					List<String> expected = query(bindJoin, query);
+					assertFalse(query, expected.isEmpty());
+					for (SailRepository store : stores) {
+						assertEquals(query, expected, query(store, query));
+					}
+				}
+				// remove some HDT triples for the second step
+				stores.forEach(EndpointStoreIdJoinStepTest::deleteSome);
+			}
+		} finally {
+			stores.forEach(SailRepository::shutDown);
+		}
+	}
+
+	private static long scannedTriples(SailRepository repository, String query) {
+		try (SailRepositoryConnection connection = repository.getConnection()) {
+			EndpointStoreConnection storeConnection = (EndpointStoreConnection) connection.getSailConnection();
+			long start = storeConnection.getScannedTriples().get();
+			try (TupleQueryResult result = connection.prepareTupleQuery(query).evaluate()) {
+				assertTrue(query, result.hasNext());
+				result.forEach(bindings -> {});
+			}
+			return storeConnection.getScannedTriples().get() - start;
+		}
+	}
+
+	@Test
+	public void selectiveJoinTest() throws IOException, ParserException {
+		Path root = tempDir.newFolder().toPath();
+		Path hdt = root.resolve("test.hdt");
+		LargeFakeDataSetStreamSupplier.createSupplierWithMaxTriples(10_000, 67).withMaxElementSplit(20)
+				.createAndSaveFakeHDT(HDTOptions.of(), hdt);
+
+		SailRepository idJoin = createStore(hdt, HDTOptions.of());
+		SailRepository idJoinNoLookup = createStore(hdt,
+				HDTOptions.of(EndpointStoreOptions.ID_JOIN_LOOKUP_COST, Integer.MAX_VALUE));
+		try {
+			Statement first;
+			try (SailRepositoryConnection connection = idJoin.getConnection();
+					RepositoryResult<Statement> it = connection.getStatements(null, null, null, false)) {
+				first = it.next();
+			}
+			// the subjects of a single predicate/object pair joined with all
+			// the
+			// triples
+			String query = "SELECT * { ?s " + NTriplesUtil.toNTriplesString(first.getPredicate()) + " "
+					+ NTriplesUtil.toNTriplesString(first.getObject()) + " . ?s ?p2 ?o2 }";
+			assertEquals(query(idJoinNoLookup, query), query(idJoin, query));
+			// the keys of the subject are searched instead of reading the
+			// triples
+			long lookupScanned = scannedTriples(idJoin, query);
+			long scanned = scannedTriples(idJoinNoLookup, query);
+			assertTrue(lookupScanned + " / " + scanned, lookupScanned * 10 < scanned);
+		} finally {
+			idJoin.shutDown();
+			idJoinNoLookup.shutDown();
+		}
+	}
+}
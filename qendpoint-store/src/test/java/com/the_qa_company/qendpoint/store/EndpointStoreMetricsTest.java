@@ -0,0 +1,175 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.core.exceptions.ParserException;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
+import com.the_qa_company.qendpoint.core.util.LargeFakeDataSetStreamSupplier;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.eclipse.rdf4j.query.TupleQueryResult;
+import org.eclipse.rdf4j.repository.sail.SailRepository;
+import org.eclipse.rdf4j.repository.sail.SailRepositoryConnection;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EndpointStoreMetricsTest {
+	@Rule
+	public TemporaryFolder tempDir = TemporaryFolder.builder().assureDeletion().build();
+
+	private static long count(SailRepository repository, String query) {
+		long count = 0;
+		try (SailRepositoryConnection connection = repository.getConnection();
+				TupleQueryResult result = connection.prepareTupleQuery(query).evaluate()) {
+			while (result.hasNext()) {
+				result.next();
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static void update(SailRepository repository, String update) {
+		try (SailRepositoryConnection connection = repository.getConnection()) {
+			connection.prepareUpdate(update).execute();
+		}
+	}
+
+	private static double counter(MeterRegistry registry, String name, String tag, String value) {
+		return registry.get(EndpointStoreMetrics.PREFIX + name).tag(tag, value).counter().count();
+	}
+
+	private static long timerCount(MeterRegistry registry, String name, String tag, String value) {
+		return registry.get(EndpointStoreMetrics.PREFIX + name).tag(tag, value).timer().count();
+	}
+
+	@Test
+	public void metricsTest() throws IOException, ParserException, InterruptedException {
+		MergeRunnableStopPoint.debug = true;
+		Path root = tempDir.newFolder().toPath();
+		EndpointFiles files = new EndpointFiles(root.resolve("store"));
+		Path hdtIndex = Path.of(files.getHDTIndex());
+		Files.createDirectories(hdtIndex.getParent());
+		LargeFakeDataSetStreamSupplier.createSupplierWithMaxTriples(1_000, 42).createAndSaveFakeHDT(HDTOptions.of(),
+				hdtIndex);
+
+		MeterRegistry registry = new SimpleMeterRegistry();
+		EndpointStore endpoint = new EndpointStore(files, HDTOptions.of());
+		endpoint.setMeterRegistry(registry);
+		SailRepository repository = new SailRepository(endpoint);
+		repository.init();
+		try {
+			long triples = endpoint.getHdt().getTriples().getNumberOfElements();
+
+			// full scan of the HDT
+			assertEquals(triples, count(repository, "SELECT * { ?s ?p ?o }"));
+			assertEquals(1, registry.get(EndpointStoreMetrics.PREFIX + "query").timer().count());
+			assertEquals(triples,
+					registry.get(EndpointStoreMetrics.PREFIX + "query.triples.scanned").summary().totalAmount(), 0);
+			assertEquals(triples, counter(registry, "triples.scanned", "source", "hdt"), 0);
+			assertEquals(triples, counter(registry, "delete.bitmap", "result", "miss"), 0);
+			assertEquals(0, counter(registry, "delete.bitmap", "result", "hit"), 0);
+			assertEquals(triples * 2, counter(registry, "value.reuse", "result", "hit")
+					+ counter(registry, "value.reuse", "result", "miss"), 0);
+			// the dictionary cache is disabled by default
+			assertEquals(0, registry.get(EndpointStoreMetrics.PREFIX + "dictionary.cache").tag("result", "hit")
+					.functionCounter().count(), 0);
+			assertEquals(triples, registry.get(EndpointStoreMetrics.PREFIX + "hdt.triples").gauge().value(), 0);
+
+			// delete a HDT triple and add a new one in the delta
+			String deleted;
+			try (SailRepositoryConnection connection = repository.getConnection();
+					TupleQueryResult result = connection
+							.prepareTupleQuery("SELECT * { ?s ?p ?o . FILTER (isIRI(?o)) } LIMIT 1").evaluate()) {
+				var bindings = result.next();
+				deleted = "<" + bindings.getValue("s") + "> <" + bindings.getValue("p") + "> <" + bindings.getValue("o")
+						+ ">";
+			}
+			update(repository, "DELETE DATA { " + deleted + " }");
+			update(repository, "INSERT DATA { <http://example.org/s> <http://example.org/p> \"o\" }");
+			assertTrue(registry.get(EndpointStoreMetrics.PREFIX + "update").timer().count() >= 2);
+			assertEquals(1, counter(registry, "update.triples", "operation", "remove"), 0);
+			assertEquals(1, counter(registry, "update.triples", "operation", "add"), 0);
+			assertEquals(1, registry.get(EndpointStoreMetrics.PREFIX + "delta.triples").gauge().value(), 0);
+
+			assertEquals(triples, count(repository, "SELECT * { ?s ?p ?o }"));
+			assertEquals(1, counter(registry, "delete.bitmap", "result", "hit"), 0);
+			assertEquals(1, counter(registry, "triples.scanned", "source", "native"), 0);
+
+			// merge the delta
+			endpoint.mergeStore();
+			MergeRunnable.debugWaitMerge();
+			for (int step = 1; step <= 3; step++) {
+				assertEquals(1, timerCount(registry, "merge.step", "step", String.valueOf(step)));
+			}
+			assertEquals(1, timerCount(registry, "merge.lock", "lock", "update"));
+			assertEquals(1, timerCount(registry, "merge.lock", "lock", "connection"));
+			assertEquals(triples, registry.get(EndpointStoreMetrics.PREFIX + "hdt.triples").gauge().value(), 0);
+			assertEquals(triples, count(repository, "SELECT * { ?s ?p ?o }"));
+		} finally {
+			repository.shutDown();
+		}
+		// the meters are removed with the store
+		assertTrue(registry.getMeters().isEmpty());
+	}
+
+	@Test
+	public void storeTagTest() throws IOException, ParserException {
+		Path root = tempDir.newFolder().toPath();
+		MeterRegistry registry = new SimpleMeterRegistry();
+		HDTOptions spec = HDTOptions.of(HDTOptionsKeys.DICTIONARY_CACHE_SIZE_KEY, 1_000_000,
+				HDTOptionsKeys.DICTIONARY_CACHE_STATS_KEY, true);
+		SailRepository[] repositories = new SailRepository[2];
+		String[] tags = new String[repositories.length];
+		for (int i = 0; i < repositories.length; i++) {
+			EndpointFiles files = new EndpointFiles(root.resolve("store" + i));
+			Path hdtIndex = Path.of(files.getHDTIndex());
+			Files.createDirectories(hdtIndex.getParent());
+			LargeFakeDataSetStreamSupplier.createSupplierWithMaxTriples(1_000, 42).createAndSaveFakeHDT(HDTOptions.of(),
+					hdtIndex);
+			EndpointStore endpoint = new EndpointStore(files, spec);
+			endpoint.setMeterRegistry(registry);
+			repositories[i] = new SailRepository(endpoint);
+			repositories[i].init();
+			tags[i] = files.getHDTIndexPath().toAbsolutePath().toString();
+		}
+		try {
+			String subject;
+			try (SailRepositoryConnection connection = repositories[0].getConnection();
+					TupleQueryResult result = connection.prepareTupleQuery("SELECT ?s { ?s ?p ?o } LIMIT 1")
+							.evaluate()) {
+				subject = result.next().getValue("s").toString();
+			}
+			for (int i = 0; i < 2; i++) {
+				assertTrue(count(repositories[0], "SELECT * { <" + subject + "> ?p ?o }") > 0);
+			}
+			// only the metrics of the first store are updated
+			assertTrue(registry.get(EndpointStoreMetrics.PREFIX + "query").tag(EndpointStoreMetrics.STORE_TAG, tags[0])
+					.timer().count() > 0);
+			assertEquals(0, registry.get(EndpointStoreMetrics.PREFIX + "query")
+					.tag(EndpointStoreMetrics.STORE_TAG, tags[1]).timer().count());
+			// the subject is located with the dictionary cache
+			assertTrue(registry.get(EndpointStoreMetrics.PREFIX + "dictionary.cache")
+					.tag(EndpointStoreMetrics.STORE_TAG, tags[0]).tag("result", "hit").functionCounter().count() > 0);
+
+			// closing a store doesn't remove the meters of the other store
+			repositories[0].shutDown();
+			assertTrue(registry.find(EndpointStoreMetrics.PREFIX + "query").tag(EndpointStoreMetrics.STORE_TAG, tags[0])
+					.meters().isEmpty());
+			assertEquals(1, registry.find(EndpointStoreMetrics.PREFIX + "query")
+					.tag(EndpointStoreMetrics.STORE_TAG, tags[1]).meters().size());
+		} finally {
+			for (SailRepository repository : repositories) {
+				repository.shutDown();
+			}
+		}
+		assertTrue(registry.getMeters().isEmpty());
+	}
+}
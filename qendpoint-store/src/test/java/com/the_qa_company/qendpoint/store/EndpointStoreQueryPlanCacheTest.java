@@ -0,0 +1,121 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.core.exceptions.ParserException;
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.hdt.HDTManager;
+import com.the_qa_company.qendpoint.core.listener.ProgressListener;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.triples.TripleString;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.query.TupleQuery;
+import org.eclipse.rdf4j.query.TupleQueryResult;
+import org.eclipse.rdf4j.repository.sail.SailRepository;
+import org.eclipse.rdf4j.repository.sail.SailRepositoryConnection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class EndpointStoreQueryPlanCacheTest {
+	private static final String EX = "http://example.org/#";
+
+	@Rule
+	public TemporaryFolder tempDir = TemporaryFolder.builder().assureDeletion().build();
+
+	private EndpointStore endpoint;
+	private SailRepository repository;
+
+	@Before
+	public void setup() throws IOException, ParserException {
+		MergeRunnableStopPoint.debug = true;
+		EndpointFiles files = new EndpointFiles(tempDir.newFolder().toPath());
+		Path hdtPath = files.getHDTIndexPath();
+		Files.createDirectories(hdtPath.getParent());
+		List<TripleString> triples = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			triples.add(new TripleString(EX + "s" + i, EX + "p", EX + "o" + i));
+			triples.add(new TripleString(EX + "o" + i, EX + "q", "\"" + i + "\""));
+		}
+		try (HDT hdt = HDTManager.generateHDT(triples.iterator(), EX, HDTOptions.of(), ProgressListener.ignore())) {
+			hdt.saveToHDT(hdtPath, ProgressListener.ignore());
+		}
+		endpoint = new EndpointStore(files, HDTOptions.of());
+		repository = new SailRepository(endpoint);
+		repository.init();
+		// the plans are cleared once the indexes of the HDT are loaded
+		endpoint.awaitHDTIndexes();
+	}
+
+	@After
+	public void complete() {
+		repository.shutDown();
+		MergeRunnableStopPoint.debug = false;
+	}
+
+	private List<String> select(String query, String name, Value subject) {
+		List<String> values = new ArrayList<>();
+		try (SailRepositoryConnection connection = repository.getConnection()) {
+			TupleQuery tupleQuery = connection.prepareTupleQuery(query);
+			if (subject != null) {
+				tupleQuery.setBinding("s", subject);
+			}
+			try (TupleQueryResult result = tupleQuery.evaluate()) {
+				result.forEach(bs -> values.add(bs.getValue(name).stringValue()));
+			}
+		}
+		values.sort(String::compareTo);
+		return values;
+	}
+
+	@Test
+	public void planCacheTest() throws InterruptedException {
+		EndpointStoreQueryPlanCache cache = endpoint.getQueryPlanCache();
+		assertNotNull(cache);
+
+		String query = "SELECT ?v { ?s <" + EX + "p> ?o . ?o <" + EX + "q> ?v }";
+		assertEquals(List.of("0", "1", "2", "3", "4"), select(query, "v", null));
+		assertEquals(0, cache.getHits());
+		assertEquals(1, cache.getCount());
+		assertEquals(List.of("0", "1", "2", "3", "4"), select(query, "v", null));
+		assertEquals(1, cache.getHits());
+
+		// another shape
+		assertEquals(2, select(query + " ORDER BY ?v LIMIT 2", "v", null).size());
+		assertEquals(3, select(query + " ORDER BY ?v LIMIT 3", "v", null).size());
+		assertEquals(1, cache.getHits());
+
+		// the bound values are sharing the same plan
+		ValueFactory vf = repository.getValueFactory();
+		assertEquals(List.of("1"), select(query, "v", vf.createIRI(EX + "s1")));
+		assertEquals(List.of("3"), select(query, "v", vf.createIRI(EX + "s3")));
+		assertEquals(List.of(), select(query, "v", vf.createIRI(EX + "s9")));
+		assertEquals(3, cache.getHits());
+
+		// NOW() is computed by the optimizer, the plan isn't cached
+		int count = cache.getCount();
+		assertEquals(1, select("SELECT ?n { BIND(NOW() AS ?n) }", "n", null).size());
+		assertEquals(count, cache.getCount());
+
+		// the merge is changing the HDT, the plans are removed
+		try (SailRepositoryConnection connection = repository.getConnection()) {
+			connection.prepareUpdate("INSERT DATA { <" + EX + "s5> <" + EX + "p> <" + EX + "o0> }").execute();
+		}
+		endpoint.mergeStore();
+		MergeRunnable.debugWaitMerge();
+		assertEquals(0, cache.getCount());
+		assertEquals(List.of("0", "0", "1", "2", "3", "4"), select(query, "v", null));
+		assertTrue(cache.getCount() > 0);
+	}
+}
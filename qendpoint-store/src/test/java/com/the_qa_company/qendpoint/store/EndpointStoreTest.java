@@ -8,10 +8,12 @@ import com.the_qa_company.qendpoint.core.options.HDTOptions;
 import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
 import com.the_qa_company.qendpoint.core.triples.IteratorTripleString;
 import com.the_qa_company.qendpoint.core.triples.TripleString;
+import com.the_qa_company.qendpoint.core.util.LargeFakeDataSetStreamSupplier;
 import com.the_qa_company.qendpoint.model.SimpleBNodeHDT;
 import com.the_qa_company.qendpoint.utils.BitArrayDisk;
 import org.apache.commons.io.file.PathUtils;
 import org.apache.commons.lang3.time.StopWatch;
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
 import org.eclipse.rdf4j.model.BNode;
 import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Resource;
@@ -29,6 +31,7 @@ import org.eclipse.rdf4j.repository.RepositoryResult;
 import org.eclipse.rdf4j.repository.sail.SailRepository;
 import org.eclipse.rdf4j.repository.sail.SailRepositoryConnection;
 import org.eclipse.rdf4j.sail.NotifyingSailConnection;
+import org.eclipse.rdf4j.sail.SailException;
 import org.eclipse.rdf4j.sail.memory.model.MemValueFactory;
 import org.eclipse.rdf4j.sail.nativerdf.NativeStore;
 import org.junit.After;
@@ -43,6 +46,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
@@ -269,6 +273,47 @@ public class EndpointStoreTest {
 		}
 	}
 
+	@Test
+	public void testMergeDeltaValues() throws InterruptedException, IOException {
+		File nativeStore = tempDir.newFolder("native-store");
+		File hdtStore = tempDir.newFolder("hdt-store");
+		try (HDT hdt = Utility.createTempHdtIndex(tempDir, false, false, spec)) {
+			assert hdt != null;
+			hdt.saveToHDT(hdtStore.getAbsolutePath() + File.separatorChar + HDT_INDEX_NAME, null);
+		}
+		EndpointStore store = new EndpointStore(hdtStore.getAbsolutePath() + File.separatorChar, HDT_INDEX_NAME, spec,
+				nativeStore.getAbsolutePath() + File.separatorChar, false);
+		SailRepository endpointStore = new SailRepository(store);
+		try {
+			ValueFactory vf = endpointStore.getValueFactory();
+			String ex = "http://example.com/";
+			IRI ali = vf.createIRI(ex, "Ali");
+			IRI guo = vf.createIRI(ex, "Guo");
+			try (RepositoryConnection connection = endpointStore.getConnection()) {
+				connection.add(ali, RDF.TYPE, FOAF.PERSON);
+				connection.add(ali, RDFS.LABEL, vf.createLiteral("Ali", "en"));
+				connection.add(ali, FOAF.AGE, vf.createLiteral(42));
+				connection.add(ali, FOAF.KNOWS, vf.createBNode("b1"));
+				connection.remove(guo, RDF.TYPE, FOAF.PERSON);
+				assertEquals(4, connection.getStatements(null, null, null, true).stream().count());
+			}
+
+			store.mergeStore();
+			MergeRunnable.debugWaitMerge();
+
+			try (RepositoryConnection connection = endpointStore.getConnection()) {
+				// the delta triples are now in the HDT
+				assertEquals(4, store.getHdt().getTriples().getNumberOfElements());
+				assertEquals(4, connection.getStatements(null, null, null, true).stream().count());
+				assertTrue(connection.hasStatement(ali, RDFS.LABEL, vf.createLiteral("Ali", "en"), true));
+				assertTrue(connection.hasStatement(ali, FOAF.AGE, vf.createLiteral(42), true));
+				assertFalse(connection.hasStatement(guo, RDF.TYPE, FOAF.PERSON, true));
+			}
+		} finally {
+			endpointStore.shutDown();
+		}
+	}
+
 	@Test
 	public void testMergeBig() throws IOException, InterruptedException {
 		MergeRunnableStopPoint.STEP2_END.debugLock();
@@ -822,4 +867,52 @@ public class EndpointStoreTest {
 			System.out.println(it.next());
 		}
 	}
+
+	@Test
+	public void testBatchIteratorDelete() throws IOException, ParserException {
+		Path root = tempDir.newFolder().toPath();
+		EndpointFiles files = new EndpointFiles(root);
+		Path hdtIndex = Path.of(files.getHDTIndex());
+		Files.createDirectories(hdtIndex.getParent());
+		LargeFakeDataSetStreamSupplier.createSupplierWithMaxTriples(5_000, 42).createAndSaveFakeHDT(spec, hdtIndex);
+
+		List<Statement> statements = new ArrayList<>();
+		HDTOptions storeSpec = spec.pushTop();
+		// small batch to test the split of the delete bitmap words
+		storeSpec.set(EndpointStoreOptions.TRIPLE_ITERATOR_BATCH_SIZE, 7);
+		EndpointStore store = new EndpointStore(files, storeSpec);
+		try {
+			try (NotifyingSailConnection connection = store.getConnection()) {
+				try (CloseableIteration<? extends Statement, SailException> it = connection.getStatements(null, null,
+						null, false)) {
+					while (it.hasNext()) {
+						statements.add(it.next());
+					}
+				}
+				Set<Statement> expected = new HashSet<>();
+				connection.begin();
+				for (int i = 0; i < statements.size(); i++) {
+					Statement stmt = statements.get(i);
+					// remove blocks of triples and isolated triples
+					if (i % 200 < 70 || i % 13 == 0) {
+						connection.removeStatements(stmt.getSubject(), stmt.getPredicate(), stmt.getObject());
+					} else {
+						expected.add(stmt);
+					}
+				}
+				connection.commit();
+
+				Set<Statement> actual = new HashSet<>();
+				try (CloseableIteration<? extends Statement, SailException> it = connection.getStatements(null, null,
+						null, false)) {
+					while (it.hasNext()) {
+						assertTrue(actual.add(it.next()));
+					}
+				}
+				assertEquals(expected, actual);
+			}
+		} finally {
+			store.shutDown();
+		}
+	}
 }
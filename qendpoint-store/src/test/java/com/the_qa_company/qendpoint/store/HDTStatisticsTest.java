@@ -0,0 +1,172 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.core.enums.TripleComponentRole;
+import com.the_qa_company.qendpoint.core.exceptions.ParserException;
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.hdt.HDTManager;
+import com.the_qa_company.qendpoint.core.listener.ProgressListener;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.triples.TripleString;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.TupleExpr;
+import org.eclipse.rdf4j.query.algebra.helpers.AbstractSimpleQueryModelVisitor;
+import org.eclipse.rdf4j.query.impl.EmptyBindingSet;
+import org.eclipse.rdf4j.query.parser.sparql.SPARQLParser;
+import org.eclipse.rdf4j.repository.sail.SailRepository;
+import org.eclipse.rdf4j.repository.sail.SailRepositoryConnection;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class HDTStatisticsTest {
+	private static final String EX = "http://example.org/#";
+
+	@Rule
+	public TemporaryFolder tempDir = TemporaryFolder.builder().assureDeletion().build();
+
+	/**
+	 * 100 persons with a name and 1 or 2 types, 10 of them with an email
+	 */
+	private static List<TripleString> dataset() {
+		List<TripleString> triples = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			triples.add(new TripleString(EX + "person" + i, EX + "name", "\"name " + i + "\""));
+			triples.add(new TripleString(EX + "person" + i, EX + "type", EX + "Person"));
+			if (i % 2 == 0) {
+				triples.add(new TripleString(EX + "person" + i, EX + "type", EX + "Agent"));
+			}
+			if (i % 10 == 0) {
+				triples.add(new TripleString(EX + "person" + i, EX + "email", "\"mail" + i + "\""));
+			}
+		}
+		return triples;
+	}
+
+	private static Path createHDT(Path hdtPath) throws IOException, ParserException {
+		Files.createDirectories(hdtPath.getParent());
+		try (HDT hdt = HDTManager.generateHDT(dataset().iterator(), EX, HDTOptions.of(), ProgressListener.ignore())) {
+			hdt.saveToHDT(hdtPath, ProgressListener.ignore());
+		}
+		return hdtPath;
+	}
+
+	@Test
+	public void computeTest() throws IOException, ParserException {
+		Path root = tempDir.newFolder().toPath();
+		Path hdtPath = createHDT(root.resolve("index.hdt"));
+		Path statsPath = root.resolve("index.hdt.stats");
+		try (HDT hdt = HDTManager.mapIndexedHDT(hdtPath)) {
+			HDTStatistics statistics = HDTStatistics.loadOrCompute(hdt, hdtPath, statsPath, 10);
+			assertTrue(Files.exists(statsPath));
+
+			long name = hdt.getDictionary().stringToId(EX + "name", TripleComponentRole.PREDICATE);
+			long type = hdt.getDictionary().stringToId(EX + "type", TripleComponentRole.PREDICATE);
+			long email = hdt.getDictionary().stringToId(EX + "email", TripleComponentRole.PREDICATE);
+
+			assertEquals(260, statistics.getTriples());
+			assertEquals(100, statistics.getPredicateTriples(name));
+			assertEquals(100, statistics.getPredicateSubjects(name));
+			assertEquals(100, statistics.getPredicateObjects(name));
+			assertEquals(150, statistics.getPredicateTriples(type));
+			assertEquals(100, statistics.getPredicateSubjects(type));
+			assertEquals(2, statistics.getPredicateObjects(type));
+			assertEquals(10, statistics.getPredicateTriples(email));
+			assertEquals(10, statistics.getPredicateSubjects(email));
+
+			// {name, type} and {name, type, email}
+			assertEquals(2, statistics.getCharacteristicSets().size());
+			long[] nameType = HDTStatistics.union(new long[] { name }, new long[] { type });
+			assertEquals(150, statistics.estimateStar(nameType), 0.001);
+			assertEquals(20, statistics.estimateStar(HDTStatistics.union(nameType, new long[] { email })), 0.001);
+
+			// the statistics are read from the file
+			HDTStatistics loaded = HDTStatistics.loadOrCompute(hdt, hdtPath, statsPath, 10);
+			assertEquals(statistics.getTriples(), loaded.getTriples());
+			assertEquals(statistics.getPredicateObjects(type), loaded.getPredicateObjects(type));
+			assertEquals(statistics.getCharacteristicSets().size(), loaded.getCharacteristicSets().size());
+			assertArrayEquals(statistics.getCharacteristicSets().get(0).occurrences(),
+					loaded.getCharacteristicSets().get(0).occurrences());
+		}
+	}
+
+	@Test
+	public void joinOrderTest() throws IOException, ParserException {
+		EndpointFiles files = new EndpointFiles(tempDir.newFolder().toPath());
+		createHDT(files.getHDTIndexPath());
+		EndpointStore endpoint = new EndpointStore(files, HDTOptions.of());
+		SailRepository repository = new SailRepository(endpoint);
+		repository.init();
+		try {
+			// the statistics are loaded after the opening of the store
+			endpoint.awaitHDTIndexes();
+			assertNotNull(endpoint.getStatistics());
+			assertTrue(Files.exists(files.getHDTStatisticsPath()));
+
+			TupleExpr expr = new SPARQLParser().parseQuery(
+					"SELECT * { ?s <" + EX + "type> ?t . ?s <" + EX + "name> ?n . ?s <" + EX + "email> ?m }", null)
+					.getTupleExpr();
+			EndpointStoreEvaluationStatistics evaluationStatistics = new EndpointStoreEvaluationStatistics(
+					new EndpointStoreEvaluationStatisticsHDT(endpoint),
+					endpoint.getCurrentSaliStore().getEvaluationStatistics());
+			new EndpointStoreQueryJoinOptimizer(endpoint, endpoint.getStatistics(), evaluationStatistics).optimize(expr,
+					null, EmptyBindingSet.getInstance());
+
+			// the rare email first, then the name with one value by subject
+			List<String> order = new ArrayList<>();
+			expr.visit(new AbstractSimpleQueryModelVisitor<RuntimeException>() {
+				@Override
+				public void meet(StatementPattern node) {
+					order.add(node.getPredicateVar().getValue().stringValue());
+				}
+			});
+			assertEquals(List.of(EX + "email", EX + "name", EX + "type"), order);
+
+			try (SailRepositoryConnection connection = repository.getConnection()) {
+				assertEquals(20, connection.prepareTupleQuery(
+						"SELECT * { ?s <" + EX + "type> ?t . ?s <" + EX + "name> ?n . ?s <" + EX + "email> ?m }")
+						.evaluate().stream().count());
+			}
+		} finally {
+			repository.shutDown();
+		}
+	}
+
+	@Test
+	public void mergeTest() throws IOException, ParserException, InterruptedException {
+		MergeRunnableStopPoint.debug = true;
+		EndpointFiles files = new EndpointFiles(tempDir.newFolder().toPath());
+		createHDT(files.getHDTIndexPath());
+		EndpointStore endpoint = new EndpointStore(files, HDTOptions.of());
+		SailRepository repository = new SailRepository(endpoint);
+		repository.init();
+		try {
+			endpoint.awaitHDTIndexes();
+			long triples = endpoint.getStatistics().getTriples();
+			try (SailRepositoryConnection connection = repository.getConnection()) {
+				connection.prepareUpdate("INSERT DATA { <" + EX + "new> <" + EX + "name> \"new\" }").execute();
+			}
+			endpoint.mergeStore();
+			MergeRunnable.debugWaitMerge();
+
+			// the statistics of the merged HDT are loaded after the merge
+			endpoint.awaitHDTIndexes();
+			assertNotNull(endpoint.getStatistics());
+			assertEquals(triples + 1, endpoint.getStatistics().getTriples());
+			assertEquals(endpoint.getHdt().getTriples().getNumberOfElements(), endpoint.getStatistics().getTriples());
+		} finally {
+			repository.shutDown();
+			MergeRunnableStopPoint.debug = false;
+		}
+	}
+}
@@ -0,0 +1,319 @@
+package com.the_qa_company.qendpoint.store;
+
+import com.the_qa_company.qendpoint.core.exceptions.ParserException;
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.hdt.HDTManager;
+import com.the_qa_company.qendpoint.core.listener.ProgressListener;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.core.options.HDTOptionsKeys;
+import com.the_qa_company.qendpoint.core.triples.TripleString;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.XSD;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.algebra.Compare;
+import org.eclipse.rdf4j.query.algebra.evaluation.util.QueryEvaluationUtil;
+import org.eclipse.rdf4j.query.explanation.Explanation;
+import org.eclipse.rdf4j.repository.sail.SailRepository;
+import org.eclipse.rdf4j.repository.sail.SailRepositoryConnection;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+@RunWith(Parameterized.class)
+public class HDTValueIndexTest {
+	private static final String EX = "http://example.org/#";
+	private static final ValueFactory VF = SimpleValueFactory.getInstance();
+
+	@Parameterized.Parameters(name = "{0}")
+	public static Collection<Object> params() {
+		return List.of(HDTOptionsKeys.DICTIONARY_TYPE_VALUE_MULTI_OBJECTS,
+				HDTOptionsKeys.DICTIONARY_TYPE_VALUE_MULTI_OBJECTS_LANG);
+	}
+
+	@Rule
+	public TemporaryFolder tempDir = TemporaryFolder.builder().assureDeletion().build();
+
+	@Parameterized.Parameter
+	public String dictionaryType;
+
+	private static String typed(Object value, String datatype) {
+		return "\"" + value + "\"^^<" + datatype + ">";
+	}
+
+	/**
+	 * 100 observations with an integer, a decimal, a double and a date value
+	 * and a few special values
+	 */
+	private static List<TripleString> dataset() {
+		List<TripleString> triples = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			String obs = EX + "obs" + i;
+			triples.add(new TripleString(obs, EX + "int", typed(i * 7 % 100 - 20, XSD.INTEGER.stringValue())));
+			triples.add(new TripleString(obs, EX + "dec", typed(i * 13 % 100 + ".5", XSD.DECIMAL.stringValue())));
+			triples.add(new TripleString(obs, EX + "dbl", typed((i * 3 % 100) + "E-1", XSD.DOUBLE.stringValue())));
+			triples.add(new TripleString(obs, EX + "date", typed(
+					String.format("2020-%02d-%02dT10:00:00Z", i % 12 + 1, i % 28 + 1), XSD.DATETIME.stringValue())));
+			triples.add(new TripleString(obs, EX + "label", "\"obs " + i + "\""));
+		}
+		triples.add(new TripleString(EX + "special", EX + "dbl", typed("INF", XSD.DOUBLE.stringValue())));
+		triples.add(new TripleString(EX + "special", EX + "dbl", typed("-INF", XSD.DOUBLE.stringValue())));
+		triples.add(new TripleString(EX + "special", EX + "dbl", typed("NaN", XSD.DOUBLE.stringValue())));
+		triples.add(new TripleString(EX + "special", EX + "int", typed("bad", XSD.INTEGER.stringValue())));
+		triples.add(new TripleString(EX + "special", EX + "int", typed("0010", XSD.INTEGER.stringValue())));
+		triples.add(new TripleString(EX + "special", EX + "date",
+				typed("2020-06-15T10:00:00", XSD.DATETIME.stringValue())));
+		return triples;
+	}
+
+	private HDTOptions spec() {
+		return HDTOptions.of(HDTOptionsKeys.TEMP_DICTIONARY_IMPL_KEY,
+				HDTOptionsKeys.TEMP_DICTIONARY_IMPL_VALUE_MULT_HASH, HDTOptionsKeys.DICTIONARY_TYPE_KEY,
+				dictionaryType);
+	}
+
+	private Path createHDT(Path hdtPath) throws IOException, ParserException {
+		Files.createDirectories(hdtPath.getParent());
+		try (HDT hdt = HDTManager.generateHDT(dataset().iterator(), EX, spec(), ProgressListener.ignore())) {
+			hdt.saveToHDT(hdtPath, ProgressListener.ignore());
+		}
+		return hdtPath;
+	}
+
+	@Test
+	public void computeTest() throws IOException, ParserException {
+		Path root = tempDir.newFolder().toPath();
+		Path hdtPath = createHDT(root.resolve("index.hdt"));
+		Path indexPath = root.resolve("index.hdt.values");
+		try (HDT hdt = HDTManager.mapIndexedHDT(hdtPath, spec(), ProgressListener.ignore())) {
+			HDTValueIndex index = HDTValueIndex.loadOrCompute(hdt, hdtPath, indexPath);
+			assertTrue(Files.exists(indexPath));
+
+			Set<String> types = index.getSections().stream().map(HDTValueIndex.Section::getType)
+					.collect(Collectors.toSet());
+			assertEquals(Set.of("<" + XSD.INTEGER + ">", "<" + XSD.DECIMAL + ">", "<" + XSD.DOUBLE + ">",
+					"<" + XSD.DATETIME + ">"), types);
+
+			for (HDTValueIndex.Section section : index.getSections()) {
+				// the literals are sorted by value and the ids are matching
+				// the literals
+				for (int rank = 0; rank < section.size(); rank++) {
+					Literal literal = section.literalOfRank(rank);
+					assertEquals(literal.stringValue(),
+							hdt.getDictionary()
+									.idToString(section.idOfRank(rank),
+											com.the_qa_company.qendpoint.core.enums.TripleComponentRole.OBJECT)
+									.toString().split("\"")[1]);
+					if (rank != 0) {
+						assertFalse(section.getType(), QueryEvaluationUtil.compare(section.literalOfRank(rank - 1),
+								literal, Compare.CompareOp.GT, false));
+					}
+				}
+				switch (section.getType().substring(1, section.getType().length() - 1)) {
+				// "bad" isn't indexed
+				case "http://www.w3.org/2001/XMLSchema#integer" -> assertEquals(101, section.size());
+				// NaN isn't indexed
+				case "http://www.w3.org/2001/XMLSchema#double" -> assertEquals(102, section.size());
+				// 84 distinct dates, the date without timezone isn't indexed
+				case "http://www.w3.org/2001/XMLSchema#dateTime" -> assertEquals(84, section.size());
+				default -> {
+				}
+				}
+			}
+
+			HDTValueIndex.ValueRange range = index.range(Compare.CompareOp.GE, VF.createLiteral(50));
+			assertNotNull(range);
+			// integer, decimal and double
+			assertEquals(3, range.getRanges().size());
+			// NaN isn't indexed and is greater than the numbers
+			assertFalse(range.isExact());
+			assertTrue(index.range(Compare.CompareOp.LT, VF.createLiteral(50)).isExact());
+			// 76, 77, 78 and 79
+			assertEquals(4, integerRangeSize(index.range(Compare.CompareOp.GT, VF.createLiteral(75))));
+			// a date without timezone isn't indexed
+			HDTValueIndex.ValueRange dateRange = index.range(Compare.CompareOp.GE,
+					VF.createLiteral("2020-06-15T00:00:00Z", XSD.DATETIME));
+			assertNotNull(dateRange);
+			assertFalse(dateRange.isExact());
+			assertNull(index.range(Compare.CompareOp.EQ, VF.createLiteral(50)));
+			assertNull(index.range(Compare.CompareOp.GE, VF.createLiteral("50")));
+
+			// the index is read from the file
+			HDTValueIndex loaded = HDTValueIndex.loadOrCompute(hdt, hdtPath, indexPath);
+			assertEquals(index.getSections().size(), loaded.getSections().size());
+			for (int i = 0; i < index.getSections().size(); i++) {
+				HDTValueIndex.Section section = index.getSections().get(i);
+				HDTValueIndex.Section loadedSection = loaded.getSections().get(i);
+				assertEquals(section.getType(), loadedSection.getType());
+				assertEquals(section.size(), loadedSection.size());
+				for (int rank = 0; rank < section.size(); rank++) {
+					assertEquals(section.idOfRank(rank), loadedSection.idOfRank(rank));
+				}
+			}
+		}
+	}
+
+	private static int integerRangeSize(HDTValueIndex.ValueRange range) {
+		return range.getRanges().stream().filter(r -> r.section().getType().equals("<" + XSD.INTEGER + ">"))
+				.mapToInt(HDTValueIndex.SectionRange::size).sum();
+	}
+
+	private static Set<BindingSet> query(SailRepository repository, String query) {
+		try (SailRepositoryConnection connection = repository.getConnection()) {
+			return connection.prepareTupleQuery(query).evaluate().stream().collect(Collectors.toSet());
+		}
+	}
+
+	@Test
+	public void filterTest() throws IOException, ParserException {
+		// the endpoint can't convert the bound predicates of a MSDL HDT
+		assumeTrue(dictionaryType.equals(HDTOptionsKeys.DICTIONARY_TYPE_VALUE_MULTI_OBJECTS));
+		EndpointFiles files = new EndpointFiles(tempDir.newFolder().toPath());
+		createHDT(files.getHDTIndexPath());
+		EndpointFiles filesNoIndex = new EndpointFiles(tempDir.newFolder().toPath());
+		createHDT(filesNoIndex.getHDTIndexPath());
+
+		HDTOptions spec = spec();
+		spec.set(EndpointStoreOptions.VALUE_INDEX, true);
+		EndpointStore endpoint = new EndpointStore(files, spec);
+		EndpointStore endpointNoIndex = new EndpointStore(filesNoIndex, spec());
+		SailRepository repository = new SailRepository(endpoint);
+		SailRepository repositoryNoIndex = new SailRepository(endpointNoIndex);
+		repository.init();
+		repositoryNoIndex.init();
+		try {
+			// the index is loaded after the opening of the store
+			endpoint.awaitHDTIndexes();
+			endpointNoIndex.awaitHDTIndexes();
+			assertNotNull(endpoint.getValueIndex());
+			assertNull(endpointNoIndex.getValueIndex());
+			assertTrue(Files.exists(files.getHDTValueIndexPath()));
+
+			// values of the delta store aren't in the index
+			for (SailRepository repo : List.of(repository, repositoryNoIndex)) {
+				try (SailRepositoryConnection connection = repo.getConnection()) {
+					connection.add(VF.createIRI(EX + "new"), VF.createIRI(EX + "int"), VF.createLiteral(55));
+					connection.add(VF.createIRI(EX + "new"), VF.createIRI(EX + "int"),
+							VF.createLiteral("10.5", XSD.DECIMAL));
+					connection.add(VF.createIRI(EX + "new"), VF.createIRI(EX + "int"), VF.createLiteral("abc"));
+					connection.add(VF.createIRI(EX + "new"), VF.createIRI(EX + "date"),
+							VF.createLiteral("2020-07-01T00:00:00Z", XSD.DATETIME));
+					// not in the HDT
+					connection.add(VF.createIRI(EX + "new"), VF.createIRI(EX + "int"), VF.createLiteral(500));
+					connection.add(VF.createIRI(EX + "new"), VF.createIRI(EX + "int"), VF.createLiteral(-30));
+					connection.add(VF.createIRI(EX + "new"), VF.createIRI(EX + "dbl"),
+							VF.createLiteral("77.5", XSD.DECIMAL));
+					// deleted HDT triple in the ranges
+					connection.remove(VF.createIRI(EX + "obs57"), VF.createIRI(EX + "int"),
+							VF.createLiteral("79", XSD.INTEGER));
+					connection.remove(VF.createIRI(EX + "obs43"), VF.createIRI(EX + "int"),
+							VF.createLiteral("-19", XSD.INTEGER));
+				}
+			}
+
+			List<String> filters = List.of("?v > 50", "?v >= 50", "?v < 10", "?v <= -20", "50 < ?v", "10.5 >= ?v",
+					"?v > 4.5e0", "?v < \"-INF\"^^<" + XSD.DOUBLE + ">", "?v > 1000",
+					"?v >= \"2020-06-15T00:00:00Z\"^^<" + XSD.DATETIME + ">",
+					"?v < \"2020-03-01T00:00:00+05:00\"^^<" + XSD.DATETIME + ">",
+					"?v > \"2020-06-15T00:00:00\"^^<" + XSD.DATETIME + ">", "?v > 10 && ?v < 20", "!(?v > 50)",
+					"?v > 50 || ?v < 0", "?v > 75", "?v < -15", "?v >= 99.5");
+			for (String predicate : List.of("int", "dec", "dbl", "date", "label")) {
+				for (String filter : filters) {
+					String query = "SELECT ?s ?v { ?s <" + EX + predicate + "> ?v FILTER(" + filter + ") }";
+					assertEquals(query, query(repositoryNoIndex, query), query(repository, query));
+				}
+			}
+			for (String filter : filters) {
+				String query = "SELECT ?s ?v ?l { ?s <" + EX + "int> ?v ; <" + EX + "label> ?l FILTER(" + filter
+						+ ") }";
+				assertEquals(query, query(repositoryNoIndex, query), query(repository, query));
+			}
+
+			// small range searched with the ids of the HDT literals and in the
+			// delta store
+			String smallQuery = "SELECT ?s ?v { ?s <" + EX + "int> ?v FILTER(?v < -15) }";
+			assertEquals(Set.of("obs0", "obs29", "obs72", "obs86", "new"), query(repository, smallQuery).stream()
+					.map(bs -> bs.getValue("s").stringValue().substring(EX.length())).collect(Collectors.toSet()));
+			try (SailRepositoryConnection connection = repository.getConnection()) {
+				String plan = connection.prepareTupleQuery(smallQuery).explain(Explanation.Level.Optimized).toString();
+				assertTrue(plan, plan.contains("(delta)"));
+			}
+			// the dates without timezone aren't indexed, the range isn't exact
+			String dateQuery = "SELECT ?s ?v { ?s <" + EX + "date> ?v FILTER(?v > \"2020-12-01T00:00:00Z\"^^<"
+					+ XSD.DATETIME + ">) }";
+			try (SailRepositoryConnection connection = repository.getConnection()) {
+				String plan = connection.prepareTupleQuery(dateQuery).explain(Explanation.Level.Optimized).toString();
+				assertTrue(plan, plan.contains("(value index)"));
+				assertFalse(plan, plan.contains("(delta)"));
+			}
+
+			String query = "SELECT ?s ?v { ?s <" + EX + "int> ?v FILTER(?v > 50) }";
+			try (SailRepositoryConnection connection = repository.getConnection()) {
+				String plan = connection.prepareTupleQuery(query).explain(Explanation.Level.Optimized).toString();
+				assertTrue(plan, plan.contains("(value index)"));
+			}
+			try (SailRepositoryConnection connection = repositoryNoIndex.getConnection()) {
+				String plan = connection.prepareTupleQuery(query).explain(Explanation.Level.Optimized).toString();
+				assertFalse(plan, plan.contains("(value index)"));
+			}
+		} finally {
+			repository.shutDown();
+			repositoryNoIndex.shutDown();
+		}
+	}
+
+	@Test
+	public void mergeTest() throws IOException, ParserException, InterruptedException {
+		assumeTrue(dictionaryType.equals(HDTOptionsKeys.DICTIONARY_TYPE_VALUE_MULTI_OBJECTS));
+		MergeRunnableStopPoint.debug = true;
+		EndpointFiles files = new EndpointFiles(tempDir.newFolder().toPath());
+		createHDT(files.getHDTIndexPath());
+		HDTOptions spec = spec();
+		spec.set(EndpointStoreOptions.VALUE_INDEX, true);
+		EndpointStore endpoint = new EndpointStore(files, spec);
+		SailRepository repository = new SailRepository(endpoint);
+		repository.init();
+		try {
+			try (SailRepositoryConnection connection = repository.getConnection()) {
+				connection.add(VF.createIRI(EX + "new"), VF.createIRI(EX + "int"),
+						VF.createLiteral("500", XSD.INTEGER));
+			}
+			endpoint.mergeStore();
+			MergeRunnable.debugWaitMerge();
+
+			// the value index of the merged HDT is loaded after the merge
+			endpoint.awaitHDTIndexes();
+			HDTValueIndex index = endpoint.getValueIndex();
+			assertNotNull(index);
+			HDTValueIndex.ValueRange range = index.range(Compare.CompareOp.GT, VF.createLiteral(100));
+			assertNotNull(range);
+			assertEquals(1, integerRangeSize(range));
+
+			String query = "SELECT ?s { ?s <" + EX + "int> ?v FILTER(?v > 100) }";
+			assertEquals(Set.of(VF.createIRI(EX + "new")),
+					query(repository, query).stream().map(bs -> bs.getValue("s")).collect(Collectors.toSet()));
+		} finally {
+			repository.shutDown();
+			MergeRunnableStopPoint.debug = false;
+		}
+	}
+}
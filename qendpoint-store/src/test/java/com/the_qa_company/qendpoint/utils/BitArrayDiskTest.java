@@ -7,8 +7,10 @@ import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class BitArrayDiskTest {
@@ -70,4 +72,107 @@ public class BitArrayDiskTest {
 
 		Assert.assertEquals(64, BitArrayDisk.log2(-42L));
 	}
+
+	@Test
+	public void testCoalesceWrites() throws IOException {
+		File file = tempDir.newFile("triples-delete.arr");
+		Random rnd = new Random(42);
+		long[] indexes = rnd.longs(5000, 0, 100000).toArray();
+
+		try (BitArrayDisk bitArrayDisk = new BitArrayDisk(100000, file, true)) {
+			assertTrue(bitArrayDisk.isCoalesceWrites());
+			for (long index : indexes) {
+				bitArrayDisk.set(index, true);
+			}
+			bitArrayDisk.set(indexes[0], false);
+
+			// the words aren't written before the force
+			try (BitArrayDisk reader = new BitArrayDisk(100000, file)) {
+				assertEquals(0, reader.countOnes());
+			}
+
+			bitArrayDisk.force(false);
+
+			try (BitArrayDisk reader = new BitArrayDisk(100000, file)) {
+				assertEquals(bitArrayDisk.countOnes(), reader.countOnes());
+				for (int i = 0; i < 100000; i++) {
+					assertEquals(bitArrayDisk.access(i), reader.access(i));
+				}
+			}
+			bitArrayDisk.set(indexes[0], true);
+			bitArrayDisk.set(99999, true);
+		}
+
+		// the close should write the remaining words
+		try (BitArrayDisk bitArrayDisk = new BitArrayDisk(100000, file)) {
+			for (long index : indexes) {
+				assertTrue(bitArrayDisk.access(index));
+			}
+			assertTrue(bitArrayDisk.access(99999));
+		}
+	}
+
+	@Test
+	public void testCoalesceWritesChangeToInDisk() throws IOException {
+		File file = tempDir.newFile("triples-delete.arr");
+
+		try (BitArrayDisk bitArrayDisk = new BitArrayDisk(1000, true)) {
+			bitArrayDisk.set(10, true);
+			bitArrayDisk.changeToInDisk(file);
+			bitArrayDisk.set(500, true);
+			bitArrayDisk.set(10, false);
+			bitArrayDisk.flush();
+		}
+
+		try (BitArrayDisk bitArrayDisk = new BitArrayDisk(1000, file)) {
+			assertFalse(bitArrayDisk.access(10));
+			assertTrue(bitArrayDisk.access(500));
+			assertEquals(1, bitArrayDisk.countOnes());
+		}
+	}
+
+	@Test
+	public void testRankSelect() throws IOException {
+		Random rnd = new Random(34);
+		int size = 5000;
+		boolean[] bits = new boolean[size * 2];
+
+		try (BitArrayDisk bitArrayDisk = new BitArrayDisk(size, tempDir.newFile("triples-delete.arr"), true)) {
+			for (int step = 0; step < 200; step++) {
+				// interleave the updates and the queries, the last steps are
+				// growing the bitmap
+				int max = step < 150 ? size : size * 2;
+				for (int i = 0; i < 20; i++) {
+					int index = rnd.nextInt(max);
+					boolean value = rnd.nextInt(3) != 0;
+					bits[index] = value;
+					bitArrayDisk.set(index, value);
+				}
+
+				long numbits = bitArrayDisk.getNumBits();
+				long ones = 0;
+				long zeros = 0;
+				long prev = -1;
+				for (int i = 0; i < numbits; i++) {
+					if (bits[i]) {
+						ones++;
+						assertEquals(i, bitArrayDisk.select1(ones));
+						assertEquals(i, bitArrayDisk.selectNext1(prev + 1));
+						prev = i;
+					} else {
+						zeros++;
+						assertEquals(i, bitArrayDisk.select0(zeros));
+					}
+					assertEquals(prev, bitArrayDisk.selectPrev1(i));
+					assertEquals(ones, bitArrayDisk.rank1(i));
+					assertEquals(zeros, bitArrayDisk.rank0(i));
+				}
+				assertEquals(-1, bitArrayDisk.selectNext1(prev + 1));
+				assertEquals(ones, bitArrayDisk.countOnes());
+				assertEquals(zeros, bitArrayDisk.countZeros());
+				assertEquals(numbits, bitArrayDisk.select1(ones + 1));
+				assertEquals(numbits, bitArrayDisk.select0(zeros + 1));
+			}
+		}
+	}
 }
@@ -0,0 +1,168 @@
+package com.the_qa_company.qendpoint.utils.rdf;
+
+import com.the_qa_company.qendpoint.core.enums.RDFNotation;
+import com.the_qa_company.qendpoint.core.exceptions.ParserException;
+import com.the_qa_company.qendpoint.core.hdt.HDT;
+import com.the_qa_company.qendpoint.core.hdt.HDTManager;
+import com.the_qa_company.qendpoint.core.listener.ProgressListener;
+import com.the_qa_company.qendpoint.core.options.HDTOptions;
+import com.the_qa_company.qendpoint.store.EndpointFiles;
+import com.the_qa_company.qendpoint.store.EndpointStore;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.GraphQueryResult;
+import org.eclipse.rdf4j.query.TupleQueryResult;
+import org.eclipse.rdf4j.query.TupleQueryResultHandler;
+import org.eclipse.rdf4j.query.resultio.QueryResultIO;
+import org.eclipse.rdf4j.query.resultio.TupleQueryResultFormat;
+import org.eclipse.rdf4j.query.resultio.helpers.QueryResultCollector;
+import org.eclipse.rdf4j.repository.sail.SailRepository;
+import org.eclipse.rdf4j.repository.sail.SailRepositoryConnection;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.Rio;
+import org.eclipse.rdf4j.rio.helpers.NTriplesUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+
+public class ByteResultsWriterTest {
+	private static final String NT = """
+			<http://ex.org/s1> <http://ex.org/p> "simple" .
+			<http://ex.org/s1> <http://ex.org/p> "with \\"quotes\\" and \\\\ backslash" .
+			<http://ex.org/s1> <http://ex.org/p> "line\\nbreak\\ttab\\rreturn" .
+			<http://ex.org/s1> <http://ex.org/p> "unicode é中😀"@fr-be .
+			<http://ex.org/s1> <http://ex.org/p> "42"^^<http://www.w3.org/2001/XMLSchema#integer> .
+			<http://ex.org/s1> <http://ex.org/p> "-1.5"^^<http://www.w3.org/2001/XMLSchema#decimal> .
+			<http://ex.org/s1> <http://ex.org/p> "1.0E2"^^<http://www.w3.org/2001/XMLSchema#double> .
+			<http://ex.org/s1> <http://ex.org/p> "NaN"^^<http://www.w3.org/2001/XMLSchema#double> .
+			<http://ex.org/s1> <http://ex.org/p> "2020-01-01"^^<http://www.w3.org/2001/XMLSchema#date> .
+			<http://ex.org/s1> <http://ex.org/p> "typed"^^<http://www.w3.org/2001/XMLSchema#string> .
+			<http://ex.org/s2> <http://ex.org/p> _:node .
+			_:node <http://ex.org/p> <http://ex.org/été> .
+			""";
+
+	@Rule
+	public TemporaryFolder tempDir = TemporaryFolder.builder().assureDeletion().build();
+
+	private SailRepository repository;
+
+	@Before
+	public void setup() throws IOException, ParserException {
+		EndpointFiles files = new EndpointFiles(tempDir.newFolder().toPath());
+		Path hdtPath = files.getHDTIndexPath();
+		Files.createDirectories(hdtPath.getParent());
+		try (HDT hdt = HDTManager.generateHDT(new ByteArrayInputStream(NT.getBytes(StandardCharsets.UTF_8)),
+				"http://ex.org/", RDFNotation.NTRIPLES, HDTOptions.of(), ProgressListener.ignore())) {
+			hdt.saveToHDT(hdtPath, ProgressListener.ignore());
+		}
+		repository = new SailRepository(new EndpointStore(files, HDTOptions.of()));
+		repository.init();
+		try (SailRepositoryConnection connection = repository.getConnection()) {
+			// delta values, not in the dictionary
+			connection.prepareUpdate("""
+					INSERT DATA {
+					    <http://ex.org/s3> <http://ex.org/p> "delta \\"value\\"\\n" .
+					    <http://ex.org/s3> <http://ex.org/p> "delta"@en .
+					    <http://ex.org/s3> <http://ex.org/p> "7"^^<http://www.w3.org/2001/XMLSchema#integer> .
+					}
+					""").execute();
+		}
+	}
+
+	@After
+	public void complete() {
+		repository.shutDown();
+	}
+
+	private static String toString(Value value) {
+		// the parsers can rename the blank nodes
+		return value.isBNode() ? "_:b" : NTriplesUtil.toNTriplesString(value);
+	}
+
+	private static String toString(BindingSet bindings) {
+		List<String> values = new ArrayList<>();
+		for (String name : List.of("s", "p", "o")) {
+			Value value = bindings.getValue(name);
+			values.add(value == null ? "" : toString(value));
+		}
+		return String.join(" ", values);
+	}
+
+	private static String toString(Statement st) {
+		return toString(st.getSubject()) + " " + toString(st.getPredicate()) + " " + toString(st.getObject());
+	}
+
+	private List<String> expectedBindings() {
+		List<String> expected = new ArrayList<>();
+		try (SailRepositoryConnection connection = repository.getConnection();
+				TupleQueryResult result = connection.prepareTupleQuery("SELECT * { ?s ?p ?o }").evaluate()) {
+			result.forEach(bs -> expected.add(toString(bs)));
+		}
+		expected.sort(String::compareTo);
+		return expected;
+	}
+
+	private void assertTupleWriter(Function<ByteArrayOutputStream, TupleQueryResultHandler> writer,
+			TupleQueryResultFormat format) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (SailRepositoryConnection connection = repository.getConnection()) {
+			connection.prepareTupleQuery("SELECT * { ?s ?p ?o }").evaluate(writer.apply(out));
+		}
+		QueryResultCollector collector = new QueryResultCollector();
+		try (InputStream is = new ByteArrayInputStream(out.toByteArray())) {
+			QueryResultIO.parseTuple(is, format, collector, SimpleValueFactory.getInstance());
+		}
+		assertEquals(List.of("s", "p", "o"), collector.getBindingNames());
+		List<String> actual = new ArrayList<>();
+		collector.getBindingSets().forEach(bs -> actual.add(toString(bs)));
+		actual.sort(String::compareTo);
+		assertEquals(expectedBindings(), actual);
+	}
+
+	@Test
+	public void jsonTest() throws IOException {
+		assertTupleWriter(ByteSPARQLResultsJSONWriter::new, TupleQueryResultFormat.JSON);
+	}
+
+	@Test
+	public void tsvTest() throws IOException {
+		assertTupleWriter(ByteSPARQLResultsTSVWriter::new, TupleQueryResultFormat.TSV);
+	}
+
+	@Test
+	public void ntriplesTest() throws IOException {
+		List<String> expected = new ArrayList<>();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (SailRepositoryConnection connection = repository.getConnection()) {
+			try (GraphQueryResult result = connection.prepareGraphQuery("CONSTRUCT WHERE { ?s ?p ?o }").evaluate()) {
+				result.forEach(st -> expected.add(toString(st)));
+			}
+			connection.prepareGraphQuery("CONSTRUCT WHERE { ?s ?p ?o }").evaluate(new ByteNTriplesWriter(out));
+		}
+		expected.sort(String::compareTo);
+
+		List<String> actual = new ArrayList<>();
+		try (InputStream is = new ByteArrayInputStream(out.toByteArray())) {
+			Rio.parse(is, RDFFormat.NTRIPLES).forEach(st -> actual.add(toString(st)));
+		}
+		actual.sort(String::compareTo);
+		assertEquals(expected, actual);
+	}
+}